@@ -16,9 +16,14 @@
  */
 package org.apache.logging.log4j;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.util.ArrayDeque;
 import java.util.Arrays;
+import java.util.Deque;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Applications create Markers by using the Marker Manager. All Markers created by this Manager are immutable.
@@ -57,6 +62,10 @@ public final class MarkerManager {
      * @throws IllegalArgumentException if the argument is {@code null}
      */
     public static Marker getMarker(final String name) {
+        final Marker marker = MARKERS.get(name);
+        if (marker != null) {
+            return marker;
+        }
         MARKERS.putIfAbsent(name, new Log4jMarker(name));
         return MARKERS.get(name);
     }
@@ -92,8 +101,7 @@ public final class MarkerManager {
      */
     @Deprecated
     public static Marker getMarker(final String name, final Marker parent) {
-        MARKERS.putIfAbsent(name, new Log4jMarker(name));
-        return MARKERS.get(name).addParents(parent);
+        return getMarker(name).addParents(parent);
     }
 
     /**
@@ -106,15 +114,36 @@ public final class MarkerManager {
      * {@code org.apache.logging.log4j.core.jackson.MarkerMixIn}
      * is moved to this package and would of course stay in its current module.</em>
      * </p>
+     * <p>
+     * Each marker created by the MarkerManager gets a dense id when it is first tested, and caches the set of the ids
+     * of itself and its ancestors as a bit set, so that {@link #isInstanceOf(Marker)} tests a single bit instead of
+     * walking the hierarchy. Changing the parents of any marker invalidates the cached sets, which are recomputed when
+     * they are next used. Other instances, such as deserialized markers, get no id and walk the hierarchy.
+     * </p>
      */
     public static class Log4jMarker implements Marker {
 
         private static final long serialVersionUID = 100L;
 
+        private static final AtomicInteger NEXT_ID = new AtomicInteger();
+
+        /** The id of a marker that has not been tested yet. */
+        private static final int UNASSIGNED = -1;
+
+        /** The id of a marker that is not the one the MarkerManager holds for its name. */
+        private static final int NOT_INTERNED = -2;
+
+        /** Incremented whenever the parents of a marker change. */
+        private static final AtomicInteger HIERARCHY_VERSION = new AtomicInteger();
+
         private final String name;
 
         private volatile Marker[] parents;
 
+        private transient volatile int id = UNASSIGNED;
+
+        private transient volatile Ancestors ancestors;
+
         /**
          * Required by JAXB and Jackson for XML and JSON IO.
          */
@@ -177,6 +206,9 @@ public final class MarkerManager {
                 }
             }
             this.parents = markers;
+            if (markers.length > 0) {
+                HIERARCHY_VERSION.incrementAndGet();
+            }
             return this;
         }
 
@@ -193,6 +225,7 @@ public final class MarkerManager {
             if (localParentsLength == 1) {
                 if (localParents[0].equals(parent)) {
                     parents = null;
+                    HIERARCHY_VERSION.incrementAndGet();
                     return true;
                 }
                 return false;
@@ -211,11 +244,13 @@ public final class MarkerManager {
                 }
             }
             parents = markers;
+            HIERARCHY_VERSION.incrementAndGet();
             return true;
         }
 
         @Override
         public Marker setParents(final Marker... markers) {
+            final Marker[] previous = this.parents;
             if (markers == null || markers.length == 0) {
                 this.parents = null;
             } else {
@@ -223,6 +258,9 @@ public final class MarkerManager {
                 System.arraycopy(markers, 0, array, 0, markers.length);
                 this.parents = array;
             }
+            if (!Arrays.equals(previous, this.parents)) {
+                HIERARCHY_VERSION.incrementAndGet();
+            }
             return this;
         }
 
@@ -252,6 +290,13 @@ public final class MarkerManager {
             if (this == marker) {
                 return true;
             }
+            if (marker instanceof Log4jMarker) {
+                final int markerId = ((Log4jMarker) marker).getId();
+                final long[] bits = markerId < 0 ? null : getAncestorBits();
+                if (bits != null) {
+                    return contains(bits, markerId);
+                }
+            }
             final Marker[] localParents = parents;
             if (localParents != null) {
                 // With only one or two parents the for loop is slower.
@@ -286,6 +331,13 @@ public final class MarkerManager {
             if (marker == null) {
                 return false;
             }
+            if (marker instanceof Log4jMarker) {
+                final int markerId = ((Log4jMarker) marker).getId();
+                final long[] bits = markerId < 0 ? null : getAncestorBits();
+                if (bits != null) {
+                    return contains(bits, markerId);
+                }
+            }
             final Marker[] localParents = parents;
             if (localParents != null) {
                 final int localParentsLength = localParents.length;
@@ -307,6 +359,108 @@ public final class MarkerManager {
             return false;
         }
 
+        private static boolean contains(final long[] bits, final int markerId) {
+            final int index = markerId >>> 6;
+            return index < bits.length && (bits[index] & 1L << markerId) != 0;
+        }
+
+        /**
+         * Returns the id of this marker, assigning it on first use, or a negative value if this is not the marker the
+         * MarkerManager holds for its name.
+         */
+        private int getId() {
+            final int local = id;
+            return local == UNASSIGNED ? assignId() : local;
+        }
+
+        private synchronized int assignId() {
+            if (id == UNASSIGNED) {
+                id = name != null && MARKERS.get(name) == this ? NEXT_ID.getAndIncrement() : NOT_INTERNED;
+            }
+            return id;
+        }
+
+        /**
+         * Returns the bit set of the ids of this marker and its ancestors, or {@code null} if this marker or an
+         * ancestor has no id.
+         */
+        private long[] getAncestorBits() {
+            final Ancestors cached = ancestors;
+            final int version = HIERARCHY_VERSION.get();
+            if (cached != null && cached.version == version) {
+                return cached.bits;
+            }
+            // computed from the parents read after the version, so a concurrent change causes a recomputation
+            final long[] bits = computeAncestorBits(version);
+            ancestors = new Ancestors(version, bits);
+            return bits;
+        }
+
+        /**
+         * Walks the hierarchy without recursion, visiting each marker once, so that markers whose parents form a cycle
+         * share the same set. Parents with a set that is current for the version are not walked again.
+         */
+        private long[] computeAncestorBits(final int version) {
+            final int localId = getId();
+            if (localId < 0) {
+                return null;
+            }
+            long[] bits = new long[(localId >>> 6) + 1];
+            bits[localId >>> 6] = 1L << localId;
+            final Deque<Log4jMarker> pending = new ArrayDeque<>();
+            pending.push(this);
+            while (!pending.isEmpty()) {
+                final Marker[] localParents = pending.pop().parents;
+                if (localParents == null) {
+                    continue;
+                }
+                for (final Marker parent : localParents) {
+                    if (!(parent instanceof Log4jMarker)) {
+                        return null;
+                    }
+                    final Log4jMarker log4jParent = (Log4jMarker) parent;
+                    final int parentId = log4jParent.getId();
+                    if (parentId < 0) {
+                        return null;
+                    }
+                    if (contains(bits, parentId)) {
+                        continue; // already visited, or an ancestor of a visited marker
+                    }
+                    final Ancestors cached = log4jParent.ancestors;
+                    if (cached != null && cached.version == version) {
+                        if (cached.bits == null) {
+                            return null;
+                        }
+                        bits = union(bits, cached.bits);
+                    } else {
+                        bits = union(bits, parentId);
+                        pending.push(log4jParent);
+                    }
+                }
+            }
+            return bits;
+        }
+
+        private static long[] union(final long[] bits, final long[] other) {
+            final long[] result = other.length > bits.length ? Arrays.copyOf(bits, other.length) : bits;
+            for (int i = 0; i < other.length; i++) {
+                result[i] |= other[i];
+            }
+            return result;
+        }
+
+        private static long[] union(final long[] bits, final int markerId) {
+            final int index = markerId >>> 6;
+            final long[] result = index < bits.length ? bits : Arrays.copyOf(bits, index + 1);
+            result[index] |= 1L << markerId;
+            return result;
+        }
+
+        private void readObject(final ObjectInputStream in) throws IOException, ClassNotFoundException {
+            in.defaultReadObject();
+            id = UNASSIGNED;
+        }
+
         private static boolean checkParent(final Marker parent, final Marker marker) {
             if (parent == marker) {
                 return true;
@@ -393,6 +547,19 @@ public final class MarkerManager {
             }
             sb.append(" ]");
         }
+
+        /**
+         * The ancestor bit set of a marker and the hierarchy version it was computed for.
+         */
+        private static final class Ancestors {
+            final int version;
+            final long[] bits;
+
+            Ancestors(final int version, final long[] bits) {
+                this.version = version;
+                this.bits = bits;
+            }
+        }
     }
 
 }
@@ -16,26 +16,47 @@
  */
 package org.apache.logging.log4j.spi;
 
+import java.lang.ref.WeakReference;
 import java.util.Map;
-import java.util.WeakHashMap;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.util.LoaderUtil;
+import org.apache.logging.log4j.util.PropertiesUtil;
 
 /**
  * Provides an abstract base class to use for implementing LoggerAdapter.
+ * <p>
+ * The registry of Loggers is weakly keyed by LoggerContext and can be read without locking. If the system property
+ * {@value #CACHE_CONTEXTS_PROPERTY} is true, the LoggerContext resolved for a ClassLoader is cached as well, which is
+ * only correct if the {@link LoggerContextFactory} selects contexts by ClassLoader, as it does by default.
+ * </p>
  * 
  * @param <L> the Logger class to adapt
  * @since 2.1
  */
-public abstract class AbstractLoggerAdapter<L> implements LoggerAdapter<L> {
+public abstract class AbstractLoggerAdapter<L> implements LoggerAdapter<L>, LoggerContextShutdownAware {
+
+    /**
+     * Name of the system property that enables caching the LoggerContext of each calling ClassLoader.
+     * @since 2.6
+     */
+    public static final String CACHE_CONTEXTS_PROPERTY = "log4j2.loggerAdapter.cacheContexts";
+
+    private final ConcurrentWeakIdentityMap<LoggerContext, ConcurrentMap<String, L>> loggersByContext =
+            new ConcurrentWeakIdentityMap<>();
 
     /**
      * A map to store loggers for their given LoggerContexts.
      */
-    protected final Map<LoggerContext, ConcurrentMap<String, L>> registry = new WeakHashMap<>();
+    protected final Map<LoggerContext, ConcurrentMap<String, L>> registry = loggersByContext;
+
+    private final boolean cacheContexts = PropertiesUtil.getProperties().getBooleanProperty(CACHE_CONTEXTS_PROPERTY);
+
+    /** The LoggerContexts resolved for ClassLoaders, used if {@link #cacheContexts} is true. */
+    private final ConcurrentWeakIdentityMap<ClassLoader, WeakReference<LoggerContext>> contexts =
+            new ConcurrentWeakIdentityMap<>();
 
     @Override
     public L getLogger(final String name) {
@@ -56,14 +77,39 @@ public abstract class AbstractLoggerAdapter<L> implements LoggerAdapter<L> {
      * @return the map of loggers for the given LoggerContext
      */
     public ConcurrentMap<String, L> getLoggersInContext(final LoggerContext context) {
-        synchronized (registry) {
-            ConcurrentMap<String, L> loggers = registry.get(context);
-            if (loggers == null) {
-                loggers = new ConcurrentHashMap<>();
-                registry.put(context, loggers);
-            }
+        final ConcurrentMap<String, L> loggers = registry.get(context);
+        if (loggers != null) {
             return loggers;
         }
+        final ConcurrentMap<String, L> newLoggers = new ConcurrentHashMap<>();
+        final ConcurrentMap<String, L> existing = loggersByContext.putIfAbsent(context, newLoggers);
+        if (existing != null) {
+            return existing;
+        }
+        if (context instanceof LoggerContextShutdownEnabled) {
+            ((LoggerContextShutdownEnabled) context).addShutdownListener(this);
+        }
+        return newLoggers;
+    }
+
+    /**
+     * Removes the Loggers of a context that has been shut down.
+     *
+     * @param loggerContext the LoggerContext that has been shut down
+     * @since 2.6
+     */
+    @Override
+    public void contextShutdown(final LoggerContext loggerContext) {
+        if (loggerContext instanceof LoggerContextShutdownEnabled) {
+            ((LoggerContextShutdownEnabled) loggerContext).removeShutdownListener(this);
+        }
+        registry.remove(loggerContext);
+        for (final Map.Entry<ClassLoader, WeakReference<LoggerContext>> entry : contexts.entrySet()) {
+            final LoggerContext cached = entry.getValue().get();
+            if (cached == null || cached == loggerContext) {
+                contexts.remove(entry.getKey());
+            }
+        }
     }
 
     /**
@@ -100,11 +146,26 @@ public abstract class AbstractLoggerAdapter<L> implements LoggerAdapter<L> {
         if (cl == null) {
             cl = LoaderUtil.getThreadContextClassLoader();
         }
-        return LogManager.getContext(cl, false);
+        if (!cacheContexts || cl == null) {
+            return LogManager.getContext(cl, false);
+        }
+        final WeakReference<LoggerContext> reference = contexts.get(cl);
+        LoggerContext context = reference == null ? null : reference.get();
+        if (context == null) {
+            context = LogManager.getContext(cl, false);
+            contexts.put(cl, new WeakReference<>(context));
+        }
+        return context;
     }
 
     @Override
     public void close() {
+        for (final LoggerContext context : registry.keySet()) {
+            if (context instanceof LoggerContextShutdownEnabled) {
+                ((LoggerContextShutdownEnabled) context).removeShutdownListener(this);
+            }
+        }
         registry.clear();
+        contexts.clear();
     }
 }
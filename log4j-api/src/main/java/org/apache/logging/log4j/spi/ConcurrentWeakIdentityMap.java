@@ -0,0 +1,153 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache license, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the license for the specific language governing permissions and
+ * limitations under the license.
+ */
+package org.apache.logging.log4j.spi;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.AbstractMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A thread-safe Map with weakly referenced keys that are compared by identity.
+ * <p>
+ * Unlike a synchronized {@link java.util.WeakHashMap}, lookups do not take a lock: the entries are kept in a
+ * {@link ConcurrentHashMap} whose keys are weak references, and entries whose key has been garbage collected are
+ * removed when the map is modified. Iterating over the map returns a snapshot of the live entries.
+ * </p>
+ *
+ * @param <K> the type of keys
+ * @param <V> the type of values
+ */
+final class ConcurrentWeakIdentityMap<K, V> extends AbstractMap<K, V> {
+
+    private final ConcurrentMap<Object, V> map = new ConcurrentHashMap<>();
+    private final ReferenceQueue<K> queue = new ReferenceQueue<>();
+
+    @Override
+    public V get(final Object key) {
+        return key == null ? null : map.get(new Lookup(key));
+    }
+
+    @Override
+    public boolean containsKey(final Object key) {
+        return key != null && map.containsKey(new Lookup(key));
+    }
+
+    @Override
+    public V put(final K key, final V value) {
+        expungeStaleEntries();
+        return map.put(new Key<>(key, queue), value);
+    }
+
+    /**
+     * Associates the value with the key unless the key already has a value.
+     *
+     * @param key The key.
+     * @param value The value.
+     * @return The previous value or null if there was none.
+     */
+    public V putIfAbsent(final K key, final V value) {
+        expungeStaleEntries();
+        return map.putIfAbsent(new Key<>(key, queue), value);
+    }
+
+    @Override
+    public V remove(final Object key) {
+        expungeStaleEntries();
+        return key == null ? null : map.remove(new Lookup(key));
+    }
+
+    @Override
+    public void clear() {
+        map.clear();
+        while (queue.poll() != null) {
+            // the entries are gone already
+        }
+    }
+
+    @Override
+    public Set<Map.Entry<K, V>> entrySet() {
+        final Set<Map.Entry<K, V>> entries = new HashSet<>();
+        for (final Map.Entry<Object, V> entry : map.entrySet()) {
+            @SuppressWarnings("unchecked")
+            final K key = ((Key<K>) entry.getKey()).get();
+            if (key != null) {
+                entries.add(new SimpleImmutableEntry<>(key, entry.getValue()));
+            }
+        }
+        return entries;
+    }
+
+    private void expungeStaleEntries() {
+        Reference<? extends K> reference;
+        while ((reference = queue.poll()) != null) {
+            map.remove(reference);
+        }
+    }
+
+    /**
+     * Weak reference to a key, equal to the other references and lookups of the same key.
+     */
+    private static final class Key<K> extends WeakReference<K> {
+        private final int hashCode;
+
+        Key(final K key, final ReferenceQueue<K> queue) {
+            super(key, queue);
+            this.hashCode = System.identityHashCode(key);
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (obj == this) {
+                return true;
+            }
+            final Object key = get();
+            return key != null && obj instanceof Key && ((Key<?>) obj).get() == key;
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
+    /**
+     * Short-lived strong reference used to look up a key without allocating a weak reference.
+     */
+    private static final class Lookup {
+        private final Object key;
+
+        Lookup(final Object key) {
+            this.key = key;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            return obj instanceof Key && ((Key<?>) obj).get() == key;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(key);
+        }
+    }
+}
@@ -16,7 +16,13 @@
  */
 package org.apache.logging.log4j.util;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Iterator;
 import java.util.Stack;
 
 import org.apache.logging.log4j.Logger;
@@ -46,6 +52,10 @@ import org.apache.logging.log4j.status.StatusLogger;
  * environments may fall back to using {@link Throwable#getStackTrace()} which is significantly slower due to
  * examination of every virtual frame of execution.
  * </p>
+ * <p>
+ * From Java 9, where {@code getCallerClass(int)} is gone, caller classes are searched with {@code java.lang.StackWalker}
+ * when it is available. Unlike {@link SecurityManager#getClassContext()}, it only walks the frames up to the caller.
+ * </p>
  */
 public final class ReflectionUtil {
     // Checkstyle Suppress: the lower-case 'u' ticks off CheckStyle...
@@ -57,6 +67,7 @@ public final class ReflectionUtil {
     private static final boolean SUN_REFLECTION_SUPPORTED;
     private static final Method GET_CALLER_CLASS;
     private static final PrivateSecurityManager SECURITY_MANAGER;
+    private static final StackWalkerLocator STACK_WALKER;
 
     static {
         Method getCallerClass;
@@ -104,6 +115,16 @@ public final class ReflectionUtil {
             psm = null;
         }
         SECURITY_MANAGER = psm;
+
+        StackWalkerLocator stackWalker = null;
+        if (!SUN_REFLECTION_SUPPORTED) {
+            try {
+                stackWalker = new StackWalkerLocator();
+            } catch (final Exception | LinkageError e) {
+                LOGGER.debug("java.lang.StackWalker is not available, callers are searched in the class context.", e);
+            }
+        }
+        STACK_WALKER = stackWalker;
     }
 
     private ReflectionUtil() {
@@ -113,6 +134,13 @@ public final class ReflectionUtil {
         return SUN_REFLECTION_SUPPORTED;
     }
 
+    /**
+     * Returns whether {@link #getCallerClass(String, String)} searches the caller with {@code java.lang.StackWalker}.
+     */
+    static boolean usesStackWalker() {
+        return STACK_WALKER != null;
+    }
+
     // TODO: return Object.class instead of null (though it will have a null ClassLoader)
     // (MS) I believe this would work without any modifications elsewhere, but I could be wrong
 
@@ -214,6 +242,9 @@ public final class ReflectionUtil {
             // TODO: return Object.class
             return null;
         }
+        if (STACK_WALKER != null) {
+            return STACK_WALKER.getCallerClass(fqcn, pkg);
+        }
         if (SECURITY_MANAGER != null) {
             return SECURITY_MANAGER.getCallerClass(fqcn, pkg);
         }
@@ -293,6 +324,87 @@ public final class ReflectionUtil {
         return new Stack<>();
     }
 
+    /**
+     * Searches the caller class with {@code java.lang.StackWalker}, which is used through reflection so that this class
+     * still runs on Java 7.
+     */
+    private static final class StackWalkerLocator implements InvocationHandler {
+
+        private final MethodHandle walk;
+        private final MethodHandle iterator;
+        private final MethodHandle getDeclaringClass;
+        /** The java.util.function.Function passed to StackWalker.walk, which calls {@link #invoke}. */
+        private final Object function;
+        /** The fully qualified class name and package searched by the current thread. */
+        private final ThreadLocal<String[]> searches = new ThreadLocal<String[]>() {
+            @Override
+            protected String[] initialValue() {
+                return new String[2];
+            }
+        };
+
+        StackWalkerLocator() throws ReflectiveOperationException {
+            final Class<?> walkerClass = Class.forName("java.lang.StackWalker");
+            final Class<?> optionClass = Class.forName("java.lang.StackWalker$Option");
+            final Class<?> functionClass = Class.forName("java.util.function.Function");
+            Object retainClassReference = null;
+            for (final Object option : optionClass.getEnumConstants()) {
+                if ("RETAIN_CLASS_REFERENCE".equals(option.toString())) {
+                    retainClassReference = option;
+                }
+            }
+            final Object walker = walkerClass.getMethod("getInstance", optionClass).invoke(null, retainClassReference);
+            // StackWalker.walk is caller sensitive, which a public lookup cannot unreflect
+            final MethodHandles.Lookup lookup = MethodHandles.lookup();
+            walk = lookup.unreflect(walkerClass.getMethod("walk", functionClass)).bindTo(walker).asType(
+                    MethodType.methodType(Object.class, Object.class));
+            iterator = lookup.unreflect(Class.forName("java.util.stream.BaseStream").getMethod("iterator")).asType(
+                    MethodType.methodType(Iterator.class, Object.class));
+            getDeclaringClass = lookup.unreflect(Class.forName("java.lang.StackWalker$StackFrame").getMethod(
+                    "getDeclaringClass")).asType(MethodType.methodType(Class.class, Object.class));
+            function = Proxy.newProxyInstance(functionClass.getClassLoader(), new Class<?>[] {functionClass}, this);
+        }
+
+        Class<?> getCallerClass(final String fqcn, final String pkg) {
+            final String[] search = searches.get();
+            search[0] = fqcn;
+            search[1] = pkg;
+            try {
+                // invokeExact requires the call site to match the (Object)Object type of the handle
+                final Object result = walk.invokeExact(function);
+                return (Class<?>) result;
+            } catch (final Throwable e) {
+                LOGGER.error("Error in ReflectionUtil.getCallerClass({}, {}).", fqcn, pkg, e);
+                return null;
+            }
+        }
+
+        /**
+         * Applies the function to the stream of frames: returns the first class in the package that follows the frames
+         * of the fully qualified class name.
+         */
+        @Override
+        public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+            if (!"apply".equals(method.getName())) {
+                return method.invoke(this, args);
+            }
+            final String[] search = searches.get();
+            final Iterator<?> frames = (Iterator<?>) iterator.invokeExact(args[0]);
+            boolean next = false;
+            while (frames.hasNext()) {
+                final Class<?> clazz = (Class<?>) getDeclaringClass.invokeExact(frames.next());
+                if (search[0].equals(clazz.getName())) {
+                    next = true;
+                    continue;
+                }
+                if (next && clazz.getName().startsWith(search[1])) {
+                    return clazz;
+                }
+            }
+            return null;
+        }
+    }
+
     /**
      * 
      */
@@ -103,4 +103,76 @@ public class MarkerTest {
         assertTrue("TEST1 is not an instance of PARENT", test1.isInstanceOf(parent));
         assertTrue("TEST1 is not an instance of EXISTING", test1.isInstanceOf(existing));
     }
+
+    @Test
+    public void testDeepHierarchy() {
+        final Marker root = MarkerManager.getMarker("ROOT");
+        Marker marker = root;
+        for (int i = 0; i < 100; i++) {
+            final Marker child = MarkerManager.getMarker("CHILD" + i);
+            child.addParents(marker, MarkerManager.getMarker("SIDE" + i));
+            marker = child;
+        }
+        assertTrue(marker.isInstanceOf(root));
+        assertTrue(marker.isInstanceOf("ROOT"));
+        assertTrue(marker.isInstanceOf("SIDE0"));
+        assertTrue(marker.isInstanceOf(MarkerManager.getMarker("CHILD50")));
+        assertFalse(root.isInstanceOf(marker));
+        assertFalse(MarkerManager.getMarker("SIDE0").isInstanceOf("ROOT"));
+        assertFalse(marker.isInstanceOf(MarkerManager.getMarker("UNRELATED")));
+        assertFalse(marker.isInstanceOf("UNDEFINED"));
+    }
+
+    @Test
+    public void testInstanceOfFollowsParentChanges() {
+        final Marker grandParent = MarkerManager.getMarker("GRANDPARENT");
+        final Marker parent = MarkerManager.getMarker("PARENT");
+        final Marker child = MarkerManager.getMarker("CHILD");
+        child.addParents(parent);
+        assertFalse(child.isInstanceOf(grandParent));
+        parent.addParents(grandParent);
+        assertTrue("ancestor added to parent", child.isInstanceOf(grandParent));
+        assertTrue(child.isInstanceOf("GRANDPARENT"));
+        parent.remove(grandParent);
+        assertFalse("ancestor removed from parent", child.isInstanceOf(grandParent));
+        child.setParents(grandParent);
+        assertTrue(child.isInstanceOf(grandParent));
+        assertFalse(child.isInstanceOf(parent));
+        child.setParents();
+        assertFalse(child.isInstanceOf(grandParent));
+    }
+
+    @Test
+    public void testInstanceOfWithMarkersNotHeldByManager() {
+        final Marker parent = MarkerManager.getMarker("PARENT");
+        final Marker child = new MarkerManager.Log4jMarker("CHILD").addParents(parent);
+        final Marker interned = MarkerManager.getMarker("CHILD");
+        assertNotSame(child, interned);
+        assertTrue(child.isInstanceOf(parent));
+        assertTrue(child.isInstanceOf("PARENT"));
+        assertFalse(interned.isInstanceOf(parent));
+        final Marker otherParent = new MarkerManager.Log4jMarker("PARENT");
+        assertFalse(child.isInstanceOf(otherParent));
+        interned.addParents(otherParent);
+        assertTrue(interned.isInstanceOf(otherParent));
+        assertFalse(interned.isInstanceOf(parent));
+        assertSame(interned, MarkerManager.getMarker("CHILD"));
+    }
+
+    @Test
+    public void testInstanceOfWithCyclicParents() {
+        final Marker a = MarkerManager.getMarker("CYCLE_A");
+        final Marker b = MarkerManager.getMarker("CYCLE_B");
+        final Marker other = MarkerManager.getMarker("CYCLE_OTHER");
+        final Marker child = MarkerManager.getMarker("CYCLE_CHILD").setParents(a);
+        a.setParents(b);
+        b.setParents(a, other);
+        assertTrue(a.isInstanceOf(b));
+        assertTrue(b.isInstanceOf(a));
+        assertTrue(a.isInstanceOf(other));
+        assertTrue(child.isInstanceOf(b));
+        assertTrue(child.isInstanceOf("CYCLE_OTHER"));
+        assertFalse(a.isInstanceOf(child));
+        assertFalse(other.isInstanceOf(a));
+    }
 }
@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache license, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the license for the specific language governing permissions and
+ * limitations under the license.
+ */
+package org.apache.logging.log4j.spi;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.logging.log4j.TestLoggerContext;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class AbstractLoggerAdapterTest {
+
+    private static final class ShutdownLoggerContext extends TestLoggerContext implements LoggerContextShutdownEnabled {
+        private final List<LoggerContextShutdownAware> listeners = new ArrayList<>();
+
+        @Override
+        public void addShutdownListener(final LoggerContextShutdownAware listener) {
+            listeners.add(listener);
+        }
+
+        @Override
+        public void removeShutdownListener(final LoggerContextShutdownAware listener) {
+            listeners.remove(listener);
+        }
+
+        void shutdown() {
+            for (final LoggerContextShutdownAware listener : new ArrayList<>(listeners)) {
+                listener.contextShutdown(this);
+            }
+        }
+    }
+
+    private static final class TestAdapter extends AbstractLoggerAdapter<ExtendedLogger> {
+        private LoggerContext context;
+
+        @Override
+        protected ExtendedLogger newLogger(final String name, final LoggerContext context) {
+            return context.getLogger(name);
+        }
+
+        @Override
+        protected LoggerContext getContext() {
+            return context;
+        }
+    }
+
+    @Test
+    public void testLoggersAreRegisteredPerContext() {
+        final TestAdapter adapter = new TestAdapter();
+        final LoggerContext first = new TestLoggerContext();
+        final LoggerContext second = new TestLoggerContext();
+        adapter.context = first;
+        final ExtendedLogger logger = adapter.getLogger("a");
+        assertSame(logger, adapter.getLogger("a"));
+        adapter.context = second;
+        assertNotSame(logger, adapter.getLogger("a"));
+        assertSame(logger, adapter.getLoggersInContext(first).get("a"));
+        assertEquals(2, adapter.registry.size());
+        adapter.close();
+        assertTrue(adapter.registry.isEmpty());
+    }
+
+    @Test
+    public void testShutdownRemovesContext() {
+        final TestAdapter adapter = new TestAdapter();
+        final ShutdownLoggerContext context = new ShutdownLoggerContext();
+        adapter.context = context;
+        adapter.getLogger("a");
+        adapter.getLogger("b");
+        assertEquals(1, context.listeners.size());
+        assertTrue(adapter.registry.containsKey(context));
+        context.shutdown();
+        assertFalse(adapter.registry.containsKey(context));
+        adapter.getLogger("a");
+        adapter.close();
+        assertTrue(context.listeners.isEmpty());
+    }
+}
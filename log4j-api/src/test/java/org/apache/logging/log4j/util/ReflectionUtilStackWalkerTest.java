@@ -0,0 +1,73 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache license, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the license for the specific language governing permissions and
+ * limitations under the license.
+ */
+package org.apache.logging.log4j.util;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runners.BlockJUnit4ClassRunner;
+import org.junit.runners.ParentRunner;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Tests {@link ReflectionUtil} on Java 9 and later, where callers are searched with {@code java.lang.StackWalker}.
+ */
+public class ReflectionUtilStackWalkerTest {
+
+    @Before
+    public void setUp() throws Exception {
+        boolean stackWalkerAvailable;
+        try {
+            Class.forName("java.lang.StackWalker");
+            stackWalkerAvailable = true;
+        } catch (final ClassNotFoundException e) {
+            stackWalkerAvailable = false;
+        }
+        assumeTrue(stackWalkerAvailable && !ReflectionUtil.supportsFastReflection());
+    }
+
+    @Test
+    public void testStackWalkerIsUsed() throws Exception {
+        assertTrue(ReflectionUtil.usesStackWalker());
+    }
+
+    @Test
+    public void testGetCallerClassViaName() throws Exception {
+        final Class<?> expected = BlockJUnit4ClassRunner.class;
+        final Class<?> actual = ReflectionUtil.getCallerClass("org.junit.runners.ParentRunner");
+        assertSame(expected, actual);
+    }
+
+    @Test
+    public void testGetCallerClassViaNameAndPackage() throws Exception {
+        assertSame(ReflectionUtilStackWalkerTest.class, Anchor.getCallerClass());
+    }
+
+    @Test
+    public void testGetCallerClassViaAnchorClass() throws Exception {
+        final Class<?> expected = BlockJUnit4ClassRunner.class;
+        final Class<?> actual = ReflectionUtil.getCallerClass(ParentRunner.class);
+        assertSame(expected, actual);
+    }
+
+    private static final class Anchor {
+        static Class<?> getCallerClass() {
+            return ReflectionUtil.getCallerClass(Anchor.class.getName(), "org.apache.logging.log4j.util");
+        }
+    }
+}
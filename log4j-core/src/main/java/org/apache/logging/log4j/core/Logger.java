@@ -19,20 +19,35 @@ package org.apache.logging.log4j.core;
 import java.io.ObjectStreamException;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.Marker;
 import org.apache.logging.log4j.core.config.Configuration;
 import org.apache.logging.log4j.core.config.LoggerConfig;
 import org.apache.logging.log4j.core.config.ReliabilityStrategy;
+import org.apache.logging.log4j.core.filter.BurstFilter;
 import org.apache.logging.log4j.core.filter.CompositeFilter;
+import org.apache.logging.log4j.core.filter.DynamicThresholdFilter;
+import org.apache.logging.log4j.core.filter.LevelRangeFilter;
+import org.apache.logging.log4j.core.filter.MapFilter;
+import org.apache.logging.log4j.core.filter.MarkerFilter;
+import org.apache.logging.log4j.core.filter.RegexFilter;
+import org.apache.logging.log4j.core.filter.ScriptFilter;
+import org.apache.logging.log4j.core.filter.StructuredDataFilter;
+import org.apache.logging.log4j.core.filter.ThreadContextMapFilter;
+import org.apache.logging.log4j.core.filter.ThresholdFilter;
+import org.apache.logging.log4j.core.filter.TimeFilter;
 import org.apache.logging.log4j.message.Message;
 import org.apache.logging.log4j.message.MessageFactory;
 import org.apache.logging.log4j.message.SimpleMessage;
 import org.apache.logging.log4j.spi.AbstractLogger;
+import org.apache.logging.log4j.spi.StandardLevel;
 import org.apache.logging.log4j.util.Strings;
 import org.apache.logging.log4j.util.Supplier;
 
@@ -52,6 +67,15 @@ public class Logger extends AbstractLogger implements Supplier<LoggerConfig> {
 
     private static final long serialVersionUID = 1L;
 
+    /**
+     * The filters that only ever return their onMatch, their onMismatch or NEUTRAL. Subclasses are not included since
+     * they may override the filter methods.
+     */
+    private static final Set<Class<?>> MATCHING_FILTERS = new HashSet<>(Arrays.<Class<?>>asList(BurstFilter.class,
+            DynamicThresholdFilter.class, LevelRangeFilter.class, MapFilter.class, MarkerFilter.class,
+            RegexFilter.class, ScriptFilter.class, StructuredDataFilter.class, ThreadContextMapFilter.class,
+            ThresholdFilter.class, TimeFilter.class));
+
     /**
      * Config should be consistent across threads.
      */
@@ -289,7 +313,53 @@ public class Logger extends AbstractLogger implements Supplier<LoggerConfig> {
      *            The new Configuration.
      */
     protected void updateConfiguration(final Configuration newConfig) {
-        this.privateConfig = new PrivateConfig(newConfig, this);
+        if (!privateConfig.isCurrent(newConfig)) {
+            this.privateConfig = new PrivateConfig(newConfig, this);
+        }
+    }
+
+    /**
+     * Returns a bit mask with the bit at the ordinal of each StandardLevel set if events of that level are dropped
+     * whatever the configuration-wide filter decides.
+     *
+     * @param filter The configuration-wide filter, may be null.
+     * @param intLevel The int value of the level of the Logger.
+     * @return The bit mask.
+     */
+    private static int disabledLevels(final Filter filter, final int intLevel) {
+        if (canAccept(filter)) {
+            return 0;
+        }
+        int result = 0;
+        for (final StandardLevel level : StandardLevel.values()) {
+            // custom levels map to the nearest more specific standard level, so they are dropped as well
+            if (intLevel < level.intLevel()) {
+                result |= 1 << level.ordinal();
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns whether the filter may accept an event. The filters of Log4j return their onMatch or their onMismatch
+     * result, or NEUTRAL, and composite filters accept if one of their filters does. Any other filter may accept.
+     */
+    private static boolean canAccept(final Filter filter) {
+        if (filter == null) {
+            return false;
+        }
+        if (filter instanceof CompositeFilter) {
+            for (final Filter element : (CompositeFilter) filter) {
+                if (canAccept(element)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        if (!MATCHING_FILTERS.contains(filter.getClass())) {
+            return true;
+        }
+        return filter.getOnMatch() == Filter.Result.ACCEPT || filter.getOnMismatch() == Filter.Result.ACCEPT;
     }
 
     /**
@@ -304,6 +374,10 @@ public class Logger extends AbstractLogger implements Supplier<LoggerConfig> {
         private final Level loggerConfigLevel;
         private final int intLevel;
         private final Logger logger;
+        /** The configuration-wide filter that {@link #disabledLevels} was computed for. */
+        private final Filter configFilter;
+        /** The StandardLevels, by ordinal, of the events that are dropped without consulting the filter. */
+        private final int disabledLevels;
 
         public PrivateConfig(final Configuration config, final Logger logger) {
             this.config = config;
@@ -311,6 +385,8 @@ public class Logger extends AbstractLogger implements Supplier<LoggerConfig> {
             this.loggerConfigLevel = this.loggerConfig.getLevel();
             this.intLevel = this.loggerConfigLevel.intLevel();
             this.logger = logger;
+            this.configFilter = config.getFilter();
+            this.disabledLevels = disabledLevels(configFilter, intLevel);
         }
 
         public PrivateConfig(final PrivateConfig pc, final Level level) {
@@ -319,6 +395,8 @@ public class Logger extends AbstractLogger implements Supplier<LoggerConfig> {
             this.loggerConfigLevel = level;
             this.intLevel = this.loggerConfigLevel.intLevel();
             this.logger = pc.logger;
+            this.configFilter = pc.config.getFilter();
+            this.disabledLevels = disabledLevels(configFilter, intLevel);
         }
 
         public PrivateConfig(final PrivateConfig pc, final LoggerConfig lc) {
@@ -327,6 +405,26 @@ public class Logger extends AbstractLogger implements Supplier<LoggerConfig> {
             this.loggerConfigLevel = lc.getLevel();
             this.intLevel = this.loggerConfigLevel.intLevel();
             this.logger = pc.logger;
+            this.configFilter = pc.config.getFilter();
+            this.disabledLevels = disabledLevels(configFilter, intLevel);
+        }
+
+        /**
+         * Returns whether this PrivateConfig would be unchanged if it was created for the specified Configuration.
+         */
+        boolean isCurrent(final Configuration newConfig) {
+            return config == newConfig && configFilter == newConfig.getFilter()
+                    && loggerConfig == newConfig.getLoggerConfig(getName())
+                    && loggerConfigLevel == loggerConfig.getLevel();
+        }
+
+        /**
+         * Returns whether events of the level are dropped whatever the filter decides, as long as the
+         * configuration-wide filter has not been replaced.
+         */
+        private boolean isDisabled(final Level level, final Filter filter) {
+            return level != null && filter == configFilter
+                    && (disabledLevels & 1 << level.getStandardLevel().ordinal()) != 0;
         }
 
         // LOG4J2-151: changed visibility to public
@@ -336,6 +434,9 @@ public class Logger extends AbstractLogger implements Supplier<LoggerConfig> {
 
         boolean filter(final Level level, final Marker marker, final String msg) {
             final Filter filter = config.getFilter();
+            if (isDisabled(level, filter)) {
+                return false;
+            }
             if (filter != null) {
                 final Filter.Result r = filter.filter(logger, level, marker, msg);
                 if (r != Filter.Result.NEUTRAL) {
@@ -347,6 +448,9 @@ public class Logger extends AbstractLogger implements Supplier<LoggerConfig> {
 
         boolean filter(final Level level, final Marker marker, final String msg, final Throwable t) {
             final Filter filter = config.getFilter();
+            if (isDisabled(level, filter)) {
+                return false;
+            }
             if (filter != null) {
                 final Filter.Result r = filter.filter(logger, level, marker, msg, t);
                 if (r != Filter.Result.NEUTRAL) {
@@ -358,6 +462,9 @@ public class Logger extends AbstractLogger implements Supplier<LoggerConfig> {
 
         boolean filter(final Level level, final Marker marker, final String msg, final Object... p1) {
             final Filter filter = config.getFilter();
+            if (isDisabled(level, filter)) {
+                return false;
+            }
             if (filter != null) {
                 final Filter.Result r = filter.filter(logger, level, marker, msg, p1);
                 if (r != Filter.Result.NEUTRAL) {
@@ -369,6 +476,9 @@ public class Logger extends AbstractLogger implements Supplier<LoggerConfig> {
 
         boolean filter(final Level level, final Marker marker, final Object msg, final Throwable t) {
             final Filter filter = config.getFilter();
+            if (isDisabled(level, filter)) {
+                return false;
+            }
             if (filter != null) {
                 final Filter.Result r = filter.filter(logger, level, marker, msg, t);
                 if (r != Filter.Result.NEUTRAL) {
@@ -380,6 +490,9 @@ public class Logger extends AbstractLogger implements Supplier<LoggerConfig> {
 
         boolean filter(final Level level, final Marker marker, final Message msg, final Throwable t) {
             final Filter filter = config.getFilter();
+            if (isDisabled(level, filter)) {
+                return false;
+            }
             if (filter != null) {
                 final Filter.Result r = filter.filter(logger, level, marker, msg, t);
                 if (r != Filter.Result.NEUTRAL) {
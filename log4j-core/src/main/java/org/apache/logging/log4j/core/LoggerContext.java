@@ -25,6 +25,8 @@ import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -45,6 +47,8 @@ import org.apache.logging.log4j.message.MessageFactory;
 import org.apache.logging.log4j.spi.AbstractLogger;
 import org.apache.logging.log4j.spi.LoggerContextFactory;
 import org.apache.logging.log4j.spi.LoggerContextKey;
+import org.apache.logging.log4j.spi.LoggerContextShutdownAware;
+import org.apache.logging.log4j.spi.LoggerContextShutdownEnabled;
 import org.apache.logging.log4j.spi.Terminable;
 
 import static org.apache.logging.log4j.core.util.ShutdownCallbackRegistry.*;
@@ -55,18 +59,27 @@ import static org.apache.logging.log4j.core.util.ShutdownCallbackRegistry.*;
  * filters, etc and will be atomically updated whenever a reconfigure occurs.
  */
 public class LoggerContext extends AbstractLifeCycle implements org.apache.logging.log4j.spi.LoggerContext, Terminable,
-        ConfigurationListener {
+        ConfigurationListener, LoggerContextShutdownEnabled {
 
     /**
      * Property name of the property change event fired if the configuration is changed.
      */
     public static final String PROPERTY_CONFIG = "config";
 
+    /**
+     * Property name of the property change event fired after the Loggers have been updated against the Configuration.
+     */
+    public static final String PROPERTY_LOGGERS = "loggers";
+
     private static final long serialVersionUID = 1L;
     private static final Configuration NULL_CONFIGURATION = new NullConfiguration();
 
+    /** The number of Loggers from which updateLoggers updates the Loggers in parallel. */
+    private static final int PARALLEL_UPDATE_THRESHOLD = 16 * 1024;
+
     private final ConcurrentMap<String, Logger> loggers = new ConcurrentHashMap<>();
     private final CopyOnWriteArrayList<PropertyChangeListener> propertyChangeListeners = new CopyOnWriteArrayList<>();
+    private final CopyOnWriteArrayList<LoggerContextShutdownAware> shutdownListeners = new CopyOnWriteArrayList<>();
 
     /**
      * The Configuration is volatile to guarantee that initialization of the Configuration has completed before the
@@ -309,6 +322,13 @@ public class LoggerContext extends AbstractLifeCycle implements org.apache.loggi
             externalContext = null;
             LogManager.getFactory().removeContext(this);
             this.setStopped();
+            for (final LoggerContextShutdownAware listener : shutdownListeners) {
+                try {
+                    listener.contextShutdown(this);
+                } catch (final Exception ex) {
+                    LOGGER.error("Shutdown listener {} failed", listener, ex);
+                }
+            }
         } finally {
             configLock.unlock();
         }
@@ -533,6 +553,16 @@ public class LoggerContext extends AbstractLifeCycle implements org.apache.loggi
         propertyChangeListeners.remove(listener);
     }
 
+    @Override
+    public void addShutdownListener(final LoggerContextShutdownAware listener) {
+        shutdownListeners.addIfAbsent(Objects.requireNonNull(listener, "listener"));
+    }
+
+    @Override
+    public void removeShutdownListener(final LoggerContextShutdownAware listener) {
+        shutdownListeners.remove(listener);
+    }
+
     /**
      * Returns the initial configuration location or {@code null}. The returned value may not be the location of the
      * current configuration. Use {@link #getConfiguration()}.{@link Configuration#getConfigurationSource()
@@ -591,14 +621,25 @@ public class LoggerContext extends AbstractLifeCycle implements org.apache.loggi
     }
 
     /**
-     * Causes all Logger to be updated against the specified Configuration.
+     * Causes all Logger to be updated against the specified Configuration. Loggers whose LoggerConfig, level and filter
+     * are unchanged keep their settings. If there are many Loggers, they are updated in parallel. Fires a
+     * {@link #PROPERTY_LOGGERS} property change event when done.
      *
      * @param config The Configuration.
      */
     public void updateLoggers(final Configuration config) {
-        for (final Logger logger : loggers.values()) {
-            logger.updateConfiguration(config);
+        final Collection<Logger> all = loggers.values();
+        final int processors = Runtime.getRuntime().availableProcessors();
+        if (all.size() < PARALLEL_UPDATE_THRESHOLD || processors == 1) {
+            for (final Logger logger : all) {
+                logger.updateConfiguration(config);
+            }
+        } else {
+            final Logger[] array = all.toArray(new Logger[all.size()]);
+            UpdateLoggersPool.POOL.invoke(new UpdateLoggersTask(array, 0, array.length, config));
+            LOGGER.debug("Updated {} Loggers of context {} in parallel", array.length, contextName);
         }
+        firePropertyChangeEvent(new PropertyChangeEvent(this, PROPERTY_LOGGERS, null, config));
     }
 
     /**
@@ -623,4 +664,44 @@ public class LoggerContext extends AbstractLifeCycle implements org.apache.loggi
         return new Logger(ctx, name, messageFactory);
     }
 
+    /**
+     * Holds the pool shared by all contexts to update their Loggers in parallel, created on first use. Its worker
+     * threads are daemon threads that terminate when they are idle.
+     */
+    private static final class UpdateLoggersPool {
+        static final ForkJoinPool POOL = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Updates a range of Loggers, splitting it into subtasks.
+     */
+    private static final class UpdateLoggersTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private static final int BATCH_SIZE = 1024;
+
+        private final Logger[] loggers;
+        private final int start;
+        private final int end;
+        private final Configuration config;
+
+        UpdateLoggersTask(final Logger[] loggers, final int start, final int end, final Configuration config) {
+            this.loggers = loggers;
+            this.start = start;
+            this.end = end;
+            this.config = config;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - start <= BATCH_SIZE) {
+                for (int i = start; i < end; i++) {
+                    loggers[i].updateConfiguration(config);
+                }
+                return;
+            }
+            final int middle = (start + end) >>> 1;
+            invokeAll(new UpdateLoggersTask(loggers, start, middle, config),
+                    new UpdateLoggersTask(loggers, middle, end, config));
+        }
+    }
 }
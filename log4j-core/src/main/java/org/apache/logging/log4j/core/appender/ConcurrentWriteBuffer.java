@@ -0,0 +1,176 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache license, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the license for the specific language governing permissions and
+ * limitations under the license.
+ */
+package org.apache.logging.log4j.core.appender;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Buffer that lets multiple threads write concurrently. The buffer is divided into a ring of segments. Writers claim
+ * space in the current segment with a compare-and-set on its position and copy their bytes without holding a lock.
+ * When a segment is full the thread that could not fit seals it and moves the writers on to the next segment. Sealed
+ * segments are written to the {@link Sink} in ring order by a single thread at a time, once all writers that claimed
+ * space in them have finished copying.
+ * <p>
+ * Bytes written by the same thread are always published in the order they were written.
+ * </p>
+ */
+final class ConcurrentWriteBuffer {
+
+    /**
+     * Destination of the buffered bytes.
+     */
+    interface Sink {
+        void write(byte[] bytes, int offset, int length) throws IOException;
+    }
+
+    private static final int SEALED = -1;
+    private static final int FREE = -2;
+
+    private final Segment[] segments;
+    private final int segmentSize;
+    private final Sink sink;
+    private final Object flushLock = new Object();
+    private volatile Segment current;
+    private int flushIndex; // guarded by flushLock
+
+    ConcurrentWriteBuffer(final int bufferSize, final int segmentCount, final Sink sink) {
+        this.segmentSize = Math.max(1, bufferSize / segmentCount);
+        this.sink = sink;
+        this.segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment(i, segmentSize);
+        }
+        segments[0].position.set(0);
+        current = segments[0];
+    }
+
+    int getCapacity() {
+        return segmentSize * segments.length;
+    }
+
+    /**
+     * Copies the specified bytes into the buffer, publishing full segments to the sink as necessary.
+     */
+    void write(final byte[] bytes, final int offset, final int length) throws IOException {
+        if (length > segmentSize) {
+            writeDirect(bytes, offset, length);
+            return;
+        }
+        while (true) {
+            final Segment segment = current;
+            final int position = segment.position.get();
+            if (position < 0) {
+                // sealed and waiting for the sealing thread to move on to the next segment
+                Thread.yield();
+                continue;
+            }
+            if (position + length <= segmentSize) {
+                if (segment.position.compareAndSet(position, position + length)) {
+                    System.arraycopy(bytes, offset, segment.bytes, position, length);
+                    segment.committed.addAndGet(length);
+                    return;
+                }
+            } else if (segment.position.compareAndSet(position, SEALED)) {
+                segment.limit = position;
+                advance(segment);
+            }
+        }
+    }
+
+    /**
+     * Publishes all bytes written so far to the sink.
+     */
+    void flush() throws IOException {
+        synchronized (flushLock) {
+            sealCurrent();
+            flushSealedSegments();
+        }
+    }
+
+    private void writeDirect(final byte[] bytes, final int offset, final int length) throws IOException {
+        synchronized (flushLock) {
+            sealCurrent();
+            flushSealedSegments();
+            sink.write(bytes, offset, length);
+        }
+    }
+
+    private void sealCurrent() throws IOException {
+        while (true) {
+            final Segment segment = current;
+            final int position = segment.position.get();
+            if (position <= 0) {
+                // empty, or already sealed by another thread which will advance
+                return;
+            }
+            if (segment.position.compareAndSet(position, SEALED)) {
+                segment.limit = position;
+                advance(segment);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Called by the thread that sealed the current segment to open the next one.
+     */
+    private void advance(final Segment sealed) throws IOException {
+        final Segment next = segments[(sealed.index + 1) % segments.length];
+        while (next.position.get() != FREE) {
+            synchronized (flushLock) {
+                flushSealedSegments();
+            }
+        }
+        next.position.set(0);
+        current = next;
+    }
+
+    private void flushSealedSegments() throws IOException {
+        while (true) {
+            final Segment segment = segments[flushIndex];
+            if (segment.position.get() != SEALED) {
+                return;
+            }
+            int limit;
+            while ((limit = segment.limit) < 0 || segment.committed.get() < limit) {
+                Thread.yield();
+            }
+            try {
+                sink.write(segment.bytes, 0, limit);
+            } finally {
+                segment.limit = -1;
+                segment.committed.set(0);
+                segment.position.set(FREE);
+                flushIndex = (flushIndex + 1) % segments.length;
+            }
+        }
+    }
+
+    private static class Segment {
+        private final int index;
+        private final byte[] bytes;
+        private final AtomicInteger position = new AtomicInteger(FREE);
+        private final AtomicInteger committed = new AtomicInteger();
+        private volatile int limit = -1;
+
+        Segment(final int index, final int size) {
+            this.index = index;
+            this.bytes = new byte[size];
+        }
+    }
+}
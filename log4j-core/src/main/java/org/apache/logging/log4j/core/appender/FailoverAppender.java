@@ -19,7 +19,12 @@ package org.apache.logging.log4j.core.appender;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.logging.log4j.LoggingException;
 import org.apache.logging.log4j.core.Appender;
@@ -33,13 +38,23 @@ import org.apache.logging.log4j.core.config.plugins.PluginAttribute;
 import org.apache.logging.log4j.core.config.plugins.PluginConfiguration;
 import org.apache.logging.log4j.core.config.plugins.PluginElement;
 import org.apache.logging.log4j.core.config.plugins.PluginFactory;
+import org.apache.logging.log4j.core.impl.Log4jLogEvent;
 import org.apache.logging.log4j.core.util.Booleans;
 import org.apache.logging.log4j.core.util.Constants;
+import org.apache.logging.log4j.core.util.Log4jThread;
 
 /**
  * The FailoverAppender will capture exceptions in an Appender and then route the event
  * to a different appender. Hopefully it is obvious that the Appenders must be configured
  * to not suppress exceptions for the FailoverAppender to work.
+ * <p>
+ * In circuit breaker mode the primary Appender is only abandoned after a number of consecutive failures, where a call
+ * that takes longer than the slow call threshold counts as a failure. While the circuit is open, events are routed
+ * directly to the failover Appenders. Once the retry interval has elapsed, a single event is handed to a background
+ * thread that probes the primary Appender with it, so logging threads never wait for an unhealthy primary. The
+ * circuit closes when a probe succeeds; otherwise the probed event is routed to the failover Appenders and the
+ * circuit stays open for another interval.
+ * </p>
  */
 @Plugin(name = "Failover", category = "Core", elementType = "appender", printObject = true)
 public final class FailoverAppender extends AbstractAppender {
@@ -48,6 +63,10 @@ public final class FailoverAppender extends AbstractAppender {
 
     private static final int DEFAULT_INTERVAL_SECONDS = 60;
 
+    private static final int DEFAULT_FAILURE_THRESHOLD = 3;
+
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = 5000;
+
     private final String primaryRef;
 
     private final String[] failovers;
@@ -62,13 +81,37 @@ public final class FailoverAppender extends AbstractAppender {
 
     private volatile long nextCheckNanos = 0;
 
+    private final boolean circuitBreaker;
+
+    private final int failureThreshold;
+
+    private final long slowCallNanos;
+
+    private final AtomicBoolean circuitOpen = new AtomicBoolean();
+
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+
+    private final AtomicBoolean probing = new AtomicBoolean();
+
+    private final AtomicLong circuitOpenCount = new AtomicLong();
+
+    private final AtomicLong failoverCount = new AtomicLong();
+
+    private volatile long primaryLatencyNanos;
+
+    private Prober prober;
+
     private FailoverAppender(final String name, final Filter filter, final String primary, final String[] failovers,
-                             final int intervalMillis, final Configuration config, final boolean ignoreExceptions) {
+                             final int intervalMillis, final Configuration config, final boolean ignoreExceptions,
+                             final boolean circuitBreaker, final int failureThreshold, final int slowCallMillis) {
         super(name, filter, null, ignoreExceptions);
         this.primaryRef = primary;
         this.failovers = failovers;
         this.config = config;
         this.intervalNanos = TimeUnit.MILLISECONDS.toNanos(intervalMillis);
+        this.circuitBreaker = circuitBreaker;
+        this.failureThreshold = failureThreshold;
+        this.slowCallNanos = TimeUnit.MILLISECONDS.toNanos(slowCallMillis);
     }
 
 
@@ -96,10 +139,24 @@ public final class FailoverAppender extends AbstractAppender {
             ++errors;
         }
         if (errors == 0) {
+            if (circuitBreaker) {
+                prober = new Prober();
+                prober.start();
+            }
             super.start();
         }
     }
 
+    @Override
+    public void stop() {
+        // the prober delivers its pending probe, so it is shut down while the appender is still started
+        if (prober != null) {
+            prober.shutdown();
+            prober = null;
+        }
+        super.stop();
+    }
+
     /**
      * Handle the Log event.
      * @param event The LogEvent.
@@ -110,6 +167,10 @@ public final class FailoverAppender extends AbstractAppender {
             error("FailoverAppender " + getName() + " did not start successfully");
             return;
         }
+        if (circuitBreaker) {
+            appendThroughCircuit(event);
+            return;
+        }
         final long localCheckNanos = nextCheckNanos;
         if (localCheckNanos == 0 || System.nanoTime() - localCheckNanos > 0) {
             callAppender(event);
@@ -118,6 +179,78 @@ public final class FailoverAppender extends AbstractAppender {
         }
     }
 
+    private void appendThroughCircuit(final LogEvent event) {
+        if (!circuitOpen.get()) {
+            final long start = System.nanoTime();
+            try {
+                primary.callAppender(event);
+            } catch (final Exception ex) {
+                recordFailure();
+                failover(event, ex);
+                return;
+            }
+            if (isSlow(System.nanoTime() - start)) {
+                recordFailure();
+            } else if (consecutiveFailures.get() != 0) {
+                consecutiveFailures.set(0);
+            }
+            return;
+        }
+        final Prober localProber = prober;
+        if (localProber != null && System.nanoTime() - nextCheckNanos > 0 && probing.compareAndSet(false, true)) {
+            // the event is delivered by the probe, to the primary or else to the failover Appenders
+            if (localProber.offer(event)) {
+                return;
+            }
+            probing.set(false);
+        }
+        failover(event, null);
+    }
+
+    private boolean isSlow(final long latencyNanos) {
+        primaryLatencyNanos = latencyNanos;
+        return slowCallNanos > 0 && latencyNanos > slowCallNanos;
+    }
+
+    private void recordFailure() {
+        if (consecutiveFailures.incrementAndGet() >= failureThreshold && circuitOpen.compareAndSet(false, true)) {
+            nextCheckNanos = System.nanoTime() + intervalNanos;
+            circuitOpenCount.incrementAndGet();
+            LOGGER.warn("FailoverAppender {} opened the circuit to {} after {} consecutive failures", getName(),
+                    primaryRef, consecutiveFailures.get());
+        }
+    }
+
+    private void probe(final LogEvent event) {
+        final long start = System.nanoTime();
+        Exception failure = null;
+        try {
+            primary.callAppender(event);
+        } catch (final Exception ex) {
+            failure = ex;
+        }
+        if (failure == null && !isSlow(System.nanoTime() - start)) {
+            closeCircuit();
+        } else {
+            nextCheckNanos = System.nanoTime() + intervalNanos;
+        }
+        probing.set(false);
+        if (failure != null) {
+            try {
+                failover(event, failure);
+            } catch (final Exception fex) {
+                error("FailoverAppender " + getName() + " was unable to deliver a probed event", event, fex);
+            }
+        }
+    }
+
+    private void closeCircuit() {
+        consecutiveFailures.set(0);
+        if (circuitOpen.compareAndSet(true, false)) {
+            LOGGER.info("FailoverAppender {} closed the circuit to {}", getName(), primaryRef);
+        }
+    }
+
     private void callAppender(final LogEvent event) {
         try {
             primary.callAppender(event);
@@ -129,6 +262,7 @@ public final class FailoverAppender extends AbstractAppender {
     }
 
     private void failover(final LogEvent event, final Exception ex) {
+        failoverCount.incrementAndGet();
         final RuntimeException re = ex != null ?
                 (ex instanceof LoggingException ? (LoggingException) ex : new LoggingException(ex)) : null;
         boolean written = false;
@@ -152,6 +286,101 @@ public final class FailoverAppender extends AbstractAppender {
         }
     }
 
+    /**
+     * Returns the name of the primary Appender.
+     * @return the name of the primary Appender.
+     */
+    public String getPrimaryRef() {
+        return primaryRef;
+    }
+
+    /**
+     * Returns the names of the failover Appenders.
+     * @return the names of the failover Appenders.
+     */
+    public String[] getFailoverRefs() {
+        return failovers.clone();
+    }
+
+    /**
+     * Returns the number of milliseconds to wait before the primary Appender is tried again.
+     * @return the retry interval in milliseconds.
+     */
+    public long getRetryIntervalMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(intervalNanos);
+    }
+
+    /**
+     * Returns {@code true} if this Appender runs in circuit breaker mode.
+     * @return whether this Appender uses a circuit breaker.
+     */
+    public boolean isCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    /**
+     * Returns the number of consecutive failures of the primary Appender that open the circuit.
+     * @return the failure threshold.
+     */
+    public int getFailureThreshold() {
+        return failureThreshold;
+    }
+
+    /**
+     * Returns the number of milliseconds after which a call to the primary Appender counts as a failure, or zero if
+     * slow calls are not counted.
+     * @return the slow call threshold in milliseconds.
+     */
+    public long getSlowCallMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(slowCallNanos);
+    }
+
+    /**
+     * Returns {@code true} if events are currently routed to the failover Appenders without trying the primary.
+     * In circuit breaker mode this is the state of the circuit; otherwise it is whether the retry interval is running.
+     * @return whether the primary Appender is bypassed.
+     */
+    public boolean isCircuitOpen() {
+        if (circuitBreaker) {
+            return circuitOpen.get();
+        }
+        final long localCheckNanos = nextCheckNanos;
+        return localCheckNanos != 0 && System.nanoTime() - localCheckNanos <= 0;
+    }
+
+    /**
+     * Returns the number of consecutive failures of the primary Appender counted by the circuit breaker.
+     * @return the number of consecutive failures.
+     */
+    public int getConsecutiveFailures() {
+        return consecutiveFailures.get();
+    }
+
+    /**
+     * Returns how many times the circuit breaker opened the circuit.
+     * @return the number of times the circuit was opened.
+     */
+    public long getCircuitOpenCount() {
+        return circuitOpenCount.get();
+    }
+
+    /**
+     * Returns the number of events that were routed to the failover Appenders.
+     * @return the number of failed over events.
+     */
+    public long getFailoverCount() {
+        return failoverCount.get();
+    }
+
+    /**
+     * Returns the duration in nanoseconds of the last successful call to the primary Appender measured by the circuit
+     * breaker.
+     * @return the latency of the primary Appender in nanoseconds.
+     */
+    public long getPrimaryLatencyNanos() {
+        return primaryLatencyNanos;
+    }
+
     @Override
     public String toString() {
         final StringBuilder sb = new StringBuilder(getName());
@@ -178,7 +407,37 @@ public final class FailoverAppender extends AbstractAppender {
      * @param filter A Filter (optional).
      * @param ignore If {@code "true"} (default) exceptions encountered when appending events are logged; otherwise
      *               they are propagated to the caller.
+     * @return The FailoverAppender that was created, with the circuit breaker off.
+     */
+    public static FailoverAppender createAppender(
+            final String name,
+            final String primary,
+            final String[] failovers,
+            final String retryIntervalSeconds,
+            final Configuration config,
+            final Filter filter,
+            final String ignore) {
+        return createAppender(name, primary, failovers, retryIntervalSeconds, config, filter, ignore, false,
+                DEFAULT_FAILURE_THRESHOLD, 0);
+    }
+
+    /**
+     * Create a Failover Appender.
+     * @param name The name of the Appender (required).
+     * @param primary The name of the primary Appender (required).
+     * @param failovers The name of one or more Appenders to fail over to (at least one is required).
+     * @param retryIntervalSeconds The retry interval in seconds.
+     * @param config The current Configuration (passed by the Configuration when the appender is created).
+     * @param filter A Filter (optional).
+     * @param ignore If {@code "true"} (default) exceptions encountered when appending events are logged; otherwise
+     *               they are propagated to the caller.
+     * @param circuitBreaker If {@code true}, the primary Appender is bypassed after consecutive failures and probed
+     *               from a background thread.
+     * @param failureThreshold The number of consecutive failures that open the circuit.
+     * @param slowCallMillis The number of milliseconds after which a call to the primary Appender counts as a
+     *               failure, zero to ignore latency.
      * @return The FailoverAppender that was created.
+     * @since 2.6
      */
     @PluginFactory
     public static FailoverAppender createAppender(
@@ -189,7 +448,11 @@ public final class FailoverAppender extends AbstractAppender {
             @PluginAttribute("retryIntervalSeconds") final String retryIntervalSeconds,
             @PluginConfiguration final Configuration config,
             @PluginElement("Filter") final Filter filter,
-            @PluginAttribute("ignoreExceptions") final String ignore) {
+            @PluginAttribute("ignoreExceptions") final String ignore,
+            @PluginAttribute(value = "circuitBreaker", defaultBoolean = false) final boolean circuitBreaker,
+            @PluginAttribute(value = "failureThreshold", defaultInt = DEFAULT_FAILURE_THRESHOLD)
+            final int failureThreshold,
+            @PluginAttribute(value = "slowCallMillis", defaultInt = 0) final int slowCallMillis) {
         if (name == null) {
             LOGGER.error("A name for the Appender must be specified");
             return null;
@@ -211,9 +474,65 @@ public final class FailoverAppender extends AbstractAppender {
             LOGGER.warn("Interval " + retryIntervalSeconds + " is less than zero. Using default");
             retryIntervalMillis = DEFAULT_INTERVAL_SECONDS * Constants.MILLIS_IN_SECONDS;
         }
+        int threshold = failureThreshold;
+        if (threshold < 1) {
+            LOGGER.warn("Failure threshold " + failureThreshold + " is less than one. Using default");
+            threshold = DEFAULT_FAILURE_THRESHOLD;
+        }
 
         final boolean ignoreExceptions = Booleans.parseBoolean(ignore, true);
 
-        return new FailoverAppender(name, filter, primary, failovers, retryIntervalMillis, config, ignoreExceptions);
+        return new FailoverAppender(name, filter, primary, failovers, retryIntervalMillis, config, ignoreExceptions,
+                circuitBreaker, threshold, Math.max(slowCallMillis, 0));
+    }
+
+    /**
+     * Delivers the events that probe the primary Appender while the circuit is open.
+     */
+    private class Prober implements Runnable {
+
+        private final BlockingQueue<LogEvent> probes = new ArrayBlockingQueue<>(1);
+        private final Thread thread = new Log4jThread(this, "FailoverAppender-" + getName());
+        private volatile boolean shutdown;
+
+        Prober() {
+            thread.setDaemon(true);
+        }
+
+        void start() {
+            thread.start();
+        }
+
+        boolean offer(final LogEvent event) {
+            // events that are not Log4jLogEvents may be reused, like the events of asynchronous loggers
+            return probes.offer(event instanceof Log4jLogEvent ? event : new Log4jLogEvent.Builder(event).build());
+        }
+
+        @Override
+        public void run() {
+            while (!shutdown) {
+                final LogEvent event;
+                try {
+                    event = probes.take();
+                } catch (final InterruptedException ex) {
+                    break;
+                }
+                probe(event);
+            }
+        }
+
+        void shutdown() {
+            shutdown = true;
+            thread.interrupt();
+            try {
+                thread.join(SHUTDOWN_TIMEOUT_MILLIS);
+            } catch (final InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            final LogEvent event = probes.poll();
+            if (event != null) {
+                probe(event);
+            }
+        }
     }
 }
@@ -130,6 +130,39 @@ public final class MemoryMappedFileAppender extends AbstractOutputStreamAppender
      * @param advertiseURI The advertised URI which can be used to retrieve the file contents.
      * @param config The Configuration.
      * @return The FileAppender.
+     * @deprecated Use {@link #createAppender(String, String, String, String, String, String, Layout, Filter, String,
+     *             String, String, Configuration)}.
+     */
+    @Deprecated
+    public static MemoryMappedFileAppender createAppender(final String fileName, final String append,
+            final String name, final String immediateFlush, final String regionLengthStr, final String ignore,
+            final Layout<? extends Serializable> layout, final Filter filter, final String advertise,
+            final String advertiseURI, final Configuration config) {
+        return createAppender(fileName, append, name, immediateFlush, regionLengthStr, ignore, layout, filter,
+                advertise, advertiseURI, null, config);
+    }
+
+    /**
+     * Create a Memory Mapped File Appender.
+     *
+     * @param fileName The name and path of the file.
+     * @param append "True" if the file should be appended to, "false" if it should be overwritten. The default is
+     *            "true".
+     * @param name The name of the Appender.
+     * @param immediateFlush "true" if the contents should be flushed on every write, "false" otherwise. The default is
+     *            "true".
+     * @param regionLengthStr The buffer size, defaults to {@value MemoryMappedFileManager#DEFAULT_REGION_LENGTH}.
+     * @param ignore If {@code "true"} (default) exceptions encountered when appending events are logged; otherwise they
+     *            are propagated to the caller.
+     * @param layout The layout to use to format the event. If no layout is provided the default PatternLayout will be
+     *            used.
+     * @param filter The filter, if any, to use.
+     * @param advertise "true" if the appender configuration should be advertised, "false" otherwise.
+     * @param advertiseURI The advertised URI which can be used to retrieve the file contents.
+     * @param preMap "true" if the next region should be mapped ahead of time by a background thread and writers should
+     *            not block each other, "false" (default) if the logging thread remaps when a region is full.
+     * @param config The Configuration.
+     * @return The FileAppender.
      */
     @PluginFactory
     public static MemoryMappedFileAppender createAppender(
@@ -144,6 +177,7 @@ public final class MemoryMappedFileAppender extends AbstractOutputStreamAppender
             @PluginElement("Filter") final Filter filter, //
             @PluginAttribute("advertise") final String advertise, //
             @PluginAttribute("advertiseURI") final String advertiseURI, //
+            @PluginAttribute("preMap") final String preMap, //
             @PluginConfiguration final Configuration config) {
         // @formatter:on
 
@@ -151,6 +185,7 @@ public final class MemoryMappedFileAppender extends AbstractOutputStreamAppender
         final boolean isForce = Booleans.parseBoolean(immediateFlush, false);
         final boolean ignoreExceptions = Booleans.parseBoolean(ignore, true);
         final boolean isAdvertise = Boolean.parseBoolean(advertise);
+        final boolean isPreMap = Boolean.parseBoolean(preMap);
         final int regionLength = Integers.parseInt(regionLengthStr, MemoryMappedFileManager.DEFAULT_REGION_LENGTH);
         final int actualRegionLength = determineValidRegionLength(name, regionLength);
 
@@ -167,7 +202,7 @@ public final class MemoryMappedFileAppender extends AbstractOutputStreamAppender
             layout = PatternLayout.createDefaultLayout();
         }
         final MemoryMappedFileManager manager = MemoryMappedFileManager.getFileManager(fileName, isAppend, isForce,
-                actualRegionLength, advertiseURI, layout);
+                actualRegionLength, advertiseURI, layout, isPreMap);
         if (manager == null) {
             return null;
         }
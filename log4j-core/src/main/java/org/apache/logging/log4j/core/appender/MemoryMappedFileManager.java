@@ -22,6 +22,7 @@ import java.io.OutputStream;
 import java.io.RandomAccessFile;
 import java.io.Serializable;
 import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.nio.MappedByteBuffer;
 import java.nio.channels.FileChannel;
@@ -31,9 +32,15 @@ import java.security.PrivilegedExceptionAction;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
 
 import org.apache.logging.log4j.core.Layout;
 import org.apache.logging.log4j.core.util.Closer;
+import org.apache.logging.log4j.core.util.Log4jThread;
 import org.apache.logging.log4j.core.util.NullOutputStream;
 
 //Lines too long...
@@ -50,7 +57,13 @@ import org.apache.logging.log4j.core.util.NullOutputStream;
  * @see <a
  *      href="http://stackoverflow.com/questions/9261316/memory-mapped-mappedbytebuffer-or-direct-bytebuffer-for-db-implementation">
  *      http://stackoverflow.com/questions/9261316/memory-mapped-mappedbytebuffer-or-direct-bytebuffer-for-db-implementation</a>
- * 
+ * <p>
+ * When created with {@code preMap} enabled, the manager does not remap on the logging thread. Instead a background
+ * thread maps the next region ahead of time and unmaps regions once they have been completely written. Writers claim
+ * space by advancing the file position with a compare-and-set and copy their bytes into the mapped region(s)
+ * concurrently, without holding a lock.
+ * </p>
+ *
  * @since 2.1
  */
 //CHECKSTYLE:ON
@@ -62,6 +75,10 @@ public class MemoryMappedFileManager extends OutputStreamManager {
     private static final int MAX_REMAP_COUNT = 10;
     private static final MemoryMappedFileManagerFactory FACTORY = new MemoryMappedFileManagerFactory();
     private static final double NANOS_PER_MILLISEC = 1000.0 * 1000.0;
+    private static final int REGION_SLOTS = 4;
+    private static final long MAPPER_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long WRITER_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+    private static final long CLOSE_TIMEOUT_MILLIS = 1000;
 
     private final boolean isForce;
     private final int regionLength;
@@ -71,9 +88,32 @@ public class MemoryMappedFileManager extends OutputStreamManager {
     private MappedByteBuffer mappedBuffer;
     private long mappingOffset;
 
+    // pre-map mode only
+    private final boolean isPreMap;
+    private final long baseOffset;
+    private final AtomicLong reservedPosition = new AtomicLong();
+    /** The bytes of all finished writes, including failed ones, used to wait for writers on close. */
+    private final AtomicLong committedBytes = new AtomicLong();
+    /** The end of the last byte of any successful write, the length of the file on close. */
+    private final AtomicLong committedPosition = new AtomicLong();
+    /** The reserved position at the time the manager was closed, or -1 while it is open. */
+    private volatile long closedPosition = -1;
+    /** Set once writers that have not found their region yet should fail. */
+    private volatile boolean closed;
+    private final AtomicReferenceArray<Region> regions = new AtomicReferenceArray<>(REGION_SLOTS);
+    private final ThreadLocal<RegionView> regionView = new ThreadLocal<>();
+    private final RegionMapper regionMapper;
+
     protected MemoryMappedFileManager(final RandomAccessFile file, final String fileName, final OutputStream os,
             final boolean force, final long position, final int regionLength, final String advertiseURI,
             final Layout<? extends Serializable> layout, final boolean writeHeader) throws IOException {
+        this(file, fileName, os, force, position, regionLength, advertiseURI, layout, writeHeader, false);
+    }
+
+    protected MemoryMappedFileManager(final RandomAccessFile file, final String fileName, final OutputStream os,
+            final boolean force, final long position, final int regionLength, final String advertiseURI,
+            final Layout<? extends Serializable> layout, final boolean writeHeader, final boolean preMap)
+            throws IOException {
         super(os, fileName, layout, writeHeader);
         this.isForce = force;
         this.randomAccessFile = Objects.requireNonNull(file, "RandomAccessFile");
@@ -82,6 +122,17 @@ public class MemoryMappedFileManager extends OutputStreamManager {
         this.isEndOfBatch.set(Boolean.FALSE);
         this.mappedBuffer = mmap(randomAccessFile.getChannel(), getFileName(), position, regionLength);
         this.mappingOffset = position;
+        this.isPreMap = preMap;
+        this.baseOffset = position;
+        this.reservedPosition.set(position);
+        this.committedPosition.set(position);
+        if (preMap) {
+            regions.set(0, new Region(0, position, mappedBuffer));
+            regionMapper = new RegionMapper();
+            regionMapper.start();
+        } else {
+            regionMapper = null;
+        }
     }
 
     /**
@@ -98,8 +149,27 @@ public class MemoryMappedFileManager extends OutputStreamManager {
     public static MemoryMappedFileManager getFileManager(final String fileName, final boolean append,
             final boolean isForce, final int regionLength, final String advertiseURI,
             final Layout<? extends Serializable> layout) {
+        return getFileManager(fileName, append, isForce, regionLength, advertiseURI, layout, false);
+    }
+
+    /**
+     * Returns the MemoryMappedFileManager.
+     *
+     * @param fileName The name of the file to manage.
+     * @param append true if the file should be appended to, false if it should be overwritten.
+     * @param isForce true if the contents should be flushed to disk on every write
+     * @param regionLength The mapped region length.
+     * @param advertiseURI the URI to use when advertising the file
+     * @param layout The layout.
+     * @param preMap true if regions should be mapped ahead of time by a background thread and writers should not
+     *            synchronize.
+     * @return A MemoryMappedFileManager for the File.
+     */
+    public static MemoryMappedFileManager getFileManager(final String fileName, final boolean append,
+            final boolean isForce, final int regionLength, final String advertiseURI,
+            final Layout<? extends Serializable> layout, final boolean preMap) {
         return (MemoryMappedFileManager) getManager(fileName, new FactoryData(append, isForce, regionLength,
-                advertiseURI, layout), FACTORY);
+                advertiseURI, layout, preMap), FACTORY);
     }
 
     public Boolean isEndOfBatch() {
@@ -111,7 +181,15 @@ public class MemoryMappedFileManager extends OutputStreamManager {
     }
 
     @Override
-    protected synchronized void write(final byte[] bytes, int offset, int length, final boolean immediateFlush) {
+    protected void write(final byte[] bytes, final int offset, final int length, final boolean immediateFlush) {
+        if (isPreMap) {
+            writeToPreMappedRegions(bytes, offset, length);
+        } else {
+            writeAndRemap(bytes, offset, length, immediateFlush);
+        }
+    }
+
+    private synchronized void writeAndRemap(final byte[] bytes, int offset, int length, final boolean immediateFlush) {
         super.write(bytes, offset, length, immediateFlush); // writes to dummy output stream
 
         while (length > mappedBuffer.remaining()) {
@@ -149,13 +227,116 @@ public class MemoryMappedFileManager extends OutputStreamManager {
         }
     }
 
+    /**
+     * Claims {@code length} bytes of the file with a CAS on the file position and copies the bytes into the region(s)
+     * covering the claimed range. Regions are mapped ahead of time by the {@link RegionMapper}.
+     */
+    private void writeToPreMappedRegions(final byte[] bytes, final int offset, final int length) {
+        long start;
+        do {
+            start = reservedPosition.get();
+            if (start < 0) {
+                throw new AppenderLoggingException("MemoryMappedFileManager " + getName() + " is closed");
+            }
+        } while (!reservedPosition.compareAndSet(start, start + length));
+
+        long position = start;
+        int srcOffset = offset;
+        int remaining = length;
+        try {
+            while (remaining > 0) {
+                final long index = (position - baseOffset) / regionLength;
+                final Region region = awaitRegion(index);
+                final int regionPosition = (int) (position - region.start);
+                final int chunk = Math.min(remaining, regionLength - regionPosition);
+                try {
+                    final ByteBuffer view = view(region);
+                    view.position(regionPosition);
+                    view.put(bytes, srcOffset, chunk);
+                } finally {
+                    region.unpin();
+                }
+                region.written.addAndGet(chunk);
+                position += chunk;
+                srcOffset += chunk;
+                remaining -= chunk;
+            }
+            updateCommittedPosition(start + length);
+        } finally {
+            committedBytes.addAndGet(length);
+        }
+        if (!isMapped((start + length - baseOffset) / regionLength + 1)) {
+            regionMapper.wakeUp();
+        }
+    }
+
+    private boolean isMapped(final long index) {
+        final Region region = regions.get((int) (index % REGION_SLOTS));
+        return region != null && region.index == index;
+    }
+
+    private void updateCommittedPosition(final long end) {
+        long current;
+        do {
+            current = committedPosition.get();
+        } while (end > current && !committedPosition.compareAndSet(current, end));
+    }
+
+    /**
+     * Waits until the region with the specified index is mapped and pins it, so that it is not unmapped while the
+     * caller copies into it. The caller must {@link Region#unpin() unpin} the region.
+     */
+    private Region awaitRegion(final long index) {
+        final int slot = (int) (index % REGION_SLOTS);
+        while (true) {
+            final Region region = regions.get(slot);
+            if (region != null && region.index == index && region.pin()) {
+                return region;
+            }
+            if (regionMapper.failure != null) {
+                throw new AppenderLoggingException("Unable to map region of " + getFileName(), regionMapper.failure);
+            }
+            if (closed) {
+                throw new AppenderLoggingException("MemoryMappedFileManager " + getName() + " is closed");
+            }
+            regionMapper.wakeUp();
+            LockSupport.parkNanos(WRITER_PARK_NANOS);
+        }
+    }
+
+    private ByteBuffer view(final Region region) {
+        RegionView view = regionView.get();
+        if (view == null || view.region != region) {
+            view = new RegionView(region);
+            regionView.set(view);
+        }
+        return view.buffer;
+    }
+
     @Override
     public synchronized void flush() {
+        if (isPreMap) {
+            for (int i = 0; i < REGION_SLOTS; i++) {
+                final Region region = regions.get(i);
+                if (region != null && region.pin()) {
+                    try {
+                        region.buffer.force();
+                    } finally {
+                        region.unpin();
+                    }
+                }
+            }
+            return;
+        }
         mappedBuffer.force();
     }
 
     @Override
     public synchronized void close() {
+        if (isPreMap) {
+            closePreMapped();
+            return;
+        }
         final long position = mappedBuffer.position();
         final long length = mappingOffset + position;
         try {
@@ -173,6 +354,45 @@ public class MemoryMappedFileManager extends OutputStreamManager {
         }
     }
 
+    private void closePreMapped() {
+        // the mapper keeps mapping the regions writers have already reserved space in
+        closedPosition = reservedPosition.getAndSet(-1);
+        final long deadline = System.currentTimeMillis() + CLOSE_TIMEOUT_MILLIS;
+        while (committedBytes.get() < closedPosition - baseOffset && System.currentTimeMillis() < deadline) {
+            regionMapper.wakeUp();
+            Thread.yield();
+        }
+        closed = true;
+        regionMapper.shutdown();
+        for (int i = 0; i < REGION_SLOTS; i++) {
+            final Region region = regions.getAndSet(i, null);
+            if (region != null) {
+                // writers that already found their region finish copying
+                while (!region.retire() && System.currentTimeMillis() < deadline + CLOSE_TIMEOUT_MILLIS) {
+                    Thread.yield();
+                }
+                if (!region.isRetired()) {
+                    LOGGER.warn("MMapAppender {} region {} is still in use and is not unmapped", getFileName(),
+                            region.index);
+                    continue;
+                }
+                try {
+                    unsafeUnmap(region.buffer);
+                } catch (final Exception ex) {
+                    logError("unable to unmap MappedBuffer", ex);
+                }
+            }
+        }
+        final long length = committedPosition.get();
+        try {
+            LOGGER.debug("MMapAppender closing. Setting {} length to {}", getFileName(), length);
+            randomAccessFile.setLength(length);
+            randomAccessFile.close();
+        } catch (final IOException ex) {
+            logError("unable to close MemoryMappedFile", ex);
+        }
+    }
+
     public static MappedByteBuffer mmap(final FileChannel fileChannel, final String fileName, final long start,
             final int size) throws IOException {
         for (int i = 1;; i++) {
@@ -252,6 +472,16 @@ public class MemoryMappedFileManager extends OutputStreamManager {
         return isForce;
     }
 
+    /**
+     * Returns {@code true} if regions are mapped ahead of time by a background thread, {@code false} if the logging
+     * thread remaps when the current region is full.
+     *
+     * @return whether regions are pre-mapped
+     */
+    public boolean isPreMap() {
+        return isPreMap;
+    }
+
     /**
      * Gets this FileManager's content format specified by:
      * <p>
@@ -267,6 +497,154 @@ public class MemoryMappedFileManager extends OutputStreamManager {
         return result;
     }
 
+    /**
+     * A mapped region of the file. Once {@code written} equals the region length all writers are done with it and it
+     * can be unmapped. Threads accessing the buffer pin the region; it is only unmapped after it was retired, which
+     * requires that no thread has it pinned.
+     */
+    private static class Region {
+        private static final int RETIRED = -1;
+        private final long index;
+        private final long start;
+        private final MappedByteBuffer buffer;
+        private final AtomicInteger written = new AtomicInteger();
+        private final AtomicInteger pins = new AtomicInteger();
+
+        Region(final long index, final long start, final MappedByteBuffer buffer) {
+            this.index = index;
+            this.start = start;
+            this.buffer = buffer;
+        }
+
+        /**
+         * Prevents the region from being unmapped.
+         *
+         * @return false if the region was retired and must not be accessed.
+         */
+        boolean pin() {
+            int count;
+            do {
+                count = pins.get();
+                if (count == RETIRED) {
+                    return false;
+                }
+            } while (!pins.compareAndSet(count, count + 1));
+            return true;
+        }
+
+        void unpin() {
+            pins.decrementAndGet();
+        }
+
+        /**
+         * Marks the region as no longer accessible if it is not pinned.
+         *
+         * @return true if the region is retired and may be unmapped.
+         */
+        boolean retire() {
+            return pins.compareAndSet(0, RETIRED);
+        }
+
+        boolean isRetired() {
+            return pins.get() == RETIRED;
+        }
+    }
+
+    /**
+     * A thread's own view of a region, so writers can position independently of each other.
+     */
+    private static class RegionView {
+        private final Region region;
+        private final ByteBuffer buffer;
+
+        RegionView(final Region region) {
+            this.region = region;
+            this.buffer = region.buffer.duplicate();
+        }
+    }
+
+    /**
+     * Background thread that keeps the region after the current write position mapped and unmaps completed regions.
+     */
+    private class RegionMapper implements Runnable {
+        private final Thread thread = new Log4jThread(this, "MemoryMappedFileManager-" + getFileName());
+        private volatile boolean shutdown;
+        private volatile Exception failure;
+        private long lastMapped;
+
+        void start() {
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        void wakeUp() {
+            LockSupport.unpark(thread);
+        }
+
+        void shutdown() {
+            shutdown = true;
+            wakeUp();
+            try {
+                thread.join(CLOSE_TIMEOUT_MILLIS);
+            } catch (final InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        @Override
+        public void run() {
+            while (!shutdown) {
+                final long reserved = reservedPosition.get();
+                final long position = reserved >= 0 ? reserved : closedPosition;
+                if (position >= 0) {
+                    final long current = (position - baseOffset) / regionLength;
+                    try {
+                        unmapCompletedRegions();
+                        while (lastMapped <= current && mapRegion(lastMapped + 1)) {
+                            lastMapped++;
+                        }
+                    } catch (final Exception ex) {
+                        logError("unable to map region", ex);
+                        failure = ex;
+                        return;
+                    }
+                }
+                LockSupport.parkNanos(this, MAPPER_PARK_NANOS);
+            }
+        }
+
+        private void unmapCompletedRegions() throws PrivilegedActionException {
+            for (int i = 0; i < REGION_SLOTS; i++) {
+                final Region region = regions.get(i);
+                if (region != null && region.written.get() == regionLength && region.retire()) {
+                    regions.compareAndSet(i, region, null);
+                    unsafeUnmap(region.buffer);
+                }
+            }
+        }
+
+        /**
+         * Maps the region with the specified index. Regions are mapped in order; returns false if the slot is still
+         * occupied by an older region that has not been completely written yet.
+         */
+        private boolean mapRegion(final long index) throws IOException {
+            final int slot = (int) (index % REGION_SLOTS);
+            if (regions.get(slot) != null) {
+                return false;
+            }
+            final long start = baseOffset + index * regionLength;
+            final long fileLength = start + regionLength;
+            if (randomAccessFile.length() < fileLength) {
+                LOGGER.debug("{} {} extending {} to {}", MemoryMappedFileManager.class.getSimpleName(), getName(),
+                        getFileName(), fileLength);
+                randomAccessFile.setLength(fileLength);
+            }
+            regions.set(slot, new Region(index, start, mmap(randomAccessFile.getChannel(), getFileName(), start,
+                    regionLength)));
+            return true;
+        }
+    }
+
     /**
      * Factory Data.
      */
@@ -276,6 +654,7 @@ public class MemoryMappedFileManager extends OutputStreamManager {
         private final int regionLength;
         private final String advertiseURI;
         private final Layout<? extends Serializable> layout;
+        private final boolean preMap;
 
         /**
          * Constructor.
@@ -283,14 +662,16 @@ public class MemoryMappedFileManager extends OutputStreamManager {
          * @param append Append to existing file or truncate.
          * @param force forces the memory content to be written to the storage device on every event
          * @param regionLength length of the mapped region
+         * @param preMap map regions ahead of time on a background thread
          */
         public FactoryData(final boolean append, final boolean force, final int regionLength,
-                final String advertiseURI, final Layout<? extends Serializable> layout) {
+                final String advertiseURI, final Layout<? extends Serializable> layout, final boolean preMap) {
             this.append = append;
             this.force = force;
             this.regionLength = regionLength;
             this.advertiseURI = advertiseURI;
             this.layout = layout;
+            this.preMap = preMap;
         }
     }
 
@@ -327,7 +708,7 @@ public class MemoryMappedFileManager extends OutputStreamManager {
                 final long position = (data.append) ? raf.length() : 0;
                 raf.setLength(position + data.regionLength);
                 return new MemoryMappedFileManager(raf, name, os, data.force, position, data.regionLength,
-                        data.advertiseURI, data.layout, writeHeader);
+                        data.advertiseURI, data.layout, writeHeader, data.preMap);
             } catch (final Exception ex) {
                 LOGGER.error("MemoryMappedFileManager (" + name + ") " + ex, ex);
                 Closer.closeSilently(raf);
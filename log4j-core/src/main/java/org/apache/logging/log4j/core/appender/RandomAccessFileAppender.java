@@ -106,6 +106,39 @@ public final class RandomAccessFileAppender extends AbstractOutputStreamAppender
         return getManager().getBufferSize();
     }
 
+    /**
+     * Create a File Appender.
+     *
+     * @param fileName The name and path of the file.
+     * @param append "True" if the file should be appended to, "false" if it
+     *            should be overwritten. The default is "true".
+     * @param name The name of the Appender.
+     * @param immediateFlush "true" if the contents should be flushed on every
+     *            write, "false" otherwise. The default is "true".
+     * @param bufferSizeStr The buffer size, defaults to {@value RandomAccessFileManager#DEFAULT_BUFFER_SIZE}.
+     * @param ignore If {@code "true"} (default) exceptions encountered when appending events are logged; otherwise
+     *               they are propagated to the caller.
+     * @param layout The layout to use to format the event. If no layout is
+     *            provided the default PatternLayout will be used.
+     * @param filter The filter, if any, to use.
+     * @param advertise "true" if the appender configuration should be
+     *            advertised, "false" otherwise.
+     * @param advertiseURI The advertised URI which can be used to retrieve the
+     *            file contents.
+     * @param config The Configuration.
+     * @return The FileAppender.
+     * @deprecated Use {@link #createAppender(String, String, String, String, String, String, Layout, Filter, String,
+     *             String, String, Configuration)}.
+     */
+    @Deprecated
+    public static RandomAccessFileAppender createAppender(final String fileName, final String append,
+            final String name, final String immediateFlush, final String bufferSizeStr, final String ignore,
+            final Layout<? extends Serializable> layout, final Filter filter, final String advertise,
+            final String advertiseURI, final Configuration config) {
+        return createAppender(fileName, append, name, immediateFlush, bufferSizeStr, ignore, layout, filter,
+                advertise, advertiseURI, null, config);
+    }
+
     // difference from standard File Appender:
     // locking is not supported and buffering cannot be switched off
     /**
@@ -127,6 +160,8 @@ public final class RandomAccessFileAppender extends AbstractOutputStreamAppender
      *            advertised, "false" otherwise.
      * @param advertiseURI The advertised URI which can be used to retrieve the
      *            file contents.
+     * @param concurrentWrites "true" if threads should claim space in the buffer and copy their bytes concurrently
+     *            instead of synchronizing on the manager. The default is "false".
      * @param config The Configuration.
      * @return The FileAppender.
      */
@@ -142,12 +177,14 @@ public final class RandomAccessFileAppender extends AbstractOutputStreamAppender
             @PluginElement("Filter") final Filter filter,
             @PluginAttribute("advertise") final String advertise,
             @PluginAttribute("advertiseURI") final String advertiseURI,
+            @PluginAttribute("concurrentWrites") final String concurrentWrites,
             @PluginConfiguration final Configuration config) {
 
         final boolean isAppend = Booleans.parseBoolean(append, true);
         final boolean isFlush = Booleans.parseBoolean(immediateFlush, true);
         final boolean ignoreExceptions = Booleans.parseBoolean(ignore, true);
         final boolean isAdvertise = Boolean.parseBoolean(advertise);
+        final boolean isConcurrentWrites = Boolean.parseBoolean(concurrentWrites);
         final int bufferSize = Integers.parseInt(bufferSizeStr, RandomAccessFileManager.DEFAULT_BUFFER_SIZE);
 
         if (name == null) {
@@ -164,7 +201,7 @@ public final class RandomAccessFileAppender extends AbstractOutputStreamAppender
             layout = PatternLayout.createDefaultLayout();
         }
         final RandomAccessFileManager manager = RandomAccessFileManager.getFileManager(
-                fileName, isAppend, isFlush, bufferSize, advertiseURI, layout
+                fileName, isAppend, isFlush, bufferSize, advertiseURI, layout, isConcurrentWrites
         );
         if (manager == null) {
             return null;
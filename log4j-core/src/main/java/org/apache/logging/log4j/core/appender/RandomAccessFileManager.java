@@ -32,9 +32,15 @@ import org.apache.logging.log4j.core.util.NullOutputStream;
  * Extends OutputStreamManager but instead of using a buffered output stream,
  * this class uses a {@code ByteBuffer} and a {@code RandomAccessFile} to do the
  * I/O.
+ * <p>
+ * When created with {@code concurrentWrites} enabled, writes do not synchronize on the manager. Instead threads
+ * claim space in a {@link ConcurrentWriteBuffer} with an atomic counter and copy their bytes concurrently, while full
+ * segments of the buffer are written to the file in order.
+ * </p>
  */
 public class RandomAccessFileManager extends OutputStreamManager {
     static final int DEFAULT_BUFFER_SIZE = 256 * 1024;
+    static final int SEGMENT_COUNT = 4;
 
     private static final RandomAccessFileManagerFactory FACTORY = new RandomAccessFileManagerFactory();
 
@@ -42,18 +48,39 @@ public class RandomAccessFileManager extends OutputStreamManager {
     private final String advertiseURI;
     private final RandomAccessFile randomAccessFile;
     private final ByteBuffer buffer;
+    private final ConcurrentWriteBuffer concurrentBuffer;
     private final ThreadLocal<Boolean> isEndOfBatch = new ThreadLocal<>();
 
     protected RandomAccessFileManager(final RandomAccessFile file,
             final String fileName, final OutputStream os,
             final boolean immediateFlush, final int bufferSize,
             final String advertiseURI, final Layout<? extends Serializable> layout, final boolean writeHeader) {
+        this(file, fileName, os, immediateFlush, bufferSize, advertiseURI, layout, writeHeader, false);
+    }
+
+    protected RandomAccessFileManager(final RandomAccessFile file,
+            final String fileName, final OutputStream os,
+            final boolean immediateFlush, final int bufferSize,
+            final String advertiseURI, final Layout<? extends Serializable> layout, final boolean writeHeader,
+            final boolean concurrentWrites) {
         super(os, fileName, layout, writeHeader);
         this.isImmediateFlush = immediateFlush;
         this.randomAccessFile = file;
         this.advertiseURI = advertiseURI;
         this.isEndOfBatch.set(Boolean.FALSE);
-        this.buffer = ByteBuffer.allocate(bufferSize);
+        if (concurrentWrites) {
+            this.buffer = null;
+            this.concurrentBuffer = new ConcurrentWriteBuffer(bufferSize, SEGMENT_COUNT,
+                    new ConcurrentWriteBuffer.Sink() {
+                        @Override
+                        public void write(final byte[] bytes, final int offset, final int length) throws IOException {
+                            randomAccessFile.write(bytes, offset, length);
+                        }
+                    });
+        } else {
+            this.buffer = ByteBuffer.allocate(bufferSize);
+            this.concurrentBuffer = null;
+        }
     }
 
     /**
@@ -72,8 +99,28 @@ public class RandomAccessFileManager extends OutputStreamManager {
     public static RandomAccessFileManager getFileManager(final String fileName, final boolean append,
             final boolean isFlush, final int bufferSize, final String advertiseURI,
             final Layout<? extends Serializable> layout) {
+        return getFileManager(fileName, append, isFlush, bufferSize, advertiseURI, layout, false);
+    }
+
+    /**
+     * Returns the RandomAccessFileManager.
+     *
+     * @param fileName The name of the file to manage.
+     * @param append true if the file should be appended to, false if it should
+     *            be overwritten.
+     * @param isFlush true if the contents should be flushed to disk on every
+     *            write
+     * @param bufferSize The buffer size.
+     * @param advertiseURI the URI to use when advertising the file
+     * @param layout The layout.
+     * @param concurrentWrites true if threads should copy into the buffer concurrently instead of synchronizing.
+     * @return A RandomAccessFileManager for the File.
+     */
+    public static RandomAccessFileManager getFileManager(final String fileName, final boolean append,
+            final boolean isFlush, final int bufferSize, final String advertiseURI,
+            final Layout<? extends Serializable> layout, final boolean concurrentWrites) {
         return (RandomAccessFileManager) getManager(fileName, new FactoryData(append,
-                isFlush, bufferSize, advertiseURI, layout), FACTORY);
+                isFlush, bufferSize, advertiseURI, layout, concurrentWrites), FACTORY);
     }
 
     public Boolean isEndOfBatch() {
@@ -85,7 +132,24 @@ public class RandomAccessFileManager extends OutputStreamManager {
     }
 
     @Override
-    protected synchronized void write(final byte[] bytes, int offset, int length, final boolean immediateFlush) {
+    protected void write(final byte[] bytes, final int offset, final int length, final boolean immediateFlush) {
+        if (concurrentBuffer == null) {
+            writeSynchronized(bytes, offset, length, immediateFlush);
+            return;
+        }
+        try {
+            concurrentBuffer.write(bytes, offset, length);
+        } catch (final IOException ex) {
+            final String msg = "Error writing to RandomAccessFile " + getName();
+            throw new AppenderLoggingException(msg, ex);
+        }
+        if (immediateFlush || isImmediateFlush || isEndOfBatch.get() == Boolean.TRUE) {
+            flush();
+        }
+    }
+
+    private synchronized void writeSynchronized(final byte[] bytes, int offset, int length,
+            final boolean immediateFlush) {
         super.write(bytes, offset, length, immediateFlush); // writes to dummy output stream
 
         int chunk = 0;
@@ -105,7 +169,20 @@ public class RandomAccessFileManager extends OutputStreamManager {
     }
 
     @Override
-    public synchronized void flush() {
+    public void flush() {
+        if (concurrentBuffer == null) {
+            flushSynchronized();
+            return;
+        }
+        try {
+            concurrentBuffer.flush();
+        } catch (final IOException ex) {
+            final String msg = "Error writing to RandomAccessFile " + getName();
+            throw new AppenderLoggingException(msg, ex);
+        }
+    }
+
+    private synchronized void flushSynchronized() {
         buffer.flip();
         try {
             randomAccessFile.write(buffer.array(), 0, buffer.limit());
@@ -140,7 +217,15 @@ public class RandomAccessFileManager extends OutputStreamManager {
      * @return the buffer size
      */
     public int getBufferSize() {
-        return buffer.capacity();
+        return concurrentBuffer == null ? buffer.capacity() : concurrentBuffer.getCapacity();
+    }
+
+    /**
+     * Returns whether threads write into the buffer concurrently.
+     * @return {@code true} if writes do not synchronize on this manager
+     */
+    public boolean isConcurrentWrites() {
+        return concurrentBuffer != null;
     }
 
     /**
@@ -168,6 +253,7 @@ public class RandomAccessFileManager extends OutputStreamManager {
         private final int bufferSize;
         private final String advertiseURI;
         private final Layout<? extends Serializable> layout;
+        private final boolean concurrentWrites;
 
         /**
          * Constructor.
@@ -177,11 +263,28 @@ public class RandomAccessFileManager extends OutputStreamManager {
          */
         public FactoryData(final boolean append, final boolean immediateFlush,
                 final int bufferSize, final String advertiseURI, final Layout<? extends Serializable> layout) {
+            this(append, immediateFlush, bufferSize, advertiseURI, layout, false);
+        }
+
+        /**
+         * Constructor.
+         *
+         * @param append Append status.
+         * @param immediateFlush Whether the buffer is flushed to the file after each event.
+         * @param bufferSize The size of the buffer that events are written to before they reach the file.
+         * @param advertiseURI The URI to advertise, or null.
+         * @param layout The layout of the appender.
+         * @param concurrentWrites whether threads write into the buffer concurrently
+         */
+        public FactoryData(final boolean append, final boolean immediateFlush,
+                final int bufferSize, final String advertiseURI, final Layout<? extends Serializable> layout,
+                final boolean concurrentWrites) {
             this.append = append;
             this.immediateFlush = immediateFlush;
             this.bufferSize = bufferSize;
             this.advertiseURI = advertiseURI;
             this.layout = layout;
+            this.concurrentWrites = concurrentWrites;
         }
     }
 
@@ -220,7 +323,7 @@ public class RandomAccessFileManager extends OutputStreamManager {
                     raf.setLength(0);
                 }
                 return new RandomAccessFileManager(raf, name, os, data.immediateFlush,
-                        data.bufferSize, data.advertiseURI, data.layout, writeHeader);
+                        data.bufferSize, data.advertiseURI, data.layout, writeHeader, data.concurrentWrites);
             } catch (final Exception ex) {
                 LOGGER.error("RandomAccessFileManager (" + name + ") " + ex, ex);
             }
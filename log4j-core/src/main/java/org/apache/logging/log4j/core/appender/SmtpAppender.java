@@ -51,6 +51,11 @@ import org.apache.logging.log4j.core.util.Booleans;
  * By default, an email message will be sent when an ERROR or higher severity
  * message is appended. This can be modified by setting a filter for the
  * appender.
+ *
+ * If <b>async</b> is true, the logging thread only takes a snapshot of the
+ * buffered events and the messages are sent by a background thread, which
+ * sends all messages requested within <b>batchDelayMillis</b> as one message
+ * and at most <b>rateLimit</b> messages per <b>rateLimitPeriodSeconds</b>.
  */
 @Plugin(name = "SMTP", category = "Core", elementType = "appender", printObject = true)
 public final class SmtpAppender extends AbstractAppender {
@@ -104,6 +109,68 @@ public final class SmtpAppender extends AbstractAppender {
      *            ERROR).
      * @param ignore If {@code "true"} (default) exceptions encountered when appending events are logged; otherwise
      *               they are propagated to the caller.
+     * @return The SmtpAppender, which sends messages synchronously.
+     */
+    public static SmtpAppender createAppender(final Configuration config, final String name, final String to,
+            final String cc, final String bcc, final String from, final String replyTo, final String subject,
+            final String smtpProtocol, final String smtpHost, final String smtpPortStr, final String smtpUsername,
+            final String smtpPassword, final String smtpDebug, final String bufferSizeStr,
+            final Layout<? extends Serializable> layout, final Filter filter, final String ignore) {
+        return createAppender(config, name, to, cc, bcc, from, replyTo, subject, smtpProtocol, smtpHost, smtpPortStr,
+                smtpUsername, smtpPassword, smtpDebug, bufferSizeStr, layout, filter, ignore, false,
+                SmtpManager.DEFAULT_QUEUE_SIZE, 0, 0, SmtpManager.DEFAULT_RATE_LIMIT_PERIOD_SECONDS);
+    }
+
+    /**
+     * Create a SmtpAppender.
+     *
+     * @param name
+     *            The name of the Appender.
+     * @param to
+     *            The comma-separated list of recipient email addresses.
+     * @param cc
+     *            The comma-separated list of CC email addresses.
+     * @param bcc
+     *            The comma-separated list of BCC email addresses.
+     * @param from
+     *            The email address of the sender.
+     * @param replyTo
+     *            The comma-separated list of reply-to email addresses.
+     * @param subject The subject of the email message.
+     * @param smtpProtocol The SMTP transport protocol (such as "smtps", defaults to "smtp").
+     * @param smtpHost
+     *            The SMTP hostname to send to.
+     * @param smtpPortStr
+     *            The SMTP port to send to.
+     * @param smtpUsername
+     *            The username required to authenticate against the SMTP server.
+     * @param smtpPassword
+     *            The password required to authenticate against the SMTP server.
+     * @param smtpDebug
+     *            Enable mail session debuging on STDOUT.
+     * @param bufferSizeStr
+     *            How many log events should be buffered for inclusion in the
+     *            message?
+     * @param layout
+     *            The layout to use (defaults to HtmlLayout).
+     * @param filter
+     *            The Filter or null (defaults to ThresholdFilter, level of
+     *            ERROR).
+     * @param ignore If {@code "true"} (default) exceptions encountered when appending events are logged; otherwise
+     *               they are propagated to the caller.
+     * @param async
+     *            If true, messages are sent by a background thread.
+     * @param queueSize
+     *            The maximum number of messages waiting to be sent by the
+     *            background thread; further messages are dropped.
+     * @param batchDelayMillis
+     *            How long the background thread waits for further messages
+     *            to send together with the first one.
+     * @param rateLimit
+     *            The maximum number of messages sent by the background thread
+     *            per rate limit period, or 0 for no limit.
+     * @param rateLimitPeriodSeconds
+     *            The period of the rate limit in seconds.
      * @return The SmtpAppender.
      */
     @PluginFactory
@@ -125,7 +192,13 @@ public final class SmtpAppender extends AbstractAppender {
             @PluginAttribute("bufferSize") final String bufferSizeStr,
             @PluginElement("Layout") Layout<? extends Serializable> layout,
             @PluginElement("Filter") Filter filter,
-            @PluginAttribute("ignoreExceptions") final String ignore) {
+            @PluginAttribute("ignoreExceptions") final String ignore,
+            @PluginAttribute(value = "async", defaultBoolean = false) final boolean async,
+            @PluginAttribute(value = "queueSize", defaultInt = SmtpManager.DEFAULT_QUEUE_SIZE) final int queueSize,
+            @PluginAttribute(value = "batchDelayMillis", defaultInt = 0) final int batchDelayMillis,
+            @PluginAttribute(value = "rateLimit", defaultInt = 0) final int rateLimit,
+            @PluginAttribute(value = "rateLimitPeriodSeconds",
+                defaultInt = SmtpManager.DEFAULT_RATE_LIMIT_PERIOD_SECONDS) final int rateLimitPeriodSeconds) {
         if (name == null) {
             LOGGER.error("No name provided for SmtpAppender");
             return null;
@@ -144,7 +217,11 @@ public final class SmtpAppender extends AbstractAppender {
         }
         final Configuration configuration = config != null ? config : new DefaultConfiguration();
 
-        final SmtpManager manager = SmtpManager.getSmtpManager(configuration, to, cc, bcc, from, replyTo, subject, smtpProtocol,
+        final SmtpManager manager = async
+            ? SmtpManager.getAsyncSmtpManager(configuration, to, cc, bcc, from, replyTo, subject, smtpProtocol,
+                smtpHost, smtpPort, smtpUsername, smtpPassword, isSmtpDebug, filter.toString(), bufferSize, queueSize,
+                batchDelayMillis, rateLimit, rateLimitPeriodSeconds)
+            : SmtpManager.getSmtpManager(configuration, to, cc, bcc, from, replyTo, subject, smtpProtocol,
             smtpHost, smtpPort, smtpUsername, smtpPassword, isSmtpDebug, filter.toString(),  bufferSize);
         if (manager == null) {
             return null;
@@ -177,4 +254,14 @@ public final class SmtpAppender extends AbstractAppender {
     public void append(final LogEvent event) {
         manager.sendEvents(getLayout(), event);
     }
+
+    /**
+     * Stops the appender and releases the manager, which sends the messages that are still waiting if delivery is
+     * asynchronous.
+     */
+    @Override
+    public void stop() {
+        super.stop();
+        manager.release();
+    }
 }
@@ -32,6 +32,7 @@ import org.apache.logging.log4j.core.config.plugins.PluginFactory;
 import org.apache.logging.log4j.core.layout.SerializedLayout;
 import org.apache.logging.log4j.core.net.AbstractSocketManager;
 import org.apache.logging.log4j.core.net.Advertiser;
+import org.apache.logging.log4j.core.net.BufferedSocketManager;
 import org.apache.logging.log4j.core.net.DatagramSocketManager;
 import org.apache.logging.log4j.core.net.Protocol;
 import org.apache.logging.log4j.core.net.SslSocketManager;
@@ -108,6 +109,70 @@ public class SocketAppender extends AbstractOutputStreamAppender<AbstractSocketM
      *            The Configuration
      * @return A SocketAppender.
      */
+    public static SocketAppender createAppender(
+            // @formatter:off
+            final String host,
+            final int port,
+            final Protocol protocol,
+            final SslConfiguration sslConfig,
+            final int connectTimeoutMillis,
+            final int reconnectDelayMillis,
+            final boolean immediateFail,
+            final String name,
+            final boolean immediateFlush,
+            final boolean ignoreExceptions,
+            final Layout<? extends Serializable> layout,
+            final Filter filter,
+            final boolean advertise, 
+            final Configuration config) {
+            // @formatter:on
+        return createAppender(host, port, protocol, sslConfig, connectTimeoutMillis, reconnectDelayMillis,
+                immediateFail, name, immediateFlush, ignoreExceptions, layout, filter, advertise, config, 0, true, 0);
+    }
+
+    /**
+     * Creates a socket appender.
+     * 
+     * @param host
+     *            The name of the host to connect to.
+     * @param port
+     *            The port to connect to on the target host.
+     * @param protocol
+     *            The Protocol to use.
+     * @param sslConfig
+     *            The SSL configuration file for TCP/SSL, ignored for UPD.
+     * @param connectTimeoutMillis
+     *            the connect timeout in milliseconds.
+     * @param reconnectDelayMillis
+     *            The interval in which failed writes should be retried.
+     * @param immediateFail
+     *            True if the write should fail if no socket is immediately available.
+     * @param name
+     *            The name of the Appender.
+     * @param immediateFlush
+     *            "true" if data should be flushed on each write.
+     * @param ignoreExceptions
+     *            If {@code "true"} (default) exceptions encountered when appending events are logged; otherwise they
+     *            are propagated to the caller.
+     * @param layout
+     *            The layout to use (defaults to SerializedLayout).
+     * @param filter
+     *            The Filter or null.
+     * @param advertise
+     *            "true" if the appender configuration should be advertised, "false" otherwise.
+     * @param config
+     *            The Configuration
+     * @param udpQueueSize
+     *            The number of UDP datagrams that may wait to be sent by a background thread, zero to send them from
+     *            the logging thread.
+     * @param udpBlocking
+     *            True if the logging thread waits when the UDP queue is full, false if the datagram is dropped.
+     * @param tcpBufferSize
+     *            The size in bytes of the buffer from which a background thread sends the events over TCP or SSL, zero
+     *            to send them from the logging thread.
+     * @return A SocketAppender.
+     * @since 2.6
+     */
     @PluginFactory
     public static SocketAppender createAppender(
             // @formatter:off
@@ -125,7 +190,10 @@ public class SocketAppender extends AbstractOutputStreamAppender<AbstractSocketM
             @PluginElement("Layout") Layout<? extends Serializable> layout,
             @PluginElement("Filter") final Filter filter,
             @PluginAttribute(value = "advertise", defaultBoolean = false) final boolean advertise, 
-            @PluginConfiguration final Configuration config) {
+            @PluginConfiguration final Configuration config,
+            @PluginAttribute(value = "udpQueueSize", defaultInt = 0) final int udpQueueSize,
+            @PluginAttribute(value = "udpBlocking", defaultBoolean = true) final boolean udpBlocking,
+            @PluginAttribute(value = "tcpBufferSize", defaultInt = 0) final int tcpBufferSize) {
             // @formatter:on
         
         if (layout == null) {
@@ -143,7 +211,7 @@ public class SocketAppender extends AbstractOutputStreamAppender<AbstractSocketM
         }
 
         final AbstractSocketManager manager = createSocketManager(name, actualProtocol, host, port, connectTimeoutMillis,
-                sslConfig, reconnectDelayMillis, immediateFail, layout);
+                sslConfig, reconnectDelayMillis, immediateFail, layout, udpQueueSize, udpBlocking, tcpBufferSize);
 
         return new SocketAppender(name, layout, filter, manager, ignoreExceptions, immediateFlush,
                 advertise ? config.getAdvertiser() : null);
@@ -220,9 +288,29 @@ public class SocketAppender extends AbstractOutputStreamAppender<AbstractSocketM
      * @throws IllegalArgumentException
      *             if the protocol cannot be handled.
      */
+    protected static AbstractSocketManager createSocketManager(final String name, final Protocol protocol,
+            final String host, final int port, final int connectTimeoutMillis, final SslConfiguration sslConfig,
+            final int delayMillis, final boolean immediateFail, final Layout<? extends Serializable> layout) {
+        return createSocketManager(name, protocol, host, port, connectTimeoutMillis, sslConfig, delayMillis,
+                immediateFail, layout, 0, true, 0);
+    }
+
+    /**
+     * Creates an AbstractSocketManager for TCP, UDP, and SSL.
+     *
+     * @param udpQueueSize The number of UDP datagrams that may wait to be sent by a background thread, zero to send
+     *            them from the logging thread.
+     * @param udpBlocking True if the logging thread waits when the UDP queue is full, false to drop the datagram.
+     * @param tcpBufferSize The size in bytes of the buffer from which a background thread sends the events over TCP
+     *            or SSL, zero to send them from the logging thread.
+     * @throws IllegalArgumentException
+     *             if the protocol cannot be handled.
+     * @since 2.6
+     */
     protected static AbstractSocketManager createSocketManager(final String name, Protocol protocol, final String host,
             final int port, final int connectTimeoutMillis, final SslConfiguration sslConfig, final int delayMillis,
-            final boolean immediateFail, final Layout<? extends Serializable> layout) {
+            final boolean immediateFail, final Layout<? extends Serializable> layout, final int udpQueueSize,
+            final boolean udpBlocking, final int tcpBufferSize) {
         if (protocol == Protocol.TCP && sslConfig != null) {
             // Upgrade TCP to SSL if an SSL config is specified.
             protocol = Protocol.SSL;
@@ -230,12 +318,16 @@ public class SocketAppender extends AbstractOutputStreamAppender<AbstractSocketM
         if (protocol != Protocol.SSL && sslConfig != null) {
             LOGGER.info("Appender {} ignoring SSL configuration for {} protocol", name, protocol);
         }
+        if (tcpBufferSize > 0 && protocol != Protocol.UDP) {
+            return BufferedSocketManager.getSocketManager(sslConfig, protocol == Protocol.SSL, host, port,
+                    connectTimeoutMillis, delayMillis, immediateFail, tcpBufferSize, layout);
+        }
         switch (protocol) {
         case TCP:
             return TcpSocketManager.getSocketManager(host, port, connectTimeoutMillis, delayMillis, immediateFail,
                     layout);
         case UDP:
-            return DatagramSocketManager.getSocketManager(host, port, layout);
+            return DatagramSocketManager.getSocketManager(host, port, layout, udpQueueSize, udpBlocking);
         case SSL:
             return SslSocketManager.getSocketManager(sslConfig, host, port, connectTimeoutMillis, delayMillis,
                     immediateFail, layout);
@@ -59,7 +59,7 @@ public class SyslogAppender extends SocketAppender {
      * @param host The name of the host to connect to.
      * @param port The port to connect to on the target host.
      * @param protocolStr The Protocol to use.
-     * @param sslConfig TODO
+     * @param sslConfig The SSL configuration for TCP/SSL, ignored for UDP.
      * @param connectTimeoutMillis the connect timeout in milliseconds.
      * @param reconnectionDelayMillis The interval in which failed writes should be retried.
      * @param immediateFail True if the write should fail if no socket is immediately available.
@@ -93,6 +93,91 @@ public class SyslogAppender extends SocketAppender {
      * @param connectTimeoutMillis the connect timeout in milliseconds.
      * @return A SyslogAppender.
      */
+    public static SyslogAppender createAppender(
+            // @formatter:off
+            final String host,
+            final int port,
+            final String protocolStr,
+            final SslConfiguration sslConfig,
+            final int connectTimeoutMillis,
+            final int reconnectionDelayMillis,
+            final boolean immediateFail,
+            final String name,
+            final boolean immediateFlush,
+            final boolean ignoreExceptions,
+            final Facility facility,
+            final String id,
+            final int enterpriseNumber,
+            final boolean includeMdc,
+            final String mdcId,
+            final String mdcPrefix,
+            final String eventPrefix,
+            final boolean newLine,
+            final String escapeNL,
+            final String appName,
+            final String msgId,
+            final String excludes,
+            final String includes,
+            final String required,
+            final String format,
+            final Filter filter,
+            final Configuration config,
+            final Charset charsetName,
+            final String exceptionPattern,
+            final LoggerFields[] loggerFields, final boolean advertise) {
+        // @formatter:on
+        return createAppender(host, port, protocolStr, sslConfig, connectTimeoutMillis, reconnectionDelayMillis,
+                immediateFail, name, immediateFlush, ignoreExceptions, facility, id, enterpriseNumber, includeMdc,
+                mdcId, mdcPrefix, eventPrefix, newLine, escapeNL, appName, msgId, excludes, includes, required, format,
+                filter, config, charsetName, exceptionPattern, loggerFields, advertise, 0, true, 0);
+    }
+
+    /**
+     * Create a SyslogAppender.
+     * @param host The name of the host to connect to.
+     * @param port The port to connect to on the target host.
+     * @param protocolStr The Protocol to use.
+     * @param sslConfig The SSL configuration for TCP/SSL, ignored for UDP.
+     * @param connectTimeoutMillis the connect timeout in milliseconds.
+     * @param reconnectionDelayMillis The interval in which failed writes should be retried.
+     * @param immediateFail True if the write should fail if no socket is immediately available.
+     * @param name The name of the Appender.
+     * @param immediateFlush "true" if data should be flushed on each write.
+     * @param ignoreExceptions If {@code "true"} (default) exceptions encountered when appending events are logged;
+     *                         otherwise they are propagated to the caller.
+     * @param facility The Facility is used to try to classify the message.
+     * @param id The default structured data id to use when formatting according to RFC 5424.
+     * @param enterpriseNumber The IANA enterprise number.
+     * @param includeMdc Indicates whether data from the ThreadContextMap will be included in the RFC 5424 Syslog
+     * record. Defaults to "true:.
+     * @param mdcId The id to use for the MDC Structured Data Element.
+     * @param mdcPrefix The prefix to add to MDC key names.
+     * @param eventPrefix The prefix to add to event key names.
+     * @param newLine If true, a newline will be appended to the end of the syslog record. The default is false.
+     * @param escapeNL String that should be used to replace newlines within the message text.
+     * @param appName The value to use as the APP-NAME in the RFC 5424 syslog record.
+     * @param msgId The default value to be used in the MSGID field of RFC 5424 syslog records.
+     * @param excludes A comma separated list of mdc keys that should be excluded from the LogEvent.
+     * @param includes A comma separated list of mdc keys that should be included in the FlumeEvent.
+     * @param required A comma separated list of mdc keys that must be present in the MDC.
+     * @param format If set to "RFC5424" the data will be formatted in accordance with RFC 5424. Otherwise,
+     * it will be formatted as a BSD Syslog record.
+     * @param filter A Filter to determine if the event should be handled by this Appender.
+     * @param config The Configuration.
+     * @param charsetName The character set to use when converting the syslog String to a byte array.
+     * @param exceptionPattern The converter pattern to use for formatting exceptions.
+     * @param loggerFields The logger fields
+     * @param advertise Whether to advertise
+     * @param connectTimeoutMillis the connect timeout in milliseconds.
+     * @param udpQueueSize The number of UDP datagrams that may wait to be sent by a background thread, zero to send
+     *                     them from the logging thread.
+     * @param udpBlocking True if the logging thread waits when the UDP queue is full, false if the datagram is
+     *                    dropped.
+     * @param tcpBufferSize The size in bytes of the buffer from which a background thread sends the events over TCP
+     *                      or SSL, zero to send them from the logging thread.
+     * @return A SyslogAppender.
+     * @since 2.6
+     */
     @PluginFactory
     public static SyslogAppender createAppender(
             // @formatter:off
@@ -126,7 +211,10 @@ public class SyslogAppender extends SocketAppender {
             @PluginConfiguration final Configuration config,
             @PluginAttribute(value = "charset", defaultString = "UTF-8") final Charset charsetName,
             @PluginAttribute("exceptionPattern") final String exceptionPattern,
-            @PluginElement("LoggerFields") final LoggerFields[] loggerFields, @PluginAttribute(value = "advertise", defaultBoolean = false) final boolean advertise) {
+            @PluginElement("LoggerFields") final LoggerFields[] loggerFields, @PluginAttribute(value = "advertise", defaultBoolean = false) final boolean advertise,
+            @PluginAttribute(value = "udpQueueSize", defaultInt = 0) final int udpQueueSize,
+            @PluginAttribute(value = "udpBlocking", defaultBoolean = true) final boolean udpBlocking,
+            @PluginAttribute(value = "tcpBufferSize", defaultInt = 0) final int tcpBufferSize) {
         // @formatter:on
 
         // TODO: add Protocol to TypeConverters
@@ -143,7 +231,7 @@ public class SyslogAppender extends SocketAppender {
             return null;
         }
         final AbstractSocketManager manager = createSocketManager(name, protocol, host, port, connectTimeoutMillis,
-                sslConfig, reconnectionDelayMillis, immediateFail, layout);
+                sslConfig, reconnectionDelayMillis, immediateFail, layout, udpQueueSize, udpBlocking, tcpBufferSize);
 
         return new SyslogAppender(name, layout, filter, ignoreExceptions, immediateFlush, manager,
                 advertise ? config.getAdvertiser() : null);
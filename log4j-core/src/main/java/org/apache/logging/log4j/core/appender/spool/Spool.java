@@ -0,0 +1,583 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache license, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the license for the specific language governing permissions and
+ * limitations under the license.
+ */
+package org.apache.logging.log4j.core.appender.spool;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.AccessController;
+import java.security.PrivilegedActionException;
+import java.security.PrivilegedExceptionAction;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.status.StatusLogger;
+
+/**
+ * An append-only log of records in memory-mapped segment files that keeps records until their delivery has been
+ * acknowledged, also across restarts of the application.
+ * <p>
+ * Records are appended to the newest segment and a new segment is started when it is full. A single consumer reads
+ * records with {@link #next(long, TimeUnit)} and confirms their delivery with {@link #acknowledge()}, which persists
+ * the position of the first record that was not delivered. Segments that only hold delivered records are kept for
+ * reuse or deleted. Records that were read but not acknowledged are read again after {@link #rewind()} or when the
+ * spool is opened again, so each record is delivered at least once.
+ * </p>
+ * <p>
+ * A record is stored as its length, a CRC32 checksum of the segment number and the payload, and the payload. Opening
+ * a spool checks the records following the acknowledged position and continues after the last intact record, which
+ * drops a record that was only partly written when the process died.
+ * </p>
+ * <p>
+ * Appended records are in the page cache of the operating system and survive a crash of the process. If
+ * {@code force} is true, records are also written to the storage device before {@link #append(byte[], int, int)}
+ * returns.
+ * </p>
+ *
+ * @since 2.6
+ */
+public final class Spool implements Closeable {
+
+    /** The default size of a segment file, 16 MiB. */
+    public static final int DEFAULT_SEGMENT_SIZE = 16 * 1024 * 1024;
+
+    private static final Logger LOGGER = StatusLogger.getLogger();
+
+    private static final String SEGMENT_SUFFIX = ".segment";
+
+    private static final String ACK_FILE_NAME = "spool.ack";
+
+    /** Marks a valid acknowledgement file, "L4JSPOOL". */
+    private static final long ACK_MAGIC = 0x4C344A53504F4F4CL;
+
+    private static final int ACK_FILE_SIZE = 16;
+
+    /** The length and checksum preceding each record. */
+    private static final int HEADER_SIZE = 8;
+
+    /** The length written after the last record of a segment. */
+    private static final int END_OF_SEGMENT = -1;
+
+    private static final int MIN_SEGMENT_SIZE = 4096;
+
+    /** The number of segment files that are kept for reuse instead of being deleted. */
+    private static final int MAX_SPARE_SEGMENTS = 1;
+
+    private final File directory;
+    private final int segmentSize;
+    private final int maxSegments;
+    private final boolean force;
+    private final Lock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final CRC32 checksum = new CRC32();
+    private final MappedByteBuffer ackBuffer;
+
+    /** Segments from the acknowledged position up to the write position, oldest first. */
+    private final List<Segment> segments = new ArrayList<>();
+    private final List<Segment> spares = new ArrayList<>();
+    private Segment writeSegment;
+    private int writeOffset;
+    private Segment readSegment;
+    private int readOffset;
+    private Segment ackSegment;
+    private int ackOffset;
+    private byte[] scratch = new byte[0];
+    private boolean closed;
+    /** Whether all records were acknowledged when the spool was closed. */
+    private boolean emptyWhenClosed;
+
+    private Spool(final File directory, final int segmentSize, final int maxSegments, final boolean force)
+            throws IOException {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.maxSegments = maxSegments;
+        this.force = force;
+        this.ackBuffer = map(new File(directory, ACK_FILE_NAME), ACK_FILE_SIZE);
+        recover();
+    }
+
+    /**
+     * Opens the spool in the specified directory, creating the directory if necessary.
+     *
+     * @param directory The directory holding the segment files, used by no other spool.
+     * @param segmentSize The size of new segment files in bytes, which limits the size of a record.
+     * @param maxSegments The maximum number of segments holding records, or 0 for no limit.
+     * @param force If true, appended records are written to the storage device before returning.
+     * @return The Spool.
+     * @throws IOException if the spool cannot be opened.
+     */
+    public static Spool open(final File directory, final int segmentSize, final int maxSegments, final boolean force)
+            throws IOException {
+        if (segmentSize < MIN_SEGMENT_SIZE) {
+            throw new IllegalArgumentException("Segment size " + segmentSize + " is less than " + MIN_SEGMENT_SIZE);
+        }
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Unable to create spool directory " + directory);
+        }
+        return new Spool(directory, segmentSize, maxSegments, force);
+    }
+
+    private void recover() throws IOException {
+        final boolean acknowledged = ackBuffer.getLong(0) == ACK_MAGIC;
+        final long ackPosition = ackBuffer.getLong(8);
+        final int ackNumber = acknowledged ? (int) (ackPosition >>> 32) : Integer.MIN_VALUE;
+        int offset = acknowledged ? (int) ackPosition : 0;
+        for (final File file : listSegmentFiles()) {
+            final int number = segmentNumber(file);
+            if (number < ackNumber) {
+                // all records were delivered
+                if (spares.size() < MAX_SPARE_SEGMENTS && file.length() == segmentSize) {
+                    spares.add(new Segment(number, file, map(file, 0)));
+                } else {
+                    delete(file);
+                }
+            } else if (segments.isEmpty() || number == segments.get(segments.size() - 1).number + 1) {
+                segments.add(new Segment(number, file, map(file, 0)));
+            } else {
+                LOGGER.warn("Spool {} is missing the segment before {}, discarding it", directory, file);
+                delete(file);
+            }
+        }
+        if (segments.isEmpty()) {
+            segments.add(createSegment(acknowledged ? ackNumber + 1 : 1));
+            offset = 0;
+        } else if (segments.get(0).number != ackNumber) {
+            offset = 0;
+        }
+        int index = 0;
+        Segment segment = segments.get(0);
+        int position = Math.min(offset, segment.size);
+        offset = position;
+        int count = 0;
+        for (;;) {
+            final int length = check(segment, position);
+            if (length > 0) {
+                position += HEADER_SIZE + length;
+                ++count;
+            } else if (length == END_OF_SEGMENT && index + 1 < segments.size()) {
+                segment = segments.get(++index);
+                position = 0;
+            } else {
+                break;
+            }
+        }
+        while (segments.size() > index + 1) {
+            final Segment discarded = segments.remove(segments.size() - 1);
+            LOGGER.warn("Spool {} discards segment {} following an incomplete record", directory, discarded.file);
+            delete(discarded.file);
+        }
+        writeSegment = segment;
+        writeOffset = position;
+        ackSegment = readSegment = segments.get(0);
+        ackOffset = readOffset = offset;
+        saveAcknowledgement();
+        LOGGER.debug("Spool {} recovered {} undelivered records", directory, count);
+    }
+
+    /**
+     * Checks the record at the specified offset.
+     *
+     * @return the length of an intact record, END_OF_SEGMENT if no further records fit into the segment, or 0 if
+     *         there is no intact record.
+     */
+    private int check(final Segment segment, final int offset) {
+        if (offset + HEADER_SIZE > segment.size) {
+            return END_OF_SEGMENT;
+        }
+        final int length = segment.buffer.getInt(offset);
+        final int expected = segment.buffer.getInt(offset + 4);
+        if (length == END_OF_SEGMENT) {
+            return expected == checksum(segment.number, null, 0, 0) ? END_OF_SEGMENT : 0;
+        }
+        if (length <= 0 || length > segment.size - offset - HEADER_SIZE) {
+            return 0;
+        }
+        if (scratch.length < length) {
+            scratch = new byte[length];
+        }
+        segment.view.position(offset + HEADER_SIZE);
+        segment.view.get(scratch, 0, length);
+        return expected == checksum(segment.number, scratch, 0, length) ? length : 0;
+    }
+
+    private int checksum(final int number, final byte[] data, final int offset, final int length) {
+        // stale records in a reused segment file were written with another number
+        checksum.reset();
+        checksum.update(number >>> 24);
+        checksum.update(number >>> 16);
+        checksum.update(number >>> 8);
+        checksum.update(number);
+        if (data != null) {
+            checksum.update(data, offset, length);
+        }
+        return (int) checksum.getValue();
+    }
+
+    /**
+     * Appends a record.
+     *
+     * @param data The buffer holding the record.
+     * @param offset The offset of the record in the buffer.
+     * @param length The length of the record, which must be positive.
+     * @throws IOException if the record does not fit into a segment, the spool is full or closed.
+     */
+    public void append(final byte[] data, final int offset, final int length) throws IOException {
+        if (length <= 0) {
+            throw new IllegalArgumentException("Record length " + length + " is not positive");
+        }
+        if (length > segmentSize - HEADER_SIZE) {
+            throw new IOException("Record of " + length + " bytes exceeds the segment size of spool " + directory);
+        }
+        lock.lock();
+        try {
+            if (closed) {
+                throw new IOException("Spool " + directory + " is closed");
+            }
+            if (length > writeSegment.size - writeOffset - HEADER_SIZE) {
+                roll();
+            }
+            final ByteBuffer view = writeSegment.view;
+            view.position(writeOffset + HEADER_SIZE);
+            view.put(data, offset, length);
+            view.putInt(writeOffset + 4, checksum(writeSegment.number, data, offset, length));
+            // the length is written last, a partly written record fails the check on recovery
+            view.putInt(writeOffset, length);
+            writeOffset += HEADER_SIZE + length;
+            if (force) {
+                writeSegment.buffer.force();
+            }
+            notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void roll() throws IOException {
+        if (maxSegments > 0 && segments.size() >= maxSegments) {
+            throw new IOException("Spool " + directory + " is full");
+        }
+        final Segment segment = createSegment(writeSegment.number + 1);
+        if (writeOffset + HEADER_SIZE <= writeSegment.size) {
+            writeSegment.view.putInt(writeOffset + 4, checksum(writeSegment.number, null, 0, 0));
+            writeSegment.view.putInt(writeOffset, END_OF_SEGMENT);
+        }
+        if (force) {
+            writeSegment.buffer.force();
+        }
+        segments.add(segment);
+        writeSegment = segment;
+        writeOffset = 0;
+    }
+
+    private Segment createSegment(final int number) throws IOException {
+        final File file = new File(directory, String.format("%010d%s", number, SEGMENT_SUFFIX));
+        while (!spares.isEmpty()) {
+            final Segment spare = spares.remove(spares.size() - 1);
+            // the mapping stays valid when the file is renamed
+            if (spare.file.renameTo(file)) {
+                return new Segment(number, file, spare.buffer);
+            }
+            delete(spare.file);
+        }
+        return new Segment(number, file, map(file, segmentSize));
+    }
+
+    /**
+     * Returns the next record that was not read since the last acknowledgement or rewind, waiting if necessary.
+     *
+     * @param timeout How long to wait for a record.
+     * @param unit The unit of the timeout.
+     * @return The record, or null if the timeout elapsed or the spool was closed.
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    public byte[] next(final long timeout, final TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            for (;;) {
+                if (closed) {
+                    return null;
+                }
+                final byte[] record = read();
+                if (record != null || nanos <= 0) {
+                    return record;
+                }
+                nanos = notEmpty.awaitNanos(nanos);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private byte[] read() {
+        for (;;) {
+            if (readSegment == writeSegment && readOffset >= writeOffset) {
+                return null;
+            }
+            if (readOffset + HEADER_SIZE <= readSegment.size) {
+                final int length = readSegment.buffer.getInt(readOffset);
+                if (length != END_OF_SEGMENT) {
+                    final byte[] record = new byte[length];
+                    readSegment.view.position(readOffset + HEADER_SIZE);
+                    readSegment.view.get(record);
+                    readOffset += HEADER_SIZE + length;
+                    return record;
+                }
+            }
+            readSegment = segments.get(segments.indexOf(readSegment) + 1);
+            readOffset = 0;
+        }
+    }
+
+    /**
+     * Indicates whether records can be read without waiting.
+     *
+     * @return true if there is a record to read.
+     */
+    public boolean hasNext() {
+        lock.lock();
+        try {
+            return !closed && hasRecords(readSegment, readOffset);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Indicates whether all records were acknowledged.
+     *
+     * @return true if there are no undelivered records.
+     */
+    public boolean isEmpty() {
+        lock.lock();
+        try {
+            return closed ? emptyWhenClosed : !hasRecords(ackSegment, ackOffset);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean hasRecords(final Segment from, final int fromOffset) {
+        Segment segment = from;
+        int offset = fromOffset;
+        while (segment != writeSegment) {
+            if (offset + HEADER_SIZE <= segment.size && segment.buffer.getInt(offset) != END_OF_SEGMENT) {
+                return true;
+            }
+            segment = segments.get(segments.indexOf(segment) + 1);
+            offset = 0;
+        }
+        return offset < writeOffset;
+    }
+
+    /**
+     * Marks the records returned by {@link #next(long, TimeUnit)} as delivered. Segments holding only delivered
+     * records are reused or deleted.
+     */
+    public void acknowledge() {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            ackSegment = readSegment;
+            ackOffset = readOffset;
+            saveAcknowledgement();
+            while (segments.get(0) != ackSegment) {
+                release(segments.remove(0));
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Reads the records that were not acknowledged again, starting with the oldest.
+     */
+    public void rewind() {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            readSegment = ackSegment;
+            readOffset = ackOffset;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void saveAcknowledgement() {
+        ackBuffer.putLong(8, (long) ackSegment.number << 32 | ackOffset & 0xFFFFFFFFL);
+        ackBuffer.putLong(0, ACK_MAGIC);
+    }
+
+    private void release(final Segment segment) {
+        if (!closed && spares.size() < MAX_SPARE_SEGMENTS && segment.size == segmentSize) {
+            spares.add(segment);
+        } else {
+            unmap(segment.buffer);
+            delete(segment.file);
+        }
+    }
+
+    /**
+     * Returns the number of segments holding undelivered records.
+     *
+     * @return The number of segments.
+     */
+    public int getSegmentCount() {
+        lock.lock();
+        try {
+            return segments.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the directory of the segment files.
+     *
+     * @return The directory.
+     */
+    public File getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Writes the records and the acknowledged position to the storage device, unmaps the files and closes the spool.
+     * Undelivered records are read again when the spool is opened the next time.
+     */
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            emptyWhenClosed = !hasRecords(ackSegment, ackOffset);
+            closed = true;
+            for (final Segment segment : segments) {
+                segment.buffer.force();
+                unmap(segment.buffer);
+            }
+            ackBuffer.force();
+            unmap(ackBuffer);
+            for (final Segment spare : spares) {
+                unmap(spare.buffer);
+                delete(spare.file);
+            }
+            spares.clear();
+            notEmpty.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "Spool[directory=" + directory + ", segmentSize=" + segmentSize + ", maxSegments=" + maxSegments
+                + ", force=" + force + "]";
+    }
+
+    private File[] listSegmentFiles() {
+        final File[] files = directory.listFiles(new FileFilter() {
+            @Override
+            public boolean accept(final File file) {
+                return file.isFile() && file.getName().matches("\\d{10}" + SEGMENT_SUFFIX);
+            }
+        });
+        if (files == null) {
+            return new File[0];
+        }
+        // the names have the same length
+        Arrays.sort(files);
+        return files;
+    }
+
+    private static int segmentNumber(final File file) {
+        final String name = file.getName();
+        return Integer.parseInt(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private static MappedByteBuffer map(final File file, final int minLength) throws IOException {
+        try (final RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            if (raf.length() < minLength) {
+                raf.setLength(minLength);
+            }
+            return raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, raf.length());
+        }
+    }
+
+    /**
+     * Releases the mapping without waiting for the garbage collector, which also allows deleting the file on Windows.
+     * The buffer must not be accessed afterwards.
+     */
+    private static void unmap(final MappedByteBuffer buffer) {
+        try {
+            AccessController.doPrivileged(new PrivilegedExceptionAction<Object>() {
+                @Override
+                public Object run() throws Exception {
+                    final Method getCleanerMethod = buffer.getClass().getMethod("cleaner");
+                    getCleanerMethod.setAccessible(true);
+                    final Object cleaner = getCleanerMethod.invoke(buffer); // sun.misc.Cleaner instance
+                    final Method cleanMethod = cleaner.getClass().getMethod("clean");
+                    cleanMethod.invoke(cleaner);
+                    return null;
+                }
+            });
+        } catch (final PrivilegedActionException ex) {
+            LOGGER.debug("Unable to unmap spool buffer, it is released by the garbage collector", ex);
+        }
+    }
+
+    private static void delete(final File file) {
+        if (!file.delete() && file.exists()) {
+            LOGGER.warn("Unable to delete spool segment {}", file);
+        }
+    }
+
+    private static final class Segment {
+        private final int number;
+        private final File file;
+        private final MappedByteBuffer buffer;
+        /** Used for bulk transfers, which are relative. */
+        private final ByteBuffer view;
+        private final int size;
+
+        Segment(final int number, final File file, final MappedByteBuffer buffer) {
+            this.number = number;
+            this.file = file;
+            this.buffer = buffer;
+            this.view = buffer.duplicate();
+            this.size = buffer.capacity();
+        }
+    }
+}
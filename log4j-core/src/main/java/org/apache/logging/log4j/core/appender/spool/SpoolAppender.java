@@ -0,0 +1,473 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache license, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the license for the specific language governing permissions and
+ * limitations under the license.
+ */
+package org.apache.logging.log4j.core.appender.spool;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.Serializable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.logging.log4j.core.Appender;
+import org.apache.logging.log4j.core.Filter;
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.appender.AbstractAppender;
+import org.apache.logging.log4j.core.appender.AppenderLoggingException;
+import org.apache.logging.log4j.core.config.AppenderControl;
+import org.apache.logging.log4j.core.config.AppenderRef;
+import org.apache.logging.log4j.core.config.Configuration;
+import org.apache.logging.log4j.core.config.plugins.Plugin;
+import org.apache.logging.log4j.core.config.plugins.PluginAttribute;
+import org.apache.logging.log4j.core.config.plugins.PluginConfiguration;
+import org.apache.logging.log4j.core.config.plugins.PluginElement;
+import org.apache.logging.log4j.core.config.plugins.PluginFactory;
+import org.apache.logging.log4j.core.impl.Log4jLogEvent;
+import org.apache.logging.log4j.core.util.Log4jThread;
+import org.apache.logging.log4j.message.Message;
+import org.apache.logging.log4j.message.ObjectMessage;
+import org.apache.logging.log4j.message.SimpleMessage;
+
+/**
+ * Writes events to a {@link Spool} on disk and forwards them from a background thread to another Appender, usually
+ * one that sends them over the network such as the Socket, Kafka or JDBC Appender.
+ * <p>
+ * An event is acknowledged once the referenced Appender accepted it. If the Appender fails, which it only reports
+ * when its {@code ignoreExceptions} attribute is {@code false}, the event is retried after the retry interval.
+ * Events that were not delivered when the application stops are forwarded after the next start, so each event is
+ * delivered at least once.
+ * </p>
+ * <p>
+ * Events are read back with an {@code ObjectInputStream} that only resolves classes of Log4j and of the
+ * {@code java.lang} and {@code java.util} packages, so that the records of the spool directory cannot instantiate
+ * other classes. Messages that may carry objects of other classes, such as {@link ObjectMessage}s, are spooled as their
+ * formatted text.
+ * </p>
+ *
+ * @since 2.6
+ */
+@Plugin(name = "Spool", category = "Core", elementType = "appender", printObject = true)
+public final class SpoolAppender extends AbstractAppender {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final String[] ALLOWED_JDK_PACKAGES = {"java.lang.", "java.util."};
+
+    private static final int DEFAULT_RETRY_INTERVAL_MILLIS = 1000;
+
+    /** How long the forwarder waits for a record before checking whether it has to stop. */
+    private static final long POLL_MILLIS = 100;
+
+    private final String directory;
+    private final int segmentSize;
+    private final int maxSegments;
+    private final boolean immediateFlush;
+    private final long retryIntervalMillis;
+    private final long shutdownTimeout;
+    private final boolean includeLocation;
+    private final AppenderRef appenderRef;
+    private final Configuration config;
+    private final AtomicLong forwardedCount = new AtomicLong();
+    private final AtomicLong retryCount = new AtomicLong();
+    private Spool spool;
+    private Forwarder forwarder;
+
+    private SpoolAppender(final String name, final Filter filter, final boolean ignoreExceptions,
+            final String directory, final int segmentSize, final int maxSegments, final boolean immediateFlush,
+            final long retryIntervalMillis, final long shutdownTimeout, final boolean includeLocation,
+            final AppenderRef appenderRef, final Configuration config) {
+        super(name, filter, null, ignoreExceptions);
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.maxSegments = maxSegments;
+        this.immediateFlush = immediateFlush;
+        this.retryIntervalMillis = retryIntervalMillis;
+        this.shutdownTimeout = shutdownTimeout;
+        this.includeLocation = includeLocation;
+        this.appenderRef = appenderRef;
+        this.config = config;
+    }
+
+    @Override
+    public void start() {
+        final Appender appender = config.getAppenders().get(appenderRef.getRef());
+        if (appender == null) {
+            LOGGER.error("No appender named {} was configured for SpoolAppender {}", appenderRef.getRef(), getName());
+            return;
+        }
+        try {
+            spool = Spool.open(new File(directory), segmentSize, maxSegments, immediateFlush);
+        } catch (final IOException | RuntimeException ex) {
+            LOGGER.error("Unable to open spool {} for SpoolAppender {}", directory, getName(), ex);
+            return;
+        }
+        forwarder = new Forwarder(getName(),
+                new AppenderControl(appender, appenderRef.getLevel(), appenderRef.getFilter()));
+        forwarder.start();
+        super.start();
+    }
+
+    @Override
+    public void stop() {
+        super.stop();
+        if (forwarder != null) {
+            forwarder.shutdown();
+            try {
+                forwarder.join(shutdownTimeout + retryIntervalMillis + POLL_MILLIS);
+                if (forwarder.isAlive()) {
+                    // still forwarding an event, the spool must not be closed under it
+                    forwarder.interrupt();
+                    forwarder.join(shutdownTimeout + POLL_MILLIS);
+                }
+            } catch (final InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                LOGGER.warn("Interrupted while stopping SpoolAppender {}", getName());
+            }
+            if (forwarder.closeSpoolOnExit()) {
+                LOGGER.warn("SpoolAppender {} could not stop forwarding to {}, the spool is closed when it returns",
+                        getName(), appenderRef.getRef());
+                return;
+            }
+        }
+        closeSpool();
+    }
+
+    private void closeSpool() {
+        if (spool != null) {
+            if (!spool.isEmpty()) {
+                LOGGER.debug("SpoolAppender {} keeps undelivered events in {}", getName(), directory);
+            }
+            spool.close();
+        }
+    }
+
+    /**
+     * Writes the event to the spool.
+     *
+     * @param event The LogEvent.
+     */
+    @Override
+    public void append(final LogEvent event) {
+        final byte[] record;
+        try {
+            record = serialize(event);
+        } catch (final IOException ex) {
+            throw new AppenderLoggingException("Unable to serialize event for SpoolAppender " + getName(), ex);
+        }
+        try {
+            spool.append(record, 0, record.length);
+        } catch (final IOException ex) {
+            throw new AppenderLoggingException("Unable to write to spool " + directory, ex);
+        }
+    }
+
+    private byte[] serialize(final LogEvent event) throws IOException {
+        final Message message = event.getMessage();
+        final boolean textOnly = message instanceof ObjectMessage || !isAllowed(message.getClass().getName());
+        final Log4jLogEvent copy;
+        if (textOnly) {
+            copy = new Log4jLogEvent.Builder(event).setMessage(new SimpleMessage(message.getFormattedMessage()))
+                    .build();
+        } else {
+            copy = event instanceof Log4jLogEvent ? (Log4jLogEvent) event : new Log4jLogEvent.Builder(event).build();
+            message.getFormattedMessage(); // freeze the parameters
+        }
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (final ObjectOutputStream oos = new ObjectOutputStream(bytes)) {
+            oos.writeObject(Log4jLogEvent.serialize(copy, includeLocation));
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Reads a spooled event. Package protected for unit tests.
+     */
+    static Log4jLogEvent deserialize(final byte[] record) throws IOException, ClassNotFoundException {
+        try (final ObjectInputStream ois = new EventInputStream(new ByteArrayInputStream(record))) {
+            final Object object = ois.readObject();
+            // the proxy resolves itself to the event
+            return object instanceof Log4jLogEvent ? (Log4jLogEvent) object
+                    : Log4jLogEvent.deserialize((Serializable) object);
+        }
+    }
+
+    /**
+     * Returns whether a class may be read from a spooled event: the classes of Log4j, of the {@code java.lang} and
+     * {@code java.util} packages, but not their subpackages, and arrays of these classes and of primitives.
+     */
+    private static boolean isAllowed(final String name) {
+        int dimensions = 0;
+        while (name.charAt(dimensions) == '[') {
+            dimensions++;
+        }
+        if (dimensions > 0 && name.length() == dimensions + 1) {
+            return true; // array of primitives
+        }
+        final String className = dimensions == 0 ? name : name.substring(dimensions + 1, name.length() - 1);
+        if (className.startsWith("org.apache.logging.log4j.")) {
+            return true;
+        }
+        for (final String jdkPackage : ALLOWED_JDK_PACKAGES) {
+            if (className.startsWith(jdkPackage) && className.indexOf('.', jdkPackage.length()) < 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the directory of the spool.
+     * @return the directory of the spool.
+     */
+    public String getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Returns the name of the Appender the events are forwarded to.
+     * @return the name of the referenced Appender.
+     */
+    public String getAppenderRef() {
+        return appenderRef.getRef();
+    }
+
+    /**
+     * Returns the number of milliseconds to wait before a failed event is forwarded again.
+     * @return the retry interval in milliseconds.
+     */
+    public long getRetryIntervalMillis() {
+        return retryIntervalMillis;
+    }
+
+    /**
+     * Returns the number of events that were forwarded and acknowledged since the Appender started.
+     * @return the number of forwarded events.
+     */
+    public long getForwardedCount() {
+        return forwardedCount.get();
+    }
+
+    /**
+     * Returns the number of times forwarding an event failed and was retried.
+     * @return the number of retries.
+     */
+    public long getRetryCount() {
+        return retryCount.get();
+    }
+
+    /**
+     * Returns {@code true} if all spooled events were forwarded.
+     * @return whether the spool is empty.
+     */
+    public boolean isSpoolEmpty() {
+        return spool == null || spool.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return getName() + " spool=" + spool + ", appenderRef=" + appenderRef.getRef();
+    }
+
+    /**
+     * Creates a Spool Appender.
+     *
+     * @param name The name of the Appender.
+     * @param directory The directory of the spool files, which must not be shared with another Appender.
+     * @param appenderRef The Appender to forward the events to.
+     * @param segmentSize The size of a spool file in bytes. The default is 16 MiB.
+     * @param maxSegments The maximum number of spool files holding undelivered events, or 0 (default) for no limit.
+     * @param immediateFlush If {@code "true"}, each event is written to the storage device before the call returns.
+     *            The default is {@code "false"}, which keeps events across a crash of the application but not of the
+     *            operating system.
+     * @param retryIntervalMillis How many milliseconds to wait before forwarding a failed event again. The default
+     *            is 1000.
+     * @param shutdownTimeout How many milliseconds the Appender waits on shutdown for spooled events to be forwarded.
+     *            The default is zero, remaining events are forwarded after the next start.
+     * @param includeLocation whether to include location information. The default is false.
+     * @param filter The Filter or null.
+     * @param config The Configuration.
+     * @param ignoreExceptions If {@code "true"} (default) exceptions encountered when appending events are logged;
+     *            otherwise they are propagated to the caller.
+     * @return The SpoolAppender.
+     */
+    @PluginFactory
+    public static SpoolAppender createAppender(
+            // @formatter:off
+            @PluginAttribute("name") final String name,
+            @PluginAttribute("directory") final String directory,
+            @PluginElement("AppenderRef") final AppenderRef appenderRef,
+            @PluginAttribute(value = "segmentSize", defaultInt = Spool.DEFAULT_SEGMENT_SIZE) final int segmentSize,
+            @PluginAttribute(value = "maxSegments", defaultInt = 0) final int maxSegments,
+            @PluginAttribute(value = "immediateFlush", defaultBoolean = false) final boolean immediateFlush,
+            @PluginAttribute(value = "retryIntervalMillis", defaultLong = DEFAULT_RETRY_INTERVAL_MILLIS)
+                final long retryIntervalMillis,
+            @PluginAttribute(value = "shutdownTimeout", defaultLong = 0L) final long shutdownTimeout,
+            @PluginAttribute(value = "includeLocation", defaultBoolean = false) final boolean includeLocation,
+            @PluginElement("Filter") final Filter filter,
+            @PluginConfiguration final Configuration config,
+            @PluginAttribute(value = "ignoreExceptions", defaultBoolean = true) final boolean ignoreExceptions) {
+            // @formatter:on
+        if (name == null) {
+            LOGGER.error("No name provided for SpoolAppender");
+            return null;
+        }
+        if (directory == null) {
+            LOGGER.error("No directory provided for SpoolAppender {}", name);
+            return null;
+        }
+        if (appenderRef == null) {
+            LOGGER.error("No appender reference provided to SpoolAppender {}", name);
+            return null;
+        }
+        return new SpoolAppender(name, filter, ignoreExceptions, directory, segmentSize, maxSegments, immediateFlush,
+                Math.max(retryIntervalMillis, 0), Math.max(shutdownTimeout, 0), includeLocation, appenderRef, config);
+    }
+
+    /**
+     * Reads events from the spool and calls the referenced Appender.
+     */
+    private class Forwarder extends Log4jThread {
+
+        private final AppenderControl control;
+        private volatile boolean shutdown;
+        private volatile long deadlineNanos;
+        private boolean exited;
+        private boolean closeSpool;
+
+        Forwarder(final String name, final AppenderControl control) {
+            super("SpoolAppender-" + name);
+            this.control = control;
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            try {
+                forwardRecords();
+            } finally {
+                synchronized (this) {
+                    exited = true;
+                    if (closeSpool) {
+                        closeSpool();
+                    }
+                }
+            }
+        }
+
+        private void forwardRecords() {
+            while (!shutdown || System.nanoTime() - deadlineNanos < 0 && spool.hasNext()) {
+                final byte[] record;
+                try {
+                    record = spool.next(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                } catch (final InterruptedException ex) {
+                    break;
+                }
+                if (record == null) {
+                    continue;
+                }
+                if (forward(record)) {
+                    spool.acknowledge();
+                    forwardedCount.incrementAndGet();
+                } else {
+                    spool.rewind();
+                    retryCount.incrementAndGet();
+                    if (shutdown || !pause()) {
+                        break;
+                    }
+                }
+            }
+        }
+
+        private boolean forward(final byte[] record) {
+            final Log4jLogEvent event;
+            try {
+                event = deserialize(record);
+            } catch (final IOException | ClassNotFoundException | RuntimeException ex) {
+                LOGGER.error("SpoolAppender {} drops an event that cannot be read", getName(), ex);
+                return true;
+            }
+            if (!control.getAppender().isStarted()) {
+                return false;
+            }
+            event.setEndOfBatch(!spool.hasNext());
+            try {
+                control.callAppender(event);
+                return true;
+            } catch (final Exception ex) {
+                LOGGER.debug("SpoolAppender {} failed to forward an event to {}, retrying in {} ms", getName(),
+                        appenderRef.getRef(), retryIntervalMillis, ex);
+                return false;
+            }
+        }
+
+        private synchronized boolean pause() {
+            try {
+                if (!shutdown) {
+                    wait(retryIntervalMillis);
+                }
+                return true;
+            } catch (final InterruptedException ex) {
+                return false;
+            }
+        }
+
+        /**
+         * Makes the thread close the spool when it exits, unless it has already exited.
+         *
+         * @return true if the thread has not exited yet.
+         */
+        synchronized boolean closeSpoolOnExit() {
+            closeSpool = !exited;
+            return closeSpool;
+        }
+
+        synchronized void shutdown() {
+            deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(shutdownTimeout);
+            shutdown = true;
+            notifyAll();
+        }
+    }
+
+    /**
+     * Resolves only the classes that spooled events consist of, and no dynamic proxies.
+     */
+    private static final class EventInputStream extends ObjectInputStream {
+
+        EventInputStream(final InputStream in) throws IOException {
+            super(in);
+        }
+
+        @Override
+        protected Class<?> resolveClass(final ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+            if (!isAllowed(desc.getName())) {
+                throw new InvalidClassException(desc.getName(), "Class is not allowed in a spooled event");
+            }
+            return super.resolveClass(desc);
+        }
+
+        @Override
+        protected Class<?> resolveProxyClass(final String[] interfaces) throws IOException {
+            throw new InvalidClassException("Proxy classes are not allowed in a spooled event");
+        }
+    }
+}
@@ -27,15 +27,18 @@ import org.apache.logging.log4j.core.LoggerContext;
 import org.apache.logging.log4j.core.config.Configuration;
 import org.apache.logging.log4j.core.config.Property;
 import org.apache.logging.log4j.core.config.ReliabilityStrategy;
+import org.apache.logging.log4j.core.impl.LocationResolver;
 import org.apache.logging.log4j.core.impl.Log4jLogEvent;
 import org.apache.logging.log4j.core.util.Clock;
 import org.apache.logging.log4j.core.util.ClockFactory;
 import org.apache.logging.log4j.core.util.Constants;
 import org.apache.logging.log4j.core.util.NanoClock;
+import org.apache.logging.log4j.core.util.PreciseTime;
 import org.apache.logging.log4j.message.Message;
 import org.apache.logging.log4j.message.MessageFactory;
 import org.apache.logging.log4j.message.TimestampMessage;
 import org.apache.logging.log4j.status.StatusLogger;
+import org.apache.logging.log4j.util.PropertiesUtil;
 
 import com.lmax.disruptor.EventTranslatorVararg;
 import com.lmax.disruptor.dsl.Disruptor;
@@ -54,6 +57,9 @@ import com.lmax.disruptor.dsl.Disruptor;
  * {@code includeLocation="true"} in the configuration or any %class, %location or %line conversion patterns in your
  * log4j.xml configuration will produce either a "?" character or no output at all.
  * <p>
+ * When location is included, specify the System property {@code -DAsyncLogger.ResolveLocationInBackground=true} to
+ * only capture the stack on the calling thread and determine the caller's location in the background thread.
+ * <p>
  * For best performance, use AsyncLogger with the RandomAccessFileAppender or RollingRandomAccessFileAppender, with
  * immediateFlush=false. These appenders have built-in support for the batching mechanism used by the Disruptor library,
  * and they will flush to disk at the end of each batch. This means that even with immediateFlush=false, there will
@@ -70,6 +76,8 @@ public class AsyncLogger extends Logger implements EventTranslatorVararg<RingBuf
     private static final Clock CLOCK = ClockFactory.getClock(); // not reconfigurable
 
     private static final ThreadNameCachingStrategy THREAD_NAME_CACHING_STRATEGY = ThreadNameCachingStrategy.create();
+    private static final boolean RESOLVE_LOCATION_IN_BACKGROUND = PropertiesUtil.getProperties().getBooleanProperty(
+            "AsyncLogger.ResolveLocationInBackground");
 
     private final ThreadLocal<RingBufferLogEventTranslator> threadLocalTranslator = new ThreadLocal<>();
     private final AsyncLoggerDisruptor loggerDisruptor;
@@ -213,6 +221,7 @@ public class AsyncLogger extends Logger implements EventTranslatorVararg<RingBuf
 
         initTranslatorPart1(translator, fqcn, level, marker, message, thrown);
         initTranslatorPart2(translator, fqcn, message);
+        translator.setLocationToken(captureLocationIfRequested());
     }
 
     private void initTranslatorPart1(final RingBufferLogEventTranslator translator, final String fqcn,
@@ -230,6 +239,7 @@ public class AsyncLogger extends Logger implements EventTranslatorVararg<RingBuf
 
         // Implementation note: this method is tuned for performance. MODIFY WITH CARE!
 
+        final long timeNanos = eventTimeNanos(message);
         translator.setValuesPart2(
                 // config properties are taken care of in the EventHandler thread
                 // in the AsyncLogger#actualAsyncLog method
@@ -246,20 +256,23 @@ public class AsyncLogger extends Logger implements EventTranslatorVararg<RingBuf
                 // location (expensive to calculate)
                 calcLocationIfRequested(fqcn),
 
-                eventTimeMillis(message), //
+                PreciseTime.toMillis(timeNanos), //
                 nanoClock.nanoTime() //
                 );
+        translator.setNanoOfMillisecond(PreciseTime.nanoOfMillisecond(timeNanos));
     }
 
-    private long eventTimeMillis(final Message message) {
+    private long eventTimeNanos(final Message message) {
         // Implementation note: this method is tuned for performance. MODIFY WITH CARE!
 
         // System.currentTimeMillis());
         // CoarseCachedClock: 20% faster than system clock, 16ms gaps
         // CachedClock: 10% faster than system clock, smaller gaps
+        // CalibratedClock: sub-millisecond resolution from System.nanoTime()
         // LOG4J2-744 avoid calling clock altogether if message has the timestamp
-        return message instanceof TimestampMessage ? ((TimestampMessage) message).getTimestamp() : CLOCK
-                .currentTimeMillis();
+        return message instanceof TimestampMessage
+                ? ((TimestampMessage) message).getTimestamp() * PreciseTime.NANOS_PER_MILLISECOND
+                : PreciseTime.currentTimeNanos(CLOCK);
     }
 
     /**
@@ -278,6 +291,13 @@ public class AsyncLogger extends Logger implements EventTranslatorVararg<RingBuf
             final Message message, final Throwable thrown) {
         // Implementation note: candidate for optimization: exceeds 35 bytecodes.
 
+        if (loggerDisruptor.isOffHeap()) {
+            // the shared ring buffer entries must not be written to, use a translator that is not cached
+            final RingBufferLogEventTranslator translator = new RingBufferLogEventTranslator();
+            initTranslator(translator, fqcn, level, marker, message, thrown);
+            loggerDisruptor.enqueueLogMessageInfo(translator);
+            return;
+        }
         final Disruptor<RingBufferLogEvent> disruptor = loggerDisruptor.getDisruptor();
         if (disruptor == null) {
             LOGGER.error("Ignoring log event after Log4j has been shut down.");
@@ -285,7 +305,7 @@ public class AsyncLogger extends Logger implements EventTranslatorVararg<RingBuf
         }
         // calls the translateTo method on this AsyncLogger
         disruptor.getRingBuffer().publishEvent(this, this, calcLocationIfRequested(fqcn), fqcn, level, marker, message,
-                thrown);
+                thrown, captureLocationIfRequested());
     }
 
     /*
@@ -303,6 +323,7 @@ public class AsyncLogger extends Logger implements EventTranslatorVararg<RingBuf
         final Marker marker = (Marker) args[4];
         final Message message = (Message) args[5];
         final Throwable thrown = (Throwable) args[6];
+        final Throwable locationToken = (Throwable) args[7];
 
         // needs shallow copy to be fast (LOG4J2-154)
         final Map<String, String> contextMap = ThreadContext.getImmutableContext();
@@ -312,8 +333,11 @@ public class AsyncLogger extends Logger implements EventTranslatorVararg<RingBuf
 
         final String threadName = THREAD_NAME_CACHING_STRATEGY.getThreadName();
 
+        final long timeNanos = eventTimeNanos(message);
         event.setValues(asyncLogger, asyncLogger.getName(), marker, fqcn, level, message, thrown, contextMap,
-                contextStack, threadName, location, eventTimeMillis(message), nanoClock.nanoTime());
+                contextStack, threadName, location, PreciseTime.toMillis(timeNanos), nanoClock.nanoTime());
+        event.setNanoOfMillisecond(PreciseTime.nanoOfMillisecond(timeNanos));
+        event.setLocationToken(locationToken);
     }
 
     /**
@@ -327,7 +351,18 @@ public class AsyncLogger extends Logger implements EventTranslatorVararg<RingBuf
         // Only include if "includeLocation=true" is specified,
         // exclude if not specified or if "false" was specified.
         final boolean includeLocation = privateConfig.loggerConfig.isIncludeLocation();
-        return includeLocation ? Log4jLogEvent.calcLocation(fqcn) : null;
+        return includeLocation && !RESOLVE_LOCATION_IN_BACKGROUND ? Log4jLogEvent.calcLocation(fqcn) : null;
+    }
+
+    /**
+     * Returns the stack of the calling thread if location is requested and is to be resolved in the background thread,
+     * {@code null} otherwise.
+     *
+     * @return a token from which the background thread can resolve the caller location, or {@code null}.
+     */
+    private Throwable captureLocationIfRequested() {
+        final boolean includeLocation = privateConfig.loggerConfig.isIncludeLocation();
+        return includeLocation && RESOLVE_LOCATION_IN_BACKGROUND ? LocationResolver.capture() : null;
     }
 
     /**
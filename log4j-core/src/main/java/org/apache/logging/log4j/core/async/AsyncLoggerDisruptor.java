@@ -23,7 +23,9 @@ import java.util.concurrent.Executors;
 import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.core.jmx.RingBufferAdmin;
 import org.apache.logging.log4j.status.StatusLogger;
+import org.apache.logging.log4j.util.PropertiesUtil;
 
+import com.lmax.disruptor.EventFactory;
 import com.lmax.disruptor.ExceptionHandler;
 import com.lmax.disruptor.RingBuffer;
 import com.lmax.disruptor.WaitStrategy;
@@ -49,6 +51,7 @@ class AsyncLoggerDisruptor {
     private long backgroundThreadId;
     private AsyncEventRouter asyncEventRouter;
     private int ringBufferSize;
+    private volatile OffHeapRingBuffer offHeapRingBuffer;
 
     AsyncLoggerDisruptor(String contextName) {
         this.contextName = contextName;
@@ -85,14 +88,16 @@ class AsyncLoggerDisruptor {
         backgroundThreadId = DisruptorUtil.getExecutorThreadId(executor);
         asyncEventRouter = AsyncEventRouterFactory.create(ringBufferSize);
 
-        disruptor = new Disruptor<>(RingBufferLogEvent.FACTORY, ringBufferSize, executor, ProducerType.MULTI,
-                waitStrategy);
+        offHeapRingBuffer = createOffHeapRingBuffer(ringBufferSize);
+        final EventFactory<RingBufferLogEvent> factory = offHeapRingBuffer == null ? RingBufferLogEvent.FACTORY
+                : offHeapRingBuffer.getEventFactory();
+        disruptor = new Disruptor<>(factory, ringBufferSize, executor, ProducerType.MULTI, waitStrategy);
 
         final ExceptionHandler<RingBufferLogEvent> errorHandler = DisruptorUtil.getExceptionHandler(
                 "AsyncLogger.ExceptionHandler", RingBufferLogEvent.class);
         disruptor.handleExceptionsWith(errorHandler);
 
-        final RingBufferLogEventHandler[] handlers = {new RingBufferLogEventHandler()};
+        final RingBufferLogEventHandler[] handlers = {new RingBufferLogEventHandler(offHeapRingBuffer)};
         disruptor.handleEventsWith(handlers);
 
         LOGGER.debug("[{}] Starting AsyncLogger disruptor for this context with ringbufferSize={}, waitStrategy={}, "
@@ -104,6 +109,32 @@ class AsyncLoggerDisruptor {
                 : "vararg");
     }
 
+    /**
+     * Allocates the slots of the off-heap ring buffer if the {@code AsyncLogger.OffHeapRingBuffer} system property is
+     * {@code true}.
+     *
+     * @param size the number of slots
+     * @return the off-heap ring buffer, or {@code null} if log events are to be kept in the ring buffer
+     */
+    private OffHeapRingBuffer createOffHeapRingBuffer(final int size) {
+        final PropertiesUtil properties = PropertiesUtil.getProperties();
+        if (!properties.getBooleanProperty("AsyncLogger.OffHeapRingBuffer")) {
+            return null;
+        }
+        final int slotSize = properties.getIntegerProperty("AsyncLogger.OffHeapSlotSize",
+                OffHeapRingBuffer.DEFAULT_SLOT_SIZE);
+        try {
+            final OffHeapRingBuffer result = new OffHeapRingBuffer(size, slotSize);
+            LOGGER.debug("[{}] AsyncLoggers serialize log events into {} off-heap slots of {} bytes ({} bytes of"
+                    + " direct memory).", contextName, size, slotSize, (long) size * slotSize);
+            return result;
+        } catch (final IllegalArgumentException | OutOfMemoryError e) {
+            LOGGER.error("[{}] Cannot allocate {} off-heap slots of {} bytes, keeping log events on the heap: {}",
+                    contextName, size, slotSize, e.toString());
+            return null;
+        }
+    }
+
     /**
      * Decreases the reference count. If the reference count reached zero, the Disruptor and its associated thread are
      * shut down and their references set to {@code null}.
@@ -134,6 +165,13 @@ class AsyncLoggerDisruptor {
         executor.shutdown(); // finally, kill the processor thread
         executor = null;
 
+        // the processor has halted, so the off-heap slots are no longer read
+        final OffHeapRingBuffer slots = offHeapRingBuffer;
+        if (slots != null) {
+            offHeapRingBuffer = null;
+            slots.free();
+        }
+
         if (DiscardingAsyncEventRouter.getDiscardCount(asyncEventRouter) > 0) {
             LOGGER.trace("AsyncLoggerDisruptor: {} discarded {} events.", asyncEventRouter,
                     DiscardingAsyncEventRouter.getDiscardCount(asyncEventRouter));
@@ -191,12 +229,39 @@ class AsyncLoggerDisruptor {
             // Note: we deliberately access the volatile disruptor field afresh here.
             // Avoiding this and using an older reference could result in adding a log event to the disruptor after it
             // was shut down, which could cause the publishEvent method to hang and never return.
-            disruptor.publishEvent(translator);
+            final OffHeapRingBuffer slots = offHeapRingBuffer;
+            if (slots == null) {
+                disruptor.publishEvent(translator);
+            } else {
+                publishOffHeap(slots, translator);
+            }
         } catch (final NullPointerException npe) {
             LOGGER.fatal("[{}] Ignoring log event after log4j was shut down.", contextName);
         }
     }
 
+    private void publishOffHeap(final OffHeapRingBuffer slots, final RingBufferLogEventTranslator translator) {
+        final RingBuffer<RingBufferLogEvent> ringBuffer = disruptor.getRingBuffer();
+        final long sequence = ringBuffer.next();
+        // the claimed sequence must be published, the background thread skips the slot if writing it fails
+        slots.invalidate(sequence);
+        try {
+            translator.writeTo(slots, sequence);
+        } finally {
+            ringBuffer.publish(sequence);
+        }
+    }
+
+    /**
+     * Returns whether log events are serialized into an off-heap ring buffer. If so, the entries of the Disruptor ring
+     * buffer must not be written to, and events must be enqueued with {@link #enqueueLogMessageInfo}.
+     *
+     * @return whether log events are kept off-heap
+     */
+    boolean isOffHeap() {
+        return offHeapRingBuffer != null;
+    }
+
     /**
      * Returns whether it is allowed to store non-JDK classes in ThreadLocal objects for efficiency.
      *
@@ -0,0 +1,505 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache license, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the license for the specific language governing permissions and
+ * limitations under the license.
+ */
+package org.apache.logging.log4j.core.async;
+
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.security.AccessController;
+import java.security.PrivilegedActionException;
+import java.security.PrivilegedExceptionAction;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.Marker;
+import org.apache.logging.log4j.ThreadContext;
+import org.apache.logging.log4j.ThreadContext.ContextStack;
+import org.apache.logging.log4j.message.FormattedMessage;
+import org.apache.logging.log4j.message.Message;
+import org.apache.logging.log4j.message.MessageFormatMessage;
+import org.apache.logging.log4j.message.ParameterizedMessage;
+import org.apache.logging.log4j.message.SimpleMessage;
+import org.apache.logging.log4j.message.StringFormattedMessage;
+import org.apache.logging.log4j.spi.MutableThreadContextStack;
+import org.apache.logging.log4j.status.StatusLogger;
+
+import com.lmax.disruptor.EventFactory;
+
+/**
+ * Stores the log events of the async logger ring buffer serialized in fixed-size slots of a direct {@code ByteBuffer}.
+ * <p>
+ * The Disruptor only coordinates the sequences: producers write an event into the slot of their sequence, and the
+ * background thread decodes the slot into a single reused {@code RingBufferLogEvent} before passing it to the
+ * appenders. Loggers, levels, markers, the fully qualified caller class name, thread names and context map keys are
+ * written as ids into symbol tables; the formatted message text and the remaining context data are written as
+ * characters. A deep ring buffer therefore keeps no references to messages, parameters or context maps that the
+ * garbage collector would have to trace or promote.
+ * </p>
+ * <p>
+ * Events that cannot be written into their slot are created as regular {@code RingBufferLogEvent}s and handed over
+ * through a reference kept next to the slot. This applies to events with a Throwable or a location, messages of other
+ * types than text messages, whose layouts may need the message object itself, and events whose data exceeds the slot.
+ * </p>
+ * <p>
+ * The slots take {@code ringBufferSize * slotSize} bytes of direct memory, 128 MB with the default ring buffer size of
+ * 256K slots and the default slot size of 512 bytes, for each {@code LoggerContext}, until the ring buffer is
+ * {@linkplain #free() freed}.
+ * </p>
+ */
+final class OffHeapRingBuffer {
+
+    /** The default size of a slot in bytes. */
+    static final int DEFAULT_SLOT_SIZE = 512;
+
+    /** The minimum size of a slot in bytes. */
+    static final int MIN_SLOT_SIZE = 64;
+
+    private static final StatusLogger LOGGER = StatusLogger.getLogger();
+
+    private static final int MAX_STRING_SYMBOLS = 16 * 1024;
+
+    private static final int SPILLED = 0;
+    private static final int ENCODED = 1;
+    /** The status of a slot whose event could not be written, which the background thread skips. */
+    private static final int INVALID = 2;
+
+    private static final int NONE = -1;
+    private static final int NULL_STRING = -1;
+
+    /** Status, logger, level, fqcn, marker, time millis, nano of millisecond and nano time. */
+    private static final int HEADER_SIZE = 4 + 4 + 4 + 4 + 4 + 8 + 4 + 8;
+
+    // null once freed, so that producers that still write fail with a NullPointerException
+    private volatile ByteBuffer slots;
+    private final int slotSize;
+    private final int mask;
+    private final RingBufferLogEvent[] spilled;
+
+    private final Symbols<AsyncLogger> loggers = new Symbols<>(Integer.MAX_VALUE);
+    private final Symbols<Level> levels = new Symbols<>(Integer.MAX_VALUE);
+    private final Symbols<Marker> markers = new Symbols<>(Integer.MAX_VALUE);
+    private final Symbols<String> strings = new Symbols<>(MAX_STRING_SYMBOLS);
+
+    // only used by the background thread
+    private final RingBufferLogEvent event = new RingBufferLogEvent();
+    private char[] chars = new char[128];
+    private int readPosition;
+
+    /**
+     * Allocates the slots.
+     *
+     * @param ringBufferSize the number of slots, a power of two
+     * @param slotSize the size of each slot in bytes
+     */
+    OffHeapRingBuffer(final int ringBufferSize, final int slotSize) {
+        if (slotSize < MIN_SLOT_SIZE) {
+            throw new IllegalArgumentException("Slot size " + slotSize + " is less than " + MIN_SLOT_SIZE);
+        }
+        if ((long) ringBufferSize * slotSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Ring buffer of " + ringBufferSize + " slots of " + slotSize
+                    + " bytes exceeds 2 GB");
+        }
+        this.slots = ByteBuffer.allocateDirect(ringBufferSize * slotSize);
+        this.slotSize = slotSize;
+        this.mask = ringBufferSize - 1;
+        this.spilled = new RingBufferLogEvent[ringBufferSize];
+    }
+
+    /**
+     * Returns the factory for the Disruptor entries: all entries are the event into which the background thread decodes
+     * the slots.
+     *
+     * @return the event factory
+     */
+    EventFactory<RingBufferLogEvent> getEventFactory() {
+        return new EventFactory<RingBufferLogEvent>() {
+            @Override
+            public RingBufferLogEvent newInstance() {
+                return event;
+            }
+        };
+    }
+
+    int getSlotSize() {
+        return slotSize;
+    }
+
+    /**
+     * Releases the direct memory of the slots without waiting for the garbage collector. Must only be called after the
+     * background thread has stopped; the ring buffer must not be used afterwards.
+     */
+    void free() {
+        final ByteBuffer buffer = slots;
+        if (buffer == null) {
+            return;
+        }
+        slots = null;
+        Arrays.fill(spilled, null);
+        try {
+            AccessController.doPrivileged(new PrivilegedExceptionAction<Object>() {
+                @Override
+                public Object run() throws Exception {
+                    final Method getCleanerMethod = buffer.getClass().getMethod("cleaner");
+                    getCleanerMethod.setAccessible(true);
+                    final Object cleaner = getCleanerMethod.invoke(buffer); // sun.misc.Cleaner instance
+                    final Method cleanMethod = cleaner.getClass().getMethod("clean");
+                    cleanMethod.invoke(cleaner);
+                    return null;
+                }
+            });
+        } catch (final PrivilegedActionException ex) {
+            LOGGER.debug("Unable to free the off-heap ring buffer, it is released by the garbage collector", ex);
+        }
+    }
+
+    /**
+     * Returns whether the slots have been {@linkplain #free() freed}.
+     */
+    boolean isFreed() {
+        return slots == null;
+    }
+
+    /**
+     * Marks the slot of the specified sequence as holding no event, so that the slot is skipped if it is published
+     * before it is {@linkplain #write written} or {@linkplain #spill spilled}.
+     */
+    void invalidate(final long sequence) {
+        final int index = (int) sequence & mask;
+        spilled[index] = null;
+        slots.putInt(index * slotSize, INVALID);
+    }
+
+    /**
+     * Writes the event data into the slot of the specified sequence, which the caller has claimed and
+     * {@linkplain #invalidate invalidated} but not yet published.
+     *
+     * @return {@code true} if the data was written, {@code false} if the event must be {@linkplain #spill spilled}
+     */
+    boolean write(final long sequence, final AsyncLogger asyncLogger, final Marker marker, final String fqcn,
+            final Level level, final Message message, final Throwable thrown, final Map<String, String> contextMap,
+            final ContextStack contextStack, final String threadName, final StackTraceElement location,
+            final Throwable locationToken, final long currentTimeMillis, final int nanoOfMillisecond,
+            final long nanoTime) {
+        if (thrown != null || location != null || locationToken != null || !isText(message)) {
+            return false;
+        }
+        final int fqcnId = strings.idOf(fqcn);
+        if (fqcnId == NONE) {
+            return false;
+        }
+        final ByteBuffer buffer = slots;
+        final int start = offset(sequence);
+        final int end = start + slotSize;
+        buffer.putInt(start + 4, loggers.idOf(asyncLogger));
+        buffer.putInt(start + 8, levels.idOf(level));
+        buffer.putInt(start + 12, fqcnId);
+        buffer.putInt(start + 16, marker == null ? NONE : markers.idOf(marker));
+        buffer.putLong(start + 20, currentTimeMillis);
+        buffer.putInt(start + 28, nanoOfMillisecond);
+        buffer.putLong(start + 32, nanoTime);
+        int pos = start + HEADER_SIZE;
+        pos = writeString(buffer, pos, end, threadName, true);
+        pos = writeString(buffer, pos, end, message.getFormattedMessage(), false);
+        pos = writeContextMap(buffer, pos, end, contextMap);
+        pos = writeContextStack(buffer, pos, end, contextStack);
+        if (pos < 0) {
+            return false;
+        }
+        buffer.putInt(start, ENCODED);
+        return true;
+    }
+
+    /**
+     * Hands the event over through a reference, for events that could not be {@linkplain #write written}.
+     */
+    void spill(final long sequence, final RingBufferLogEvent spilledEvent) {
+        final int index = (int) sequence & mask;
+        spilled[index] = spilledEvent;
+        slots.putInt(index * slotSize, SPILLED);
+    }
+
+    /**
+     * Returns the event of the specified published sequence. Must only be called by the background thread, which must
+     * have finished with the event returned by the previous call.
+     *
+     * @param sequence the sequence of the event
+     * @return the event, or {@code null} if the producer failed to write the slot
+     */
+    RingBufferLogEvent read(final long sequence) {
+        final int index = (int) sequence & mask;
+        final ByteBuffer buffer = slots;
+        final int start = index * slotSize;
+        final int status = buffer.getInt(start);
+        if (status == SPILLED) {
+            final RingBufferLogEvent result = spilled[index];
+            spilled[index] = null;
+            return result;
+        }
+        if (status == INVALID) {
+            return null;
+        }
+        final AsyncLogger asyncLogger = loggers.get(buffer.getInt(start + 4));
+        final Level level = levels.get(buffer.getInt(start + 8));
+        final String fqcn = strings.get(buffer.getInt(start + 12));
+        final int markerId = buffer.getInt(start + 16);
+        final Marker marker = markerId == NONE ? null : markers.get(markerId);
+        final long currentTimeMillis = buffer.getLong(start + 20);
+        final int nanoOfMillisecond = buffer.getInt(start + 28);
+        final long nanoTime = buffer.getLong(start + 32);
+        readPosition = start + HEADER_SIZE;
+        final String threadName = readString(buffer);
+        final String text = readString(buffer);
+        final Map<String, String> contextMap = readContextMap(buffer);
+        final ContextStack contextStack = readContextStack(buffer);
+        event.setValues(asyncLogger, asyncLogger.getName(), marker, fqcn, level, new SimpleMessage(text), null,
+                contextMap, contextStack, threadName, null, currentTimeMillis, nanoTime);
+        event.setNanoOfMillisecond(nanoOfMillisecond);
+        return event;
+    }
+
+    private int offset(final long sequence) {
+        return ((int) sequence & mask) * slotSize;
+    }
+
+    /**
+     * Returns whether the message is fully represented by its formatted text.
+     */
+    private static boolean isText(final Message message) {
+        final Class<?> type = message.getClass();
+        return type == ParameterizedMessage.class || type == SimpleMessage.class
+                || type == StringFormattedMessage.class || type == MessageFormatMessage.class
+                || type == FormattedMessage.class;
+    }
+
+    private int writeContextMap(final ByteBuffer buffer, final int start, final int end,
+            final Map<String, String> contextMap) {
+        if (start < 0 || start + 4 > end) {
+            return -1;
+        }
+        if (contextMap == null) {
+            buffer.putInt(start, NONE);
+            return start + 4;
+        }
+        buffer.putInt(start, contextMap.size());
+        int pos = start + 4;
+        if (contextMap.isEmpty()) {
+            return pos;
+        }
+        for (final Map.Entry<String, String> entry : contextMap.entrySet()) {
+            pos = writeString(buffer, pos, end, entry.getKey(), true);
+            pos = writeString(buffer, pos, end, entry.getValue(), false);
+            if (pos < 0) {
+                return -1;
+            }
+        }
+        return pos;
+    }
+
+    private int writeContextStack(final ByteBuffer buffer, final int start, final int end,
+            final ContextStack contextStack) {
+        if (start < 0 || start + 4 > end) {
+            return -1;
+        }
+        if (contextStack == null) {
+            buffer.putInt(start, NONE);
+            return start + 4;
+        }
+        final int depth = contextStack.getDepth();
+        buffer.putInt(start, depth);
+        int pos = start + 4;
+        if (depth == 0) {
+            return pos;
+        }
+        for (final String element : contextStack) {
+            pos = writeString(buffer, pos, end, element, false);
+            if (pos < 0) {
+                return -1;
+            }
+        }
+        return pos;
+    }
+
+    /**
+     * Writes a string as a symbol id, or as its length followed by its characters, which are encoded like UTF-8 except
+     * that each char of a surrogate pair is encoded separately.
+     *
+     * @return the position after the string, or -1 if it does not fit before the end
+     */
+    private int writeString(final ByteBuffer buffer, final int start, final int end, final String value,
+            final boolean symbol) {
+        if (start < 0 || start + 4 > end) {
+            return -1;
+        }
+        if (value == null) {
+            buffer.putInt(start, NULL_STRING);
+            return start + 4;
+        }
+        if (symbol) {
+            final int id = strings.idOf(value);
+            if (id != NONE) {
+                buffer.putInt(start, -2 - id);
+                return start + 4;
+            }
+        }
+        final int length = value.length();
+        int pos = start + 4;
+        if (pos + length > end) {
+            return -1;
+        }
+        buffer.putInt(start, length);
+        for (int i = 0; i < length; i++) {
+            final char c = value.charAt(i);
+            if (c < 0x80) {
+                if (pos >= end) {
+                    return -1;
+                }
+                buffer.put(pos++, (byte) c);
+            } else if (c < 0x800) {
+                if (pos + 2 > end) {
+                    return -1;
+                }
+                buffer.put(pos++, (byte) (0xC0 | c >> 6));
+                buffer.put(pos++, (byte) (0x80 | c & 0x3F));
+            } else {
+                if (pos + 3 > end) {
+                    return -1;
+                }
+                buffer.put(pos++, (byte) (0xE0 | c >> 12));
+                buffer.put(pos++, (byte) (0x80 | c >> 6 & 0x3F));
+                buffer.put(pos++, (byte) (0x80 | c & 0x3F));
+            }
+        }
+        return pos;
+    }
+
+    private String readString(final ByteBuffer buffer) {
+        int pos = readPosition;
+        final int header = buffer.getInt(pos);
+        pos += 4;
+        if (header == NULL_STRING) {
+            readPosition = pos;
+            return null;
+        }
+        if (header < NULL_STRING) {
+            readPosition = pos;
+            return strings.get(-2 - header);
+        }
+        if (chars.length < header) {
+            chars = new char[Math.max(header, chars.length * 2)];
+        }
+        final char[] result = chars;
+        for (int i = 0; i < header; i++) {
+            final int b = buffer.get(pos++);
+            if (b >= 0) {
+                result[i] = (char) b;
+            } else if ((b & 0xE0) == 0xC0) {
+                result[i] = (char) ((b & 0x1F) << 6 | buffer.get(pos++) & 0x3F);
+            } else {
+                final int b2 = buffer.get(pos++);
+                result[i] = (char) ((b & 0x0F) << 12 | (b2 & 0x3F) << 6 | buffer.get(pos++) & 0x3F);
+            }
+        }
+        readPosition = pos;
+        return new String(result, 0, header);
+    }
+
+    private Map<String, String> readContextMap(final ByteBuffer buffer) {
+        final int size = buffer.getInt(readPosition);
+        readPosition += 4;
+        if (size == NONE) {
+            return null;
+        }
+        if (size == 0) {
+            return ThreadContext.EMPTY_MAP;
+        }
+        final Map<String, String> result = new HashMap<>(size * 4 / 3 + 1);
+        for (int i = 0; i < size; i++) {
+            final String key = readString(buffer);
+            result.put(key, readString(buffer));
+        }
+        return result;
+    }
+
+    private ContextStack readContextStack(final ByteBuffer buffer) {
+        final int depth = buffer.getInt(readPosition);
+        readPosition += 4;
+        if (depth == NONE) {
+            return null;
+        }
+        if (depth == 0) {
+            return ThreadContext.EMPTY_STACK;
+        }
+        final List<String> elements = new ArrayList<>(depth);
+        for (int i = 0; i < depth; i++) {
+            elements.add(readString(buffer));
+        }
+        final MutableThreadContextStack result = new MutableThreadContextStack(elements);
+        result.freeze();
+        return result;
+    }
+
+    /**
+     * Assigns ids to values. Ids are only ever added, so an id written by a producer resolves to the same value on the
+     * background thread.
+     */
+    private static final class Symbols<T> {
+        private final ConcurrentMap<T, Integer> ids = new ConcurrentHashMap<>();
+        private final int capacity;
+        private volatile Object[] values = new Object[16];
+        private int count;
+
+        Symbols(final int capacity) {
+            this.capacity = capacity;
+        }
+
+        /**
+         * Returns the id of the value, or {@code NONE} if the value has no id and the table is full.
+         */
+        int idOf(final T value) {
+            final Integer id = ids.get(value);
+            return id == null ? register(value) : id.intValue();
+        }
+
+        private synchronized int register(final T value) {
+            final Integer existing = ids.get(value);
+            if (existing != null) {
+                return existing.intValue();
+            }
+            if (count == capacity) {
+                return NONE;
+            }
+            Object[] table = values;
+            if (count == table.length) {
+                table = Arrays.copyOf(table, table.length * 2);
+            }
+            table[count] = value;
+            values = table; // publishes the value before its id
+            ids.put(value, Integer.valueOf(count));
+            return count++;
+        }
+
+        @SuppressWarnings("unchecked")
+        T get(final int id) {
+            return (T) values[id];
+        }
+    }
+}
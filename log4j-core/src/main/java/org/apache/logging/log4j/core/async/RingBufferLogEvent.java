@@ -25,9 +25,12 @@ import org.apache.logging.log4j.Marker;
 import org.apache.logging.log4j.ThreadContext.ContextStack;
 import org.apache.logging.log4j.core.LogEvent;
 import org.apache.logging.log4j.core.config.Property;
+import org.apache.logging.log4j.core.impl.LocationResolver;
 import org.apache.logging.log4j.core.impl.Log4jLogEvent;
 import org.apache.logging.log4j.core.impl.ThrowableProxy;
 import org.apache.logging.log4j.core.lookup.StrSubstitutor;
+import org.apache.logging.log4j.core.util.PreciseTime;
+import org.apache.logging.log4j.core.util.PreciseTimestamp;
 import org.apache.logging.log4j.message.Message;
 import org.apache.logging.log4j.message.SimpleMessage;
 import org.apache.logging.log4j.util.Strings;
@@ -38,7 +41,7 @@ import com.lmax.disruptor.EventFactory;
  * When the Disruptor is started, the RingBuffer is populated with event objects. These objects are then re-used during
  * the life of the RingBuffer.
  */
-public class RingBufferLogEvent implements LogEvent {
+public class RingBufferLogEvent implements LogEvent, PreciseTimestamp {
 
     /** The {@code EventFactory} for {@code RingBufferLogEvent}s. */
     public static final Factory FACTORY = new Factory();
@@ -68,7 +71,9 @@ public class RingBufferLogEvent implements LogEvent {
     private ContextStack contextStack;
     private String threadName;
     private StackTraceElement location;
+    private transient Throwable locationToken;
     private long currentTimeMillis;
+    private int nanoOfMillisecond;
     private boolean endOfBatch;
     private boolean includeLocation;
     private long nanoTime;
@@ -89,10 +94,31 @@ public class RingBufferLogEvent implements LogEvent {
         this.contextStack = aContextStack;
         this.threadName = aThreadName;
         this.location = aLocation;
+        this.locationToken = null;
         this.currentTimeMillis = aCurrentTimeMillis;
+        this.nanoOfMillisecond = 0;
         this.nanoTime = aNanoTime;
     }
 
+    /**
+     * Sets the nanoseconds within the millisecond of the event time, if the clock provides them. Must be called after
+     * {@link #setValues}, which clears them.
+     *
+     * @param aNanoOfMillisecond the nanoseconds within the millisecond, between 0 and 999,999
+     */
+    public void setNanoOfMillisecond(final int aNanoOfMillisecond) {
+        this.nanoOfMillisecond = aNanoOfMillisecond;
+    }
+
+    /**
+     * Sets the stack captured on the logging thread, from which the location is resolved when it is first requested.
+     *
+     * @param aLocationToken a token obtained from {@link LocationResolver#capture()}, or {@code null}
+     */
+    public void setLocationToken(final Throwable aLocationToken) {
+        this.locationToken = aLocationToken;
+    }
+
     /**
      * Event processor that reads the event from the ringbuffer can call this method.
      * 
@@ -198,6 +224,10 @@ public class RingBufferLogEvent implements LogEvent {
 
     @Override
     public StackTraceElement getSource() {
+        if (location == null && locationToken != null) {
+            location = LocationResolver.resolve(fqcn, locationToken);
+            locationToken = null;
+        }
         return location;
     }
 
@@ -205,6 +235,16 @@ public class RingBufferLogEvent implements LogEvent {
     public long getTimeMillis() {
         return currentTimeMillis;
     }
+
+    @Override
+    public long getEpochSecond() {
+        return PreciseTime.epochSecond(currentTimeMillis);
+    }
+
+    @Override
+    public int getNanoOfSecond() {
+        return PreciseTime.nanoOfSecond(currentTimeMillis, nanoOfMillisecond);
+    }
     
     @Override
     public long getNanoTime() {
@@ -261,6 +301,7 @@ public class RingBufferLogEvent implements LogEvent {
 
     private void writeObject(final java.io.ObjectOutputStream out) throws IOException {
         getThrownProxy(); // initialize the ThrowableProxy before serializing
+        getSource(); // resolve the location before serializing
         out.defaultWriteObject();
     }
 
@@ -289,10 +330,11 @@ public class RingBufferLogEvent implements LogEvent {
                 .setMarker(marker) //
                 .setMessage(getMessage()) // ensure non-null
                 .setNanoTime(nanoTime) //
-                .setSource(location) //
+                .setSource(getSource()) //
                 .setThreadName(threadName) //
                 .setThrown(getThrown()) // may deserialize from thrownProxy
                 .setThrownProxy(thrownProxy) // avoid unnecessarily creating thrownProxy
-                .setTimeMillis(currentTimeMillis);
+                .setTimeMillis(currentTimeMillis) //
+                .setNanoOfMillisecond(nanoOfMillisecond);
     }
 }
@@ -29,19 +29,38 @@ public class RingBufferLogEventHandler implements
         SequenceReportingEventHandler<RingBufferLogEvent> {
 
     private static final int NOTIFY_PROGRESS_THRESHOLD = 50;
+    private final OffHeapRingBuffer offHeapRingBuffer;
     private Sequence sequenceCallback;
     private int counter;
 
+    public RingBufferLogEventHandler() {
+        this(null);
+    }
+
+    /**
+     * Constructs a handler that decodes the events from the specified off-heap ring buffer.
+     *
+     * @param offHeapRingBuffer the slots holding the events, or {@code null} if the events are in the ring buffer
+     */
+    RingBufferLogEventHandler(final OffHeapRingBuffer offHeapRingBuffer) {
+        this.offHeapRingBuffer = offHeapRingBuffer;
+    }
+
     @Override
     public void setSequenceCallback(final Sequence sequenceCallback) {
         this.sequenceCallback = sequenceCallback;
     }
 
     @Override
-    public void onEvent(final RingBufferLogEvent event, final long sequence,
+    public void onEvent(final RingBufferLogEvent ringBufferEvent, final long sequence,
             final boolean endOfBatch) throws Exception {
-        event.execute(endOfBatch);
-        event.clear();
+        final RingBufferLogEvent event = offHeapRingBuffer == null ? ringBufferEvent
+                : offHeapRingBuffer.read(sequence);
+        // null if the producer failed while writing the off-heap slot
+        if (event != null) {
+            event.execute(endOfBatch);
+            event.clear();
+        }
 
         // notify the BatchEventProcessor that the sequence has progressed.
         // Without this callback the sequence would not be progressed
@@ -45,7 +45,9 @@ public class RingBufferLogEventTranslator implements
     private ContextStack contextStack;
     private String threadName;
     private StackTraceElement location;
+    private Throwable locationToken;
     private long currentTimeMillis;
+    private int nanoOfMillisecond;
     private long nanoTime;
 
     // @Override
@@ -54,9 +56,29 @@ public class RingBufferLogEventTranslator implements
         event.setValues(asyncLogger, loggerName, marker, fqcn, level, message,
                 thrown, contextMap, contextStack, threadName, location,
                 currentTimeMillis, nanoTime);
+        event.setNanoOfMillisecond(nanoOfMillisecond);
+        event.setLocationToken(locationToken);
         clear();
     }
 
+    /**
+     * Writes the log event into the slot of the specified sequence of an off-heap ring buffer. Events that cannot be
+     * serialized into the slot are handed over as a new {@code RingBufferLogEvent}.
+     *
+     * @param ring the off-heap ring buffer
+     * @param sequence the claimed sequence
+     */
+    void writeTo(final OffHeapRingBuffer ring, final long sequence) {
+        if (ring.write(sequence, asyncLogger, marker, fqcn, level, message, thrown, contextMap, contextStack,
+                threadName, location, locationToken, currentTimeMillis, nanoOfMillisecond, nanoTime)) {
+            clear();
+        } else {
+            final RingBufferLogEvent event = new RingBufferLogEvent();
+            translateTo(event, sequence);
+            ring.spill(sequence, event);
+        }
+    }
+
     /**
      * Release references held by this object to allow objects to be
      * garbage-collected.
@@ -76,6 +98,8 @@ public class RingBufferLogEventTranslator implements
                 0, // currentTimeMillis
                 0 // nanoTime
         );
+        nanoOfMillisecond = 0;
+        locationToken = null;
     }
 
     public void setValues(final AsyncLogger anAsyncLogger, final String aLoggerName, final Marker aMarker,
@@ -117,4 +141,22 @@ public class RingBufferLogEventTranslator implements
         this.currentTimeMillis = aCurrentTimeMillis;
         this.nanoTime = aNanoTime;
     }
+
+    /**
+     * Sets the nanoseconds within the millisecond of the event time, if the clock provides them.
+     *
+     * @param aNanoOfMillisecond the nanoseconds within the millisecond, between 0 and 999,999
+     */
+    public void setNanoOfMillisecond(final int aNanoOfMillisecond) {
+        this.nanoOfMillisecond = aNanoOfMillisecond;
+    }
+
+    /**
+     * Sets the stack captured on the logging thread, to be resolved into a location on the background thread.
+     *
+     * @param aLocationToken a token obtained from {@code LocationResolver#capture()}, or {@code null}
+     */
+    public void setLocationToken(final Throwable aLocationToken) {
+        this.locationToken = aLocationToken;
+    }
 }
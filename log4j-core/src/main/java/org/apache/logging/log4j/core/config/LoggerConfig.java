@@ -332,8 +332,8 @@ public class LoggerConfig extends AbstractFilterable {
             LogEvent event = builder.build();
             for (final Map.Entry<Property, Boolean> entry : properties.entrySet()) {
                 final Property prop = entry.getKey();
-                final String value = entry.getValue() ? config.getStrSubstitutor().replace(event, prop.getValue())
-                        : prop.getValue();
+                final String value = entry.getValue()
+                        ? config.getStrSubstitutor().compile(prop.getValue()).evaluate(event) : prop.getValue();
                 props.add(Property.createProperty(prop.getName(), value));
             }
         }
@@ -20,6 +20,8 @@ import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -45,6 +47,7 @@ import org.apache.logging.log4j.core.config.plugins.util.PluginType;
 import org.apache.logging.log4j.core.config.plugins.util.ResolverUtil;
 import org.apache.logging.log4j.core.config.status.StatusConfiguration;
 import org.apache.logging.log4j.core.util.Closer;
+import org.apache.logging.log4j.core.util.FileUtils;
 import org.apache.logging.log4j.core.util.FileWatcher;
 import org.apache.logging.log4j.core.util.Loader;
 import org.apache.logging.log4j.core.util.Patterns;
@@ -138,6 +141,7 @@ public class XmlConfiguration extends AbstractConfiguration implements Reconfigu
                         if (configFile != null) {
                             FileWatcher watcher = new ConfiguratonFileWatcher(this, listeners);
                             getWatchManager().watchFile(configFile, watcher);
+                            watchIncludedFiles(rootElement, watcher);
                         }
                     }
                 } else if ("advertiser".equalsIgnoreCase(key)) {
@@ -186,6 +190,36 @@ public class XmlConfiguration extends AbstractConfiguration implements Reconfigu
         }
     }
 
+    /**
+     * Watches the files merged into the document by XInclude. With base URI fixup enabled the top level element of
+     * each included file carries an {@code xml:base} attribute, so its base URI identifies the included file.
+     *
+     * @param element the element to search.
+     * @param watcher the FileWatcher to notify when an included file changes.
+     */
+    private void watchIncludedFiles(final Element element, final FileWatcher watcher) {
+        if (element.hasAttributeNS(XMLConstants.XML_NS_URI, "base")) {
+            final String baseUri = element.getBaseURI();
+            if (baseUri != null) {
+                try {
+                    final File file = FileUtils.fileFromUri(new URI(baseUri));
+                    if (file != null) {
+                        getWatchManager().watchFile(file, watcher);
+                    }
+                } catch (final URISyntaxException ex) {
+                    LOGGER.warn("Unable to watch included file {}: {}", baseUri, ex.getMessage());
+                }
+            }
+        }
+        final NodeList list = element.getChildNodes();
+        for (int i = 0; i < list.getLength(); i++) {
+            final org.w3c.dom.Node w3cNode = list.item(i);
+            if (w3cNode instanceof Element) {
+                watchIncludedFiles((Element) w3cNode, watcher);
+            }
+        }
+    }
+
     /**
      * Creates a new DocumentBuilder suitable for parsing a configuration file.
      * 
@@ -0,0 +1,169 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache license, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the license for the specific language governing permissions and
+ * limitations under the license.
+ */
+package org.apache.logging.log4j.core.impl;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.logging.log4j.core.impl.ThrowableProxy.CacheEntry;
+
+/**
+ * Process wide cache of the packaging information {@link ThrowableProxy} resolves for the classes in a stack trace.
+ * <p>
+ * Entries are grouped by the ClassLoader that was used to look up the class. The ClassLoaders are only weakly
+ * referenced, so the entries of an undeployed application are discarded together with its ClassLoader. Lookups do not
+ * lock, so that threads rendering many stack traces at the same time do not contend on the cache. Each group holds
+ * about {@code maxEntries} classes: when a group grows beyond that, a quarter of its entries is evicted in no
+ * particular order.
+ * </p>
+ */
+final class ClassInfoCache {
+
+    /** Stands for the bootstrap ClassLoader, which cannot be weakly referenced. */
+    private static final Object NULL_LOADER = new Object();
+
+    private final ConcurrentMap<Object, Classes> loaders = new ConcurrentHashMap<>();
+    private final ReferenceQueue<ClassLoader> collected = new ReferenceQueue<>();
+    private final int maxEntries;
+
+    ClassInfoCache(final int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Returns the cached entry for the class.
+     * @param loader The ClassLoader used to look up the class, may be null.
+     * @param className The name of the class.
+     * @return The cached entry or null.
+     */
+    CacheEntry get(final ClassLoader loader, final String className) {
+        if (maxEntries <= 0) {
+            return null;
+        }
+        final Classes classes = loaders.get(loader == null ? NULL_LOADER : new LoaderKey(loader, null));
+        return classes == null ? null : classes.entries.get(className);
+    }
+
+    /**
+     * Caches the entry for the class.
+     * @param loader The ClassLoader used to look up the class, may be null.
+     * @param className The name of the class.
+     * @param entry The entry to cache.
+     */
+    void put(final ClassLoader loader, final String className, final CacheEntry entry) {
+        if (maxEntries <= 0) {
+            return;
+        }
+        removeCollectedLoaders();
+        final Object key = loader == null ? NULL_LOADER : new LoaderKey(loader, collected);
+        Classes classes = loaders.get(key);
+        if (classes == null) {
+            final Classes created = new Classes();
+            classes = loaders.putIfAbsent(key, created);
+            if (classes == null) {
+                classes = created;
+            }
+        }
+        classes.put(className, entry);
+    }
+
+    /**
+     * Returns the number of cached classes.
+     * @return The number of cached classes.
+     */
+    int size() {
+        int size = 0;
+        for (final Classes classes : loaders.values()) {
+            size += classes.entries.size();
+        }
+        return size;
+    }
+
+    /**
+     * Discards all cached entries.
+     */
+    void clear() {
+        loaders.clear();
+    }
+
+    private void removeCollectedLoaders() {
+        Reference<? extends ClassLoader> ref;
+        while ((ref = collected.poll()) != null) {
+            loaders.remove(ref);
+        }
+    }
+
+    /**
+     * The entries of one ClassLoader.
+     */
+    private final class Classes {
+        private final ConcurrentMap<String, CacheEntry> entries = new ConcurrentHashMap<>();
+        private final AtomicInteger count = new AtomicInteger();
+
+        void put(final String className, final CacheEntry entry) {
+            if (entries.put(className, entry) == null && count.incrementAndGet() > maxEntries) {
+                evict(className);
+            }
+        }
+
+        private void evict(final String keep) {
+            final int target = maxEntries - maxEntries / 4;
+            for (final Iterator<String> iter = entries.keySet().iterator(); iter.hasNext()
+                    && count.get() > target;) {
+                final String className = iter.next();
+                if (!className.equals(keep) && entries.remove(className) != null) {
+                    count.decrementAndGet();
+                }
+            }
+        }
+    }
+
+    /**
+     * Weak key that compares ClassLoaders by identity. Keys whose ClassLoader was collected are only equal to
+     * themselves.
+     */
+    private static final class LoaderKey extends WeakReference<ClassLoader> {
+        private final int hashCode;
+
+        LoaderKey(final ClassLoader loader, final ReferenceQueue<ClassLoader> queue) {
+            super(loader, queue);
+            this.hashCode = System.identityHashCode(loader);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof LoaderKey)) {
+                return false;
+            }
+            final ClassLoader loader = get();
+            return loader != null && loader == ((LoaderKey) obj).get();
+        }
+    }
+}
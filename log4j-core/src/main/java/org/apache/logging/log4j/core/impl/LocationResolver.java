@@ -0,0 +1,84 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache license, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the license for the specific language governing permissions and
+ * limitations under the license.
+ */
+package org.apache.logging.log4j.core.impl;
+
+/**
+ * Determines the location (caller) of a logging call.
+ * <p>
+ * Locating the caller happens in two steps. Capturing a {@code Throwable} records the raw frames of the current
+ * thread's stack, which is cheap compared to turning those frames into {@code StackTraceElement}s. The captured
+ * {@code Throwable} can therefore be used as a token that is {@link #resolve(String, Throwable) resolved} later, for
+ * example on the background thread of an asynchronous logger.
+ * </p>
+ * <p>
+ * The caller is the frame before the outermost frame of the logger, so the complete stack trace is materialized: a
+ * logger class can appear more than once on the stack, for example when a logging stream calls back into itself
+ * through the JDK.
+ * </p>
+ */
+public final class LocationResolver {
+
+    private LocationResolver() {
+    }
+
+    /**
+     * Captures the current thread's stack so the caller can be resolved later, possibly on another thread.
+     *
+     * @return an opaque token to pass to {@link #resolve(String, Throwable)}.
+     */
+    public static Throwable capture() {
+        return new Throwable();
+    }
+
+    /**
+     * Returns the StackTraceElement for the caller of the logger with the specified fully qualified class name.
+     *
+     * @param fqcnOfLogger the fully qualified class name of the logger.
+     * @return the StackTraceElement of the caller, or {@code null} if it cannot be determined.
+     */
+    public static StackTraceElement calcLocation(final String fqcnOfLogger) {
+        if (fqcnOfLogger == null) {
+            return null;
+        }
+        // LOG4J2-1029 new Throwable().getStackTrace is faster than Thread.currentThread().getStackTrace().
+        return resolve(fqcnOfLogger, new Throwable());
+    }
+
+    /**
+     * Returns the StackTraceElement for the caller of the logger with the specified fully qualified class name from a
+     * token previously obtained with {@link #capture()}.
+     *
+     * @param fqcnOfLogger the fully qualified class name of the logger.
+     * @param token the captured stack.
+     * @return the StackTraceElement of the caller, or {@code null} if it cannot be determined.
+     */
+    public static StackTraceElement resolve(final String fqcnOfLogger, final Throwable token) {
+        if (fqcnOfLogger == null || token == null) {
+            return null;
+        }
+        final StackTraceElement[] stackTrace = token.getStackTrace();
+        StackTraceElement last = null;
+        for (int i = stackTrace.length - 1; i > 0; i--) {
+            final String className = stackTrace[i].getClassName();
+            if (fqcnOfLogger.equals(className)) {
+                return last;
+            }
+            last = stackTrace[i];
+        }
+        return null;
+    }
+}
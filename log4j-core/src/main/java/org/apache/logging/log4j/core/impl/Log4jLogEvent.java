@@ -36,6 +36,8 @@ import org.apache.logging.log4j.core.util.Clock;
 import org.apache.logging.log4j.core.util.ClockFactory;
 import org.apache.logging.log4j.core.util.DummyNanoClock;
 import org.apache.logging.log4j.core.util.NanoClock;
+import org.apache.logging.log4j.core.util.PreciseTime;
+import org.apache.logging.log4j.core.util.PreciseTimestamp;
 import org.apache.logging.log4j.message.LoggerNameAwareMessage;
 import org.apache.logging.log4j.message.Message;
 import org.apache.logging.log4j.message.TimestampMessage;
@@ -45,7 +47,7 @@ import org.apache.logging.log4j.util.Strings;
 /**
  * Implementation of a LogEvent.
  */
-public class Log4jLogEvent implements LogEvent {
+public class Log4jLogEvent implements LogEvent, PreciseTimestamp {
 
     private static final long serialVersionUID = -1351367343806656055L;
     private static final Clock CLOCK = ClockFactory.getClock();
@@ -56,6 +58,8 @@ public class Log4jLogEvent implements LogEvent {
     private final String loggerName;
     private final Message message;
     private final long timeMillis;
+    /** The nanoseconds within the millisecond, if the clock provides them. */
+    private final int nanoOfMillisecond;
     private final transient Throwable thrown;
     private ThrowableProxy thrownProxy;
     private final Map<String, String> contextMap;
@@ -76,7 +80,8 @@ public class Log4jLogEvent implements LogEvent {
         private String loggerName;
         private Message message;
         private Throwable thrown;
-        private long timeMillis = CLOCK.currentTimeMillis();
+        private long timeMillis;
+        private int nanoOfMillisecond;
         private ThrowableProxy thrownProxy;
         private Map<String, String> contextMap = ThreadContext.getImmutableContext();
         private ThreadContext.ContextStack contextStack = ThreadContext.getImmutableStack();
@@ -87,6 +92,9 @@ public class Log4jLogEvent implements LogEvent {
         private long nanoTime;
 
         public Builder() {
+            final long timeNanos = PreciseTime.currentTimeNanos(CLOCK);
+            this.timeMillis = PreciseTime.toMillis(timeNanos);
+            this.nanoOfMillisecond = PreciseTime.nanoOfMillisecond(timeNanos);
         }
 
         public Builder(LogEvent other) {
@@ -102,6 +110,7 @@ public class Log4jLogEvent implements LogEvent {
             this.loggerName = other.getLoggerName();
             this.message = other.getMessage();
             this.timeMillis = other.getTimeMillis();
+            this.nanoOfMillisecond = PreciseTime.nanoOfMillisecond(other);
             this.thrown = other.getThrown();
             this.contextMap = other.getContextMap();
             this.contextStack = other.getContextStack();
@@ -152,8 +161,24 @@ public class Log4jLogEvent implements LogEvent {
             return this;
         }
 
+        /**
+         * Sets the time of the event in milliseconds and clears the nanoseconds within the millisecond.
+         * @param timeMillis The milliseconds since midnight, January 1, 1970 UTC.
+         * @return this builder
+         */
         public Builder setTimeMillis(long timeMillis) {
             this.timeMillis = timeMillis;
+            this.nanoOfMillisecond = 0;
+            return this;
+        }
+
+        /**
+         * Sets the nanoseconds within the millisecond of the event time.
+         * @param nanoOfMillisecond The nanoseconds within the millisecond, between 0 and 999,999.
+         * @return this builder
+         */
+        public Builder setNanoOfMillisecond(int nanoOfMillisecond) {
+            this.nanoOfMillisecond = nanoOfMillisecond;
             return this;
         }
 
@@ -206,7 +231,7 @@ public class Log4jLogEvent implements LogEvent {
         @Override
         public Log4jLogEvent build() {
             final Log4jLogEvent result = new Log4jLogEvent(loggerName, marker, loggerFqcn, level, message, thrown,
-                    thrownProxy, contextMap, contextStack, threadName, source, timeMillis, nanoTime);
+                    thrownProxy, contextMap, contextStack, threadName, source, timeMillis, nanoOfMillisecond, nanoTime);
             result.setIncludeLocation(includeLocation);
             result.setEndOfBatch(endOfBatch);
             return result;
@@ -223,7 +248,7 @@ public class Log4jLogEvent implements LogEvent {
 
     public Log4jLogEvent() {
         this(Strings.EMPTY, null, Strings.EMPTY, null, null, (Throwable) null, null, null, null, null, null,
-                CLOCK.currentTimeMillis(), nanoClock.nanoTime());
+                CLOCK.currentTimeMillis(), 0, nanoClock.nanoTime());
     }
 
     /**
@@ -233,7 +258,7 @@ public class Log4jLogEvent implements LogEvent {
    @Deprecated
    public Log4jLogEvent(final long timestamp) {
        this(Strings.EMPTY, null, Strings.EMPTY, null, null, (Throwable) null, null, null, null, null, null,
-               timestamp, nanoClock.nanoTime());
+               timestamp, 0, nanoClock.nanoTime());
    }
 
    /**
@@ -265,15 +290,22 @@ public class Log4jLogEvent implements LogEvent {
    // This constructor is called from LogEventFactories.
    public Log4jLogEvent(final String loggerName, final Marker marker, final String loggerFQCN, final Level level,
                         final Message message, final List<Property> properties, final Throwable t) {
+       this(loggerName, marker, loggerFQCN, level, message, properties, t,
+           // LOG4J2-628 use log4j.Clock for timestamps
+           // LOG4J2-744 unless TimestampMessage already has one, which the constructor applies
+           message instanceof TimestampMessage ? 0 : PreciseTime.currentTimeNanos(CLOCK));
+   }
+
+   private Log4jLogEvent(final String loggerName, final Marker marker, final String loggerFQCN, final Level level,
+                         final Message message, final List<Property> properties, final Throwable t,
+                         final long timeNanos) {
        this(loggerName, marker, loggerFQCN, level, message, t, null,
            createMap(properties),
            ThreadContext.getDepth() == 0 ? null : ThreadContext.cloneStack(), // mutable copy
            null, // thread name
            null, // stack trace element
-           // LOG4J2-628 use log4j.Clock for timestamps
-           // LOG4J2-744 unless TimestampMessage already has one
-           message instanceof TimestampMessage ? ((TimestampMessage) message).getTimestamp() :
-               CLOCK.currentTimeMillis(),
+           PreciseTime.toMillis(timeNanos),
+           PreciseTime.nanoOfMillisecond(timeNanos),
            nanoClock.nanoTime());
    }
 
@@ -298,7 +330,7 @@ public Log4jLogEvent(final String loggerName, final Marker marker, final String
                         final ThreadContext.ContextStack ndc, final String threadName,
                         final StackTraceElement location, final long timestampMillis) {
        this(loggerName, marker, loggerFQCN, level, message, t, null, mdc, ndc, threadName,
-               location, timestampMillis, nanoClock.nanoTime());
+               location, timestampMillis, 0, nanoClock.nanoTime());
    }
 
    /**
@@ -326,7 +358,7 @@ public Log4jLogEvent(final String loggerName, final Marker marker, final String
                                             final String threadName, final StackTraceElement location,
                                             final long timestamp) {
         final Log4jLogEvent result = new Log4jLogEvent(loggerName, marker, loggerFQCN, level, message, thrown,
-                thrownProxy, mdc, ndc, threadName, location, timestamp, nanoClock.nanoTime());
+                thrownProxy, mdc, ndc, threadName, location, timestamp, 0, nanoClock.nanoTime());
         return result;
     }
 
@@ -344,13 +376,15 @@ public Log4jLogEvent(final String loggerName, final Marker marker, final String
      * @param threadName The name of the thread.
      * @param source The locations of the caller.
      * @param timestampMillis The timestamp of the event.
+     * @param nanoOfMillisecond The nanoseconds within the millisecond of the timestamp.
      * @param nanoTime The value of the running Java Virtual Machine's high-resolution time source when the event was
      *          created.
      */
     private Log4jLogEvent(final String loggerName, final Marker marker, final String loggerFQCN, final Level level,
             final Message message, final Throwable thrown, final ThrowableProxy thrownProxy,
             final Map<String, String> contextMap, final ThreadContext.ContextStack contextStack,
-            final String threadName, final StackTraceElement source, final long timestampMillis, final long nanoTime) {
+            final String threadName, final StackTraceElement source, final long timestampMillis,
+            final int nanoOfMillisecond, final long nanoTime) {
         this.loggerName = loggerName;
         this.marker = marker;
         this.loggerFqcn = loggerFQCN;
@@ -360,9 +394,13 @@ public Log4jLogEvent(final String loggerName, final Marker marker, final String
         this.thrownProxy = thrownProxy;
         this.contextMap = contextMap == null ? ThreadContext.EMPTY_MAP : contextMap;
         this.contextStack = contextStack == null ? ThreadContext.EMPTY_STACK : contextStack;
-        this.timeMillis = message instanceof TimestampMessage
-                ? ((TimestampMessage) message).getTimestamp()
-                : timestampMillis;
+        if (message instanceof TimestampMessage) {
+            this.timeMillis = ((TimestampMessage) message).getTimestamp();
+            this.nanoOfMillisecond = 0;
+        } else {
+            this.timeMillis = timestampMillis;
+            this.nanoOfMillisecond = nanoOfMillisecond;
+        }
         this.threadName = threadName;
         this.source = source;
         if (message != null && message instanceof LoggerNameAwareMessage) {
@@ -463,6 +501,16 @@ public Log4jLogEvent(final String loggerName, final Marker marker, final String
         return timeMillis;
     }
 
+    @Override
+    public long getEpochSecond() {
+        return PreciseTime.epochSecond(timeMillis);
+    }
+
+    @Override
+    public int getNanoOfSecond() {
+        return PreciseTime.nanoOfSecond(timeMillis, nanoOfMillisecond);
+    }
+
     /**
      * Returns the Throwable associated with the event, or null.
      * @return The Throwable associated with the event.
@@ -538,21 +586,14 @@ public Log4jLogEvent(final String loggerName, final Marker marker, final String
         return source;
     }
 
+    /**
+     * Returns the StackTraceElement for the caller of the logger with the specified fully qualified class name.
+     * @param fqcnOfLogger the fully qualified class name of the logger.
+     * @return the StackTraceElement for the caller.
+     * @see LocationResolver#calcLocation(String)
+     */
     public static StackTraceElement calcLocation(final String fqcnOfLogger) {
-        if (fqcnOfLogger == null) {
-            return null;
-        }
-        // LOG4J2-1029 new Throwable().getStackTrace is faster than Thread.currentThread().getStackTrace().
-        final StackTraceElement[] stackTrace = new Throwable().getStackTrace();
-        StackTraceElement last = null;
-        for (int i = stackTrace.length - 1; i > 0; i--) {
-            final String className = stackTrace[i].getClassName();
-            if (fqcnOfLogger.equals(className)) {
-                return last;
-            }
-            last = stackTrace[i];
-        }
-        return null;
+        return LocationResolver.calcLocation(fqcnOfLogger);
     }
 
     @Override
@@ -606,7 +647,7 @@ public Log4jLogEvent(final String loggerName, final Marker marker, final String
             final Log4jLogEvent result = new Log4jLogEvent(proxy.loggerName, proxy.marker,
                     proxy.loggerFQCN, proxy.level, proxy.message,
                     proxy.thrown, proxy.thrownProxy, proxy.contextMap, proxy.contextStack, proxy.threadName,
-                    proxy.source, proxy.timeMillis, proxy.nanoTime);
+                    proxy.source, proxy.timeMillis, proxy.nanoOfMillisecond, proxy.nanoTime);
             result.setEndOfBatch(proxy.isEndOfBatch);
             result.setIncludeLocation(proxy.isLocationRequired);
             return result;
@@ -648,6 +689,9 @@ public Log4jLogEvent(final String loggerName, final Marker marker, final String
         if (timeMillis != that.timeMillis) {
             return false;
         }
+        if (nanoOfMillisecond != that.nanoOfMillisecond) {
+            return false;
+        }
         if (nanoTime != that.nanoTime) {
             return false;
         }
@@ -697,6 +741,7 @@ public Log4jLogEvent(final String loggerName, final Marker marker, final String
         result = 31 * result + loggerName.hashCode();
         result = 31 * result + message.hashCode();
         result = 31 * result + (int) (timeMillis ^ (timeMillis >>> 32));
+        result = 31 * result + nanoOfMillisecond;
         result = 31 * result + (int) (nanoTime ^ (nanoTime >>> 32));
         result = 31 * result + (thrown != null ? thrown.hashCode() : 0);
         result = 31 * result + (thrownProxy != null ? thrownProxy.hashCode() : 0);
@@ -722,6 +767,8 @@ public Log4jLogEvent(final String loggerName, final Marker marker, final String
         private final String loggerName;
         private final Message message;
         private final long timeMillis;
+        /** @since Log4J 2.6 */
+        private final int nanoOfMillisecond;
         private final transient Throwable thrown;
         private final ThrowableProxy thrownProxy;
         private final Map<String, String> contextMap;
@@ -740,6 +787,7 @@ public Log4jLogEvent(final String loggerName, final Marker marker, final String
             this.loggerName = event.loggerName;
             this.message = event.message;
             this.timeMillis = event.timeMillis;
+            this.nanoOfMillisecond = event.nanoOfMillisecond;
             this.thrown = event.thrown;
             this.thrownProxy = event.thrownProxy;
             this.contextMap = event.contextMap;
@@ -757,7 +805,8 @@ public Log4jLogEvent(final String loggerName, final Marker marker, final String
          */
         protected Object readResolve() {
             final Log4jLogEvent result = new Log4jLogEvent(loggerName, marker, loggerFQCN, level, message, thrown,
-                    thrownProxy, contextMap, contextStack, threadName, source, timeMillis, nanoTime);
+                    thrownProxy, contextMap, contextStack, threadName, source, timeMillis, nanoOfMillisecond,
+                    nanoTime);
             result.setEndOfBatch(isEndOfBatch);
             result.setIncludeLocation(isLocationRequired);
             return result;
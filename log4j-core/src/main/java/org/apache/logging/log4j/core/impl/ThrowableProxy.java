@@ -16,7 +16,10 @@
  */
 package org.apache.logging.log4j.core.impl;
 
+import java.io.IOException;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
+import java.lang.ref.WeakReference;
 import java.net.URL;
 import java.security.CodeSource;
 import java.util.ArrayList;
@@ -30,6 +33,7 @@ import java.util.Stack;
 
 import org.apache.logging.log4j.core.util.Loader;
 import org.apache.logging.log4j.status.StatusLogger;
+import org.apache.logging.log4j.util.PropertiesUtil;
 import org.apache.logging.log4j.util.ReflectionUtil;
 import org.apache.logging.log4j.util.Strings;
 
@@ -43,6 +47,14 @@ import org.apache.logging.log4j.util.Strings;
  * </p>
  * 
  * <p>
+ * The packaging information of each class is kept in a process wide cache that is bounded by the
+ * {@code log4j.throwableProxy.classCacheSize} system property (the maximum number of classes per ClassLoader, 0
+ * disables the cache). When the {@code log4j.throwableProxy.lazyExtendedStackTrace} system property is set to true
+ * the extended stack trace is only computed when it is first requested, for example by the {@code %xEx} pattern
+ * converter. Classes are then resolved by name only, so the packaging information is never marked as exact.
+ * </p>
+ * 
+ * <p>
  * TODO: Move this class to org.apache.logging.log4j.core because it is used from LogEvent.
  * </p>
  * <p>
@@ -63,14 +75,43 @@ public class ThrowableProxy implements Serializable {
      */
     static class CacheEntry {
         private final ExtendedClassInfo element;
-        private final ClassLoader loader;
+        private final ExtendedClassInfo exactElement;
+        // weak so that shared cache entries do not keep the ClassLoader they are keyed on reachable
+        private final WeakReference<ClassLoader> loader;
 
         public CacheEntry(final ExtendedClassInfo element, final ClassLoader loader) {
+            this(element, element, loader);
+        }
+
+        CacheEntry(final ExtendedClassInfo element, final ExtendedClassInfo exactElement, final ClassLoader loader) {
             this.element = element;
-            this.loader = loader;
+            this.exactElement = exactElement;
+            this.loader = loader == null ? null : new WeakReference<>(loader);
+        }
+
+        ClassLoader getLoader() {
+            return loader == null ? null : loader.get();
         }
     }
 
+    /**
+     * System property that bounds the number of classes cached per ClassLoader.
+     */
+    public static final String CLASS_CACHE_SIZE_PROPERTY = "log4j.throwableProxy.classCacheSize";
+
+    /**
+     * System property that defers computing the extended stack trace until it is first requested.
+     */
+    public static final String LAZY_EXTENDED_STACK_TRACE_PROPERTY = "log4j.throwableProxy.lazyExtendedStackTrace";
+
+    private static final int DEFAULT_CLASS_CACHE_SIZE = 2048;
+
+    static final ClassInfoCache CLASS_INFO_CACHE = new ClassInfoCache(PropertiesUtil.getProperties()
+            .getIntegerProperty(CLASS_CACHE_SIZE_PROPERTY, DEFAULT_CLASS_CACHE_SIZE));
+
+    private static final boolean LAZY_EXTENDED_STACK_TRACE = PropertiesUtil.getProperties().getBooleanProperty(
+            LAZY_EXTENDED_STACK_TRACE_PROPERTY);
+
     private static final ThrowableProxy[] EMPTY_THROWABLE_PROXY_ARRAY = new ThrowableProxy[0];
 
     private static final char EOL = '\n';
@@ -81,7 +122,7 @@ public class ThrowableProxy implements Serializable {
 
     private int commonElementCount;
 
-    private final ExtendedStackTraceElement[] extendedStackTrace;
+    private volatile ExtendedStackTraceElement[] extendedStackTrace;
 
     private final String localizedMessage;
 
@@ -114,7 +155,19 @@ public class ThrowableProxy implements Serializable {
      *        The Throwable to wrap, must not be null.
      */
     public ThrowableProxy(final Throwable throwable) {
-        this(throwable, null);
+        this(throwable, null, LAZY_EXTENDED_STACK_TRACE);
+    }
+
+    /**
+     * Constructs the wrapper for the Throwable that includes packaging data.
+     * 
+     * @param throwable
+     *        The Throwable to wrap, must not be null.
+     * @param lazy
+     *        If true the extended stack trace is computed when it is first requested instead of now.
+     */
+    public ThrowableProxy(final Throwable throwable, final boolean lazy) {
+        this(throwable, null, lazy);
     }
 
     /**
@@ -124,19 +177,21 @@ public class ThrowableProxy implements Serializable {
      *        The Throwable to wrap, must not be null.
      * @param visited
      *        The set of visited suppressed exceptions.
+     * @param lazy
+     *        If true the extended stack trace is computed when it is first requested.
      */
-    private ThrowableProxy(final Throwable throwable, final Set<Throwable> visited) {
+    private ThrowableProxy(final Throwable throwable, final Set<Throwable> visited, final boolean lazy) {
         this.throwable = throwable;
         this.name = throwable.getClass().getName();
         this.message = throwable.getMessage();
         this.localizedMessage = throwable.getLocalizedMessage();
         final Map<String, CacheEntry> map = new HashMap<>();
-        final Stack<Class<?>> stack = ReflectionUtil.getCurrentStackTrace();
-        this.extendedStackTrace = this.toExtendedStackTrace(stack, map, null, throwable.getStackTrace());
+        final Stack<Class<?>> stack = lazy ? null : ReflectionUtil.getCurrentStackTrace();
+        this.extendedStackTrace = lazy ? null : this.toExtendedStackTrace(stack, map, null, throwable.getStackTrace());
         final Throwable throwableCause = throwable.getCause();
         final Set<Throwable> causeVisited = new HashSet<>(1);
         this.causeProxy = throwableCause == null ? null : new ThrowableProxy(throwable, stack, map, throwableCause, visited, causeVisited);
-        this.suppressedProxies = this.toSuppressedProxies(throwable, visited);
+        this.suppressedProxies = this.toSuppressedProxies(throwable, visited, lazy);
     }
 
     /**
@@ -145,7 +200,7 @@ public class ThrowableProxy implements Serializable {
      * @param parent
      *        The Throwable referencing this Throwable.
      * @param stack
-     *        The Class stack.
+     *        The Class stack, or null to compute the extended stack trace when it is first requested.
      * @param map
      *        The cache containing the packaging data.
      * @param cause
@@ -160,11 +215,16 @@ public class ThrowableProxy implements Serializable {
         this.name = cause.getClass().getName();
         this.message = this.throwable.getMessage();
         this.localizedMessage = this.throwable.getLocalizedMessage();
-        this.extendedStackTrace = this.toExtendedStackTrace(stack, map, parent.getStackTrace(), cause.getStackTrace());
+        if (stack == null) {
+            this.commonElementCount = commonElementCount(parent.getStackTrace(), cause.getStackTrace());
+        } else {
+            this.extendedStackTrace = this.toExtendedStackTrace(stack, map, parent.getStackTrace(),
+                    cause.getStackTrace());
+        }
         final Throwable causeCause = cause.getCause();
         this.causeProxy = causeCause == null || causeVisited.contains(causeCause) ? null : new ThrowableProxy(parent,
                 stack, map, causeCause, suppressedVisited, causeVisited);
-        this.suppressedProxies = this.toSuppressedProxies(cause, suppressedVisited);
+        this.suppressedProxies = this.toSuppressedProxies(cause, suppressedVisited, stack == null);
     }
 
     @Override
@@ -196,7 +256,7 @@ public class ThrowableProxy implements Serializable {
         } else if (!this.name.equals(other.name)) {
             return false;
         }
-        if (!Arrays.equals(this.extendedStackTrace, other.extendedStackTrace)) {
+        if (!Arrays.equals(this.getExtendedStackTrace(), other.getExtendedStackTrace())) {
             return false;
         }
         if (!Arrays.equals(this.suppressedProxies, other.suppressedProxies)) {
@@ -216,7 +276,7 @@ public class ThrowableProxy implements Serializable {
 		}
 		sb.append(prefix).append(causeLabel).append(throwableProxy).append(EOL);
 		this.formatElements(sb, prefix, throwableProxy.commonElementCount,
-				throwableProxy.getStackTrace(), throwableProxy.extendedStackTrace, ignorePackages);
+				throwableProxy.getStackTrace(), throwableProxy.getExtendedStackTrace(), ignorePackages);
 		this.formatSuppressed(sb, prefix + "\t", throwableProxy.suppressedProxies, ignorePackages);
 		this.formatCause(sb, prefix, throwableProxy.causeProxy, ignorePackages);
 	}
@@ -308,7 +368,7 @@ public class ThrowableProxy implements Serializable {
         }
         sb.append(cause).append(EOL);
         this.formatElements(sb, "", cause.commonElementCount,
-                cause.getThrowable().getStackTrace(), cause.extendedStackTrace, packages);
+                cause.getThrowable().getStackTrace(), cause.getExtendedStackTrace(), packages);
     }
 
     public ThrowableProxy getCauseProxy() {
@@ -339,7 +399,7 @@ public class ThrowableProxy implements Serializable {
         }
         sb.append(this.toString());
         sb.append(EOL);
-        this.formatElements(sb, "", 0, this.throwable.getStackTrace(), this.extendedStackTrace, packages);
+        this.formatElements(sb, "", 0, this.throwable.getStackTrace(), this.getExtendedStackTrace(), packages);
         return sb.toString();
     }
 
@@ -359,7 +419,14 @@ public class ThrowableProxy implements Serializable {
      * @return The stack trace including packaging information.
      */
     public ExtendedStackTraceElement[] getExtendedStackTrace() {
-        return this.extendedStackTrace;
+        ExtendedStackTraceElement[] result = this.extendedStackTrace;
+        if (result == null && this.throwable != null) {
+            final StackTraceElement[] stackTrace = this.throwable.getStackTrace();
+            result = this.resolveExtendedStackTrace(new Stack<Class<?>>(), new HashMap<String, CacheEntry>(),
+                    stackTrace, stackTrace.length - this.commonElementCount);
+            this.extendedStackTrace = result;
+        }
+        return result;
     }
 
     /**
@@ -386,7 +453,7 @@ public class ThrowableProxy implements Serializable {
         }
         sb.append(EOL);
         final StackTraceElement[] causedTrace = this.throwable != null ? this.throwable.getStackTrace() : null;
-        this.formatElements(sb, "", 0, causedTrace, this.extendedStackTrace, ignorePackages);
+        this.formatElements(sb, "", 0, causedTrace, this.getExtendedStackTrace(), ignorePackages);
         this.formatSuppressed(sb, "\t", this.suppressedProxies, ignorePackages);
         this.formatCause(sb, "", this.causeProxy, ignorePackages);
         return sb.toString();
@@ -454,7 +521,8 @@ public class ThrowableProxy implements Serializable {
         int result = 1;
         result = prime * result + (this.causeProxy == null ? 0 : this.causeProxy.hashCode());
         result = prime * result + this.commonElementCount;
-        result = prime * result + (this.extendedStackTrace == null ? 0 : Arrays.hashCode(this.extendedStackTrace));
+        final ExtendedStackTraceElement[] extStackTrace = this.getExtendedStackTrace();
+        result = prime * result + (extStackTrace == null ? 0 : Arrays.hashCode(extStackTrace));
         result = prime * result + (this.suppressedProxies == null ? 0 : Arrays.hashCode(this.suppressedProxies));
         result = prime * result + (this.name == null ? 0 : this.name.hashCode());
         return result;
@@ -515,17 +583,12 @@ public class ThrowableProxy implements Serializable {
     /**
      * Construct the CacheEntry from the Class's information.
      * 
-     * @param stackTraceElement
-     *        The stack trace element
      * @param callerClass
      *        The Class.
-     * @param exact
-     *        True if the class was obtained via Reflection.getCallerClass.
      * 
      * @return The CacheEntry.
      */
-    private CacheEntry toCacheEntry(final StackTraceElement stackTraceElement, final Class<?> callerClass,
-            final boolean exact) {
+    private CacheEntry toCacheEntry(final Class<?> callerClass) {
         String location = "?";
         String version = "?";
         ClassLoader lastLoader = null;
@@ -557,7 +620,8 @@ public class ThrowableProxy implements Serializable {
             }
             lastLoader = callerClass.getClassLoader();
         }
-        return new CacheEntry(new ExtendedClassInfo(exact, location, version), lastLoader);
+        return new CacheEntry(new ExtendedClassInfo(false, location, version),
+                new ExtendedClassInfo(true, location, version), lastLoader);
     }
 
     /**
@@ -575,20 +639,28 @@ public class ThrowableProxy implements Serializable {
      */
     ExtendedStackTraceElement[] toExtendedStackTrace(final Stack<Class<?>> stack, final Map<String, CacheEntry> map,
             final StackTraceElement[] rootTrace, final StackTraceElement[] stackTrace) {
-        int stackLength;
-        if (rootTrace != null) {
-            int rootIndex = rootTrace.length - 1;
-            int stackIndex = stackTrace.length - 1;
-            while (rootIndex >= 0 && stackIndex >= 0 && rootTrace[rootIndex].equals(stackTrace[stackIndex])) {
-                --rootIndex;
-                --stackIndex;
-            }
-            this.commonElementCount = stackTrace.length - 1 - stackIndex;
-            stackLength = stackIndex + 1;
-        } else {
-            this.commonElementCount = 0;
-            stackLength = stackTrace.length;
+        this.commonElementCount = commonElementCount(rootTrace, stackTrace);
+        return this.resolveExtendedStackTrace(stack, map, stackTrace, stackTrace.length - this.commonElementCount);
+    }
+
+    /**
+     * Counts the trailing stack trace entries that are common with the parent stack trace.
+     */
+    private static int commonElementCount(final StackTraceElement[] rootTrace, final StackTraceElement[] stackTrace) {
+        if (rootTrace == null) {
+            return 0;
+        }
+        int rootIndex = rootTrace.length - 1;
+        int stackIndex = stackTrace.length - 1;
+        while (rootIndex >= 0 && stackIndex >= 0 && rootTrace[rootIndex].equals(stackTrace[stackIndex])) {
+            --rootIndex;
+            --stackIndex;
         }
+        return stackTrace.length - 1 - stackIndex;
+    }
+
+    private ExtendedStackTraceElement[] resolveExtendedStackTrace(final Stack<Class<?>> stack,
+            final Map<String, CacheEntry> map, final StackTraceElement[] stackTrace, final int stackLength) {
         final ExtendedStackTraceElement[] extStackTrace = new ExtendedStackTraceElement[stackLength];
         Class<?> clazz = stack.isEmpty() ? null : stack.peek();
         ClassLoader lastLoader = null;
@@ -600,27 +672,32 @@ public class ThrowableProxy implements Serializable {
             // present as those methods have returned.
             ExtendedClassInfo extClassInfo;
             if (clazz != null && className.equals(clazz.getName())) {
-                final CacheEntry entry = this.toCacheEntry(stackTraceElement, clazz, true);
-                extClassInfo = entry.element;
-                lastLoader = entry.loader;
+                final ClassLoader classLoader = clazz.getClassLoader();
+                CacheEntry entry = CLASS_INFO_CACHE.get(classLoader, className);
+                if (entry == null) {
+                    entry = this.toCacheEntry(clazz);
+                    CLASS_INFO_CACHE.put(classLoader, className, entry);
+                }
+                extClassInfo = entry.exactElement;
+                lastLoader = classLoader;
                 stack.pop();
                 clazz = stack.isEmpty() ? null : stack.peek();
             } else {
-                final CacheEntry cacheEntry = map.get(className);
-                if (cacheEntry != null) {
-                    final CacheEntry entry = cacheEntry;
-                    extClassInfo = entry.element;
-                    if (entry.loader != null) {
-                        lastLoader = entry.loader;
-                    }
-                } else {
-                    final CacheEntry entry = this.toCacheEntry(stackTraceElement,
-                            this.loadClass(lastLoader, className), false);
-                    extClassInfo = entry.element;
-                    map.put(stackTraceElement.toString(), entry);
-                    if (entry.loader != null) {
-                        lastLoader = entry.loader;
+                CacheEntry entry = map.get(className);
+                if (entry == null) {
+                    // classes that are not found by lastLoader are looked up through the thread context ClassLoader
+                    final ClassLoader cacheKey = lastLoader != null ? lastLoader : Loader.getThreadContextClassLoader();
+                    entry = CLASS_INFO_CACHE.get(cacheKey, className);
+                    if (entry == null) {
+                        entry = this.toCacheEntry(this.loadClass(lastLoader, className));
+                        CLASS_INFO_CACHE.put(cacheKey, className, entry);
                     }
+                    map.put(className, entry);
+                }
+                extClassInfo = entry.element;
+                final ClassLoader entryLoader = entry.getLoader();
+                if (entryLoader != null) {
+                    lastLoader = entryLoader;
                 }
             }
             extStackTrace[i] = new ExtendedStackTraceElement(stackTraceElement, extClassInfo);
@@ -628,13 +705,19 @@ public class ThrowableProxy implements Serializable {
         return extStackTrace;
     }
 
+    private void writeObject(final ObjectOutputStream out) throws IOException {
+        this.getExtendedStackTrace(); // the Throwable is not serialized, resolve a lazy extended stack trace now
+        out.defaultWriteObject();
+    }
+
     @Override
     public String toString() {
         final String msg = this.message;
         return msg != null ? this.name + ": " + msg : this.name;
     }
 
-    private ThrowableProxy[] toSuppressedProxies(final Throwable thrown, Set<Throwable> suppressedVisited) {
+    private ThrowableProxy[] toSuppressedProxies(final Throwable thrown, Set<Throwable> suppressedVisited,
+            final boolean lazy) {
         try {
             final Throwable[] suppressed = thrown.getSuppressed();
             if (suppressed == null) {
@@ -648,7 +731,7 @@ public class ThrowableProxy implements Serializable {
                 final Throwable candidate = suppressed[i];
                 if (!suppressedVisited.contains(candidate)) {
                     suppressedVisited.add(candidate);
-                    proxies.add(new ThrowableProxy(candidate, suppressedVisited));
+                    proxies.add(new ThrowableProxy(candidate, suppressedVisited, lazy));
                 }
             }
             return proxies.toArray(new ThrowableProxy[proxies.size()]);
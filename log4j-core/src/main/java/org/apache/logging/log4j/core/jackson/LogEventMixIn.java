@@ -110,6 +110,13 @@ abstract class LogEventMixIn implements LogEvent {
     @Override
     public abstract long getTimeMillis();
 
+    // PreciseTimestamp properties of Log4jLogEvent and RingBufferLogEvent
+    @JsonIgnore
+    public abstract long getEpochSecond();
+
+    @JsonIgnore
+    public abstract int getNanoOfSecond();
+
     @JsonProperty()
     @JacksonXmlProperty(isAttribute = true)
     @Override
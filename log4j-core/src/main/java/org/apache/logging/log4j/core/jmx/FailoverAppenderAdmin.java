@@ -0,0 +1,140 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache license, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the license for the specific language governing permissions and
+ * limitations under the license.
+ */
+package org.apache.logging.log4j.core.jmx;
+
+import java.util.Objects;
+
+import javax.management.ObjectName;
+
+import org.apache.logging.log4j.core.appender.FailoverAppender;
+
+/**
+ * Implementation of the {@code FailoverAppenderAdminMBean} interface.
+ *
+ * @since 2.6
+ */
+public class FailoverAppenderAdmin implements FailoverAppenderAdminMBean {
+
+    private final String contextName;
+    private final FailoverAppender failoverAppender;
+    private final ObjectName objectName;
+
+    /**
+     * Constructs a new {@code FailoverAppenderAdmin} with the specified contextName
+     * and failover appender.
+     *
+     * @param contextName used in the {@code ObjectName} for this mbean
+     * @param appender the instrumented object
+     */
+    public FailoverAppenderAdmin(final String contextName, final FailoverAppender appender) {
+        this.contextName = Objects.requireNonNull(contextName, "contextName");
+        this.failoverAppender = Objects.requireNonNull(appender, "failover appender");
+        try {
+            final String ctxName = Server.escape(this.contextName);
+            final String configName = Server.escape(appender.getName());
+            final String name = String.format(PATTERN, ctxName, configName);
+            objectName = new ObjectName(name);
+        } catch (final Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Returns the {@code ObjectName} of this mbean.
+     *
+     * @return the {@code ObjectName}
+     * @see FailoverAppenderAdminMBean#PATTERN
+     */
+    public ObjectName getObjectName() {
+        return objectName;
+    }
+
+    @Override
+    public String getName() {
+        return failoverAppender.getName();
+    }
+
+    @Override
+    public boolean isIgnoreExceptions() {
+        return failoverAppender.ignoreExceptions();
+    }
+
+    @Override
+    public String getErrorHandler() {
+        return String.valueOf(failoverAppender.getHandler());
+    }
+
+    @Override
+    public String getFilter() {
+        return String.valueOf(failoverAppender.getFilter());
+    }
+
+    @Override
+    public String getPrimaryRef() {
+        return failoverAppender.getPrimaryRef();
+    }
+
+    @Override
+    public String[] getFailoverRefs() {
+        return failoverAppender.getFailoverRefs();
+    }
+
+    @Override
+    public long getRetryIntervalMillis() {
+        return failoverAppender.getRetryIntervalMillis();
+    }
+
+    @Override
+    public boolean isCircuitBreaker() {
+        return failoverAppender.isCircuitBreaker();
+    }
+
+    @Override
+    public int getFailureThreshold() {
+        return failoverAppender.getFailureThreshold();
+    }
+
+    @Override
+    public long getSlowCallMillis() {
+        return failoverAppender.getSlowCallMillis();
+    }
+
+    @Override
+    public boolean isCircuitOpen() {
+        return failoverAppender.isCircuitOpen();
+    }
+
+    @Override
+    public int getConsecutiveFailures() {
+        return failoverAppender.getConsecutiveFailures();
+    }
+
+    @Override
+    public long getCircuitOpenCount() {
+        return failoverAppender.getCircuitOpenCount();
+    }
+
+    @Override
+    public long getFailoverCount() {
+        return failoverAppender.getFailoverCount();
+    }
+
+    @Override
+    public long getPrimaryLatencyNanos() {
+        return failoverAppender.getPrimaryLatencyNanos();
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache license, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the license for the specific language governing permissions and
+ * limitations under the license.
+ */
+package org.apache.logging.log4j.core.jmx;
+
+/**
+ * The MBean interface for monitoring a {@code FailoverAppender} and the state of its circuit breaker.
+ *
+ * @since 2.6
+ */
+public interface FailoverAppenderAdminMBean {
+    /**
+     * ObjectName pattern ({@value} ) for FailoverAppenderAdmin MBeans. This
+     * pattern contains two variables, where the first is the name of the
+     * context, the second is the name of the instrumented appender.
+     * <p>
+     * You can find all registered FailoverAppenderAdmin MBeans like this:
+     * </p>
+     *
+     * <pre>
+     * MBeanServer mbs = ManagementFactory.getPlatformMBeanServer();
+     * String pattern = String.format(FailoverAppenderAdminMBean.PATTERN, &quot;*&quot;, &quot;*&quot;);
+     * Set&lt;ObjectName&gt; appenderNames = mbs.queryNames(new ObjectName(pattern), null);
+     * </pre>
+     * <p>
+     * Some characters are not allowed in ObjectNames. The logger context name
+     * and appender name may be quoted. When FailoverAppenderAdmin MBeans are
+     * registered, their ObjectNames are created using this pattern as follows:
+     * </p>
+     *
+     * <pre>
+     * String ctxName = Server.escape(loggerContext.getName());
+     * String appenderName = Server.escape(appender.getName());
+     * String name = String.format(PATTERN, ctxName, appenderName);
+     * ObjectName objectName = new ObjectName(name);
+     * </pre>
+     *
+     * @see Server#escape(String)
+     */
+    String PATTERN = Server.DOMAIN + ":type=%s,component=FailoverAppenders,name=%s";
+
+    /**
+     * Returns the name of the instrumented {@code FailoverAppender}.
+     *
+     * @return the name of the FailoverAppender
+     */
+    String getName();
+
+    /**
+     * Returns how exceptions thrown on the instrumented {@code FailoverAppender}
+     * are handled.
+     *
+     * @return {@code true} if any exceptions thrown by the FailoverAppender will
+     *         be logged or {@code false} if such exceptions are re-thrown.
+     */
+    boolean isIgnoreExceptions();
+
+    /**
+     * Returns the result of calling {@code toString} on the error handler of
+     * this appender, or {@code "null"} if no error handler was set.
+     *
+     * @return result of calling {@code toString} on the error handler of this
+     *         appender, or {@code "null"}
+     */
+    String getErrorHandler();
+
+    /**
+     * Returns a string description of all filters configured for the
+     * instrumented {@code FailoverAppender}.
+     *
+     * @return a string description of all configured filters for this appender
+     */
+    String getFilter();
+
+    /**
+     * Returns the name of the primary appender.
+     *
+     * @return the name of the primary appender
+     */
+    String getPrimaryRef();
+
+    /**
+     * Returns the names of the appenders that events are routed to when the
+     * primary appender fails.
+     *
+     * @return the names of the failover appenders
+     */
+    String[] getFailoverRefs();
+
+    /**
+     * Returns the number of milliseconds before the primary appender is tried
+     * again after a failure.
+     *
+     * @return the retry interval in milliseconds
+     */
+    long getRetryIntervalMillis();
+
+    /**
+     * Returns {@code true} if the instrumented {@code FailoverAppender} runs
+     * in circuit breaker mode.
+     *
+     * @return whether the appender uses a circuit breaker
+     */
+    boolean isCircuitBreaker();
+
+    /**
+     * Returns the number of consecutive failures that open the circuit.
+     *
+     * @return the failure threshold
+     */
+    int getFailureThreshold();
+
+    /**
+     * Returns the number of milliseconds after which a call to the primary
+     * appender counts as a failure, or zero if latency is ignored.
+     *
+     * @return the slow call threshold in milliseconds
+     */
+    long getSlowCallMillis();
+
+    /**
+     * Returns {@code true} if events are currently routed to the failover
+     * appenders without trying the primary appender.
+     *
+     * @return whether the circuit is open
+     */
+    boolean isCircuitOpen();
+
+    /**
+     * Returns the number of consecutive failures of the primary appender.
+     *
+     * @return the number of consecutive failures
+     */
+    int getConsecutiveFailures();
+
+    /**
+     * Returns how many times the circuit was opened.
+     *
+     * @return the number of times the circuit was opened
+     */
+    long getCircuitOpenCount();
+
+    /**
+     * Returns the number of events that were routed to the failover appenders.
+     *
+     * @return the number of failed over events
+     */
+    long getFailoverCount();
+
+    /**
+     * Returns the duration in nanoseconds of the last successful call to the
+     * primary appender measured by the circuit breaker.
+     *
+     * @return the latency of the primary appender in nanoseconds
+     */
+    long getPrimaryLatencyNanos();
+}
@@ -16,15 +16,21 @@
  */
 package org.apache.logging.log4j.core.layout;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.OutputStream;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.math.BigDecimal;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
 import java.util.zip.DeflaterOutputStream;
 import java.util.zip.GZIPOutputStream;
 
@@ -41,14 +47,20 @@ import org.apache.logging.log4j.core.util.KeyValuePair;
 import org.apache.logging.log4j.status.StatusLogger;
 import org.apache.logging.log4j.util.Strings;
 
-import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
 
 /**
  * Lays out events in the Graylog Extended Log Format (GELF) 1.1.
  * <p>
  * This layout compresses JSON to GZIP or ZLIB (the {@code compressionType}) if
  * log event data is larger than 1024 bytes (the {@code compressionThreshold}).
- * This layout does not implement chunking.
+ * Each thread reuses its own buffers. {@link Deflater}s are only created for GZIP and ZLIB and are shared through a
+ * small pool owned by the layout; a Deflater that does not fit in the pool is ended right away.
+ * </p>
+ * <p>
+ * When sent with a UDP {@code Socket} appender, messages larger than the {@code chunkSize} are split into GELF
+ * chunks of at most {@code chunkSize} bytes, each sent as its own datagram. Chunking is disabled by default.
  * </p>
  * <p>
  * Configure as follows to send to a Graylog2 server:
@@ -96,28 +108,62 @@ public final class GelfLayout extends AbstractStringLayout {
         public abstract DeflaterOutputStream createDeflaterOutputStream(OutputStream os) throws IOException;
     }
 
-    private static final char C = ',';
+    /**
+     * The length of the header of a GELF chunk: magic bytes, message ID, sequence number and sequence count.
+     */
+    public static final int CHUNK_HEADER_LENGTH = 12;
+
+    /**
+     * The maximum number of chunks of a GELF message.
+     */
+    public static final int MAX_CHUNKS = 128;
+
     private static final int COMPRESSION_THRESHOLD = 1024;
-    private static final char Q = '\"';
-    private static final String QC = "\",";
-    private static final String QU = "\"_";
+    private static final int GZIP_MAGIC = 0x8b1f;
+    private static final int GZIP_HEADER_LENGTH = 10;
+    private static final int GZIP_TRAILER_LENGTH = 8;
     private static final long serialVersionUID = 1L;
     private static final BigDecimal TIME_DIVISOR = new BigDecimal(1000);
+    private static final int MAX_POOLED_DEFLATERS = Runtime.getRuntime().availableProcessors();
 
     private final KeyValuePair[] additionalFields;
     private final int compressionThreshold;
     private final CompressionType compressionType;
     private final String host;
+    private final int chunkSize;
+    private final StreamingJsonSerializer eventSerializer;
+    private transient ThreadLocal<Compressor> compressors = new ThreadLocal<>();
+    private transient Queue<Deflater> deflaters = new ArrayBlockingQueue<>(MAX_POOLED_DEFLATERS);
 
     public GelfLayout(final String host, final KeyValuePair[] additionalFields, final CompressionType compressionType,
             final int compressionThreshold) {
+        this(host, additionalFields, compressionType, compressionThreshold, 0);
+    }
+
+    /**
+     * @param host The value of the GELF host field.
+     * @param additionalFields Additional fields added to each message.
+     * @param compressionType The compression of messages larger than the compressionThreshold.
+     * @param compressionThreshold The size in bytes above which messages are compressed.
+     * @param chunkSize The maximum size in bytes of a UDP datagram carrying a GELF chunk, 0 disables chunking.
+     */
+    public GelfLayout(final String host, final KeyValuePair[] additionalFields, final CompressionType compressionType,
+            final int compressionThreshold, final int chunkSize) {
         super(StandardCharsets.UTF_8);
         this.host = host;
         this.additionalFields = additionalFields;
         this.compressionType = compressionType;
         this.compressionThreshold = compressionThreshold;
+        if (chunkSize > 0 && chunkSize <= CHUNK_HEADER_LENGTH) {
+            StatusLogger.getLogger().error("GelfLayout chunkSize {} must be larger than {}, chunking is disabled",
+                    chunkSize, CHUNK_HEADER_LENGTH);
+            this.chunkSize = 0;
+        } else {
+            this.chunkSize = Math.max(chunkSize, 0);
+        }
+        this.eventSerializer = new EventSerializer(host, additionalFields);
     }
-    
+
     @PluginFactory
     public static GelfLayout createLayout(
             //@formatter:off
@@ -126,8 +172,14 @@ public final class GelfLayout extends AbstractStringLayout {
             @PluginAttribute(value = "compressionType",
                 defaultString = "GZIP") final CompressionType compressionType,
             @PluginAttribute(value = "compressionThreshold",
-                defaultInt= COMPRESSION_THRESHOLD) final int compressionThreshold) {
+                defaultInt= COMPRESSION_THRESHOLD) final int compressionThreshold,
+            @PluginAttribute(value = "chunkSize", defaultInt = 0) final int chunkSize) {
             // @formatter:on
+        return new GelfLayout(host, additionalFields, compressionType, compressionThreshold, chunkSize);
+    }
+
+    public static GelfLayout createLayout(final String host, final KeyValuePair[] additionalFields,
+            final CompressionType compressionType, final int compressionThreshold) {
         return new GelfLayout(host, additionalFields, compressionType, compressionThreshold);
     }
 
@@ -152,19 +204,85 @@ public final class GelfLayout extends AbstractStringLayout {
     }
 
     private byte[] compress(final byte[] bytes) {
+        if (compressionType == CompressionType.OFF) {
+            return bytes;
+        }
+        Deflater deflater = deflaters.poll();
+        if (deflater == null) {
+            // GZIP uses raw deflate data framed by its own header and trailer, like GZIPOutputStream
+            deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, compressionType == CompressionType.GZIP);
+        }
         try {
-            final ByteArrayOutputStream baos = new ByteArrayOutputStream(compressionThreshold / 8);
-            try (final DeflaterOutputStream stream = compressionType.createDeflaterOutputStream(baos)) {
-                if (stream == null) {
-                    return bytes;
-                }
-                stream.write(bytes);
-                stream.finish();
+            return getCompressor().compress(bytes, deflater);
+        } finally {
+            if (!deflaters.offer(deflater)) {
+                deflater.end();
             }
-            return baos.toByteArray();
-        } catch (final IOException e) {
-            StatusLogger.getLogger().error(e);
-            return bytes;
+        }
+    }
+
+    private Compressor getCompressor() {
+        Compressor compressor = compressors.get();
+        if (compressor == null) {
+            compressor = new Compressor(compressionType, compressionThreshold, chunkSize);
+            compressors.set(compressor);
+        }
+        return compressor;
+    }
+
+    /**
+     * Returns the maximum size of a datagram carrying a chunk of a GELF message, including the chunk header.
+     *
+     * @return The chunk size in bytes or 0 if chunking is disabled.
+     */
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * Indicates whether a message of the specified length is sent as chunks.
+     *
+     * @param length The length of the message in bytes.
+     * @return true if chunking is enabled and the message does not fit in a single datagram.
+     */
+    public boolean isChunked(final int length) {
+        return chunkSize > 0 && length > chunkSize;
+    }
+
+    /**
+     * Writes a message as GELF chunks to the specified stream, flushing the stream after each chunk so that a
+     * datagram stream sends every chunk as a separate datagram.
+     *
+     * @param message The bytes of the message, as returned by {@link #toByteArray(LogEvent)}.
+     * @param offset The offset of the message.
+     * @param length The length of the message.
+     * @param out The stream to write to.
+     * @throws IOException if the message needs more than {@value #MAX_CHUNKS} chunks or the stream fails.
+     */
+    public void writeChunks(final byte[] message, final int offset, final int length, final OutputStream out)
+            throws IOException {
+        final int payloadLength = chunkSize - CHUNK_HEADER_LENGTH;
+        final int count = (length + payloadLength - 1) / payloadLength;
+        if (count > MAX_CHUNKS) {
+            throw new IOException("GELF message of " + length + " bytes needs " + count + " chunks of " + chunkSize
+                    + " bytes, at most " + MAX_CHUNKS + " are allowed");
+        }
+        final byte[] chunk = getCompressor().chunk;
+        chunk[0] = 0x1e;
+        chunk[1] = 0x0f;
+        long messageId = ThreadLocalRandom.current().nextLong();
+        for (int i = 9; i >= 2; i--) {
+            chunk[i] = (byte) messageId;
+            messageId >>>= 8;
+        }
+        chunk[11] = (byte) count;
+        for (int i = 0; i < count; i++) {
+            final int start = i * payloadLength;
+            final int chunkLength = Math.min(payloadLength, length - start);
+            chunk[10] = (byte) i;
+            System.arraycopy(message, offset + start, chunk, CHUNK_HEADER_LENGTH, chunkLength);
+            out.write(chunk, 0, CHUNK_HEADER_LENGTH + chunkLength);
+            out.flush();
         }
     }
 
@@ -180,46 +298,144 @@ public final class GelfLayout extends AbstractStringLayout {
 
     @Override
     public byte[] toByteArray(final LogEvent event) {
-        final byte[] bytes = getBytes(toSerializable(event));
+        final byte[] bytes;
+        try {
+            bytes = eventSerializer.toUtf8Bytes(event, null, null);
+        } catch (final IOException e) {
+            StatusLogger.getLogger().error(e);
+            return getBytes(Strings.EMPTY);
+        }
         return bytes.length > compressionThreshold ? compress(bytes) : bytes;
     }
 
     @Override
     public String toSerializable(final LogEvent event) {
-        final StringBuilder builder = getStringBuilder();
-        final JsonStringEncoder jsonEncoder = JsonStringEncoder.getInstance();
-        builder.append('{');
-        builder.append("\"version\":\"1.1\",");
-        builder.append("\"host\":\"").append(jsonEncoder.quoteAsString(toNullSafeString(host))).append(QC);
-        builder.append("\"timestamp\":").append(formatTimestamp(event.getTimeMillis())).append(C);
-        builder.append("\"level\":").append(formatLevel(event.getLevel())).append(C);
-        if (event.getThreadName() != null) {
-            builder.append("\"_thread\":\"").append(jsonEncoder.quoteAsString(event.getThreadName())).append(QC);
+        try {
+            return eventSerializer.toSerializable(event, null, null);
+        } catch (final IOException e) {
+            StatusLogger.getLogger().error(e);
+            return Strings.EMPTY;
         }
-        if (event.getLoggerName() != null) {
-            builder.append("\"_logger\":\"").append(jsonEncoder.quoteAsString(event.getLoggerName())).append(QC);
+    }
+
+    private void readObject(final ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        compressors = new ThreadLocal<>();
+        deflaters = new ArrayBlockingQueue<>(MAX_POOLED_DEFLATERS);
+    }
+
+    private static String toNullSafeString(final String s) {
+        return s == null ? Strings.EMPTY : s;
+    }
+
+    /**
+     * Writes the GELF fields of an event with a reusable JSON generator.
+     */
+    private static final class EventSerializer extends StreamingJsonSerializer {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String host;
+        private final String[] additionalFieldNames;
+        private final String[] additionalFieldValues;
+
+        EventSerializer(final String host, final KeyValuePair[] additionalFields) {
+            super(new JsonFactory(), true);
+            this.host = toNullSafeString(host);
+            final int count = additionalFields == null ? 0 : additionalFields.length;
+            this.additionalFieldNames = new String[count];
+            this.additionalFieldValues = new String[count];
+            for (int i = 0; i < count; i++) {
+                additionalFieldNames[i] = "_" + additionalFields[i].getKey();
+                additionalFieldValues[i] = toNullSafeString(additionalFields[i].getValue());
+            }
         }
 
-        for (final KeyValuePair additionalField : additionalFields) {
-            builder.append(QU).append(jsonEncoder.quoteAsString(additionalField.getKey())).append("\":\"")
-                    .append(jsonEncoder.quoteAsString(toNullSafeString(additionalField.getValue()))).append(QC);
+        @Override
+        protected void writeEvent(final JsonGenerator generator, final LogEvent event) throws IOException {
+            generator.writeStartObject();
+            generator.writeStringField("version", "1.1");
+            generator.writeStringField("host", host);
+            generator.writeFieldName("timestamp");
+            generator.writeNumber(formatTimestamp(event.getTimeMillis()));
+            generator.writeNumberField("level", formatLevel(event.getLevel()));
+            if (event.getThreadName() != null) {
+                generator.writeStringField("_thread", event.getThreadName());
+            }
+            if (event.getLoggerName() != null) {
+                generator.writeStringField("_logger", event.getLoggerName());
+            }
+            for (int i = 0; i < additionalFieldNames.length; i++) {
+                generator.writeStringField(additionalFieldNames[i], additionalFieldValues[i]);
+            }
+            for (final Map.Entry<String, String> entry : event.getContextMap().entrySet()) {
+                generator.writeStringField("_" + entry.getKey(), toNullSafeString(entry.getValue()));
+            }
+            if (event.getThrown() != null) {
+                generator.writeStringField("full_message", formatThrowable(event.getThrown()));
+            }
+            generator.writeStringField("short_message", toNullSafeString(event.getMessage().getFormattedMessage()));
+            generator.writeEndObject();
         }
-        for (final Map.Entry<String, String> entry : event.getContextMap().entrySet()) {
-            builder.append(QU).append(jsonEncoder.quoteAsString(entry.getKey())).append("\":\"")
-                    .append(jsonEncoder.quoteAsString(toNullSafeString(entry.getValue()))).append(QC);
+    }
+
+    /**
+     * The buffers of one thread.
+     */
+    private static final class Compressor {
+
+        private final CRC32 crc;
+        private final byte[] chunk;
+        private byte[] buffer;
+
+        Compressor(final CompressionType compressionType, final int initialCapacity, final int chunkSize) {
+            this.crc = compressionType == CompressionType.GZIP ? new CRC32() : null;
+            this.chunk = chunkSize > 0 ? new byte[chunkSize] : null;
+            this.buffer = compressionType == CompressionType.OFF ? null : new byte[Math.max(initialCapacity, 512)];
         }
-        if (event.getThrown() != null) {
-            builder.append("\"full_message\":\"").append(jsonEncoder.quoteAsString(formatThrowable(event.getThrown())))
-                    .append(QC);
+
+        byte[] compress(final byte[] bytes, final Deflater deflater) {
+            final boolean gzip = crc != null;
+            int length = 0;
+            if (gzip) {
+                ensureCapacity(GZIP_HEADER_LENGTH);
+                Arrays.fill(buffer, 0, GZIP_HEADER_LENGTH, (byte) 0);
+                buffer[0] = (byte) GZIP_MAGIC;
+                buffer[1] = (byte) (GZIP_MAGIC >> 8);
+                buffer[2] = Deflater.DEFLATED;
+                length = GZIP_HEADER_LENGTH;
+            }
+            deflater.reset();
+            deflater.setInput(bytes);
+            deflater.finish();
+            while (!deflater.finished()) {
+                if (length == buffer.length) {
+                    ensureCapacity(buffer.length * 2);
+                }
+                length += deflater.deflate(buffer, length, buffer.length - length);
+            }
+            if (gzip) {
+                crc.reset();
+                crc.update(bytes);
+                ensureCapacity(length + GZIP_TRAILER_LENGTH);
+                length = writeIntLE((int) crc.getValue(), length);
+                length = writeIntLE(bytes.length, length);
+            }
+            return Arrays.copyOf(buffer, length);
         }
 
-        builder.append("\"short_message\":\"").append(jsonEncoder.quoteAsString(toNullSafeString(event.getMessage().getFormattedMessage())))
-                .append(Q);
-        builder.append('}');
-        return builder.toString();
-    }
+        private int writeIntLE(final int value, final int offset) {
+            buffer[offset] = (byte) value;
+            buffer[offset + 1] = (byte) (value >> 8);
+            buffer[offset + 2] = (byte) (value >> 16);
+            buffer[offset + 3] = (byte) (value >> 24);
+            return offset + 4;
+        }
 
-    private String toNullSafeString(final String s) {
-        return s == null ? Strings.EMPTY : s;
+        private void ensureCapacity(final int capacity) {
+            if (buffer.length < capacity) {
+                buffer = Arrays.copyOf(buffer, capacity);
+            }
+        }
     }
 }
@@ -23,6 +23,8 @@ import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.Map;
 
+import org.apache.logging.log4j.Marker;
+import org.apache.logging.log4j.ThreadContext.ContextStack;
 import org.apache.logging.log4j.core.Layout;
 import org.apache.logging.log4j.core.LogEvent;
 import org.apache.logging.log4j.core.config.Configuration;
@@ -32,6 +34,14 @@ import org.apache.logging.log4j.core.config.plugins.Plugin;
 import org.apache.logging.log4j.core.config.plugins.PluginAttribute;
 import org.apache.logging.log4j.core.config.plugins.PluginConfiguration;
 import org.apache.logging.log4j.core.config.plugins.PluginFactory;
+import org.apache.logging.log4j.core.impl.ThrowableProxy;
+import org.apache.logging.log4j.core.jackson.JsonConstants;
+import org.apache.logging.log4j.core.jackson.Log4jJsonObjectMapper;
+import org.apache.logging.log4j.message.Message;
+import org.apache.logging.log4j.util.Strings;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 /**
  * Appends a series of JSON events as strings serialized as bytes.
@@ -809,6 +819,8 @@ public final class JsonLayout extends AbstractJacksonLayout {
 
     private static final long serialVersionUID = 1L;
 
+    private final StreamingJsonSerializer eventSerializer;
+
     protected JsonLayout(final Configuration config, final boolean locationInfo, final boolean properties,
             final boolean complete, final boolean compact, final boolean eventEol, final String headerPattern,
             final String footerPattern, final Charset charset) {
@@ -816,6 +828,7 @@ public final class JsonLayout extends AbstractJacksonLayout {
                 complete, eventEol,
                 PatternLayout.createSerializer(config, null, headerPattern, DEFAULT_HEADER, null, false, false),
                 PatternLayout.createSerializer(config, null, footerPattern, DEFAULT_FOOTER, null, false, false));
+        this.eventSerializer = new EventSerializer(new Log4jJsonObjectMapper(), locationInfo, properties, compact);
     }
 
     /**
@@ -929,4 +942,148 @@ public final class JsonLayout extends AbstractJacksonLayout {
         }
         super.toSerializable(event, writer);
     }
+
+    /**
+     * Formats a {@link org.apache.logging.log4j.core.LogEvent} with a reusable JSON generator.
+     *
+     * @param event The LogEvent.
+     * @return The JSON representation of the LogEvent.
+     */
+    @Override
+    public String toSerializable(final LogEvent event) {
+        try {
+            final String result = eventSerializer.toSerializable(event, getEventSeparator(), eol);
+            markEvent();
+            return result;
+        } catch (final IOException e) {
+            LOGGER.error(e);
+            return Strings.EMPTY;
+        }
+    }
+
+    /**
+     * Formats a {@link org.apache.logging.log4j.core.LogEvent} as bytes. UTF-8 output is encoded by the JSON generator
+     * without creating an intermediate String.
+     *
+     * @param event The LogEvent.
+     * @return The JSON representation of the LogEvent as a byte array.
+     */
+    @Override
+    public byte[] toByteArray(final LogEvent event) {
+        if (!StandardCharsets.UTF_8.equals(getCharset())) {
+            return super.toByteArray(event);
+        }
+        try {
+            final byte[] result = eventSerializer.toUtf8Bytes(event, getEventSeparator(), eol);
+            markEvent();
+            return result;
+        } catch (final IOException e) {
+            LOGGER.error(e);
+            return getBytes(Strings.EMPTY);
+        }
+    }
+
+    private String getEventSeparator() {
+        return complete && eventCount > 0 ? ", " : null;
+    }
+
+    /**
+     * Writes the same JSON as the {@link #objectWriter} configured for this layout, field by field.
+     */
+    private static final class EventSerializer extends StreamingJsonSerializer {
+
+        private static final long serialVersionUID = 1L;
+
+        /** Serializes the ThrowableProxy, which is rare enough to not need a hand written serializer. */
+        private final ObjectMapper objectMapper;
+        private final boolean locationInfo;
+        private final boolean properties;
+
+        EventSerializer(final ObjectMapper objectMapper, final boolean locationInfo, final boolean properties,
+                final boolean compact) {
+            super(objectMapper.getFactory(), compact);
+            this.objectMapper = objectMapper;
+            this.locationInfo = locationInfo;
+            this.properties = properties;
+        }
+
+        // Properties follow the order of the Jackson serialization of LogEventMixIn, null and empty values are
+        // omitted like the NON_EMPTY inclusion of Log4jJsonObjectMapper does.
+        @Override
+        protected void writeEvent(final JsonGenerator generator, final LogEvent event) throws IOException {
+            generator.writeStartObject();
+            generator.writeNumberField("timeMillis", event.getTimeMillis());
+            writeNonEmpty(generator, "thread", event.getThreadName());
+            if (event.getLevel() != null) {
+                generator.writeStringField("level", event.getLevel().name());
+            }
+            writeNonEmpty(generator, "loggerName", event.getLoggerName());
+            if (event.getMarker() != null) {
+                generator.writeFieldName(JsonConstants.ELT_MARKER);
+                writeMarker(generator, event.getMarker());
+            }
+            final Message message = event.getMessage();
+            if (message != null) {
+                generator.writeStringField(JsonConstants.ELT_MESSAGE, message.getFormattedMessage());
+            }
+            final ThrowableProxy thrownProxy = event.getThrownProxy();
+            if (thrownProxy != null) {
+                generator.writeFieldName(JsonConstants.ELT_THROWN);
+                objectMapper.writeValue(generator, thrownProxy);
+            }
+            final ContextStack contextStack = event.getContextStack();
+            if (contextStack != null && !contextStack.isEmpty()) {
+                generator.writeArrayFieldStart(JsonConstants.ELT_CONTEXT_STACK);
+                for (final String item : contextStack) {
+                    generator.writeString(item);
+                }
+                generator.writeEndArray();
+            }
+            generator.writeBooleanField("endOfBatch", event.isEndOfBatch());
+            writeNonEmpty(generator, "loggerFqcn", event.getLoggerFqcn());
+            if (properties && event.getContextMap() != null) {
+                generator.writeArrayFieldStart(JsonConstants.ELT_CONTEXT_MAP);
+                for (final Map.Entry<String, String> entry : event.getContextMap().entrySet()) {
+                    generator.writeStartObject();
+                    writeNonEmpty(generator, "key", entry.getKey());
+                    writeNonEmpty(generator, "value", entry.getValue());
+                    generator.writeEndObject();
+                }
+                generator.writeEndArray();
+            }
+            if (locationInfo) {
+                final StackTraceElement source = event.getSource();
+                if (source != null) {
+                    generator.writeObjectFieldStart(JsonConstants.ELT_SOURCE);
+                    writeNonEmpty(generator, "class", source.getClassName());
+                    writeNonEmpty(generator, "method", source.getMethodName());
+                    writeNonEmpty(generator, "file", source.getFileName());
+                    generator.writeNumberField("line", source.getLineNumber());
+                    generator.writeEndObject();
+                }
+            }
+            generator.writeEndObject();
+        }
+
+        private static void writeMarker(final JsonGenerator generator, final Marker marker) throws IOException {
+            generator.writeStartObject();
+            writeNonEmpty(generator, "name", marker.getName());
+            final Marker[] parents = marker.getParents();
+            if (parents != null && parents.length > 0) {
+                generator.writeArrayFieldStart(JsonConstants.ELT_PARENTS);
+                for (final Marker parent : parents) {
+                    writeMarker(generator, parent);
+                }
+                generator.writeEndArray();
+            }
+            generator.writeEndObject();
+        }
+
+        private static void writeNonEmpty(final JsonGenerator generator, final String name, final String value)
+                throws IOException {
+            if (value != null && !value.isEmpty()) {
+                generator.writeStringField(name, value);
+            }
+        }
+    }
 }
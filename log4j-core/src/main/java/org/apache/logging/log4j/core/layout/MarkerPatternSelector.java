@@ -40,7 +40,11 @@ import java.util.Map;
 @Plugin(name = "MarkerPatternSelector", category = Node.CATEGORY, elementType = PatternSelector.ELEMENT_TYPE, printObject = true)
 public class MarkerPatternSelector implements PatternSelector {
 
-    private final Map<String, PatternFormatter[]> formatterMap = new HashMap<>();
+    /** The marker names to match, in the configured order. */
+    private final String[] markerNames;
+
+    /** The formatters for each marker name. */
+    private final PatternFormatter[][] markerFormatters;
 
     private final Map<String, String> patternMap = new HashMap<>();
 
@@ -55,10 +59,14 @@ public class MarkerPatternSelector implements PatternSelector {
                                  final boolean alwaysWriteExceptions, final boolean noConsoleNoAnsi,
                                  final Configuration config) {
         final PatternParser parser = PatternLayout.createPatternParser(config);
-        for (PatternMatch property : properties) {
+        markerNames = new String[properties.length];
+        markerFormatters = new PatternFormatter[properties.length][];
+        for (int i = 0; i < properties.length; i++) {
+            final PatternMatch property = properties[i];
             try {
                 List<PatternFormatter> list = parser.parse(property.getPattern(), alwaysWriteExceptions, noConsoleNoAnsi);
-                formatterMap.put(property.getKey(), list.toArray(new PatternFormatter[list.size()]));
+                markerNames[i] = property.getKey();
+                markerFormatters[i] = list.toArray(new PatternFormatter[list.size()]);
                 patternMap.put(property.getKey(), property.getPattern());
             } catch (RuntimeException ex) {
                 throw new IllegalArgumentException("Cannot parse pattern '" + property.getPattern() + "'", ex);
@@ -79,9 +87,10 @@ public class MarkerPatternSelector implements PatternSelector {
         if (marker == null) {
             return defaultFormatters;
         }
-        for (String key : formatterMap.keySet()) {
-            if (marker.isInstanceOf(key)) {
-                return formatterMap.get(key);
+        // Log4jMarkers test each name with a lookup and a bit test of their ancestors
+        for (int i = 0; i < markerNames.length; i++) {
+            if (marker.isInstanceOf(markerNames[i])) {
+                return markerFormatters[i];
             }
         }
         return defaultFormatters;
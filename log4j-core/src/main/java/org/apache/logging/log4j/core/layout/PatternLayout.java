@@ -34,6 +34,7 @@ import org.apache.logging.log4j.core.config.plugins.PluginBuilderFactory;
 import org.apache.logging.log4j.core.config.plugins.PluginConfiguration;
 import org.apache.logging.log4j.core.config.plugins.PluginElement;
 import org.apache.logging.log4j.core.config.plugins.PluginFactory;
+import org.apache.logging.log4j.core.pattern.CompiledPattern;
 import org.apache.logging.log4j.core.pattern.LogEventPatternConverter;
 import org.apache.logging.log4j.core.pattern.PatternFormatter;
 import org.apache.logging.log4j.core.pattern.PatternParser;
@@ -127,8 +128,7 @@ public final class PatternLayout extends AbstractStringLayout {
                 final PatternParser parser = createPatternParser(configuration);
                 final List<PatternFormatter> list = parser.parse(pattern == null ? defaultPattern : pattern,
                         alwaysWriteExceptions, noConsoleNoAnsi);
-                final PatternFormatter[] formatters = list.toArray(new PatternFormatter[0]);
-                return new PatternSerializer(formatters, replace);
+                return new PatternSerializer(CompiledPattern.compile(list), replace);
             } catch (final RuntimeException ex) {
                 throw new IllegalArgumentException("Cannot parse pattern '" + pattern + "'", ex);
             }
@@ -248,22 +248,19 @@ public final class PatternLayout extends AbstractStringLayout {
 
     private static class PatternSerializer implements Serializer {
 
-        private final PatternFormatter[] formatters;
+        private final CompiledPattern pattern;
         private final RegexReplacement replace;
 
-        private PatternSerializer(final PatternFormatter[] formatters, final RegexReplacement replace) {
+        private PatternSerializer(final CompiledPattern pattern, final RegexReplacement replace) {
             super();
-            this.formatters = formatters;
+            this.pattern = pattern;
             this.replace = replace;
         }
 
         @Override
         public String toSerializable(final LogEvent event) {
             final StringBuilder buf = getStringBuilder();
-            final int len = formatters.length;
-            for (int i = 0; i < len; i++) {
-                formatters[i].format(event, buf);
-            }
+            pattern.format(event, buf);
             String str = buf.toString();
             if (replace != null) {
                 str = replace.format(str);
@@ -275,8 +272,8 @@ public final class PatternLayout extends AbstractStringLayout {
         public String toString() {
             StringBuilder builder = new StringBuilder();
             builder.append(super.toString());
-            builder.append("[formatters=");
-            builder.append(Arrays.toString(formatters));
+            builder.append("[pattern=");
+            builder.append(pattern);
             builder.append(", replace=");
             builder.append(replace);
             builder.append("]");
@@ -286,9 +283,18 @@ public final class PatternLayout extends AbstractStringLayout {
 
     private static class PatternSelectorSerializer implements Serializer {
 
+        /**
+         * The most formatter arrays compiled per selector. Selectors return one of a fixed set of arrays, but a custom
+         * selector may create a new array for each event; those are formatted without compiling once this is reached.
+         */
+        private static final int MAX_COMPILED = 32;
+
         private final PatternSelector patternSelector;
         private final RegexReplacement replace;
 
+        /** The formatter arrays returned by the selector so far with their compiled patterns. */
+        private volatile CompiledSelection[] compiled = new CompiledSelection[0];
+
         private PatternSelectorSerializer(final PatternSelector patternSelector, final RegexReplacement replace) {
             super();
             this.patternSelector = patternSelector;
@@ -299,9 +305,14 @@ public final class PatternLayout extends AbstractStringLayout {
         public String toSerializable(final LogEvent event) {
             final StringBuilder buf = getStringBuilder();
             final PatternFormatter[] formatters = patternSelector.getFormatters(event);
-            final int len = formatters.length;
-            for (int i = 0; i < len; i++) {
-                formatters[i].format(event, buf);
+            final CompiledPattern pattern = getCompiledPattern(formatters);
+            if (pattern != null) {
+                pattern.format(event, buf);
+            } else {
+                final int len = formatters.length;
+                for (int i = 0; i < len; i++) {
+                    formatters[i].format(event, buf);
+                }
             }
             String str = buf.toString();
             if (replace != null) {
@@ -310,6 +321,32 @@ public final class PatternLayout extends AbstractStringLayout {
             return str;
         }
 
+        private CompiledPattern getCompiledPattern(final PatternFormatter[] formatters) {
+            final CompiledSelection[] current = compiled;
+            for (final CompiledSelection selection : current) {
+                if (selection.formatters == formatters) {
+                    return selection.pattern;
+                }
+            }
+            return current.length >= MAX_COMPILED ? null : compile(formatters);
+        }
+
+        private synchronized CompiledPattern compile(final PatternFormatter[] formatters) {
+            final CompiledSelection[] current = compiled;
+            for (final CompiledSelection selection : current) {
+                if (selection.formatters == formatters) {
+                    return selection.pattern;
+                }
+            }
+            if (current.length >= MAX_COMPILED) {
+                return null;
+            }
+            final CompiledSelection[] copy = Arrays.copyOf(current, current.length + 1);
+            copy[current.length] = new CompiledSelection(formatters, CompiledPattern.compile(formatters));
+            compiled = copy;
+            return copy[current.length].pattern;
+        }
+
         @Override
         public String toString() {
             StringBuilder builder = new StringBuilder();
@@ -323,6 +360,17 @@ public final class PatternLayout extends AbstractStringLayout {
         }
     }
 
+    private static final class CompiledSelection {
+
+        private final PatternFormatter[] formatters;
+        private final CompiledPattern pattern;
+
+        private CompiledSelection(final PatternFormatter[] formatters, final CompiledPattern pattern) {
+            this.formatters = formatters;
+            this.pattern = pattern;
+        }
+    }
+
     /**
      * Creates a PatternLayout using the default options. These options include using UTF-8, the default conversion
      * pattern, exceptions being written, and with ANSI escape codes.
@@ -16,9 +16,19 @@
  */
 package org.apache.logging.log4j.core.layout;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
 import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Calendar;
 import java.util.GregorianCalendar;
 import java.util.HashMap;
@@ -26,7 +36,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.SortedMap;
 import java.util.TreeMap;
-import java.util.regex.Matcher;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.regex.Pattern;
 
 import org.apache.logging.log4j.Level;
@@ -53,7 +64,6 @@ import org.apache.logging.log4j.core.util.Patterns;
 import org.apache.logging.log4j.message.Message;
 import org.apache.logging.log4j.message.StructuredDataId;
 import org.apache.logging.log4j.message.StructuredDataMessage;
-import org.apache.logging.log4j.util.StringBuilders;
 import org.apache.logging.log4j.util.Strings;
 
 /**
@@ -94,6 +104,10 @@ public final class Rfc5424Layout extends AbstractStringLayout {
     private static final int MILLIS_PER_MINUTE = 60000;
     private static final int MINUTES_PER_HOUR = 60;
     private static final String COMPONENT_KEY = "RFC5424-Converter";
+    /** The maximum number of message IDs whose header is cached. */
+    private static final int MAX_CACHED_HEADERS = 256;
+    /** Room for the octet count of RFC 5425 framing: up to 10 digits and a space. */
+    private static final int FRAME_LENGTH_RESERVE = 11;
 
     private final Facility facility;
     private final String defaultId;
@@ -122,6 +136,14 @@ public final class Rfc5424Layout extends AbstractStringLayout {
     private final List<PatternFormatter> exceptionFormatters;
     private final Map<String, FieldFormatter> fieldFormatters;
 
+    /** "&lt;PRI&gt;1 " for each level. */
+    private final ConcurrentMap<Level, EncodedText> priorities = new ConcurrentHashMap<>();
+    /** The fields between the timestamp and the structured data for each message ID. */
+    private final ConcurrentMap<String, EncodedText> headers = new ConcurrentHashMap<>();
+    /** True if pre-encoded parts can be concatenated, which holds for charsets without byte order marks. */
+    private final boolean encodeDirectly;
+    private transient ThreadLocal<Encoder> encoders = new ThreadLocal<>();
+
     private Rfc5424Layout(final Configuration config, final Facility facility, final String id, final int ein,
             final boolean includeMDC, final boolean includeNL, final String escapeNL, final String mdcId,
             final String mdcPrefix, final String eventPrefix, final String appName, final String messageId,
@@ -135,7 +157,7 @@ public final class Rfc5424Layout extends AbstractStringLayout {
         this.enterpriseNumber = ein;
         this.includeMdc = includeMDC;
         this.includeNewLine = includeNL;
-        this.escapeNewLine = escapeNL == null ? null : Matcher.quoteReplacement(escapeNL);
+        this.escapeNewLine = escapeNL;
         this.mdcId = mdcId;
         this.mdcSdId = new StructuredDataId(mdcId, enterpriseNumber, null, null);
         this.mdcPrefix = mdcPrefix;
@@ -191,6 +213,9 @@ public final class Rfc5424Layout extends AbstractStringLayout {
         final String name = config == null ? null : config.getName();
         configName = Strings.isNotEmpty(name) ? name : null;
         this.fieldFormatters = createFieldFormatters(loggerFields, config);
+        final Charset cs = getCharset();
+        this.encodeDirectly = StandardCharsets.UTF_8.equals(cs) || StandardCharsets.ISO_8859_1.equals(cs)
+                || StandardCharsets.US_ASCII.equals(cs);
     }
 
     private Map<String, FieldFormatter> createFieldFormatters(final LoggerFields[] loggerFields,
@@ -265,17 +290,9 @@ public final class Rfc5424Layout extends AbstractStringLayout {
     @Override
     public String toSerializable(final LogEvent event) {
         final StringBuilder buf = getStringBuilder();
-        appendPriority(buf, event.getLevel());
-        appendTimestamp(buf, event.getTimeMillis());
-        appendSpace(buf);
-        appendHostName(buf);
-        appendSpace(buf);
-        appendAppName(buf);
-        appendSpace(buf);
-        appendProcessId(buf);
-        appendSpace(buf);
-        appendMessageId(buf, event.getMessage());
-        appendSpace(buf);
+        buf.append(getPriority(event.getLevel()).text);
+        buf.append(computeTimeStampString(event.getTimeMillis()));
+        buf.append(getHeader(event.getMessage()).text);
         appendStructuredElements(buf, event);
         appendMessage(buf, event);
         if (useTlsMessageFormat) {
@@ -284,14 +301,66 @@ public final class Rfc5424Layout extends AbstractStringLayout {
         return buf.toString();
     }
 
-    private void appendPriority(final StringBuilder buffer, final Level logLevel) {
-        buffer.append('<');
-        buffer.append(Priority.getPriority(facility, logLevel));
-        buffer.append(">1 ");
+    /**
+     * Formats a {@link org.apache.logging.log4j.core.LogEvent} in conformance with the RFC 5424 Syslog specification
+     * as bytes. The priority and header fields are copied from cached pre-encoded bytes and the RFC 5425 octet count
+     * is written in front of the encoded record without copying it.
+     *
+     * @param event The LogEvent.
+     * @return The RFC 5424 record as a byte array.
+     */
+    @Override
+    public byte[] toByteArray(final LogEvent event) {
+        if (!encodeDirectly) {
+            return super.toByteArray(event);
+        }
+        final EncodedText priority = getPriority(event.getLevel());
+        final String timestamp = computeTimeStampString(event.getTimeMillis());
+        final EncodedText header = getHeader(event.getMessage());
+        final StringBuilder body = getStringBuilder();
+        appendStructuredElements(body, event);
+        appendMessage(body, event);
+        return getEncoder().encode(priority.bytes, timestamp, header.bytes, body, useTlsMessageFormat);
+    }
+
+    private EncodedText getPriority(final Level level) {
+        EncodedText priority = priorities.get(level);
+        if (priority == null) {
+            priority = new EncodedText("<" + Priority.getPriority(facility, level) + ">1 ", getCharset());
+            priorities.putIfAbsent(level, priority);
+        }
+        return priority;
+    }
+
+    private EncodedText getHeader(final Message message) {
+        final String msgId = getMessageId(message);
+        EncodedText header = headers.get(msgId);
+        if (header == null) {
+            final StringBuilder buf = new StringBuilder();
+            appendSpace(buf);
+            appendHostName(buf);
+            appendSpace(buf);
+            appendAppName(buf);
+            appendSpace(buf);
+            appendProcessId(buf);
+            appendSpace(buf);
+            buf.append(msgId);
+            appendSpace(buf);
+            header = new EncodedText(buf.toString(), getCharset());
+            if (headers.size() < MAX_CACHED_HEADERS) {
+                headers.putIfAbsent(msgId, header);
+            }
+        }
+        return header;
     }
 
-    private void appendTimestamp(final StringBuilder buffer, final long milliseconds) {
-        buffer.append(computeTimeStampString(milliseconds));
+    private Encoder getEncoder() {
+        Encoder encoder = encoders.get();
+        if (encoder == null) {
+            encoder = new Encoder(getCharset());
+            encoders.set(encoder);
+        }
+        return encoder;
     }
 
     private void appendSpace(final StringBuilder buffer) {
@@ -316,15 +385,15 @@ public final class Rfc5424Layout extends AbstractStringLayout {
         buffer.append(getProcId());
     }
 
-    private void appendMessageId(final StringBuilder buffer, final Message message) {
+    private String getMessageId(final Message message) {
         final boolean isStructured = message instanceof StructuredDataMessage;
         final String type = isStructured ? ((StructuredDataMessage) message).getType() : null;
         if (type != null) {
-            buffer.append(type);
+            return type;
         } else if (messageId != null) {
-            buffer.append(messageId);
+            return messageId;
         } else {
-            buffer.append('-');
+            return "-";
         }
     }
 
@@ -335,15 +404,17 @@ public final class Rfc5424Layout extends AbstractStringLayout {
                 .getFormattedMessage();
 
         if (text != null && text.length() > 0) {
-            buffer.append(' ').append(escapeNewlines(text, escapeNewLine));
+            buffer.append(' ');
+            appendEscapedNewlines(buffer, text);
         }
 
         if (exceptionFormatters != null && event.getThrown() != null) {
-            final StringBuilder exception = new StringBuilder(LF);
+            final int start = buffer.length();
+            buffer.append(LF);
             for (final PatternFormatter formatter : exceptionFormatters) {
-                formatter.format(event, exception);
+                formatter.format(event, buffer);
             }
-            buffer.append(escapeNewlines(exception.toString(), escapeNewLine));
+            escapeNewlines(buffer, start);
         }
         if (includeNewLine) {
             buffer.append(LF);
@@ -359,13 +430,28 @@ public final class Rfc5424Layout extends AbstractStringLayout {
             return;
         }
 
-        final Map<String, StructuredDataElement> sdElements = new HashMap<>();
         final Map<String, String> contextMap = event.getContextMap();
 
         if (mdcRequired != null) {
             checkRequired(contextMap);
         }
 
+        if (fieldFormatters == null && !(includeMdc && contextMap.size() > 0)) {
+            // at most one element, format it without collecting the elements first
+            if (isStructured) {
+                final StructuredDataMessage data = (StructuredDataMessage) message;
+                final String sdId = getId(data.getId());
+                // the include and exclude lists apply to an element with the MDC id, as in formatStructuredElement
+                appendElement(sdId, mdcPrefix, data.getData(), buffer,
+                        mdcSdId.toString().equals(sdId) ? listChecker : noopChecker);
+            } else {
+                buffer.append('-');
+            }
+            return;
+        }
+
+        final Map<String, StructuredDataElement> sdElements = new HashMap<>();
+
         if (fieldFormatters != null) {
             for (final Map.Entry<String, FieldFormatter> sdElement : fieldFormatters.entrySet()) {
                 final String sdId = sdElement.getKey();
@@ -412,11 +498,36 @@ public final class Rfc5424Layout extends AbstractStringLayout {
         }
     }
 
-    private String escapeNewlines(final String text, final String replacement) {
-        if (null == replacement) {
-            return text;
+    /**
+     * Appends the text, replacing newlines if a newline escape is configured.
+     */
+    private void appendEscapedNewlines(final StringBuilder buffer, final String text) {
+        if (escapeNewLine == null) {
+            buffer.append(text);
+            return;
+        }
+        final int start = buffer.length();
+        buffer.append(text);
+        escapeNewlines(buffer, start);
+    }
+
+    /**
+     * Replaces the newlines in the buffer from the specified index on if a newline escape is configured.
+     */
+    private void escapeNewlines(final StringBuilder buffer, final int start) {
+        if (escapeNewLine == null) {
+            return;
+        }
+        for (int i = start; i < buffer.length(); i++) {
+            final char c = buffer.charAt(i);
+            if (c == '\n') {
+                buffer.replace(i, i + 1, escapeNewLine);
+                i += escapeNewLine.length() - 1;
+            } else if (c == '\r' && i + 1 < buffer.length() && buffer.charAt(i + 1) == '\n') {
+                buffer.replace(i, i + 2, escapeNewLine);
+                i += escapeNewLine.length() - 1;
+            }
         }
-        return NEWLINE_PATTERN.matcher(text).replaceAll(replacement);
     }
 
     protected String getProcId() {
@@ -498,13 +609,18 @@ public final class Rfc5424Layout extends AbstractStringLayout {
             return;
         }
 
-        sb.append('[');
-        sb.append(id);
         if (!mdcSdId.toString().equals(id)) {
-            appendMap(prefix, data.getFields(), sb, noopChecker);
+            appendElement(id, prefix, data.getFields(), sb, noopChecker);
         } else {
-            appendMap(prefix, data.getFields(), sb, checker);
+            appendElement(id, prefix, data.getFields(), sb, checker);
         }
+    }
+
+    private void appendElement(final String id, final String prefix, final Map<String, String> fields,
+            final StringBuilder sb, final ListChecker checker) {
+        sb.append('[');
+        sb.append(id);
+        appendMap(prefix, fields, sb, checker);
         sb.append(']');
     }
 
@@ -536,22 +652,71 @@ public final class Rfc5424Layout extends AbstractStringLayout {
 
     private void appendMap(final String prefix, final Map<String, String> map, final StringBuilder sb,
             final ListChecker checker) {
-        final SortedMap<String, String> sorted = new TreeMap<>(map);
+        final Map<String, String> sorted = isSorted(map) ? map : new TreeMap<>(map);
         for (final Map.Entry<String, String> entry : sorted.entrySet()) {
             if (checker.check(entry.getKey()) && entry.getValue() != null) {
                 sb.append(' ');
                 if (prefix != null) {
                     sb.append(prefix);
                 }
-                final String safeKey = escapeNewlines(escapeSDParams(entry.getKey()), escapeNewLine);
-                final String safeValue = escapeNewlines(escapeSDParams(entry.getValue()), escapeNewLine);
-                StringBuilders.appendKeyDqValue(sb, safeKey, safeValue);
+                appendSDParam(sb, entry.getKey());
+                sb.append("=\"");
+                appendSDParam(sb, entry.getValue());
+                sb.append('"');
+            }
+        }
+    }
+
+    /**
+     * Indicates whether iterating the map returns the keys in their natural order, like the map data of messages do.
+     */
+    private static boolean isSorted(final Map<String, String> map) {
+        if (map instanceof SortedMap) {
+            return ((SortedMap<String, String>) map).comparator() == null;
+        }
+        String previous = null;
+        for (final String key : map.keySet()) {
+            if (key == null || previous != null && previous.compareTo(key) >= 0) {
+                return false;
             }
+            previous = key;
         }
+        return true;
     }
 
-    private String escapeSDParams(final String value) {
-        return PARAM_VALUE_ESCAPE_PATTERN.matcher(value).replaceAll("\\\\$0");
+    /**
+     * Appends a parameter name or value, escaping the characters {@link #PARAM_VALUE_ESCAPE_PATTERN} matches and
+     * replacing newlines if a newline escape is configured.
+     */
+    private void appendSDParam(final StringBuilder sb, final String value) {
+        final int length = value.length();
+        for (int i = 0; i < length; i++) {
+            final char c = value.charAt(i);
+            switch (c) {
+            case '"':
+            case ']':
+            case '\\':
+                sb.append('\\').append(c);
+                break;
+            case '\r':
+                if (escapeNewLine != null && i + 1 < length && value.charAt(i + 1) == '\n') {
+                    sb.append(escapeNewLine);
+                    i++;
+                } else {
+                    sb.append(c);
+                }
+                break;
+            case '\n':
+                if (escapeNewLine != null) {
+                    sb.append(escapeNewLine);
+                } else {
+                    sb.append(c);
+                }
+                break;
+            default:
+                sb.append(c);
+            }
+        }
     }
 
     /**
@@ -718,4 +883,116 @@ public final class Rfc5424Layout extends AbstractStringLayout {
             return this.fields;
         }
     }
+
+    private void readObject(final ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        encoders = new ThreadLocal<>();
+    }
+
+    /**
+     * Text together with its encoded form.
+     */
+    private static final class EncodedText implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String text;
+        private final byte[] bytes;
+
+        EncodedText(final String text, final Charset charset) {
+            this.text = text;
+            this.bytes = text.getBytes(charset);
+        }
+    }
+
+    /**
+     * Encodes records into a reusable buffer. Only used with charsets where encoded parts can be concatenated.
+     */
+    private static final class Encoder {
+
+        private final CharsetEncoder charsetEncoder;
+        private ByteBuffer byteBuffer = ByteBuffer.allocate(DEFAULT_STRING_BUILDER_SIZE);
+        private char[] chars = new char[DEFAULT_STRING_BUILDER_SIZE];
+        private CharBuffer charBuffer = CharBuffer.wrap(chars);
+
+        Encoder(final Charset charset) {
+            // replace unmappable characters like String.getBytes does
+            this.charsetEncoder = charset.newEncoder().onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        }
+
+        byte[] encode(final byte[] priority, final String timestamp, final byte[] header, final StringBuilder body,
+                final boolean octetCounting) {
+            byteBuffer.clear();
+            byteBuffer.position(FRAME_LENGTH_RESERVE);
+            put(priority);
+            ensureRemaining(timestamp.length());
+            for (int i = 0; i < timestamp.length(); i++) {
+                // the timestamp only contains ASCII characters
+                byteBuffer.put((byte) timestamp.charAt(i));
+            }
+            put(header);
+            encodeBody(body);
+            final int end = byteBuffer.position();
+            int start = FRAME_LENGTH_RESERVE;
+            if (octetCounting) {
+                final byte[] array = byteBuffer.array();
+                array[--start] = ' ';
+                int length = end - FRAME_LENGTH_RESERVE;
+                do {
+                    array[--start] = (byte) ('0' + length % 10);
+                    length /= 10;
+                } while (length > 0);
+            }
+            return Arrays.copyOfRange(byteBuffer.array(), start, end);
+        }
+
+        private void put(final byte[] bytes) {
+            ensureRemaining(bytes.length);
+            byteBuffer.put(bytes);
+        }
+
+        private void encodeBody(final StringBuilder body) {
+            final int length = body.length();
+            if (chars.length < length) {
+                chars = new char[Math.max(length, chars.length * 2)];
+                charBuffer = CharBuffer.wrap(chars);
+            }
+            body.getChars(0, length, chars, 0);
+            charBuffer.clear();
+            charBuffer.limit(length);
+            charsetEncoder.reset();
+            try {
+                CoderResult result = charsetEncoder.encode(charBuffer, byteBuffer, true);
+                while (true) {
+                    if (result.isOverflow()) {
+                        ensureRemaining(byteBuffer.capacity());
+                    } else if (result.isUnderflow()) {
+                        result = charsetEncoder.flush(byteBuffer);
+                        if (!result.isOverflow()) {
+                            break;
+                        }
+                        ensureRemaining(byteBuffer.capacity());
+                        continue;
+                    } else {
+                        result.throwException();
+                    }
+                    result = charsetEncoder.encode(charBuffer, byteBuffer, true);
+                }
+            } catch (final CharacterCodingException e) {
+                // cannot happen as malformed and unmappable input is replaced
+                throw new IllegalStateException(e);
+            }
+        }
+
+        private void ensureRemaining(final int remaining) {
+            if (byteBuffer.remaining() < remaining) {
+                final ByteBuffer larger = ByteBuffer.allocate(Math.max(byteBuffer.capacity() * 2,
+                        byteBuffer.position() + remaining));
+                byteBuffer.flip();
+                larger.put(byteBuffer);
+                byteBuffer = larger;
+            }
+        }
+    }
 }
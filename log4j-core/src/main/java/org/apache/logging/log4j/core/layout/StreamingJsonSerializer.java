@@ -0,0 +1,162 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache license, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the license for the specific language governing permissions and
+ * limitations under the license.
+ */
+package org.apache.logging.log4j.core.layout;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.util.StringBuilderWriter;
+import org.apache.logging.log4j.util.Strings;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.PrettyPrinter;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.util.DefaultPrettyPrinter;
+import com.fasterxml.jackson.core.util.MinimalPrettyPrinter;
+
+/**
+ * Renders log events as JSON with a {@link JsonGenerator} that writes to a reusable buffer.
+ * <p>
+ * Each thread keeps two generators, one writing characters and one writing UTF-8 bytes, together with their buffers.
+ * Subclasses write the fields of an event directly from its accessors, so rendering an event neither introspects the
+ * event nor copies the JSON text through intermediate Strings.
+ * </p>
+ */
+abstract class StreamingJsonSerializer implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final JsonFactory jsonFactory;
+    private final boolean compact;
+    private transient ThreadLocal<Output> outputs = new ThreadLocal<>();
+
+    /**
+     * @param jsonFactory The factory that creates the generators.
+     * @param compact If true, writes the JSON without end-of-lines and indentation.
+     */
+    StreamingJsonSerializer(final JsonFactory jsonFactory, final boolean compact) {
+        this.jsonFactory = jsonFactory;
+        this.compact = compact;
+    }
+
+    /**
+     * Writes the event as a JSON value.
+     *
+     * @param generator The generator to write to.
+     * @param event The event to write.
+     * @throws IOException if the generator fails.
+     */
+    protected abstract void writeEvent(JsonGenerator generator, LogEvent event) throws IOException;
+
+    /**
+     * Renders the event as a String.
+     *
+     * @param event The event to render.
+     * @param prefix Raw text written before the event, may be null.
+     * @param suffix Raw text written after the event, may be null.
+     * @return The JSON text.
+     * @throws IOException if the event cannot be rendered.
+     */
+    String toSerializable(final LogEvent event, final String prefix, final String suffix) throws IOException {
+        final Output output = getOutput();
+        final StringBuilder builder = output.writer.getBuilder();
+        builder.setLength(0);
+        if (output.charGenerator == null) {
+            output.charGenerator = initialize(jsonFactory.createGenerator(output.writer));
+        }
+        try {
+            write(output.charGenerator, event, prefix, suffix);
+        } catch (final IOException | RuntimeException e) {
+            // the generator may be left in the middle of the event
+            output.charGenerator = null;
+            throw e;
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Renders the event as UTF-8 encoded bytes.
+     *
+     * @param event The event to render.
+     * @param prefix Raw text written before the event, may be null.
+     * @param suffix Raw text written after the event, may be null.
+     * @return The UTF-8 encoded JSON text.
+     * @throws IOException if the event cannot be rendered.
+     */
+    byte[] toUtf8Bytes(final LogEvent event, final String prefix, final String suffix) throws IOException {
+        final Output output = getOutput();
+        output.stream.reset();
+        if (output.byteGenerator == null) {
+            output.byteGenerator = initialize(jsonFactory.createGenerator(output.stream, JsonEncoding.UTF8));
+        }
+        try {
+            write(output.byteGenerator, event, prefix, suffix);
+        } catch (final IOException | RuntimeException e) {
+            output.byteGenerator = null;
+            throw e;
+        }
+        return output.stream.toByteArray();
+    }
+
+    private void write(final JsonGenerator generator, final LogEvent event, final String prefix, final String suffix)
+            throws IOException {
+        if (prefix != null) {
+            generator.writeRaw(prefix);
+        }
+        writeEvent(generator, event);
+        if (suffix != null) {
+            generator.writeRaw(suffix);
+        }
+        generator.flush();
+    }
+
+    private JsonGenerator initialize(final JsonGenerator generator) {
+        // the generator is reused for many root values, which must not be separated
+        final PrettyPrinter prettyPrinter = compact ? new MinimalPrettyPrinter(Strings.EMPTY)
+                : new DefaultPrettyPrinter((SerializableString) null);
+        generator.setPrettyPrinter(prettyPrinter);
+        return generator;
+    }
+
+    private Output getOutput() {
+        Output output = outputs.get();
+        if (output == null) {
+            output = new Output();
+            outputs.set(output);
+        }
+        return output;
+    }
+
+    private void readObject(final ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        outputs = new ThreadLocal<>();
+    }
+
+    private static final class Output {
+        private final StringBuilderWriter writer = new StringBuilderWriter(
+                AbstractStringLayout.DEFAULT_STRING_BUILDER_SIZE);
+        private final ByteArrayOutputStream stream = new ByteArrayOutputStream(
+                AbstractStringLayout.DEFAULT_STRING_BUILDER_SIZE);
+        private JsonGenerator charGenerator;
+        private JsonGenerator byteGenerator;
+    }
+}
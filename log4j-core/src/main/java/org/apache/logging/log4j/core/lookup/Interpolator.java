@@ -36,7 +36,7 @@ public class Interpolator extends AbstractLookup {
     private static final Logger LOGGER = StatusLogger.getLogger();
 
     /** Constant for the prefix separator. */
-    private static final char PREFIX_SEPARATOR = ':';
+    static final char PREFIX_SEPARATOR = ':';
 
     private final Map<String, StrLookup> lookups = new HashMap<>();
 
@@ -166,6 +166,20 @@ public class Interpolator extends AbstractLookup {
         return null;
     }
 
+    /**
+     * Returns the lookup registered for the prefix.
+     *
+     * @param prefix the variable prefix
+     * @return the lookup or null
+     */
+    StrLookup getLookup(final String prefix) {
+        return lookups.get(prefix);
+    }
+
+    StrLookup getDefaultLookup() {
+        return defaultLookup;
+    }
+
     @Override
     public String toString() {
         final StringBuilder sb = new StringBuilder();
@@ -0,0 +1,254 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache license, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the license for the specific language governing permissions and
+ * limitations under the license.
+ */
+package org.apache.logging.log4j.core.lookup;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.logging.log4j.core.LogEvent;
+
+/**
+ * A source string parsed once for repeated substitution by a {@link StrSubstitutor}.
+ * <p>
+ * The source is split into literal text and variables. Each variable is bound to the {@link StrLookup} that resolves
+ * its prefix, so evaluating the expression neither scans the source for variables nor searches for the lookup.
+ * Values and default values that contain variables themselves are substituted like {@link StrSubstitutor#replace(
+ * LogEvent, String)} does. Sources the parser does not handle, such as variables nested in variable names, are
+ * substituted with {@link StrSubstitutor#replace(LogEvent, String)} on each evaluation.
+ * </p>
+ * <p>
+ * Use {@link StrSubstitutor#compile(String)} to obtain instances.
+ * </p>
+ */
+public final class StrExpression {
+
+    private static final String PREFIX = "${";
+    private static final String SUFFIX = "}";
+    private static final String VALUE_DELIMITER = ":-";
+
+    private final StrSubstitutor substitutor;
+    private final String source;
+    /** Literal text and variables, or null if the source is substituted on each evaluation. */
+    private final Part[] parts;
+    /** The result if the source contains no variables. */
+    private final String constant;
+
+    private StrExpression(final StrSubstitutor substitutor, final String source, final Part[] parts,
+            final String constant) {
+        this.substitutor = substitutor;
+        this.source = source;
+        this.parts = parts;
+        this.constant = constant;
+    }
+
+    /**
+     * Creates an expression that substitutes the source string with {@link StrSubstitutor#replace(LogEvent, String)}.
+     *
+     * @param substitutor The StrSubstitutor.
+     * @param source The source string.
+     * @return The expression.
+     */
+    static StrExpression uncompiled(final StrSubstitutor substitutor, final String source) {
+        return new StrExpression(substitutor, source, null, null);
+    }
+
+    /**
+     * Parses the source string.
+     *
+     * @param substitutor The StrSubstitutor, which must use the default variable prefix, suffix and value delimiter.
+     * @param source The source string.
+     * @return The expression.
+     */
+    static StrExpression parse(final StrSubstitutor substitutor, final String source) {
+        final char escape = substitutor.getEscapeChar();
+        final List<Part> parts = new ArrayList<>();
+        final StringBuilder literal = new StringBuilder();
+        final int length = source.length();
+        int pos = 0;
+        while (pos < length) {
+            final int start = source.indexOf(PREFIX, pos);
+            if (start < 0) {
+                literal.append(source, pos, length);
+                break;
+            }
+            if (start > 0 && source.charAt(start - 1) == escape) {
+                // escaped, drop the escape character and keep the prefix as text
+                literal.append(source, pos, start - 1).append(PREFIX);
+                pos = start + PREFIX.length();
+                continue;
+            }
+            final int end = source.indexOf(SUFFIX, start + PREFIX.length());
+            if (end < 0) {
+                // unterminated, the rest of the source is not substituted
+                literal.append(source, pos, length);
+                break;
+            }
+            final String varNameExpr = source.substring(start + PREFIX.length(), end);
+            if (varNameExpr.contains(PREFIX)) {
+                return uncompiled(substitutor, source);
+            }
+            literal.append(source, pos, start);
+            if (literal.length() > 0) {
+                parts.add(new Literal(literal.toString()));
+                literal.setLength(0);
+            }
+            final int delimiter = varNameExpr.indexOf(VALUE_DELIMITER);
+            final String varName = delimiter < 0 ? varNameExpr : varNameExpr.substring(0, delimiter);
+            final String defaultValue = delimiter < 0 ? null
+                    : varNameExpr.substring(delimiter + VALUE_DELIMITER.length());
+            parts.add(new Variable(substitutor, varName, defaultValue, source.substring(start, end + SUFFIX.length())));
+            pos = end + SUFFIX.length();
+        }
+        if (parts.isEmpty()) {
+            // unchanged unless escape characters were removed
+            return new StrExpression(substitutor, source, null,
+                    literal.length() == length ? source : literal.toString());
+        }
+        if (literal.length() > 0) {
+            parts.add(new Literal(literal.toString()));
+        }
+        return new StrExpression(substitutor, source, parts.toArray(new Part[parts.size()]), null);
+    }
+
+    /**
+     * Substitutes the variables of the expression.
+     *
+     * @param event The current LogEvent, if there is one.
+     * @return The result of the substitution.
+     */
+    public String evaluate(final LogEvent event) {
+        if (constant != null) {
+            return constant;
+        }
+        if (parts == null) {
+            return substitutor.replace(event, source);
+        }
+        final StringBuilder buf = new StringBuilder(source.length() + 16);
+        for (final Part part : parts) {
+            part.evaluate(event, buf);
+        }
+        return buf.toString();
+    }
+
+    /**
+     * Returns the source string.
+     *
+     * @return The source string.
+     */
+    public String getSource() {
+        return source;
+    }
+
+    /**
+     * Indicates whether the source was parsed or is substituted on each evaluation.
+     *
+     * @return true if the source was parsed.
+     */
+    boolean isCompiled() {
+        return parts != null || constant != null;
+    }
+
+    @Override
+    public String toString() {
+        return "StrExpression[source=" + source + ", compiled=" + isCompiled() + "]";
+    }
+
+    private abstract static class Part {
+        abstract void evaluate(LogEvent event, StringBuilder buf);
+    }
+
+    private static final class Literal extends Part {
+        private final String text;
+
+        Literal(final String text) {
+            this.text = text;
+        }
+
+        @Override
+        void evaluate(final LogEvent event, final StringBuilder buf) {
+            buf.append(text);
+        }
+    }
+
+    private static final class Variable extends Part {
+        private final StrSubstitutor substitutor;
+        private final String varName;
+        private final String defaultValue;
+        private final String text;
+        private final StrLookup resolver;
+        private final boolean interpolated;
+        /** The lookup bound to the prefix of the variable, used if the resolver is exactly an Interpolator. */
+        private final StrLookup prefixLookup;
+        private final StrLookup defaultLookup;
+        /** The variable name without the prefix. */
+        private final String lookupName;
+
+        Variable(final StrSubstitutor substitutor, final String varName, final String defaultValue,
+                final String text) {
+            this.substitutor = substitutor;
+            this.varName = varName;
+            this.defaultValue = defaultValue;
+            this.text = text;
+            this.resolver = substitutor.getVariableResolver();
+            // a subclass may override lookup, so only a plain Interpolator is resolved through its lookups directly
+            this.interpolated = resolver != null && resolver.getClass() == Interpolator.class;
+            if (interpolated) {
+                final Interpolator interpolator = (Interpolator) resolver;
+                final int prefixPos = varName.indexOf(Interpolator.PREFIX_SEPARATOR);
+                this.prefixLookup = prefixPos < 0 ? null : interpolator.getLookup(varName.substring(0, prefixPos));
+                this.defaultLookup = interpolator.getDefaultLookup();
+                this.lookupName = prefixPos < 0 ? varName : varName.substring(prefixPos + 1);
+            } else {
+                this.prefixLookup = null;
+                this.defaultLookup = null;
+                this.lookupName = varName;
+            }
+        }
+
+        @Override
+        void evaluate(final LogEvent event, final StringBuilder buf) {
+            String value = resolve(event);
+            if (value == null) {
+                value = defaultValue;
+            }
+            if (value == null) {
+                buf.append(text);
+            } else if (value.contains(PREFIX)) {
+                buf.append(substitutor.replace(event, value));
+            } else {
+                buf.append(value);
+            }
+        }
+
+        private String resolve(final LogEvent event) {
+            if (!interpolated) {
+                return resolver == null ? null : resolver.lookup(event, varName);
+            }
+            if (prefixLookup != null) {
+                final String value = event == null ? prefixLookup.lookup(lookupName)
+                        : prefixLookup.lookup(event, lookupName);
+                if (value != null) {
+                    return value;
+                }
+            }
+            if (defaultLookup == null) {
+                return null;
+            }
+            return event == null ? defaultLookup.lookup(lookupName) : defaultLookup.lookup(event, lookupName);
+        }
+    }
+}
@@ -23,6 +23,8 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.logging.log4j.core.LogEvent;
 import org.apache.logging.log4j.util.Strings;
@@ -160,6 +162,11 @@ public class StrSubstitutor {
 
     private static final int BUF_SIZE = 256;
 
+    /**
+     * Maximum number of source strings whose compiled form is cached.
+     */
+    private static final int MAX_COMPILED_EXPRESSIONS = 1024;
+
     /**
      * Stores the escape character.
      */
@@ -184,6 +191,10 @@ public class StrSubstitutor {
      * The flag whether substitution in variable names is enabled.
      */
     private boolean enableSubstitutionInVariables;
+    /**
+     * Cache of compiled source strings.
+     */
+    private final ConcurrentMap<String, StrExpression> compiledExpressions = new ConcurrentHashMap<>();
 
     //-----------------------------------------------------------------------
     /**
@@ -405,6 +416,36 @@ public class StrSubstitutor {
         return buf.toString();
     }
 
+    /**
+     * Returns the compiled form of a source string that is substituted repeatedly, for example for each log event.
+     * Evaluating the returned expression gives the same result as {@link #replace(LogEvent, String)} without parsing
+     * the source again. Compiled expressions are cached per source string.
+     *
+     * @param source  the string to replace in
+     * @return the compiled expression
+     */
+    public StrExpression compile(final String source) {
+        if (source == null || !isCompilable()) {
+            return StrExpression.uncompiled(this, source);
+        }
+        StrExpression expression = compiledExpressions.get(source);
+        if (expression == null) {
+            expression = StrExpression.parse(this, source);
+            if (compiledExpressions.size() < MAX_COMPILED_EXPRESSIONS) {
+                compiledExpressions.putIfAbsent(source, expression);
+            }
+        }
+        return expression;
+    }
+
+    /**
+     * Expressions can only be compiled for the default syntax and if no subclass changes the substitution.
+     */
+    private boolean isCompilable() {
+        return getClass() == StrSubstitutor.class && prefixMatcher == DEFAULT_PREFIX && suffixMatcher == DEFAULT_SUFFIX
+                && valueDelimiterMatcher == DEFAULT_VALUE_DELIMITER;
+    }
+
     /**
      * Replaces all the occurrences of variables with their matching values
      * from the resolver using the given source string as a template.
@@ -1060,6 +1101,7 @@ public class StrSubstitutor {
      */
     public void setEscapeChar(final char escapeCharacter) {
         this.escapeChar = escapeCharacter;
+        compiledExpressions.clear();
     }
 
     // Prefix
@@ -1095,6 +1137,7 @@ public class StrSubstitutor {
             throw new IllegalArgumentException("Variable prefix matcher must not be null!");
         }
         this.prefixMatcher = prefixMatcher;
+        compiledExpressions.clear();
         return this;
     }
 
@@ -1164,6 +1207,7 @@ public class StrSubstitutor {
             throw new IllegalArgumentException("Variable suffix matcher must not be null!");
         }
         this.suffixMatcher = suffixMatcher;
+        compiledExpressions.clear();
         return this;
     }
 
@@ -1236,6 +1280,7 @@ public class StrSubstitutor {
      */
     public StrSubstitutor setValueDelimiterMatcher(final StrMatcher valueDelimiterMatcher) {
         this.valueDelimiterMatcher = valueDelimiterMatcher;
+        compiledExpressions.clear();
         return this;
     }
 
@@ -1295,6 +1340,7 @@ public class StrSubstitutor {
      */
     public void setVariableResolver(final StrLookup variableResolver) {
         this.variableResolver = variableResolver;
+        compiledExpressions.clear();
     }
 
     // Substitution support in variable names
@@ -1318,6 +1364,7 @@ public class StrSubstitutor {
      */
     public void setEnableSubstitutionInVariables(final boolean enableSubstitutionInVariables) {
         this.enableSubstitutionInVariables = enableSubstitutionInVariables;
+        compiledExpressions.clear();
     }
 
     private char[] getChars(final StringBuilder sb) {
@@ -0,0 +1,664 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache license, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the license for the specific language governing permissions and
+ * limitations under the license.
+ */
+package org.apache.logging.log4j.core.net;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLEngineResult;
+import javax.net.ssl.SSLEngineResult.HandshakeStatus;
+import javax.net.ssl.SSLException;
+
+import org.apache.logging.log4j.core.Layout;
+import org.apache.logging.log4j.core.appender.AppenderLoggingException;
+import org.apache.logging.log4j.core.appender.ManagerFactory;
+import org.apache.logging.log4j.core.net.ssl.SslConfiguration;
+import org.apache.logging.log4j.core.net.ssl.StoreConfiguration;
+import org.apache.logging.log4j.core.util.Log4jThread;
+import org.apache.logging.log4j.core.util.NameUtil;
+import org.apache.logging.log4j.util.Strings;
+
+/**
+ * Manager of TCP and TLS connections that decouples logging threads from the network.
+ * <p>
+ * Events are copied into an in-memory ring buffer and a background thread writes them to a {@link SocketChannel},
+ * encrypted with an {@link SSLEngine} if an SSL configuration is specified. The thread coalesces all buffered events
+ * that fit into its send buffer into a single write. Events are only removed from the ring buffer once they have been
+ * written completely, so the events that were being written when the connection failed are sent again, without being
+ * torn, after the thread has reconnected. Connecting and reconnecting never block logging threads.
+ * </p>
+ * <p>
+ * When the ring buffer is full, a write fails immediately if {@code immediateFail} is set; otherwise it waits until the
+ * background thread has made room.
+ * </p>
+ *
+ * @since 2.6
+ */
+public class BufferedSocketManager extends AbstractSocketManager {
+
+    /** The default size in bytes of the ring buffer. */
+    public static final int DEFAULT_BUFFER_SIZE = 256 * 1024;
+
+    private static final int DEFAULT_PORT = 4560;
+
+    private static final int DEFAULT_TLS_PORT = 6514;
+
+    private static final int LENGTH_BYTES = 4;
+
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = 5000;
+
+    private static final BufferedSocketManagerFactory FACTORY = new BufferedSocketManagerFactory();
+
+    private final SSLContext sslContext;
+    private final int connectTimeoutMillis;
+    private final long reconnectionDelayNanos;
+    private final boolean immediateFail;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+    private final byte[] ring;
+    /** Position of the oldest event that was not written completely. */
+    private long head;
+    /** Position after the newest event. */
+    private long tail;
+    private boolean closing;
+
+    private final Sender sender;
+
+    /**
+     * Constructs a manager and starts its background thread, which connects to the host.
+     *
+     * @param name The unique name of this connection.
+     * @param inetAddress The Internet address of the host.
+     * @param host The name of the host.
+     * @param port The port number on the host.
+     * @param sslContext The SSLContext for TLS connections, or null for plain TCP connections.
+     * @param connectTimeoutMillis The connect timeout in milliseconds.
+     * @param reconnectionDelayMillis The number of milliseconds between attempts to connect.
+     * @param immediateFail If true, writes fail when the buffer is full instead of waiting.
+     * @param bufferSize The size in bytes of the ring buffer.
+     * @param layout The Layout.
+     */
+    protected BufferedSocketManager(final String name, final InetAddress inetAddress, final String host,
+            final int port, final SSLContext sslContext, final int connectTimeoutMillis,
+            final int reconnectionDelayMillis, final boolean immediateFail, final int bufferSize,
+            final Layout<? extends Serializable> layout) {
+        // the header is sent on each new connection
+        super(name, new RingOutputStream(), inetAddress, host, port, layout, false);
+        ((RingOutputStream) getOutputStream()).manager = this;
+        this.sslContext = sslContext;
+        this.connectTimeoutMillis = connectTimeoutMillis;
+        this.reconnectionDelayNanos = TimeUnit.MILLISECONDS.toNanos(reconnectionDelayMillis);
+        this.immediateFail = immediateFail;
+        this.ring = new byte[bufferSize];
+        this.sender = new Sender(bufferSize);
+        sender.thread.start();
+    }
+
+    /**
+     * Obtains a BufferedSocketManager.
+     *
+     * @param sslConfig The SSL configuration for TLS connections, null for plain TCP connections.
+     * @param tls If true, connects with TLS even without an SSL configuration, using the default SSLContext.
+     * @param host The host to connect to.
+     * @param port The port on the host.
+     * @param connectTimeoutMillis The connect timeout in milliseconds.
+     * @param reconnectionDelayMillis The number of milliseconds between attempts to connect.
+     * @param immediateFail If true, writes fail when the buffer is full instead of waiting.
+     * @param bufferSize The size in bytes of the ring buffer.
+     * @param layout The Layout.
+     * @return A BufferedSocketManager.
+     */
+    public static BufferedSocketManager getSocketManager(final SslConfiguration sslConfig, final boolean tls,
+            final String host, int port, final int connectTimeoutMillis, int reconnectionDelayMillis,
+            final boolean immediateFail, final int bufferSize, final Layout<? extends Serializable> layout) {
+        if (Strings.isEmpty(host)) {
+            throw new IllegalArgumentException("A host name is required");
+        }
+        final boolean secure = tls || sslConfig != null;
+        if (port <= 0) {
+            port = secure ? DEFAULT_TLS_PORT : DEFAULT_PORT;
+        }
+        if (reconnectionDelayMillis <= 0) {
+            reconnectionDelayMillis = TcpSocketManager.DEFAULT_RECONNECTION_DELAY_MILLIS;
+        }
+        final int actualBufferSize = bufferSize > 0 ? bufferSize : DEFAULT_BUFFER_SIZE;
+        final String name = (secure ? "TLS-BUFFERED:" : "TCP-BUFFERED:") + host + ':' + port + ':'
+                + actualBufferSize + ':' + immediateFail + ':' + toKey(sslConfig);
+        return (BufferedSocketManager) getManager(name, new FactoryData(sslConfig, secure, host, port,
+                connectTimeoutMillis, reconnectionDelayMillis, immediateFail, actualBufferSize, layout), FACTORY);
+    }
+
+    /**
+     * Returns the part of the manager name that identifies the SSL configuration, without revealing the passwords.
+     */
+    private static String toKey(final SslConfiguration sslConfig) {
+        if (sslConfig == null) {
+            return "default";
+        }
+        return NameUtil.md5(sslConfig.getProtocol() + ':' + toKey(sslConfig.getKeyStoreConfig()) + ':'
+                + toKey(sslConfig.getTrustStoreConfig()));
+    }
+
+    private static String toKey(final StoreConfiguration<?> storeConfig) {
+        return storeConfig == null ? "" : storeConfig.getLocation() + ':' + storeConfig.getPassword();
+    }
+
+    /**
+     * Copies the bytes of an event into the ring buffer. The background thread sends them, so the data is flushed
+     * whatever the value of {@code immediateFlush}.
+     */
+    @Override
+    protected void write(final byte[] bytes, final int offset, final int length, final boolean immediateFlush) {
+        final int required = LENGTH_BYTES + length;
+        if (required > ring.length) {
+            throw new AppenderLoggingException("Event of " + length + " bytes does not fit in the buffer of "
+                    + getName());
+        }
+        lock.lock();
+        try {
+            while (ring.length - (tail - head) < required) {
+                if (closing) {
+                    throw new AppenderLoggingException("Error writing to " + getName() + ", manager is closed");
+                }
+                if (immediateFail) {
+                    throw new AppenderLoggingException("Error writing to " + getName() + ", buffer is full");
+                }
+                notFull.awaitUninterruptibly();
+            }
+            if (closing) {
+                throw new AppenderLoggingException("Error writing to " + getName() + ", manager is closed");
+            }
+            final boolean wasEmpty = tail == head;
+            putLength(tail, length);
+            copyIn(tail + LENGTH_BYTES, bytes, offset, length);
+            tail += required;
+            if (wasEmpty) {
+                notEmpty.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Does nothing, the background thread writes buffered events as soon as it can.
+     */
+    @Override
+    public void flush() {
+        // nothing to do
+    }
+
+    /**
+     * Stops accepting events and gives the background thread some time to send the buffered events.
+     */
+    @Override
+    protected synchronized void close() {
+        lock.lock();
+        try {
+            if (closing) {
+                return;
+            }
+            closing = true;
+            notEmpty.signalAll();
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        sender.shutdown();
+    }
+
+    /**
+     * Returns the number of bytes of events that were not written completely yet.
+     *
+     * @return the number of buffered bytes.
+     */
+    public int getBufferedBytes() {
+        lock.lock();
+        try {
+            return (int) (tail - head);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns whether the background thread is connected to the host.
+     *
+     * @return true if the manager is connected.
+     */
+    public boolean isConnected() {
+        return sender.channel != null;
+    }
+
+    public int getConnectTimeoutMillis() {
+        return connectTimeoutMillis;
+    }
+
+    /**
+     * Gets this BufferedSocketManager's content format. Specified by:
+     * <ul>
+     * <li>Key: "protocol" Value: "tcp"</li>
+     * <li>Key: "direction" Value: "out"</li>
+     * </ul>
+     *
+     * @return Map of content format keys supporting BufferedSocketManager
+     */
+    @Override
+    public Map<String, String> getContentFormat() {
+        final Map<String, String> result = new HashMap<>(super.getContentFormat());
+        result.put("protocol", "tcp");
+        result.put("direction", "out");
+        return result;
+    }
+
+    private void putLength(final long position, final int length) {
+        for (int i = 0; i < LENGTH_BYTES; i++) {
+            ring[(int) ((position + i) % ring.length)] = (byte) (length >>> (24 - 8 * i));
+        }
+    }
+
+    private int getLength(final long position) {
+        int length = 0;
+        for (int i = 0; i < LENGTH_BYTES; i++) {
+            length = (length << 8) | (ring[(int) ((position + i) % ring.length)] & 0xff);
+        }
+        return length;
+    }
+
+    private void copyIn(final long position, final byte[] bytes, final int offset, final int length) {
+        final int start = (int) (position % ring.length);
+        final int first = Math.min(length, ring.length - start);
+        System.arraycopy(bytes, offset, ring, start, first);
+        System.arraycopy(bytes, offset + first, ring, 0, length - first);
+    }
+
+    private void copyOut(final long position, final int length, final ByteBuffer target) {
+        final int start = (int) (position % ring.length);
+        final int first = Math.min(length, ring.length - start);
+        target.put(ring, start, first);
+        target.put(ring, 0, length - first);
+    }
+
+    /**
+     * Collects the events into a buffer that holds the whole ring buffer.
+     */
+    private static class RingOutputStream extends OutputStream {
+
+        private BufferedSocketManager manager;
+
+        @Override
+        public void write(final int b) throws IOException {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(final byte[] bytes, final int offset, final int length) throws IOException {
+            manager.write(bytes, offset, length, false);
+        }
+    }
+
+    /**
+     * Connects to the host and writes the buffered events.
+     */
+    private class Sender implements Runnable {
+
+        private final Thread thread = new Log4jThread(this, "BufferedSocketManager-" + getName());
+        private final ByteBuffer sendBuffer;
+        private volatile SocketChannel channel;
+        private SSLEngine engine;
+        private ByteBuffer netOut;
+        private ByteBuffer netIn;
+        private ByteBuffer appIn;
+
+        Sender(final int bufferSize) {
+            this.sendBuffer = ByteBuffer.allocateDirect(bufferSize);
+            thread.setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                if (channel == null && !connect()) {
+                    if (awaitReconnect()) {
+                        continue;
+                    }
+                    break;
+                }
+                final long batchEnd = fillBatch();
+                if (batchEnd < 0) {
+                    break;
+                }
+                try {
+                    write(sendBuffer);
+                } catch (final IOException ex) {
+                    if (!isClosing()) {
+                        LOGGER.warn("Error writing to {}, reconnecting", getName(), ex);
+                    }
+                    disconnect();
+                    continue;
+                }
+                release(batchEnd);
+            }
+            disconnect();
+        }
+
+        /**
+         * Copies the buffered events that fit into the send buffer, waiting for events if there are none.
+         *
+         * @return the position after the last copied event, or -1 if the manager is closing and nothing is buffered.
+         */
+        private long fillBatch() {
+            final long start;
+            final long end;
+            lock.lock();
+            try {
+                while (tail == head && !closing) {
+                    notEmpty.awaitUninterruptibly();
+                }
+                if (tail == head) {
+                    return -1;
+                }
+                start = head;
+                end = tail;
+            } finally {
+                lock.unlock();
+            }
+            // events between head and tail are not modified until they are released
+            sendBuffer.clear();
+            long position = start;
+            while (position < end) {
+                final int length = getLength(position);
+                if (length > sendBuffer.remaining()) {
+                    break;
+                }
+                copyOut(position + LENGTH_BYTES, length, sendBuffer);
+                position += LENGTH_BYTES + length;
+            }
+            sendBuffer.flip();
+            return position;
+        }
+
+        private void release(final long position) {
+            lock.lock();
+            try {
+                head = position;
+                notFull.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private boolean isClosing() {
+            lock.lock();
+            try {
+                return closing;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Waits for the reconnection delay.
+         *
+         * @return false if the manager is closing.
+         */
+        private boolean awaitReconnect() {
+            long nanos = reconnectionDelayNanos;
+            lock.lock();
+            try {
+                while (!closing && nanos > 0) {
+                    nanos = notFull.awaitNanos(nanos);
+                }
+                return !closing;
+            } catch (final InterruptedException ex) {
+                return false;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private boolean connect() {
+            SocketChannel newChannel = null;
+            try {
+                newChannel = SocketChannel.open();
+                newChannel.socket().connect(new InetSocketAddress(inetAddress, port), connectTimeoutMillis);
+                channel = newChannel;
+                if (sslContext != null) {
+                    handshake();
+                }
+                final byte[] header = layout == null ? null : layout.getHeader();
+                if (header != null) {
+                    write(ByteBuffer.wrap(header));
+                }
+                LOGGER.debug("Connection to {}:{} established", host, port);
+                return true;
+            } catch (final IOException ex) {
+                LOGGER.debug("Unable to connect to {}:{}: {}", host, port, ex.toString());
+                disconnect();
+                if (newChannel != null) {
+                    closeQuietly(newChannel);
+                }
+                return false;
+            }
+        }
+
+        private void disconnect() {
+            final SocketChannel localChannel = channel;
+            channel = null;
+            if (localChannel == null) {
+                return;
+            }
+            if (engine != null) {
+                engine.closeOutbound();
+                if (localChannel.isOpen()) {
+                    sendCloseNotify(localChannel);
+                }
+                engine = null;
+            }
+            closeQuietly(localChannel);
+        }
+
+        private void sendCloseNotify(final SocketChannel localChannel) {
+            try {
+                while (!engine.isOutboundDone()) {
+                    netOut.clear();
+                    engine.wrap(ByteBuffer.allocate(0), netOut);
+                    netOut.flip();
+                    while (netOut.hasRemaining()) {
+                        localChannel.write(netOut);
+                    }
+                }
+            } catch (final IOException ex) {
+                // the connection is closed anyway
+            }
+        }
+
+        private void closeQuietly(final SocketChannel localChannel) {
+            try {
+                localChannel.close();
+            } catch (final IOException ex) {
+                // ignore
+            }
+        }
+
+        private void write(final ByteBuffer source) throws IOException {
+            if (engine == null) {
+                while (source.hasRemaining()) {
+                    channel.write(source);
+                }
+                return;
+            }
+            while (source.hasRemaining()) {
+                netOut.clear();
+                final SSLEngineResult result = engine.wrap(source, netOut);
+                if (result.getStatus() != SSLEngineResult.Status.OK) {
+                    throw new SSLException("Unable to encrypt data for " + getName() + ": " + result.getStatus());
+                }
+                writeNetOut();
+            }
+        }
+
+        private void writeNetOut() throws IOException {
+            netOut.flip();
+            while (netOut.hasRemaining()) {
+                channel.write(netOut);
+            }
+        }
+
+        private void handshake() throws IOException {
+            engine = sslContext.createSSLEngine(host, port);
+            engine.setUseClientMode(true);
+            final int packetSize = engine.getSession().getPacketBufferSize();
+            if (netOut == null || netOut.capacity() < packetSize) {
+                netOut = ByteBuffer.allocateDirect(packetSize);
+                netIn = ByteBuffer.allocateDirect(packetSize);
+                appIn = ByteBuffer.allocate(engine.getSession().getApplicationBufferSize());
+            }
+            netIn.clear();
+            final ByteBuffer empty = ByteBuffer.allocate(0);
+            engine.beginHandshake();
+            HandshakeStatus status = engine.getHandshakeStatus();
+            while (status != HandshakeStatus.FINISHED && status != HandshakeStatus.NOT_HANDSHAKING) {
+                switch (status) {
+                case NEED_WRAP:
+                    netOut.clear();
+                    final SSLEngineResult wrapped = engine.wrap(empty, netOut);
+                    writeNetOut();
+                    status = wrapped.getHandshakeStatus();
+                    break;
+                case NEED_UNWRAP:
+                    netIn.flip();
+                    final SSLEngineResult unwrapped = engine.unwrap(netIn, appIn);
+                    netIn.compact();
+                    appIn.clear();
+                    if (unwrapped.getStatus() == SSLEngineResult.Status.BUFFER_UNDERFLOW) {
+                        if (channel.read(netIn) < 0) {
+                            throw new EOFException("Connection closed during the TLS handshake with " + getName());
+                        }
+                    } else if (unwrapped.getStatus() != SSLEngineResult.Status.OK) {
+                        throw new SSLException("TLS handshake with " + getName() + " failed: "
+                                + unwrapped.getStatus());
+                    }
+                    status = unwrapped.getHandshakeStatus();
+                    break;
+                case NEED_TASK:
+                    Runnable task;
+                    while ((task = engine.getDelegatedTask()) != null) {
+                        task.run();
+                    }
+                    status = engine.getHandshakeStatus();
+                    break;
+                default:
+                    throw new SSLException("Unexpected TLS handshake status " + status);
+                }
+            }
+        }
+
+        void shutdown() {
+            try {
+                thread.join(SHUTDOWN_TIMEOUT_MILLIS);
+                if (thread.isAlive()) {
+                    // blocked on the network, give up on the buffered events
+                    thread.interrupt();
+                    thread.join(SHUTDOWN_TIMEOUT_MILLIS);
+                }
+            } catch (final InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            final int remaining = getBufferedBytes();
+            if (remaining > 0) {
+                LOGGER.warn("{} closed with {} bytes of events that were not sent", getName(), remaining);
+            }
+        }
+    }
+
+    /**
+     * Data for the factory.
+     */
+    private static class FactoryData {
+        private final SslConfiguration sslConfig;
+        private final boolean tls;
+        private final String host;
+        private final int port;
+        private final int connectTimeoutMillis;
+        private final int reconnectionDelayMillis;
+        private final boolean immediateFail;
+        private final int bufferSize;
+        private final Layout<? extends Serializable> layout;
+
+        public FactoryData(final SslConfiguration sslConfig, final boolean tls, final String host, final int port,
+                final int connectTimeoutMillis, final int reconnectionDelayMillis, final boolean immediateFail,
+                final int bufferSize, final Layout<? extends Serializable> layout) {
+            this.sslConfig = sslConfig;
+            this.tls = tls;
+            this.host = host;
+            this.port = port;
+            this.connectTimeoutMillis = connectTimeoutMillis;
+            this.reconnectionDelayMillis = reconnectionDelayMillis;
+            this.immediateFail = immediateFail;
+            this.bufferSize = bufferSize;
+            this.layout = layout;
+        }
+    }
+
+    /**
+     * Factory to create a BufferedSocketManager.
+     */
+    private static class BufferedSocketManagerFactory implements ManagerFactory<BufferedSocketManager, FactoryData> {
+        @Override
+        public BufferedSocketManager createManager(final String name, final FactoryData data) {
+            final InetAddress inetAddress;
+            try {
+                inetAddress = InetAddress.getByName(data.host);
+            } catch (final UnknownHostException ex) {
+                LOGGER.error("Could not find address of {}", data.host, ex);
+                return null;
+            }
+            SSLContext sslContext = null;
+            if (data.sslConfig != null) {
+                sslContext = data.sslConfig.getSslContext();
+            } else if (data.tls) {
+                try {
+                    sslContext = SSLContext.getDefault();
+                } catch (final NoSuchAlgorithmException ex) {
+                    LOGGER.error("Unable to obtain the default SSLContext for {}", name, ex);
+                    return null;
+                }
+            }
+            return new BufferedSocketManager(name, inetAddress, data.host, data.port, sslContext,
+                    data.connectTimeoutMillis, data.reconnectionDelayMillis, data.immediateFail, data.bufferSize,
+                    data.layout);
+        }
+    }
+}
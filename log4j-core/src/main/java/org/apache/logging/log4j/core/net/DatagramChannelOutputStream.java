@@ -0,0 +1,367 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache license, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the license for the specific language governing permissions and
+ * limitations under the license.
+ */
+package org.apache.logging.log4j.core.net;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.core.appender.AppenderLoggingException;
+import org.apache.logging.log4j.core.util.Log4jThread;
+import org.apache.logging.log4j.status.StatusLogger;
+
+/**
+ * OutputStream that sends the data written between two flushes as one UDP datagram through a {@link DatagramChannel}.
+ * <p>
+ * The data is collected in a reusable direct buffer, so sending a datagram neither allocates a packet nor copies the
+ * data again. If a queue size is specified, flushed datagrams are handed to a background thread that sends all queued
+ * datagrams each time it wakes up, and the logging thread does not wait for the socket. When the queue is full the
+ * logging thread either waits for a free slot or drops the datagram.
+ * </p>
+ * <p>
+ * This stream is not thread-safe, the {@link DatagramSocketManager} serializes access to it.
+ * </p>
+ *
+ * @since 2.6
+ */
+public class DatagramChannelOutputStream extends OutputStream {
+
+    /**
+     * Allow subclasses access to the status logger without creating another instance.
+     */
+    protected static final Logger LOGGER = StatusLogger.getLogger();
+
+    /** The largest payload of a UDP datagram over IPv4. */
+    public static final int MAX_DATAGRAM_SIZE = 65507;
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = 5000;
+
+    private static final ByteBuffer SHUTDOWN = ByteBuffer.allocate(0);
+
+    private final DatagramChannel channel;
+    private final InetSocketAddress target;
+    private final byte[] header;
+    private final byte[] footer;
+    private final Sender sender;
+    private final AtomicLong droppedCount = new AtomicLong();
+
+    /** The buffer of a synchronous stream, or the buffer that collects datagrams that are dropped. */
+    private ByteBuffer spare;
+    /** The buffer of the current datagram, or null if nothing was written since the last flush. */
+    private ByteBuffer current;
+    private boolean dropping;
+    private boolean writeHeader;
+    private boolean closed;
+
+    /**
+     * Constructs a stream that sends datagrams from the calling thread.
+     *
+     * @param host The host to send to.
+     * @param port The port on the host.
+     * @param header The data written at the start of each datagram but the first, may be null.
+     * @param footer The data written at the end of each datagram, may be null.
+     */
+    public DatagramChannelOutputStream(final String host, final int port, final byte[] header, final byte[] footer) {
+        this(host, port, header, footer, 0, true);
+    }
+
+    /**
+     * Constructs a stream.
+     *
+     * @param host The host to send to.
+     * @param port The port on the host.
+     * @param header The data written at the start of each datagram but the first, may be null.
+     * @param footer The data written at the end of each datagram, may be null.
+     * @param queueSize The number of datagrams that may wait for the background thread, or zero to send datagrams
+     *            from the calling thread.
+     * @param blocking If true, a flush waits for a free slot when the queue is full; otherwise the datagram is dropped.
+     */
+    public DatagramChannelOutputStream(final String host, final int port, final byte[] header, final byte[] footer,
+            final int queueSize, final boolean blocking) {
+        this.header = header;
+        this.footer = footer;
+        final InetAddress address;
+        try {
+            address = InetAddress.getByName(host);
+        } catch (final UnknownHostException ex) {
+            final String msg = "Could not find host " + host;
+            LOGGER.error(msg, ex);
+            throw new AppenderLoggingException(msg, ex);
+        }
+        this.target = new InetSocketAddress(address, port);
+        try {
+            // not connected, like a DatagramSocket, so that ICMP errors do not fail later sends
+            channel = DatagramChannel.open();
+        } catch (final IOException ex) {
+            final String msg = "Could not open DatagramChannel to " + host;
+            LOGGER.error(msg, ex);
+            throw new AppenderLoggingException(msg, ex);
+        }
+        if (queueSize > 0) {
+            sender = new Sender(queueSize, blocking);
+            sender.thread.start();
+        } else {
+            sender = null;
+        }
+    }
+
+    /**
+     * Returns the number of datagrams that were dropped because the queue was full.
+     *
+     * @return the number of dropped datagrams.
+     */
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    @Override
+    public void write(final byte[] bytes, final int offset, final int length) throws IOException {
+        reserve(length).put(bytes, offset, length);
+    }
+
+    @Override
+    public void write(final byte[] bytes) throws IOException {
+        write(bytes, 0, bytes.length);
+    }
+
+    @Override
+    public void write(final int b) throws IOException {
+        reserve(1).put((byte) b);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (current == null) {
+            return;
+        }
+        boolean enqueued = false;
+        try {
+            if (footer != null) {
+                reserve(footer.length).put(footer);
+            }
+            if (dropping) {
+                droppedCount.incrementAndGet();
+            } else {
+                current.flip();
+                if (sender == null) {
+                    channel.send(current, target);
+                } else {
+                    sender.enqueue(current);
+                    enqueued = true;
+                }
+            }
+        } finally {
+            if (!enqueued) {
+                discard();
+            }
+            current = null;
+            writeHeader = true;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            flush();
+        } finally {
+            if (sender != null) {
+                sender.shutdown();
+            }
+            channel.close();
+        }
+    }
+
+    private ByteBuffer reserve(final int length) throws IOException {
+        if (current == null) {
+            acquire();
+        }
+        if (current.remaining() < length) {
+            grow(length);
+        }
+        return current;
+    }
+
+    private void acquire() throws IOException {
+        ByteBuffer buffer = sender == null ? null : sender.acquire();
+        if (buffer == null) {
+            dropping = sender != null;
+            if (spare == null) {
+                spare = ByteBuffer.allocateDirect(INITIAL_CAPACITY);
+            }
+            buffer = spare;
+        }
+        current = buffer;
+        if (writeHeader && header != null) {
+            reserve(header.length).put(header);
+        }
+    }
+
+    private void grow(final int length) throws IOException {
+        final int required = current.position() + length;
+        if (required > MAX_DATAGRAM_SIZE) {
+            // the datagram cannot be sent
+            discard();
+            current = null;
+            throw new IOException("Datagram of " + required + " bytes to " + target + " exceeds the maximum of "
+                    + MAX_DATAGRAM_SIZE + " bytes");
+        }
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(
+                Math.min(MAX_DATAGRAM_SIZE, Math.max(required, current.capacity() * 2)));
+        current.flip();
+        buffer.put(current);
+        if (current == spare) {
+            spare = buffer;
+        }
+        current = buffer;
+    }
+
+    private void discard() {
+        if (current == null) {
+            return;
+        }
+        current.clear();
+        if (current != spare) {
+            sender.release(current);
+        }
+        dropping = false;
+    }
+
+    /**
+     * Sends the queued datagrams from a background thread. Buffers are recycled through a pool of at most queue size
+     * buffers, which are only allocated when needed.
+     */
+    private final class Sender implements Runnable {
+
+        private final BlockingQueue<ByteBuffer> free;
+        private final BlockingQueue<ByteBuffer> pending;
+        private final List<ByteBuffer> batch = new ArrayList<>();
+        private final int capacity;
+        private final boolean blocking;
+        private final Thread thread = new Log4jThread(this, "DatagramSender-" + target);
+        private int allocated;
+        private long reportedDrops;
+        private boolean failing;
+
+        Sender(final int capacity, final boolean blocking) {
+            this.capacity = capacity;
+            this.blocking = blocking;
+            this.free = new ArrayBlockingQueue<>(capacity);
+            // room for every buffer and the shutdown marker
+            this.pending = new ArrayBlockingQueue<>(capacity + 1);
+            thread.setDaemon(true);
+        }
+
+        ByteBuffer acquire() throws InterruptedIOException {
+            final ByteBuffer buffer = free.poll();
+            if (buffer != null) {
+                return buffer;
+            }
+            if (allocated < capacity) {
+                allocated++;
+                return ByteBuffer.allocateDirect(INITIAL_CAPACITY);
+            }
+            if (!blocking) {
+                return null;
+            }
+            try {
+                return free.take();
+            } catch (final InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting to send a datagram to " + target);
+            }
+        }
+
+        void release(final ByteBuffer buffer) {
+            free.offer(buffer);
+        }
+
+        void enqueue(final ByteBuffer buffer) {
+            pending.offer(buffer);
+        }
+
+        @Override
+        public void run() {
+            boolean shutdown = false;
+            while (!shutdown) {
+                try {
+                    batch.add(pending.take());
+                } catch (final InterruptedException ex) {
+                    break;
+                }
+                pending.drainTo(batch);
+                for (final ByteBuffer buffer : batch) {
+                    if (buffer == SHUTDOWN) {
+                        shutdown = true;
+                        continue;
+                    }
+                    send(buffer);
+                    buffer.clear();
+                    release(buffer);
+                }
+                batch.clear();
+                reportDrops();
+            }
+        }
+
+        private void send(final ByteBuffer buffer) {
+            try {
+                channel.send(buffer, target);
+                failing = false;
+            } catch (final IOException ex) {
+                if (!failing) {
+                    // only report the first of consecutive failures
+                    LOGGER.error("Unable to send datagram to {}", target, ex);
+                    failing = true;
+                }
+            }
+        }
+
+        private void reportDrops() {
+            final long dropped = droppedCount.get();
+            if (dropped != reportedDrops) {
+                LOGGER.warn("Dropped {} datagrams to {} because the queue was full", dropped - reportedDrops, target);
+                reportedDrops = dropped;
+            }
+        }
+
+        void shutdown() {
+            pending.offer(SHUTDOWN);
+            try {
+                thread.join(SHUTDOWN_TIMEOUT_MILLIS);
+            } catch (final InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -16,6 +16,7 @@
  */
 package org.apache.logging.log4j.core.net;
 
+import java.io.IOException;
 import java.io.OutputStream;
 import java.io.Serializable;
 import java.net.InetAddress;
@@ -24,11 +25,17 @@ import java.util.HashMap;
 import java.util.Map;
 
 import org.apache.logging.log4j.core.Layout;
+import org.apache.logging.log4j.core.appender.AppenderLoggingException;
 import org.apache.logging.log4j.core.appender.ManagerFactory;
+import org.apache.logging.log4j.core.layout.GelfLayout;
 import org.apache.logging.log4j.util.Strings;
 
 /**
  * Socket Manager for UDP connections.
+ * <p>
+ * Each event is sent as one datagram through a {@link DatagramChannelOutputStream}, either from the logging thread or,
+ * if a queue size is specified, from a background thread.
+ * </p>
  */
 public class DatagramSocketManager extends AbstractSocketManager {
 
@@ -56,16 +63,56 @@ public class DatagramSocketManager extends AbstractSocketManager {
      * @return A DatagramSocketManager.
      */
     public static DatagramSocketManager getSocketManager(final String host, final int port, final Layout<? extends Serializable> layout) {
+        return getSocketManager(host, port, layout, 0, true);
+    }
+
+    /**
+     * Obtain a SocketManager.
+     * @param host The host to connect to.
+     * @param port The port on the host.
+     * @param layout The layout.
+     * @param queueSize The number of datagrams that may wait to be sent by a background thread, or zero to send
+     *            datagrams from the logging thread.
+     * @param blocking If true, the logging thread waits when the queue is full; otherwise the datagram is dropped.
+     * @return A DatagramSocketManager.
+     * @since 2.6
+     */
+    public static DatagramSocketManager getSocketManager(final String host, final int port,
+            final Layout<? extends Serializable> layout, final int queueSize, final boolean blocking) {
         if (Strings.isEmpty(host)) {
             throw new IllegalArgumentException("A host name is required");
         }
         if (port <= 0) {
             throw new IllegalArgumentException("A port value is required");
         }
-        return (DatagramSocketManager) getManager("UDP:" + host + ':' + port, new FactoryData(host, port, layout),
+        // appenders that queue differently must not share a manager
+        final String name = "UDP:" + host + ':' + port + ':' + queueSize + ':' + blocking;
+        return (DatagramSocketManager) getManager(name, new FactoryData(host, port, layout, queueSize, blocking),
             FACTORY);
     }
 
+    /**
+     * Writes the bytes of an event. A message of a {@link GelfLayout} that does not fit in a single datagram is sent
+     * as GELF chunks, one datagram per chunk.
+     */
+    @Override
+    protected synchronized void write(final byte[] bytes, final int offset, final int length,
+            final boolean immediateFlush) {
+        if (!(layout instanceof GelfLayout) || !((GelfLayout) layout).isChunked(length)) {
+            super.write(bytes, offset, length, immediateFlush);
+            return;
+        }
+        try {
+            final OutputStream os = getOutputStream();
+            // send what was buffered before, the chunks must not share a datagram with other data
+            os.flush();
+            ((GelfLayout) layout).writeChunks(bytes, offset, length, os);
+        } catch (final IOException ex) {
+            final String msg = "Error writing to stream " + getName();
+            throw new AppenderLoggingException(msg, ex);
+        }
+    }
+
     /**
      * Gets this DatagramSocketManager's content format. Specified by:
      * <ul>
@@ -90,11 +137,20 @@ public class DatagramSocketManager extends AbstractSocketManager {
         private final String host;
         private final int port;
         private final Layout<? extends Serializable> layout;
+        private final int queueSize;
+        private final boolean blocking;
 
         public FactoryData(final String host, final int port, final Layout<? extends Serializable> layout) {
+            this(host, port, layout, 0, true);
+        }
+
+        public FactoryData(final String host, final int port, final Layout<? extends Serializable> layout,
+                final int queueSize, final boolean blocking) {
             this.host = host;
             this.port = port;
             this.layout = layout;
+            this.queueSize = queueSize;
+            this.blocking = blocking;
         }
     }
 
@@ -112,8 +168,8 @@ public class DatagramSocketManager extends AbstractSocketManager {
                 LOGGER.error("Could not find address of " + data.host, ex);
                 return null;
             }
-            final OutputStream os = new DatagramOutputStream(data.host, data.port, data.layout.getHeader(),
-                    data.layout.getFooter());
+            final OutputStream os = new DatagramChannelOutputStream(data.host, data.port, data.layout.getHeader(),
+                    data.layout.getFooter(), data.queueSize, data.blocking);
             return new DatagramSocketManager(name, os, inetAddress, data.host, data.port, data.layout);
         }
     }
@@ -19,8 +19,15 @@ package org.apache.logging.log4j.core.net;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.activation.DataSource;
 import javax.mail.Authenticator;
@@ -42,9 +49,11 @@ import org.apache.logging.log4j.core.LogEvent;
 import org.apache.logging.log4j.core.appender.AbstractManager;
 import org.apache.logging.log4j.core.appender.ManagerFactory;
 import org.apache.logging.log4j.core.config.Configuration;
+import org.apache.logging.log4j.core.impl.Log4jLogEvent;
 import org.apache.logging.log4j.core.layout.AbstractStringLayout.Serializer;
 import org.apache.logging.log4j.core.layout.PatternLayout;
 import org.apache.logging.log4j.core.util.CyclicBuffer;
+import org.apache.logging.log4j.core.util.Log4jThread;
 import org.apache.logging.log4j.core.util.NameUtil;
 import org.apache.logging.log4j.core.util.NetUtils;
 import org.apache.logging.log4j.util.PropertiesUtil;
@@ -52,10 +61,23 @@ import org.apache.logging.log4j.util.Strings;
 
 /**
  * Manager for sending SMTP events.
+ * <p>
+ * If asynchronous delivery is enabled, the logging thread only takes a snapshot of the buffered events and a
+ * background thread sends the mails. Mails requested while the thread waits for the batch delay or for the rate limit
+ * are sent together as one mail.
+ * </p>
  */
 public class SmtpManager extends AbstractManager {
     private static final SMTPManagerFactory FACTORY = new SMTPManagerFactory();
 
+    /** Default number of mails waiting for asynchronous delivery. */
+    public static final int DEFAULT_QUEUE_SIZE = 16;
+
+    /** Default period of the rate limit in seconds. */
+    public static final int DEFAULT_RATE_LIMIT_PERIOD_SECONDS = 60;
+
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = 10000;
+
     private final Session session;
     
     private final CyclicBuffer<LogEvent> buffer;
@@ -64,6 +86,9 @@ public class SmtpManager extends AbstractManager {
 
     private final FactoryData data;
 
+    /** Delivers mails in the background, or null if mails are sent by the logging thread. */
+    private final Delivery delivery;
+
     private static MimeMessage createMimeMessage(final FactoryData data, final Session session, LogEvent appendEvent)
             throws MessagingException {
         return new MimeMessageBuilder(session).setFrom(data.from).setReplyTo(data.replyto)
@@ -79,10 +104,17 @@ public class SmtpManager extends AbstractManager {
         this.message = message;
         this.data = data;
         this.buffer = new CyclicBuffer<>(LogEvent.class, data.numElements);
+        this.delivery = data.async ? new Delivery(data.queueSize, data.batchDelayMillis, data.rateLimit,
+                data.rateLimitPeriodSeconds) : null;
     }
 
     public void add(final LogEvent event) {
-        buffer.add(event);
+        buffer.add(snapshot(event));
+    }
+
+    private static LogEvent snapshot(final LogEvent event) {
+        // events that are not Log4jLogEvents may be reused, like the events of asynchronous loggers
+        return event instanceof Log4jLogEvent ? event : new Log4jLogEvent.Builder(event).build();
     }
 
     public static SmtpManager getSmtpManager(
@@ -139,6 +171,66 @@ public class SmtpManager extends AbstractManager {
             protocol, host, port, username, password, isDebug, numElements));
     }
 
+    /**
+     * Gets a manager that sends mails in the background.
+     *
+     * @param config The Configuration.
+     * @param to The comma-separated list of recipient email addresses.
+     * @param cc The comma-separated list of CC email addresses.
+     * @param bcc The comma-separated list of BCC email addresses.
+     * @param from The email address of the sender.
+     * @param replyTo The comma-separated list of reply-to email addresses.
+     * @param subject The subject pattern.
+     * @param protocol The SMTP transport protocol.
+     * @param host The SMTP hostname to send to.
+     * @param port The SMTP port to send to.
+     * @param username The username required to authenticate against the SMTP server.
+     * @param password The password required to authenticate against the SMTP server.
+     * @param isDebug Enable mail session debugging on STDOUT.
+     * @param filterName The name of the appender filter.
+     * @param numElements The number of events buffered for inclusion in a mail.
+     * @param queueSize The maximum number of mails waiting for delivery; further mails are dropped.
+     * @param batchDelayMillis The time the delivery waits for further mails to send together with the first one.
+     * @param rateLimit The maximum number of mails sent per rate limit period, or 0 for no limit.
+     * @param rateLimitPeriodSeconds The period of the rate limit in seconds.
+     * @return The SmtpManager.
+     * @since 2.6
+     */
+    public static SmtpManager getAsyncSmtpManager(final Configuration config, final String to, final String cc,
+            final String bcc, final String from, final String replyTo, final String subject, final String protocol,
+            final String host, final int port, final String username, final String password, final boolean isDebug,
+            final String filterName, final int numElements, final int queueSize, final int batchDelayMillis,
+            final int rateLimit, final int rateLimitPeriodSeconds) {
+        final String actualProtocol = Strings.isEmpty(protocol) ? "smtp" : protocol;
+        final String name = "SMTP:" + NameUtil.md5(to + ':' + cc + ':' + bcc + ':' + from + ':' + replyTo + ':'
+                + subject + ':' + actualProtocol + ':' + host + ':' + port + ':' + username + ':' + password + ':'
+                + isDebug + ':' + filterName + ":async:" + queueSize + ':' + batchDelayMillis + ':' + rateLimit + ':'
+                + rateLimitPeriodSeconds);
+        final Serializer subjectSerializer = PatternLayout.createSerializer(config, null, subject, null, null, false,
+                false);
+        return getManager(name, FACTORY, new FactoryData(to, cc, bcc, from, replyTo, subjectSerializer,
+                actualProtocol, host, port, username, password, isDebug, numElements, true,
+                queueSize > 0 ? queueSize : DEFAULT_QUEUE_SIZE, Math.max(0, batchDelayMillis), Math.max(0, rateLimit),
+                rateLimitPeriodSeconds > 0 ? rateLimitPeriodSeconds : DEFAULT_RATE_LIMIT_PERIOD_SECONDS));
+    }
+
+    /**
+     * Indicates whether mails are sent by a background thread.
+     *
+     * @return true if delivery is asynchronous.
+     * @since 2.6
+     */
+    public boolean isAsync() {
+        return delivery != null;
+    }
+
+    @Override
+    protected void releaseSub() {
+        if (delivery != null) {
+            delivery.shutdown();
+        }
+    }
+
     /**
      * Send the contents of the cyclic buffer as an e-mail message.
      * @param layout The layout for formatting the events.
@@ -148,10 +240,20 @@ public class SmtpManager extends AbstractManager {
         if (message == null) {
             connect(appendEvent);
         }
-        try {
+        // LOG4J-310: log appendEvent even if priorEvents is empty
+        if (delivery != null) {
             final LogEvent[] priorEvents = buffer.removeAll();
-            // LOG4J-310: log appendEvent even if priorEvents is empty
+            final LogEvent[] events = new LogEvent[priorEvents.length + 1];
+            System.arraycopy(priorEvents, 0, events, 0, priorEvents.length);
+            events[priorEvents.length] = snapshot(appendEvent);
+            delivery.enqueue(new PendingMail(layout, events));
+            return;
+        }
+        sendEvents(layout, buffer.removeAll(), appendEvent);
+    }
 
+    private void sendEvents(final Layout<?> layout, final LogEvent[] priorEvents, final LogEvent appendEvent) {
+        try {
             final byte[] rawBytes = formatContentToBytes(priorEvents, appendEvent, layout);
 
             final String contentType = layout.getContentType();
@@ -273,10 +375,24 @@ public class SmtpManager extends AbstractManager {
         private final String password;
         private final boolean isDebug;
         private final int numElements;
+        private final boolean async;
+        private final int queueSize;
+        private final int batchDelayMillis;
+        private final int rateLimit;
+        private final int rateLimitPeriodSeconds;
 
         public FactoryData(final String to, final String cc, final String bcc, final String from, final String replyTo,
                            final Serializer subjectSerializer, final String protocol, final String host, final int port,
                            final String username, final String password, final boolean isDebug, final int numElements) {
+            this(to, cc, bcc, from, replyTo, subjectSerializer, protocol, host, port, username, password, isDebug,
+                    numElements, false, 0, 0, 0, 0);
+        }
+
+        public FactoryData(final String to, final String cc, final String bcc, final String from, final String replyTo,
+                           final Serializer subjectSerializer, final String protocol, final String host, final int port,
+                           final String username, final String password, final boolean isDebug, final int numElements,
+                           final boolean async, final int queueSize, final int batchDelayMillis, final int rateLimit,
+                           final int rateLimitPeriodSeconds) {
             this.to = to;
             this.cc = cc;
             this.bcc = bcc;
@@ -290,6 +406,165 @@ public class SmtpManager extends AbstractManager {
             this.password = password;
             this.isDebug = isDebug;
             this.numElements = numElements;
+            this.async = async;
+            this.queueSize = queueSize;
+            this.batchDelayMillis = batchDelayMillis;
+            this.rateLimit = rateLimit;
+            this.rateLimitPeriodSeconds = rateLimitPeriodSeconds;
+        }
+    }
+
+    /**
+     * The events of a mail waiting for asynchronous delivery.
+     */
+    private static final class PendingMail {
+        private final Layout<?> layout;
+        private final LogEvent[] events;
+
+        PendingMail(final Layout<?> layout, final LogEvent[] events) {
+            this.layout = layout;
+            this.events = events;
+        }
+    }
+
+    /**
+     * Background thread that sends the pending mails. The thread waits for the batch delay after the first pending
+     * mail, and for the rate limit if it has been reached, and sends the events of all mails that became pending in
+     * the meantime as one mail. At most {@code queueSize} mails wait in the queue and at most as many are merged into
+     * one mail, which bounds the memory used for events.
+     */
+    private class Delivery implements Runnable {
+        private static final long POLL_NANOS = 100 * 1000 * 1000L;
+
+        private final Thread thread = new Log4jThread(this, "SmtpManager-" + getName());
+        private final BlockingQueue<PendingMail> queue;
+        private final int maxBatchSize;
+        private final long batchDelayNanos;
+        private final int rateLimit;
+        private final long rateLimitPeriodNanos;
+        /** The times at which the mails of the current rate limit period were sent. */
+        private final ArrayDeque<Long> sendTimes = new ArrayDeque<>();
+        private final AtomicInteger dropped = new AtomicInteger();
+        private volatile boolean shutdown;
+
+        Delivery(final int queueSize, final int batchDelayMillis, final int rateLimit,
+                final int rateLimitPeriodSeconds) {
+            this.queue = new ArrayBlockingQueue<>(queueSize);
+            this.maxBatchSize = queueSize;
+            this.batchDelayNanos = TimeUnit.MILLISECONDS.toNanos(batchDelayMillis);
+            this.rateLimit = rateLimit;
+            this.rateLimitPeriodNanos = TimeUnit.SECONDS.toNanos(rateLimitPeriodSeconds);
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        void enqueue(final PendingMail mail) {
+            if (!queue.offer(mail)) {
+                dropped.incrementAndGet();
+            }
+        }
+
+        void shutdown() {
+            shutdown = true;
+            try {
+                thread.join(SHUTDOWN_TIMEOUT_MILLIS);
+            } catch (final InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        @Override
+        public void run() {
+            final List<PendingMail> batch = new ArrayList<>();
+            while (!shutdown || !queue.isEmpty()) {
+                try {
+                    final PendingMail first = queue.poll(POLL_NANOS, TimeUnit.NANOSECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+                    batch.add(first);
+                    collect(batch, System.nanoTime() + batchDelayNanos);
+                    awaitRateLimit(batch);
+                } catch (final InterruptedException ex) {
+                    shutdown = true;
+                }
+                queue.drainTo(batch, maxBatchSize - batch.size());
+                deliver(batch);
+                batch.clear();
+            }
+        }
+
+        /**
+         * Adds the mails that become pending until the deadline to the batch, unless shutting down.
+         */
+        private void collect(final List<PendingMail> batch, final long deadline) throws InterruptedException {
+            long remaining;
+            while (!shutdown && batch.size() < maxBatchSize && (remaining = deadline - System.nanoTime()) > 0) {
+                final PendingMail mail = queue.poll(Math.min(remaining, POLL_NANOS), TimeUnit.NANOSECONDS);
+                if (mail != null) {
+                    batch.add(mail);
+                }
+            }
+        }
+
+        private void awaitRateLimit(final List<PendingMail> batch) throws InterruptedException {
+            if (rateLimit <= 0) {
+                return;
+            }
+            while (!shutdown) {
+                final long now = System.nanoTime();
+                while (!sendTimes.isEmpty() && now - sendTimes.peekFirst() >= rateLimitPeriodNanos) {
+                    sendTimes.removeFirst();
+                }
+                if (sendTimes.size() < rateLimit) {
+                    return;
+                }
+                final long deadline = sendTimes.peekFirst() + rateLimitPeriodNanos;
+                collect(batch, deadline);
+                if (batch.size() >= maxBatchSize) {
+                    // the batch is full, wait without taking more mails
+                    final long remaining = deadline - System.nanoTime();
+                    if (remaining > 0) {
+                        TimeUnit.NANOSECONDS.sleep(Math.min(remaining, POLL_NANOS));
+                    }
+                }
+            }
+        }
+
+        /**
+         * Sends the events of consecutive mails with the same layout as one mail.
+         */
+        private void deliver(final List<PendingMail> batch) {
+            final int droppedMails = dropped.getAndSet(0);
+            if (droppedMails > 0) {
+                logWarn("dropped " + droppedMails + " e-mail notifications because the delivery queue was full", null);
+            }
+            int start = 0;
+            while (start < batch.size()) {
+                final Layout<?> layout = batch.get(start).layout;
+                int end = start + 1;
+                while (end < batch.size() && batch.get(end).layout == layout) {
+                    end++;
+                }
+                send(layout, batch.subList(start, end));
+                start = end;
+            }
+        }
+
+        private void send(final Layout<?> layout, final List<PendingMail> mails) {
+            final List<LogEvent> events = new ArrayList<>();
+            for (final PendingMail mail : mails) {
+                for (final LogEvent event : mail.events) {
+                    events.add(event);
+                }
+            }
+            final LogEvent appendEvent = events.remove(events.size() - 1);
+            sendTimes.addLast(System.nanoTime());
+            try {
+                sendEvents(layout, events.toArray(new LogEvent[events.size()]), appendEvent);
+            } catch (final LoggingException ex) {
+                // already reported
+            }
         }
     }
 
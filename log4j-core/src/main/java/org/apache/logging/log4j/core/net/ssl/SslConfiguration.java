@@ -62,6 +62,40 @@ public class SslConfiguration {
         return sslContext.getServerSocketFactory();
     }
 
+    /**
+     * Returns the SSLContext created from this configuration, for example to create an {@code SSLEngine}.
+     *
+     * @return the SSLContext.
+     * @since 2.6
+     */
+    public SSLContext getSslContext() {
+        return sslContext;
+    }
+
+    /**
+     * @return the protocol of the SSLContext.
+     * @since 2.6
+     */
+    public String getProtocol() {
+        return protocol;
+    }
+
+    /**
+     * @return the key store configuration, or null.
+     * @since 2.6
+     */
+    public KeyStoreConfiguration getKeyStoreConfig() {
+        return keyStoreConfig;
+    }
+
+    /**
+     * @return the trust store configuration, or null.
+     * @since 2.6
+     */
+    public TrustStoreConfiguration getTrustStoreConfig() {
+        return trustStoreConfig;
+    }
+
     private SSLContext createSslContext() {
         SSLContext context = null;
 
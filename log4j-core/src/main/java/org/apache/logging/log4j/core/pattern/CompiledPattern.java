@@ -0,0 +1,140 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache license, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the license for the specific language governing permissions and
+ * limitations under the license.
+ */
+package org.apache.logging.log4j.core.pattern;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.logging.log4j.core.LogEvent;
+
+/**
+ * A list of PatternFormatters prepared for repeated formatting.
+ * <p>
+ * Compiling the formatters folds the output of converters that does not depend on the event, like literal text and
+ * line separators, into a single literal including any padding, so that each run of constant text costs one append.
+ * Converters are called directly and the width and alignment of a field is only applied when it can change the
+ * output.
+ * </p>
+ */
+public final class CompiledPattern {
+
+    private final LogEventPatternConverter[] converters;
+
+    /** Formatting for each converter, or null if the formatting does not modify the output. */
+    private final FormattingInfo[] fields;
+
+    private CompiledPattern(final LogEventPatternConverter[] converters, final FormattingInfo[] fields) {
+        this.converters = converters;
+        this.fields = fields;
+    }
+
+    /**
+     * Compiles the specified formatters.
+     *
+     * @param formatters The formatters created by a {@link PatternParser}.
+     * @return The CompiledPattern.
+     */
+    public static CompiledPattern compile(final List<PatternFormatter> formatters) {
+        return compile(formatters.toArray(new PatternFormatter[formatters.size()]));
+    }
+
+    /**
+     * Compiles the specified formatters.
+     *
+     * @param formatters The formatters created by a {@link PatternParser}, for example as returned by a
+     *            PatternSelector.
+     * @return The CompiledPattern.
+     */
+    public static CompiledPattern compile(final PatternFormatter[] formatters) {
+        final List<LogEventPatternConverter> converters = new ArrayList<>(formatters.length);
+        final List<FormattingInfo> fields = new ArrayList<>(formatters.length);
+        final StringBuilder literal = new StringBuilder();
+        for (final PatternFormatter formatter : formatters) {
+            final LogEventPatternConverter converter = formatter.getConverter();
+            final FormattingInfo field = isNoop(formatter.getFormattingInfo()) ? null : formatter.getFormattingInfo();
+            if (isConstant(converter)) {
+                final int start = literal.length();
+                converter.format((LogEvent) null, literal);
+                if (field != null) {
+                    field.format(start, literal);
+                }
+                continue;
+            }
+            if (literal.length() > 0) {
+                converters.add(new LiteralPatternConverter(null, literal.toString(), false));
+                fields.add(null);
+                literal.setLength(0);
+            }
+            converters.add(converter);
+            fields.add(field);
+        }
+        if (literal.length() > 0) {
+            converters.add(new LiteralPatternConverter(null, literal.toString(), false));
+            fields.add(null);
+        }
+        return new CompiledPattern(converters.toArray(new LogEventPatternConverter[converters.size()]),
+                fields.toArray(new FormattingInfo[fields.size()]));
+    }
+
+    private static boolean isConstant(final LogEventPatternConverter converter) {
+        if (converter instanceof LiteralPatternConverter) {
+            return !((LiteralPatternConverter) converter).isSubstituted();
+        }
+        return converter instanceof LineSeparatorPatternConverter;
+    }
+
+    private static boolean isNoop(final FormattingInfo field) {
+        return field == null || field.getMinLength() <= 0 && field.getMaxLength() == Integer.MAX_VALUE;
+    }
+
+    /**
+     * Formats the event into the specified StringBuilder.
+     *
+     * @param event The event to format.
+     * @param buf The StringBuilder to append to.
+     */
+    public void format(final LogEvent event, final StringBuilder buf) {
+        final LogEventPatternConverter[] converters = this.converters;
+        final FormattingInfo[] fields = this.fields;
+        for (int i = 0; i < converters.length; i++) {
+            final FormattingInfo field = fields[i];
+            if (field == null) {
+                converters[i].format(event, buf);
+            } else {
+                final int start = buf.length();
+                converters[i].format(event, buf);
+                field.format(start, buf);
+            }
+        }
+    }
+
+    /**
+     * Returns the converters that are called for each event.
+     *
+     * @return The converters.
+     */
+    public LogEventPatternConverter[] getConverters() {
+        return converters.clone();
+    }
+
+    @Override
+    public String toString() {
+        return "CompiledPattern[converters=" + Arrays.toString(converters) + ", fields=" + Arrays.toString(fields)
+                + "]";
+    }
+}
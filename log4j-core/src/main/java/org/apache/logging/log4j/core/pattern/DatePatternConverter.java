@@ -19,10 +19,10 @@ package org.apache.logging.log4j.core.pattern;
 import java.util.Date;
 import java.util.Objects;
 import java.util.TimeZone;
-import java.util.concurrent.atomic.AtomicReference;
 
 import org.apache.logging.log4j.core.LogEvent;
 import org.apache.logging.log4j.core.config.plugins.Plugin;
+import org.apache.logging.log4j.core.util.PreciseTime;
 import org.apache.logging.log4j.core.util.datetime.FastDateFormat;
 import org.apache.logging.log4j.core.util.datetime.FixedDateFormat;
 import org.apache.logging.log4j.core.util.datetime.FixedDateFormat.FixedFormat;
@@ -35,23 +35,90 @@ import org.apache.logging.log4j.core.util.datetime.FixedDateFormat.FixedFormat;
 public final class DatePatternConverter extends LogEventPatternConverter implements ArrayPatternConverter {
 
     private abstract static class Formatter {
-        abstract String format(long timeMillis);
+        abstract void format(long timeMillis, int nanoOfMillisecond, StringBuilder output);
 
         public String toPattern() {
             return null;
         }
     }
 
+    /**
+     * Formats an arbitrary pattern, reusing the result while the millisecond does not change.
+     */
     private static final class PatternFormatter extends Formatter {
         private final FastDateFormat fastDateFormat;
+        private volatile CachedTime cachedTime = new CachedTime(Long.MIN_VALUE, null);
 
         PatternFormatter(final FastDateFormat fastDateFormat) {
             this.fastDateFormat = fastDateFormat;
         }
 
         @Override
-        String format(final long timeMillis) {
-            return fastDateFormat.format(timeMillis);
+        void format(final long timeMillis, final int nanoOfMillisecond, final StringBuilder output) {
+            CachedTime cached = cachedTime;
+            if (cached.timestamp != timeMillis) {
+                // racing threads may each format the same time, but never append another thread's result
+                cached = new CachedTime(timeMillis, fastDateFormat.format(timeMillis));
+                cachedTime = cached;
+            }
+            output.append(cached.formatted);
+        }
+
+        @Override
+        public String toPattern() {
+            return fastDateFormat.toPattern();
+        }
+    }
+
+    /**
+     * Formats a pattern that ends with the fraction of the second ({@code SSS} to {@code SSSSSSSSS}) or does not
+     * contain it at all. The text up to the seconds only changes once per second, so it is cached per second and the
+     * fraction is appended as digits.
+     */
+    private static final class SecondFormatter extends Formatter {
+        private final FastDateFormat fastDateFormat;
+        private final FastDateFormat prefixFormat;
+        private final int fractionDigits;
+        private volatile CachedTime cachedSecond = new CachedTime(Long.MIN_VALUE, null);
+
+        SecondFormatter(final FastDateFormat fastDateFormat, final FastDateFormat prefixFormat,
+                final int fractionDigits) {
+            this.fastDateFormat = fastDateFormat;
+            this.prefixFormat = prefixFormat;
+            this.fractionDigits = fractionDigits;
+        }
+
+        @Override
+        void format(final long timeMillis, final int nanoOfMillisecond, final StringBuilder output) {
+            long second = timeMillis / 1000;
+            int millis = (int) (timeMillis - second * 1000);
+            if (millis < 0) {
+                second--;
+                millis += 1000;
+            }
+            CachedTime cached = cachedSecond;
+            if (cached.timestamp != second) {
+                cached = new CachedTime(second, prefixFormat.format(second * 1000));
+                cachedSecond = cached;
+            }
+            output.append(cached.formatted);
+            if (fractionDigits > 0) {
+                FixedDateFormat.writeMillis(millis, output);
+                if (fractionDigits > MILLIS_DIGITS) {
+                    writeFraction(nanoOfMillisecond, fractionDigits - MILLIS_DIGITS, output);
+                }
+            }
+        }
+
+        /**
+         * Appends the leading digits of the six digit nanoseconds within the millisecond.
+         */
+        private static void writeFraction(final int nanoOfMillisecond, final int digits, final StringBuilder output) {
+            int divisor = 100000;
+            for (int i = 0; i < digits; i++) {
+                output.append((char) ('0' + nanoOfMillisecond / divisor % 10));
+                divisor /= 10;
+            }
         }
 
         @Override
@@ -68,8 +135,8 @@ public final class DatePatternConverter extends LogEventPatternConverter impleme
         }
 
         @Override
-        String format(final long timeMillis) {
-            return fixedDateFormat.format(timeMillis);
+        void format(final long timeMillis, final int nanoOfMillisecond, final StringBuilder output) {
+            fixedDateFormat.format(timeMillis, output);
         }
 
         @Override
@@ -81,26 +148,26 @@ public final class DatePatternConverter extends LogEventPatternConverter impleme
     private static final class UnixFormatter extends Formatter {
 
         @Override
-        String format(final long timeMillis) {
-            return Long.toString(timeMillis / 1000);
+        void format(final long timeMillis, final int nanoOfMillisecond, final StringBuilder output) {
+            output.append(timeMillis / 1000);
         }
     }
 
     private static final class UnixMillisFormatter extends Formatter {
 
         @Override
-        String format(final long timeMillis) {
-            return Long.toString(timeMillis);
+        void format(final long timeMillis, final int nanoOfMillisecond, final StringBuilder output) {
+            output.append(timeMillis);
         }
     }
 
-    private final class CachedTime {
-        public long timestampMillis;
-        public String formatted;
+    private static final class CachedTime {
+        private final long timestamp;
+        private final String formatted;
 
-        public CachedTime(final long timestampMillis) {
-            this.timestampMillis = timestampMillis;
-            this.formatted = formatter.format(this.timestampMillis);
+        CachedTime(final long timestamp, final String formatted) {
+            this.timestamp = timestamp;
+            this.formatted = formatted;
         }
     }
 
@@ -114,7 +181,16 @@ public final class DatePatternConverter extends LogEventPatternConverter impleme
      */
     private static final String UNIX_MILLIS_FORMAT = "UNIX_MILLIS";
 
-    private final AtomicReference<CachedTime> cachedTime;
+    /**
+     * Returned by {@link #millisIndex(String)} for patterns without milliseconds.
+     */
+    static final int NO_MILLIS = Integer.MAX_VALUE;
+
+    private static final int MILLIS_DIGITS = 3;
+
+    /** The most fraction digits, nanoseconds. */
+    private static final int MAX_FRACTION_DIGITS = 9;
+
     private final Formatter formatter;
 
     /**
@@ -131,7 +207,6 @@ public final class DatePatternConverter extends LogEventPatternConverter impleme
         } else {
             formatter = createFormatter(options);
         }
-        cachedTime = new AtomicReference<>(new CachedTime(System.currentTimeMillis()));
     }
 
     /**
@@ -174,6 +249,14 @@ public final class DatePatternConverter extends LogEventPatternConverter impleme
 
         try {
             final FastDateFormat tempFormat = FastDateFormat.getInstance(pattern, tz);
+            final int millisIndex = millisIndex(pattern);
+            if (millisIndex == NO_MILLIS) {
+                return new SecondFormatter(tempFormat, tempFormat, 0);
+            }
+            if (millisIndex > 0) {
+                final FastDateFormat prefixFormat = FastDateFormat.getInstance(pattern.substring(0, millisIndex), tz);
+                return new SecondFormatter(tempFormat, prefixFormat, pattern.length() - millisIndex);
+            }
             return new PatternFormatter(tempFormat);
         } catch (final IllegalArgumentException e) {
             LOGGER.warn("Could not instantiate FastDateFormat with pattern " + pattern, e);
@@ -183,6 +266,38 @@ public final class DatePatternConverter extends LogEventPatternConverter impleme
         }
     }
 
+    /**
+     * Finds the milliseconds field of a pattern. A trailing field of four to nine {@code S} letters is the fraction of
+     * the second with that many digits, like {@code SSSSSS} for microseconds, rather than zero-padded milliseconds.
+     *
+     * @param pattern the FastDateFormat pattern
+     * @return the index of a trailing {@code SSS} to {@code SSSSSSSSS} field, {@link #NO_MILLIS} if the pattern has
+     *         no field that changes more often than once per second, or -1 if the milliseconds appear elsewhere.
+     */
+    static int millisIndex(final String pattern) {
+        boolean inQuote = false;
+        int millisIndex = NO_MILLIS;
+        for (int i = 0; i < pattern.length(); i++) {
+            final char c = pattern.charAt(i);
+            if (c == '\'') {
+                inQuote = !inQuote;
+            } else if (!inQuote && c == 'S') {
+                if (millisIndex != NO_MILLIS) {
+                    return -1;
+                }
+                millisIndex = i;
+                while (i + 1 < pattern.length() && pattern.charAt(i + 1) == 'S') {
+                    i++;
+                }
+                final int digits = i - millisIndex + 1;
+                if (digits < MILLIS_DIGITS || digits > MAX_FRACTION_DIGITS || i != pattern.length() - 1) {
+                    return -1;
+                }
+            }
+        }
+        return millisIndex;
+    }
+
     /**
      * Appends formatted date to string buffer.
      *
@@ -198,20 +313,11 @@ public final class DatePatternConverter extends LogEventPatternConverter impleme
      */
     @Override
     public void format(final LogEvent event, final StringBuilder output) {
-        format(event.getTimeMillis(), output);
+        formatter.format(event.getTimeMillis(), PreciseTime.nanoOfMillisecond(event), output);
     }
 
     public void format(final long timestampMillis, final StringBuilder output) {
-        CachedTime cached = cachedTime.get();
-        if (timestampMillis != cached.timestampMillis) {
-            final CachedTime newTime = new CachedTime(timestampMillis);
-            if (cachedTime.compareAndSet(cached, newTime)) {
-                cached = newTime;
-            } else {
-                cached = cachedTime.get();
-            }
-        }
-        output.append(cached.formatted);
+        formatter.format(timestampMillis, 0, output);
     }
 
     /**
@@ -55,7 +55,7 @@ public final class LiteralPatternConverter extends LogEventPatternConverter impl
      */
     @Override
     public void format(final LogEvent event, final StringBuilder toAppendTo) {
-        toAppendTo.append(substitute ? config.getStrSubstitutor().replace(event, literal) : literal);
+        toAppendTo.append(substitute ? config.getStrSubstitutor().compile(literal).evaluate(event) : literal);
     }
     
     /**
@@ -78,6 +78,15 @@ public final class LiteralPatternConverter extends LogEventPatternConverter impl
         return literal;
     }
 
+    /**
+     * Indicates whether the literal contains variables that are substituted for each event.
+     *
+     * @return {@code true} if the formatted literal may vary between events.
+     */
+    boolean isSubstituted() {
+        return substitute;
+    }
+
     @Override
     public boolean isVariable() {
         return false;
@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache license, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the license for the specific language governing permissions and
+ * limitations under the license.
+ */
+package org.apache.logging.log4j.core.util;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.util.PropertiesUtil;
+
+/**
+ * Implementation of the {@code PreciseClock} interface that derives the time from {@code System.nanoTime()}.
+ * <p>
+ * The offset between {@code System.nanoTime()} and the system time is calibrated on first use and re-calibrated by
+ * the logging threads once the calibration is older than the interval set with system property
+ * {@value #CALIBRATION_INTERVAL_PROPERTY} (one second by default). No background thread is involved and reading the
+ * clock does not allocate.
+ * </p>
+ * <p>
+ * Each calibration reads the system time, which is only known to the millisecond. The offset is kept within the
+ * millisecond reported by the system time, so successive calibrations narrow it down while following adjustments
+ * of the system time. The millisecond part of the returned time therefore agrees with
+ * {@code System.currentTimeMillis()} at the time of the last calibration; the time may step back when the system
+ * time is set back.
+ * </p>
+ */
+public final class CalibratedClock implements PreciseClock {
+
+    /**
+     * Name of the system property that specifies the milliseconds between calibrations. The value of this property
+     * is {@value}.
+     */
+    public static final String CALIBRATION_INTERVAL_PROPERTY = "log4j.Clock.calibrationIntervalMillis";
+
+    private static final long DEFAULT_CALIBRATION_INTERVAL_MILLIS = 1000;
+
+    private final Clock systemClock;
+    private final NanoClock nanoClock;
+    private final long calibrationIntervalNanos;
+    private volatile Calibration calibration;
+
+    /**
+     * Creates a clock that is calibrated against the system time.
+     */
+    public CalibratedClock() {
+        this(new SystemClock(), new SystemNanoClock(), TimeUnit.MILLISECONDS.toNanos(PropertiesUtil.getProperties()
+                .getLongProperty(CALIBRATION_INTERVAL_PROPERTY, DEFAULT_CALIBRATION_INTERVAL_MILLIS)));
+    }
+
+    /**
+     * Creates a clock with the specified time sources.
+     *
+     * @param systemClock the time to calibrate against
+     * @param nanoClock the high-resolution time source
+     * @param calibrationIntervalNanos the nanoseconds between calibrations
+     */
+    CalibratedClock(final Clock systemClock, final NanoClock nanoClock, final long calibrationIntervalNanos) {
+        this.systemClock = systemClock;
+        this.nanoClock = nanoClock;
+        this.calibrationIntervalNanos = Math.max(0, calibrationIntervalNanos);
+        final long nanoTime = nanoClock.nanoTime();
+        this.calibration = new Calibration(
+                systemClock.currentTimeMillis() * PreciseTime.NANOS_PER_MILLISECOND - nanoTime, nanoTime);
+    }
+
+    @Override
+    public long currentTimeMillis() {
+        return PreciseTime.toMillis(currentTimeNanos());
+    }
+
+    @Override
+    public long currentTimeNanos() {
+        final long nanoTime = nanoClock.nanoTime();
+        Calibration current = calibration;
+        if (nanoTime - current.nanoTime > calibrationIntervalNanos) {
+            current = calibrate(current);
+        }
+        return nanoTime + current.offset;
+    }
+
+    private Calibration calibrate(final Calibration previous) {
+        // read the system time between two readings of the time source to bound the error of the pairing
+        final long before = nanoClock.nanoTime();
+        final long millis = systemClock.currentTimeMillis();
+        final long after = nanoClock.nanoTime();
+        final long nanoTime = before + (after - before) / 2;
+        final long lowest = millis * PreciseTime.NANOS_PER_MILLISECOND - nanoTime;
+        final long highest = lowest + PreciseTime.NANOS_PER_MILLISECOND - 1;
+        final long offset = Math.min(Math.max(previous.offset, lowest), highest);
+        final Calibration result = new Calibration(offset, after);
+        // racing threads calibrate against the same system time, so either result is fine
+        calibration = result;
+        return result;
+    }
+
+    /**
+     * Returns the offset added to the values of the high-resolution time source.
+     *
+     * @return the offset in nanoseconds
+     */
+    long getOffset() {
+        return calibration.offset;
+    }
+
+    private static final class Calibration {
+        private final long offset;
+        private final long nanoTime;
+
+        Calibration(final long offset, final long nanoTime) {
+            this.offset = offset;
+            this.nanoTime = nanoTime;
+        }
+    }
+}
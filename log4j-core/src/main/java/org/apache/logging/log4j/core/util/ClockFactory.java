@@ -43,7 +43,10 @@ public final class ClockFactory {
      * If system property {@code log4j.Clock=CachedClock} is specified,
      * this method returns an instance of {@link CachedClock}. If system
      * property {@code log4j.Clock=CoarseCachedClock} is specified, this
-     * method returns an instance of {@link CoarseCachedClock}.
+     * method returns an instance of {@link CoarseCachedClock}. If system
+     * property {@code log4j.Clock=CalibratedClock} is specified, this method
+     * returns an instance of {@link CalibratedClock}, which provides
+     * timestamps with a resolution finer than milliseconds.
      * </p>
      * <p>
      * If another value is specified, this value is taken as the fully qualified
@@ -78,6 +81,11 @@ public final class ClockFactory {
             LOGGER.trace("Using specified CoarseCachedClock for timestamps.");
             return CoarseCachedClock.instance();
         }
+        if (CalibratedClock.class.getName().equals(userRequest)
+                || "CalibratedClock".equals(userRequest)) {
+            LOGGER.trace("Using specified CalibratedClock for timestamps.");
+            return new CalibratedClock();
+        }
         try {
             final Clock result = Loader.newCheckedInstanceOf(userRequest, Clock.class);
             LOGGER.trace("Using {} for timestamps.", result.getClass().getName());
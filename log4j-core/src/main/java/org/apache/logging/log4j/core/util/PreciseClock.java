@@ -0,0 +1,33 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache license, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the license for the specific language governing permissions and
+ * limitations under the license.
+ */
+package org.apache.logging.log4j.core.util;
+
+/**
+ * A {@code Clock} that provides the time with a resolution finer than milliseconds.
+ */
+public interface PreciseClock extends Clock {
+    /**
+     * Returns the time in nanoseconds since the epoch.
+     * <p>
+     * The result divided by one million is the value {@link #currentTimeMillis()} returns at the same instant. A
+     * {@code long} holds nanoseconds since the epoch up to the year 2262.
+     * </p>
+     *
+     * @return the time in nanoseconds since the epoch
+     */
+    long currentTimeNanos();
+}
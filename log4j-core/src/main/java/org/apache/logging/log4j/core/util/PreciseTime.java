@@ -0,0 +1,137 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache license, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the license for the specific language governing permissions and
+ * limitations under the license.
+ */
+package org.apache.logging.log4j.core.util;
+
+import org.apache.logging.log4j.core.LogEvent;
+
+/**
+ * Conversions between nanoseconds since the epoch and the milliseconds, seconds and fractions of a second carried by
+ * log events.
+ */
+public final class PreciseTime {
+
+    /** The number of nanoseconds in a millisecond. */
+    public static final long NANOS_PER_MILLISECOND = 1000000L;
+
+    /** The number of milliseconds in a second. */
+    public static final long MILLIS_PER_SECOND = 1000L;
+
+    private PreciseTime() {
+    }
+
+    /**
+     * Returns the current time of the clock in nanoseconds since the epoch.
+     *
+     * @param clock the clock to read
+     * @return the result of {@link PreciseClock#currentTimeNanos()} if the clock is a {@code PreciseClock}, otherwise
+     *         the milliseconds of the clock converted to nanoseconds
+     */
+    public static long currentTimeNanos(final Clock clock) {
+        if (clock instanceof PreciseClock) {
+            return ((PreciseClock) clock).currentTimeNanos();
+        }
+        return clock.currentTimeMillis() * NANOS_PER_MILLISECOND;
+    }
+
+    /**
+     * Returns the milliseconds since the epoch, rounded down.
+     *
+     * @param epochNanos the nanoseconds since the epoch
+     * @return the milliseconds since the epoch
+     */
+    public static long toMillis(final long epochNanos) {
+        return floorDiv(epochNanos, NANOS_PER_MILLISECOND);
+    }
+
+    /**
+     * Returns the nanoseconds within the millisecond.
+     *
+     * @param epochNanos the nanoseconds since the epoch
+     * @return the nanoseconds within the millisecond, between 0 and 999,999
+     */
+    public static int nanoOfMillisecond(final long epochNanos) {
+        return (int) (epochNanos - floorDiv(epochNanos, NANOS_PER_MILLISECOND) * NANOS_PER_MILLISECOND);
+    }
+
+    /**
+     * Returns the seconds since the epoch, rounded down.
+     *
+     * @param timeMillis the milliseconds since the epoch
+     * @return the seconds since the epoch
+     */
+    public static long epochSecond(final long timeMillis) {
+        return floorDiv(timeMillis, MILLIS_PER_SECOND);
+    }
+
+    /**
+     * Returns the nanoseconds within the second.
+     *
+     * @param timeMillis the milliseconds since the epoch
+     * @param nanoOfMillisecond the nanoseconds within the millisecond
+     * @return the nanoseconds within the second, between 0 and 999,999,999
+     */
+    public static int nanoOfSecond(final long timeMillis, final int nanoOfMillisecond) {
+        final long millisOfSecond = timeMillis - floorDiv(timeMillis, MILLIS_PER_SECOND) * MILLIS_PER_SECOND;
+        return (int) (millisOfSecond * NANOS_PER_MILLISECOND) + nanoOfMillisecond;
+    }
+
+    /**
+     * Returns the seconds of the event time since the epoch.
+     *
+     * @param event the log event
+     * @return the result of {@link PreciseTimestamp#getEpochSecond()} if the event is a {@code PreciseTimestamp},
+     *         otherwise the seconds of {@link LogEvent#getTimeMillis()}
+     */
+    public static long epochSecond(final LogEvent event) {
+        if (event instanceof PreciseTimestamp) {
+            return ((PreciseTimestamp) event).getEpochSecond();
+        }
+        return epochSecond(event.getTimeMillis());
+    }
+
+    /**
+     * Returns the nanoseconds within the second of the event time.
+     *
+     * @param event the log event
+     * @return the result of {@link PreciseTimestamp#getNanoOfSecond()} if the event is a {@code PreciseTimestamp},
+     *         otherwise the milliseconds of {@link LogEvent#getTimeMillis()} within the second, in nanoseconds
+     */
+    public static int nanoOfSecond(final LogEvent event) {
+        if (event instanceof PreciseTimestamp) {
+            return ((PreciseTimestamp) event).getNanoOfSecond();
+        }
+        return nanoOfSecond(event.getTimeMillis(), 0);
+    }
+
+    /**
+     * Returns the nanoseconds within the millisecond of the event time.
+     *
+     * @param event the log event
+     * @return the nanoseconds within the millisecond if the event is a {@code PreciseTimestamp}, otherwise 0
+     */
+    public static int nanoOfMillisecond(final LogEvent event) {
+        if (event instanceof PreciseTimestamp) {
+            return (int) (((PreciseTimestamp) event).getNanoOfSecond() % NANOS_PER_MILLISECOND);
+        }
+        return 0;
+    }
+
+    private static long floorDiv(final long dividend, final long divisor) {
+        final long quotient = dividend / divisor;
+        return dividend < 0 && quotient * divisor != dividend ? quotient - 1 : quotient;
+    }
+}
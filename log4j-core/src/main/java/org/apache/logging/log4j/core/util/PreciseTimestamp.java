@@ -0,0 +1,47 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache license, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the license for the specific language governing permissions and
+ * limitations under the license.
+ */
+package org.apache.logging.log4j.core.util;
+
+/**
+ * Implemented by log events that carry their time with a resolution finer than milliseconds.
+ * <p>
+ * This interface is optional: use {@link PreciseTime#epochSecond(org.apache.logging.log4j.core.LogEvent)} and
+ * {@link PreciseTime#nanoOfSecond(org.apache.logging.log4j.core.LogEvent)} to read the time of any log event, they fall
+ * back to {@code getTimeMillis()} for events that do not implement it.
+ * </p>
+ */
+public interface PreciseTimestamp {
+
+    /**
+     * Gets the seconds of the event time since midnight, January 1, 1970 UTC. Together with {@link #getNanoOfSecond()}
+     * this is the event time with the resolution of the configured clock.
+     *
+     * @return seconds since midnight, January 1, 1970 UTC, equal to the event's {@code getTimeMillis()} divided by
+     *         1000 and rounded down.
+     * @see PreciseClock
+     */
+    long getEpochSecond();
+
+    /**
+     * Gets the nanoseconds within the second of the event time. The milliseconds part matches the event's
+     * {@code getTimeMillis()}; the digits below the millisecond are zero unless the event time was obtained from a
+     * {@link PreciseClock}.
+     *
+     * @return nanoseconds within the second, between 0 and 999,999,999.
+     */
+    int getNanoOfSecond();
+}
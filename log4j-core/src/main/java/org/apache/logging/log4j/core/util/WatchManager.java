@@ -20,9 +20,14 @@ import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.core.AbstractLifeCycle;
 import org.apache.logging.log4j.core.config.ConfigurationScheduler;
 import org.apache.logging.log4j.status.StatusLogger;
+import org.apache.logging.log4j.util.PropertiesUtil;
 
 import java.io.File;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ScheduledFuture;
@@ -30,20 +35,118 @@ import java.util.concurrent.TimeUnit;
 
 /**
  * Manages FileWatchers.
+ * <p>
+ * By default watched files are polled for changes every {@link #getIntervalSeconds() interval} seconds. When
+ * {@link #setWatchServiceEnabled(boolean) enabled} files are instead watched with a {@link java.nio.file.WatchService},
+ * so changes are detected as soon as they happen without touching the file system on every interval. Files residing
+ * on file systems that do not support a WatchService continue to be polled. Files on network file systems, which
+ * usually deliver no events for changes made on other hosts, are also polled; their file store types are listed by
+ * {@link #setPolledFileStoreTypes(Set)}.
+ * </p>
  */
 public class WatchManager extends AbstractLifeCycle {
 
+    /**
+     * System property to enable {@link java.nio.file.WatchService} based file monitoring.
+     */
+    public static final String WATCH_SERVICE_PROPERTY = "log4j.configuration.watchService";
+
+    /**
+     * System property to specify the number of milliseconds a file must be quiet before a change is reported when
+     * using the WatchService.
+     */
+    public static final String DEBOUNCE_MILLIS_PROPERTY = "log4j.configuration.watchService.debounceMillis";
+
+    /**
+     * System property to specify the comma separated types of the file stores whose files are polled even when the
+     * WatchService is enabled, replacing the default list of network file systems.
+     */
+    public static final String POLLED_FILE_STORE_TYPES_PROPERTY = "log4j.configuration.watchService.polledTypes";
+
+    private static final long DEFAULT_DEBOUNCE_MILLIS = 500;
+    private static final String DEFAULT_POLLED_FILE_STORE_TYPES =
+            "nfs,nfs4,cifs,smbfs,smb2,smb3,afs,ncpfs,9p,davfs,fuse.sshfs,glusterfs,fuse.glusterfs,ceph,lustre,gpfs";
     private static final long serialVersionUID = 8998356999926962686L;
     private static Logger logger = StatusLogger.getLogger();
     private final ConcurrentMap<File, FileMonitor> watchers = new ConcurrentHashMap<>();
     private int intervalSeconds = 0;
     private ScheduledFuture<?> future;
     private ConfigurationScheduler scheduler;
+    private boolean watchServiceEnabled = PropertiesUtil.getProperties().getBooleanProperty(WATCH_SERVICE_PROPERTY);
+    private long debounceMillis = PropertiesUtil.getProperties().getLongProperty(DEBOUNCE_MILLIS_PROPERTY,
+            DEFAULT_DEBOUNCE_MILLIS);
+    private Set<String> polledFileStoreTypes = parseTypes(PropertiesUtil.getProperties().getStringProperty(
+            POLLED_FILE_STORE_TYPES_PROPERTY, DEFAULT_POLLED_FILE_STORE_TYPES));
+    private volatile WatchServiceMonitor watchServiceMonitor;
 
     public WatchManager(ConfigurationScheduler scheduler) {
         this.scheduler = scheduler;
     }
 
+    /**
+     * Enables or disables event driven monitoring using a WatchService. Has no effect once the WatchManager has
+     * been started.
+     * @param watchServiceEnabled true if a WatchService should be used where supported.
+     */
+    public void setWatchServiceEnabled(boolean watchServiceEnabled) {
+        if (!isStarted()) {
+            this.watchServiceEnabled = watchServiceEnabled;
+        }
+    }
+
+    public boolean isWatchServiceEnabled() {
+        return watchServiceEnabled;
+    }
+
+    /**
+     * Sets the number of milliseconds a file must be quiet before a change detected by the WatchService is reported.
+     * Has no effect once the WatchManager has been started.
+     * @param debounceMillis the debounce interval in milliseconds.
+     */
+    public void setDebounceMillis(long debounceMillis) {
+        if (!isStarted()) {
+            this.debounceMillis = debounceMillis;
+        }
+    }
+
+    public long getDebounceMillis() {
+        return debounceMillis;
+    }
+
+    /**
+     * Sets the types of the file stores whose files are polled even when the WatchService is enabled, as reported by
+     * {@link java.nio.file.FileStore#type()}. By default these are common network file systems such as NFS and CIFS.
+     * Has no effect once the WatchManager has been started.
+     * @param polledFileStoreTypes the file store types, compared ignoring case.
+     */
+    public void setPolledFileStoreTypes(Set<String> polledFileStoreTypes) {
+        if (!isStarted()) {
+            this.polledFileStoreTypes = parseTypes(polledFileStoreTypes);
+        }
+    }
+
+    public Set<String> getPolledFileStoreTypes() {
+        return polledFileStoreTypes;
+    }
+
+    private static Set<String> parseTypes(String types) {
+        final Set<String> result = new HashSet<>();
+        for (final String type : types.split(",")) {
+            result.add(type.trim());
+        }
+        return parseTypes(result);
+    }
+
+    private static Set<String> parseTypes(Set<String> types) {
+        final Set<String> result = new HashSet<>();
+        for (final String type : types) {
+            if (!type.isEmpty()) {
+                result.add(type.toLowerCase(Locale.ROOT));
+            }
+        }
+        return Collections.unmodifiableSet(result);
+    }
+
     public void setIntervalSeconds(int intervalSeconds) {
         if (!isStarted()) {
             if (this.intervalSeconds > 0 && intervalSeconds == 0) {
@@ -62,6 +165,13 @@ public class WatchManager extends AbstractLifeCycle {
     @Override
     public void start() {
         super.start();
+        if (watchServiceEnabled) {
+            watchServiceMonitor = new WatchServiceMonitor(debounceMillis, polledFileStoreTypes,
+                    new WatchCancelledListener());
+            for (Map.Entry<File, FileMonitor> entry : watchers.entrySet()) {
+                entry.getValue().eventDriven = watchServiceMonitor.watchFile(entry.getKey(), entry.getValue());
+            }
+        }
         if (intervalSeconds > 0) {
             future = scheduler.scheduleWithFixedDelay(new WatchWorker(), intervalSeconds, intervalSeconds,
                     TimeUnit.SECONDS);
@@ -70,13 +180,31 @@ public class WatchManager extends AbstractLifeCycle {
 
     @Override
     public void stop() {
-        future.cancel(true);
+        if (future != null) {
+            future.cancel(true);
+        }
+        if (watchServiceMonitor != null) {
+            watchServiceMonitor.stop();
+            watchServiceMonitor = null;
+        }
         super.stop();
     }
 
     public void watchFile(File file, FileWatcher watcher) {
-        watchers.put(file, new FileMonitor(file.lastModified(), watcher));
+        final FileMonitor monitor = new FileMonitor(file.lastModified(), watcher);
+        final WatchServiceMonitor current = watchServiceMonitor;
+        if (current != null) {
+            monitor.eventDriven = current.watchFile(file, monitor);
+        }
+        watchers.put(file, monitor);
+    }
 
+    /**
+     * Indicates whether changes of the file are reported by the WatchService instead of being polled.
+     */
+    boolean isEventDriven(File file) {
+        final FileMonitor monitor = watchers.get(file);
+        return monitor != null && monitor.eventDriven;
     }
 
     private class WatchWorker implements Runnable {
@@ -86,6 +214,9 @@ public class WatchManager extends AbstractLifeCycle {
             for (Map.Entry<File, FileMonitor> entry : watchers.entrySet()) {
                 File file = entry.getKey();
                 FileMonitor fileMonitor = entry.getValue();
+                if (fileMonitor.eventDriven) {
+                    continue;
+                }
                 long lastModfied = file.lastModified();
                 if (lastModfied > fileMonitor.lastModified) {
                     logger.info("File {} was modified", file.toString());
@@ -96,13 +227,35 @@ public class WatchManager extends AbstractLifeCycle {
         }
     }
 
-    private class FileMonitor {
+    private class WatchCancelledListener implements WatchServiceMonitor.Listener {
+
+        @Override
+        public void watchCancelled(File file) {
+            final FileMonitor fileMonitor = watchers.get(file);
+            if (fileMonitor != null) {
+                fileMonitor.eventDriven = false;
+            }
+        }
+    }
+
+    /**
+     * Also receives the notifications of the WatchService, so that polling resumes from the last reported change
+     * if the file is no longer watched.
+     */
+    private class FileMonitor implements FileWatcher {
         private final FileWatcher fileWatcher;
-        private long lastModified;
+        private volatile long lastModified;
+        private volatile boolean eventDriven;
 
         public FileMonitor(long lastModified, FileWatcher fileWatcher) {
             this.fileWatcher = fileWatcher;
             this.lastModified = lastModified;
         }
+
+        @Override
+        public void fileModified(File file) {
+            lastModified = file.lastModified();
+            fileWatcher.fileModified(file);
+        }
     }
 }
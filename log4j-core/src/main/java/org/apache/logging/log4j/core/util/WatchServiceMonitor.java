@@ -0,0 +1,260 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache license, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the license for the specific language governing permissions and
+ * limitations under the license.
+ */
+package org.apache.logging.log4j.core.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileStore;
+import java.nio.file.FileSystem;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.status.StatusLogger;
+
+/**
+ * Event driven file monitoring based on {@link WatchService}. One WatchService and one daemon thread are created per
+ * {@link FileSystem}. Bursts of events for the same file are collapsed into a single notification once the file has
+ * been quiet for the debounce interval. Files on file stores of the polled types, usually network file systems that do
+ * not report changes made on other hosts, are not watched.
+ */
+final class WatchServiceMonitor {
+
+    private static final Logger LOGGER = StatusLogger.getLogger();
+
+    /**
+     * Notified when a file can no longer be watched, for example because its directory was deleted.
+     */
+    interface Listener {
+        void watchCancelled(File file);
+    }
+
+    private final ConcurrentMap<FileSystem, FileSystemWatch> watches = new ConcurrentHashMap<>();
+    private final long debounceMillis;
+    private final Set<String> polledFileStoreTypes;
+    private final Listener listener;
+
+    WatchServiceMonitor(final long debounceMillis, final Set<String> polledFileStoreTypes, final Listener listener) {
+        this.debounceMillis = debounceMillis;
+        this.polledFileStoreTypes = polledFileStoreTypes;
+        this.listener = listener;
+    }
+
+    /**
+     * Registers a file for event driven notification.
+     * @param file The file to watch.
+     * @param watcher The FileWatcher to notify.
+     * @return true if the file is being watched, false if the file system does not support a WatchService or its file
+     * store is of a polled type, in which case the caller should fall back to polling.
+     */
+    boolean watchFile(final File file, final FileWatcher watcher) {
+        final Path path;
+        try {
+            path = file.getAbsoluteFile().toPath();
+        } catch (final RuntimeException ex) {
+            LOGGER.debug("Unable to convert {} to a Path: {}", file, ex.getMessage());
+            return false;
+        }
+        final Path dir = path.getParent();
+        if (dir == null || isPolled(dir)) {
+            return false;
+        }
+        final FileSystem fileSystem = path.getFileSystem();
+        synchronized (watches) {
+            FileSystemWatch watch = watches.get(fileSystem);
+            if (watch == null) {
+                try {
+                    watch = new FileSystemWatch(fileSystem.newWatchService());
+                } catch (final UnsupportedOperationException | IOException ex) {
+                    LOGGER.debug("WatchService not available for {}, falling back to polling: {}", fileSystem,
+                            ex.getMessage());
+                    return false;
+                }
+                watches.put(fileSystem, watch);
+                watch.start();
+            }
+            return watch.register(dir, path.getFileName(), file, watcher);
+        }
+    }
+
+    private boolean isPolled(final Path dir) {
+        final String type;
+        try {
+            type = Files.getFileStore(dir).type();
+        } catch (final IOException | RuntimeException ex) {
+            LOGGER.debug("Unable to determine the file store of {}: {}", dir, ex.getMessage());
+            return false;
+        }
+        if (type != null && polledFileStoreTypes.contains(type.toLowerCase(Locale.ROOT))) {
+            LOGGER.debug("Polling files in {}, its file store type {} may not report changes", dir, type);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Closes all WatchServices and terminates their threads.
+     */
+    void stop() {
+        synchronized (watches) {
+            for (final FileSystemWatch watch : watches.values()) {
+                watch.close();
+            }
+            watches.clear();
+        }
+    }
+
+    /**
+     * The WatchService, registered directories and worker thread for a single FileSystem.
+     */
+    private class FileSystemWatch implements Runnable {
+
+        private final WatchService watchService;
+        private final Map<WatchKey, Map<Path, FileMonitor>> directories = new ConcurrentHashMap<>();
+        private final Map<FileMonitor, Long> pending = new HashMap<>();
+        private final Thread thread;
+
+        FileSystemWatch(final WatchService watchService) {
+            this.watchService = watchService;
+            this.thread = new Log4jThread(this, "WatchService-" + watchService.getClass().getSimpleName());
+            this.thread.setDaemon(true);
+        }
+
+        void start() {
+            thread.start();
+        }
+
+        boolean register(final Path dir, final Path name, final File file, final FileWatcher watcher) {
+            final WatchKey key;
+            try {
+                key = dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_MODIFY);
+            } catch (final UnsupportedOperationException | IOException | ClosedWatchServiceException ex) {
+                LOGGER.debug("Unable to watch directory {}, falling back to polling: {}", dir, ex.getMessage());
+                return false;
+            }
+            Map<Path, FileMonitor> files = directories.get(key);
+            if (files == null) {
+                files = new ConcurrentHashMap<>();
+                directories.put(key, files);
+            }
+            files.put(name, new FileMonitor(file, watcher));
+            LOGGER.debug("Watching {} using {}", file, watchService.getClass().getName());
+            return true;
+        }
+
+        void close() {
+            try {
+                watchService.close();
+            } catch (final IOException ex) {
+                LOGGER.warn("Error closing WatchService", ex);
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (true) {
+                    final WatchKey key = pending.isEmpty() ? watchService.take()
+                            : watchService.poll(debounceMillis, TimeUnit.MILLISECONDS);
+                    if (key != null) {
+                        processEvents(key);
+                    }
+                    notifyQuietFiles();
+                }
+            } catch (final ClosedWatchServiceException | InterruptedException ex) {
+                LOGGER.debug("WatchService thread {} stopped", thread.getName());
+            }
+        }
+
+        private void processEvents(final WatchKey key) {
+            final Map<Path, FileMonitor> files = directories.get(key);
+            final long now = System.currentTimeMillis();
+            for (final WatchEvent<?> event : key.pollEvents()) {
+                if (files == null) {
+                    continue;
+                }
+                if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                    for (final FileMonitor monitor : files.values()) {
+                        pending.put(monitor, now);
+                    }
+                    continue;
+                }
+                final FileMonitor monitor = files.get(event.context());
+                if (monitor != null) {
+                    pending.put(monitor, now);
+                }
+            }
+            if (!key.reset()) {
+                // the directory is no longer watched, its files have to be polled
+                final Map<Path, FileMonitor> cancelled = directories.remove(key);
+                if (cancelled != null) {
+                    for (final FileMonitor monitor : cancelled.values()) {
+                        LOGGER.debug("Watch of {} was cancelled, falling back to polling", monitor.file);
+                        pending.remove(monitor);
+                        listener.watchCancelled(monitor.file);
+                    }
+                }
+            }
+        }
+
+        private void notifyQuietFiles() {
+            final long now = System.currentTimeMillis();
+            final List<FileMonitor> ready = new ArrayList<>();
+            for (final Iterator<Map.Entry<FileMonitor, Long>> iter = pending.entrySet().iterator(); iter.hasNext();) {
+                final Map.Entry<FileMonitor, Long> entry = iter.next();
+                if (now - entry.getValue() >= debounceMillis) {
+                    ready.add(entry.getKey());
+                    iter.remove();
+                }
+            }
+            for (final FileMonitor monitor : ready) {
+                LOGGER.info("File {} was modified", monitor.file);
+                try {
+                    monitor.fileWatcher.fileModified(monitor.file);
+                } catch (final RuntimeException ex) {
+                    LOGGER.error("Error notifying FileWatcher for {}", monitor.file, ex);
+                }
+            }
+        }
+    }
+
+    private static class FileMonitor {
+        private final File file;
+        private final FileWatcher fileWatcher;
+
+        FileMonitor(final File file, final FileWatcher fileWatcher) {
+            this.file = file;
+            this.fileWatcher = fileWatcher;
+        }
+    }
+}
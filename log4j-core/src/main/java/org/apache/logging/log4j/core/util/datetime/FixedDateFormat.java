@@ -283,6 +283,21 @@ public class FixedDateFormat {
         return writeTime(ms, buffer, startPos + dateLength) - startPos;
     }
 
+    /**
+     * Appends the formatted time to the specified StringBuilder without creating intermediate objects.
+     *
+     * @param time the time in milliseconds since the epoch
+     * @param buffer the StringBuilder to append to
+     */
+    public void format(final long time, final StringBuilder buffer) {
+        final int ms = (int) (millisSinceMidnight(time));
+        final char[] date = cachedDate;
+        if (date != null) {
+            buffer.append(date, 0, dateLength);
+        }
+        writeTime(ms, buffer);
+    }
+
     // Profiling showed this method is important to log4j performance. Modify with care!
     // 22 bytes (allows immediate JVM inlining: <= -XX:MaxInlineSize=35 bytes)
     private void writeDate(final char[] buffer, final int startPos) {
@@ -340,4 +355,54 @@ public class FixedDateFormat {
         buffer[pos++] = ((char) (ms + '0'));
         return pos;
     }
+
+    private void writeTime(int ms, final StringBuilder buffer) {
+        final int hours = ms / 3600000;
+        ms -= 3600000 * hours;
+
+        final int minutes = ms / 60000;
+        ms -= 60000 * minutes;
+
+        final int seconds = ms / 1000;
+        ms -= 1000 * seconds;
+
+        writeTwoDigits(hours, buffer);
+        if (timeSeparatorLength > 0) {
+            buffer.append(timeSeparatorChar);
+        }
+        writeTwoDigits(minutes, buffer);
+        if (timeSeparatorLength > 0) {
+            buffer.append(timeSeparatorChar);
+        }
+        writeTwoDigits(seconds, buffer);
+        if (millisSeparatorLength > 0) {
+            buffer.append(millisSeparatorChar);
+        }
+        writeMillis(ms, buffer);
+    }
+
+    private static void writeTwoDigits(final int value, final StringBuilder buffer) {
+        final int temp = value / 10;
+        buffer.append((char) (temp + '0'));
+        // Do subtract to get remainder instead of doing % 10
+        buffer.append((char) (value - 10 * temp + '0'));
+    }
+
+    /**
+     * Appends the milliseconds as three digits.
+     *
+     * @param millis the milliseconds within the second, between 0 and 999
+     * @param buffer the StringBuilder to append to
+     */
+    public static void writeMillis(int millis, final StringBuilder buffer) {
+        int temp = millis / 100;
+        buffer.append((char) (temp + '0'));
+
+        millis -= 100 * temp;
+        temp = millis / 10;
+        buffer.append((char) (temp + '0'));
+
+        millis -= 10 * temp;
+        buffer.append((char) (millis + '0'));
+    }
 }
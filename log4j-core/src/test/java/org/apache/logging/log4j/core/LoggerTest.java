@@ -17,6 +17,7 @@
 package org.apache.logging.log4j.core;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertTrue;
@@ -31,11 +32,14 @@ import java.util.concurrent.TimeUnit;
 
 import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Marker;
 import org.apache.logging.log4j.MarkerManager;
 import org.apache.logging.log4j.ThreadContext;
 import org.apache.logging.log4j.core.config.Configuration;
 import org.apache.logging.log4j.core.config.Configurator;
 import org.apache.logging.log4j.core.config.LoggerConfig;
+import org.apache.logging.log4j.core.filter.AbstractFilter;
+import org.apache.logging.log4j.core.filter.ThresholdFilter;
 import org.apache.logging.log4j.junit.LoggerContextRule;
 import org.apache.logging.log4j.message.Message;
 import org.apache.logging.log4j.message.MessageFactory;
@@ -410,5 +414,67 @@ public class LoggerTest {
                 msg instanceof ParameterizedMessage);
 
     }
-}
 
+    @Test
+    public void testDisabledLevelsSkipConfigFilterThatCannotAccept() {
+        final Logger localLogger = context.getLogger("org.apache.logging.log4j.test2");
+        final Filter filter = ThresholdFilter.createFilter(Level.DEBUG, Filter.Result.NEUTRAL, Filter.Result.DENY);
+        context.getConfiguration().addFilter(filter);
+        try {
+            context.getContext().updateLoggers();
+            assertFalse(localLogger.isTraceEnabled());
+            assertTrue(localLogger.isInfoEnabled());
+        } finally {
+            context.getConfiguration().removeFilter(filter);
+        }
+    }
+
+    @Test
+    public void testDisabledLevelsConsultCustomConfigFilter() {
+        final Logger localLogger = context.getLogger("org.apache.logging.log4j.test2");
+        // accepts although neither its onMatch nor its onMismatch is ACCEPT
+        final CountingFilter filter = new CountingFilter(Filter.Result.NEUTRAL, Filter.Result.DENY,
+                Filter.Result.ACCEPT);
+        context.getConfiguration().addFilter(filter);
+        try {
+            context.getContext().updateLoggers();
+            assertTrue(localLogger.isTraceEnabled());
+            assertEquals(1, filter.count);
+        } finally {
+            context.getConfiguration().removeFilter(filter);
+        }
+    }
+
+    @Test
+    public void testDisabledLevelsConsultConfigFilterThatCanAccept() {
+        final Logger localLogger = context.getLogger("org.apache.logging.log4j.test2");
+        final CountingFilter filter = new CountingFilter(Filter.Result.ACCEPT, Filter.Result.DENY,
+                Filter.Result.ACCEPT);
+        context.getConfiguration().addFilter(filter);
+        try {
+            context.getContext().updateLoggers();
+            assertTrue(localLogger.isTraceEnabled());
+            assertEquals(1, filter.count);
+        } finally {
+            context.getConfiguration().removeFilter(filter);
+        }
+    }
+
+    private static class CountingFilter extends AbstractFilter {
+        private static final long serialVersionUID = 1L;
+        private final Result result;
+        int count;
+
+        CountingFilter(final Result onMatch, final Result onMismatch, final Result result) {
+            super(onMatch, onMismatch);
+            this.result = result;
+        }
+
+        @Override
+        public Result filter(final Logger logger, final Level level, final Marker marker, final Object msg,
+                final Throwable t) {
+            count++;
+            return result;
+        }
+    }
+}
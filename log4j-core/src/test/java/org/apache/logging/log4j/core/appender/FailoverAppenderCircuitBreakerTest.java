@@ -0,0 +1,168 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache license, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the license for the specific language governing permissions and
+ * limitations under the license.
+ */
+package org.apache.logging.log4j.core.appender;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LoggingException;
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.config.DefaultConfiguration;
+import org.apache.logging.log4j.core.impl.Log4jLogEvent;
+import org.apache.logging.log4j.core.jmx.FailoverAppenderAdmin;
+import org.apache.logging.log4j.message.SimpleMessage;
+import org.apache.logging.log4j.test.appender.ListAppender;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the circuit breaker mode of the FailoverAppender.
+ */
+public class FailoverAppenderCircuitBreakerTest {
+
+    private final DefaultConfiguration config = new DefaultConfiguration();
+    private final ToggleAppender primary = new ToggleAppender("Primary");
+    private final ListAppender secondary = new ListAppender("Secondary");
+    private FailoverAppender failover;
+
+    @Before
+    public void setUp() {
+        primary.start();
+        secondary.start();
+        config.addAppender(primary);
+        config.addAppender(secondary);
+    }
+
+    @After
+    public void tearDown() {
+        if (failover != null) {
+            failover.stop();
+        }
+        config.stop();
+    }
+
+    private FailoverAppender createFailover(final int failureThreshold, final int slowCallMillis) {
+        failover = FailoverAppender.createAppender("Failover", "Primary", new String[] {"Secondary"}, "1", config,
+                null, "false", true, failureThreshold, slowCallMillis);
+        failover.start();
+        assertTrue(failover.isStarted());
+        return failover;
+    }
+
+    private static LogEvent event(final String message) {
+        return Log4jLogEvent.newBuilder().setLoggerName("CircuitBreakerTest").setLevel(Level.ERROR)
+                .setMessage(new SimpleMessage(message)).build();
+    }
+
+    private static void awaitClosed(final FailoverAppender appender) throws InterruptedException {
+        for (int i = 0; i < 100 && appender.isCircuitOpen(); i++) {
+            Thread.sleep(50);
+        }
+        assertFalse("Circuit did not close", appender.isCircuitOpen());
+    }
+
+    @Test
+    public void testCircuitOpensAndClosesAfterProbe() throws Exception {
+        final FailoverAppender appender = createFailover(2, 0);
+        final FailoverAppenderAdmin admin = new FailoverAppenderAdmin("ctx", appender);
+        primary.fail = true;
+
+        appender.append(event("first failure"));
+        assertFalse(admin.isCircuitOpen());
+        assertEquals(1, admin.getConsecutiveFailures());
+        appender.append(event("second failure"));
+        assertTrue(admin.isCircuitOpen());
+        assertEquals(1, admin.getCircuitOpenCount());
+
+        appender.append(event("bypassed"));
+        assertEquals("Primary was called while the circuit was open", 2, primary.attempts);
+        assertEquals(3, secondary.getEvents().size());
+        assertEquals(3, admin.getFailoverCount());
+
+        primary.fail = false;
+        Thread.sleep(1100);
+        appender.append(event("probe"));
+        awaitClosed(appender);
+        assertEquals(0, admin.getConsecutiveFailures());
+        appender.append(event("after recovery"));
+        assertEquals(2, primary.events.size());
+        assertEquals("probe", primary.events.get(0).getMessage().getFormattedMessage());
+        assertEquals(3, secondary.getEvents().size());
+    }
+
+    @Test
+    public void testFailedProbeFailsOver() throws Exception {
+        final FailoverAppender appender = createFailover(1, 0);
+        primary.fail = true;
+        appender.append(event("failure"));
+        assertTrue(appender.isCircuitOpen());
+
+        Thread.sleep(1100);
+        appender.append(event("probe"));
+        for (int i = 0; i < 100 && secondary.getEvents().size() < 2; i++) {
+            Thread.sleep(50);
+        }
+        assertEquals(2, secondary.getEvents().size());
+        assertEquals(2, primary.attempts);
+        assertTrue(appender.isCircuitOpen());
+    }
+
+    @Test
+    public void testSlowCallsOpenCircuit() throws Exception {
+        final FailoverAppender appender = createFailover(1, 10);
+        primary.delayMillis = 50;
+        appender.append(event("slow"));
+        assertTrue(appender.isCircuitOpen());
+        assertEquals("Slow calls are still delivered", 1, primary.events.size());
+        assertTrue(appender.getPrimaryLatencyNanos() >= 10000000L);
+        assertTrue(secondary.getEvents().isEmpty());
+    }
+
+    private static class ToggleAppender extends AbstractAppender {
+
+        private static final long serialVersionUID = 1L;
+
+        private final List<LogEvent> events = new CopyOnWriteArrayList<>();
+        private volatile boolean fail;
+        private volatile long delayMillis;
+        private volatile int attempts;
+
+        ToggleAppender(final String name) {
+            super(name, null, null, false);
+        }
+
+        @Override
+        public void append(final LogEvent event) {
+            attempts++;
+            if (delayMillis > 0) {
+                try {
+                    Thread.sleep(delayMillis);
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            if (fail) {
+                throw new LoggingException("Primary is down");
+            }
+            events.add(event);
+        }
+    }
+}
@@ -25,6 +25,10 @@ import java.io.File;
 import java.io.FileOutputStream;
 import java.io.FileReader;
 import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.junit.Test;
 
@@ -66,6 +70,103 @@ public class MemoryMappedFileManagerTest {
         }
     }
 
+    @Test
+    public void testPreMapConcurrentWritesAcrossRegions() throws Exception {
+        final int mapSize = 64; // very small, on purpose
+        final File file = File.createTempFile("log4j2", "test");
+        file.deleteOnExit();
+
+        final MemoryMappedFileManager manager = MemoryMappedFileManager.getFileManager(file.getAbsolutePath(), false,
+                false, mapSize, null, null, true);
+        assertTrue(manager.isPreMap());
+
+        final int threadCount = 4;
+        final int messagesPerThread = 500;
+        final Thread[] threads = new Thread[threadCount];
+        for (int t = 0; t < threadCount; t++) {
+            final int threadIndex = t;
+            threads[t] = new Thread() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < messagesPerThread; i++) {
+                        final byte[] msg = ("Thread " + threadIndex + " message " + i + "\n").getBytes();
+                        manager.write(msg, 0, msg.length);
+                    }
+                }
+            };
+            threads[t].start();
+        }
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+        manager.release();
+
+        final Set<String> lines = new HashSet<>();
+        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                assertTrue("line incorrect: " + line, line.matches("Thread \\d message \\d+"));
+                lines.add(line);
+            }
+        }
+        assertEquals(threadCount * messagesPerThread, lines.size());
+    }
+
+    @Test
+    public void testPreMapCloseWhileWritingAndFlushing() throws Exception {
+        final int mapSize = 256;
+        final File file = File.createTempFile("log4j2", "test");
+        file.deleteOnExit();
+
+        final MemoryMappedFileManager manager = MemoryMappedFileManager.getFileManager(file.getAbsolutePath(), false,
+                false, mapSize, null, null, true);
+        final AtomicLong written = new AtomicLong();
+        final AtomicBoolean stop = new AtomicBoolean();
+        final Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            final int threadIndex = t;
+            threads[t] = new Thread() {
+                @Override
+                public void run() {
+                    for (int i = 0; !stop.get(); i++) {
+                        final byte[] msg = ("Thread " + threadIndex + " message " + i + "\n").getBytes();
+                        try {
+                            manager.write(msg, 0, msg.length);
+                        } catch (final AppenderLoggingException ex) {
+                            return;
+                        }
+                        written.addAndGet(msg.length);
+                    }
+                }
+            };
+            threads[t].start();
+        }
+        final Thread flusher = new Thread() {
+            @Override
+            public void run() {
+                while (!stop.get()) {
+                    manager.flush();
+                }
+            }
+        };
+        flusher.start();
+        Thread.sleep(200);
+        manager.release();
+        stop.set(true);
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+        flusher.join();
+
+        assertEquals("file truncated to the written bytes", written.get(), file.length());
+        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                assertTrue("line incorrect: " + line, line.matches("Thread \\d message \\d+"));
+            }
+        }
+    }
+
     @Test
     public void testAppendDoesNotOverwriteExistingFile() throws IOException {
         final File file = File.createTempFile("log4j2", "test");
@@ -16,7 +16,9 @@
  */
 package org.apache.logging.log4j.core.appender;
 
+import java.io.BufferedReader;
 import java.io.File;
+import java.io.FileReader;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
@@ -113,6 +115,52 @@ public class RandomAccessFileManagerTest {
             assertEquals(size, raf.length()); // all data written to file now
         }}
 
+    @Test
+    public void testConcurrentWritesPreserveEventsAndPerThreadOrder() throws Exception {
+        final File file = folder.newFile();
+        try (final RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            final OutputStream os = NullOutputStream.NULL_OUTPUT_STREAM;
+            final RandomAccessFileManager manager = new RandomAccessFileManager(raf, file.getName(), os, false,
+                    256, null, null, true, true);
+            assertTrue(manager.isConcurrentWrites());
+
+            final int threadCount = 8;
+            final int messagesPerThread = 2000;
+            final Thread[] threads = new Thread[threadCount];
+            for (int t = 0; t < threadCount; t++) {
+                final int threadIndex = t;
+                threads[t] = new Thread() {
+                    @Override
+                    public void run() {
+                        for (int i = 0; i < messagesPerThread; i++) {
+                            final byte[] msg = (threadIndex + " " + i + "\n").getBytes();
+                            manager.write(msg, 0, msg.length, i % 100 == 0);
+                        }
+                    }
+                };
+                threads[t].start();
+            }
+            for (final Thread thread : threads) {
+                thread.join();
+            }
+            manager.flush();
+
+            final int[] next = new int[threadCount];
+            try (final BufferedReader reader = new BufferedReader(new FileReader(file))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    final String[] parts = line.split(" ");
+                    assertEquals("line incorrect: " + line, 2, parts.length);
+                    final int threadIndex = Integer.parseInt(parts[0]);
+                    assertEquals("out of order for thread " + threadIndex, next[threadIndex]++,
+                            Integer.parseInt(parts[1]));
+                }
+            }
+            for (int t = 0; t < threadCount; t++) {
+                assertEquals(messagesPerThread, next[t]);
+            }
+        }}
+
     @Test
     public void testAppendDoesNotOverwriteExistingFile() throws IOException {
         final boolean isAppend = true;
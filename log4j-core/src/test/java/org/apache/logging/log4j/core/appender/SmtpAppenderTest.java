@@ -184,4 +184,70 @@ public class SmtpAppenderTest {
         assertFalse(body2.contains("Error with exception"));
         assertTrue(body2.contains("Error message #2"));
     }
+
+    @Test
+    public void testAsyncDeliveryCoalescesMails() throws Exception {
+        final int port = AvailablePortFinder.getNextAvailable();
+        final SimpleSmtpServer server = SimpleSmtpServer.start(port);
+        final SmtpAppender appender = SmtpAppender.createAppender(null, "AsyncBatch", "to@example.com", null, null,
+                "from@example.com", null, "Async", null, HOST, String.valueOf(port), null, null, "false", "3", null,
+                null, "true", true, 16, 500, 0, 60);
+        appender.start();
+        final Logger logger = createLogger("AsyncBatchTest", appender);
+
+        logger.debug("Debug message #1");
+        logger.error("Error message #1");
+        logger.error("Error message #2");
+        logger.error("Error message #3");
+        appender.stop();
+        server.stop();
+
+        assertEquals(1, server.getReceivedEmailSize());
+        final String body = server.getReceivedEmail().next().getBody();
+        assertTrue(body.contains("Debug message #1"));
+        assertTrue(body.contains("Error message #1"));
+        assertTrue(body.contains("Error message #2"));
+        assertTrue(body.contains("Error message #3"));
+    }
+
+    @Test
+    public void testAsyncDeliveryRateLimit() throws Exception {
+        final int port = AvailablePortFinder.getNextAvailable();
+        final SimpleSmtpServer server = SimpleSmtpServer.start(port);
+        final SmtpAppender appender = SmtpAppender.createAppender(null, "AsyncRateLimit", "to@example.com", null,
+                null, "from@example.com", null, "Async", null, HOST, String.valueOf(port), null, null, "false", "3",
+                null, null, "true", true, 16, 0, 1, 60);
+        appender.start();
+        final Logger logger = createLogger("AsyncRateLimitTest", appender);
+
+        logger.error("Error message #1");
+        final long deadline = System.currentTimeMillis() + 10000;
+        while (server.getReceivedEmailSize() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(1, server.getReceivedEmailSize());
+        // the rate limit holds these back until the appender stops
+        logger.error("Error message #2");
+        logger.error("Error message #3");
+        Thread.sleep(200);
+        assertEquals(1, server.getReceivedEmailSize());
+        appender.stop();
+        server.stop();
+
+        assertEquals(2, server.getReceivedEmailSize());
+        final Iterator<SmtpMessage> messages = server.getReceivedEmail();
+        assertTrue(messages.next().getBody().contains("Error message #1"));
+        final String body = messages.next().getBody();
+        assertFalse(body.contains("Error message #1"));
+        assertTrue(body.contains("Error message #2"));
+        assertTrue(body.contains("Error message #3"));
+    }
+
+    private static Logger createLogger(final String name, final SmtpAppender appender) {
+        final Logger logger = LoggerContext.getContext().getLogger(name);
+        logger.addAppender(appender);
+        logger.setAdditive(false);
+        logger.setLevel(Level.DEBUG);
+        return logger;
+    }
 }
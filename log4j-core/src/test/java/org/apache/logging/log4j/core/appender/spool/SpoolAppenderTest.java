@@ -0,0 +1,252 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache license, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the license for the specific language governing permissions and
+ * limitations under the license.
+ */
+package org.apache.logging.log4j.core.appender.spool;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.InvalidClassException;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LoggingException;
+import org.apache.logging.log4j.MarkerManager;
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.appender.AbstractAppender;
+import org.apache.logging.log4j.core.config.AppenderRef;
+import org.apache.logging.log4j.core.config.DefaultConfiguration;
+import org.apache.logging.log4j.core.impl.Log4jLogEvent;
+import org.apache.logging.log4j.message.ObjectMessage;
+import org.apache.logging.log4j.message.ParameterizedMessage;
+import org.apache.logging.log4j.spi.MutableThreadContextStack;
+import org.apache.logging.log4j.message.SimpleMessage;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the SpoolAppender.
+ */
+public class SpoolAppenderTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final DefaultConfiguration config = new DefaultConfiguration();
+    private final TargetAppender target = new TargetAppender("Target");
+    private SpoolAppender appender;
+
+    @Before
+    public void setUp() {
+        target.start();
+        config.addAppender(target);
+    }
+
+    @After
+    public void tearDown() {
+        if (appender != null) {
+            appender.stop();
+        }
+        config.stop();
+    }
+
+    private SpoolAppender createAppender() {
+        if (appender != null) {
+            appender.stop();
+        }
+        appender = SpoolAppender.createAppender("Spool", folder.getRoot().getAbsolutePath(),
+                AppenderRef.createAppenderRef("Target", null, null), 4096, 0, false, 100, 0, false, null, config,
+                false);
+        appender.start();
+        assertTrue(appender.isStarted());
+        return appender;
+    }
+
+    private static LogEvent event(final String message) {
+        return Log4jLogEvent.newBuilder().setLoggerName("SpoolAppenderTest").setLevel(Level.INFO)
+                .setMessage(new SimpleMessage(message)).build();
+    }
+
+    private void awaitDelivered(final int count) throws InterruptedException {
+        for (int i = 0; i < 100 && target.events.size() < count; i++) {
+            Thread.sleep(50);
+        }
+        assertEquals(count, target.events.size());
+    }
+
+    private void assertMessages(final String... messages) {
+        assertEquals(messages.length, target.events.size());
+        for (int i = 0; i < messages.length; i++) {
+            assertEquals(messages[i], target.events.get(i).getMessage().getFormattedMessage());
+        }
+    }
+
+    @Test
+    public void testForwardsEvents() throws Exception {
+        final SpoolAppender appender = createAppender();
+        appender.append(event("one"));
+        appender.append(event("two"));
+        awaitDelivered(2);
+        assertMessages("one", "two");
+        assertEquals(2, appender.getForwardedCount());
+        assertTrue(appender.isSpoolEmpty());
+    }
+
+    @Test
+    public void testRetriesFailedEvents() throws Exception {
+        final SpoolAppender appender = createAppender();
+        target.fail = true;
+        appender.append(event("one"));
+        appender.append(event("two"));
+        for (int i = 0; i < 100 && appender.getRetryCount() < 2; i++) {
+            Thread.sleep(50);
+        }
+        assertTrue(appender.getRetryCount() >= 2);
+        assertFalse(appender.isSpoolEmpty());
+        target.fail = false;
+        awaitDelivered(2);
+        assertMessages("one", "two");
+    }
+
+    @Test
+    public void testForwardsEventsWithAllFields() throws Exception {
+        final SpoolAppender appender = createAppender();
+        final IllegalStateException thrown = new IllegalStateException("failure");
+        thrown.setStackTrace(new StackTraceElement[0]); // keeps the record within the segment
+        appender.append(Log4jLogEvent.newBuilder().setLoggerName("SpoolAppenderTest").setLevel(Level.WARN)
+                .setMarker(MarkerManager.getMarker("SPOOL"))
+                .setMessage(new ParameterizedMessage("{} and {}", "one", 2))
+                .setContextMap(Collections.singletonMap("key", "value"))
+                .setContextStack(new MutableThreadContextStack(Collections.singletonList("ndc")))
+                .setThrown(thrown).build());
+        awaitDelivered(1);
+        final LogEvent event = target.events.get(0);
+        assertEquals("one and 2", event.getMessage().getFormattedMessage());
+        assertEquals("SPOOL", event.getMarker().getName());
+        assertEquals("value", event.getContextMap().get("key"));
+        assertEquals("ndc", event.getContextStack().peek());
+        assertEquals("failure", event.getThrownProxy().getMessage());
+    }
+
+    @Test
+    public void testSpoolsObjectMessagesAsText() throws Exception {
+        final SpoolAppender appender = createAppender();
+        appender.append(Log4jLogEvent.newBuilder().setLoggerName("SpoolAppenderTest").setLevel(Level.INFO)
+                .setMessage(new ObjectMessage(new File("payload"))).build());
+        awaitDelivered(1);
+        assertMessages("payload");
+    }
+
+    @Test
+    public void testDeserializeRejectsOtherClasses() throws Exception {
+        final List<Object> list = new ArrayList<>();
+        list.add(new File("payload"));
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (final ObjectOutputStream oos = new ObjectOutputStream(bytes)) {
+            oos.writeObject(list);
+        }
+        try {
+            SpoolAppender.deserialize(bytes.toByteArray());
+            fail("Deserialized a java.io.File");
+        } catch (final InvalidClassException expected) {
+            assertEquals("java.io.File", expected.classname);
+        }
+    }
+
+    @Test
+    public void testKeepsUndeliveredEventsAcrossRestart() throws Exception {
+        createAppender();
+        target.fail = true;
+        appender.append(event("kept"));
+        appender.stop();
+        assertTrue(target.events.isEmpty());
+        target.fail = false;
+        createAppender();
+        awaitDelivered(1);
+        assertMessages("kept");
+    }
+
+    @Test
+    public void testStopDoesNotCloseSpoolUnderBlockedForwarder() throws Exception {
+        final SpoolAppender appender = createAppender();
+        target.entered = new CountDownLatch(1);
+        target.release = new CountDownLatch(1);
+        appender.append(event("blocked"));
+        target.entered.await();
+        appender.stop();
+        assertFalse(appender.isSpoolEmpty());
+        target.release.countDown();
+        for (int i = 0; i < 100 && !appender.isSpoolEmpty(); i++) {
+            Thread.sleep(50);
+        }
+        // acknowledged by the forwarder, which closed the spool when it returned
+        assertTrue(appender.isSpoolEmpty());
+        createAppender();
+        Thread.sleep(200);
+        assertMessages("blocked");
+    }
+
+    private static class TargetAppender extends AbstractAppender {
+
+        private static final long serialVersionUID = 1L;
+
+        private final List<LogEvent> events = new CopyOnWriteArrayList<>();
+        private volatile boolean fail;
+        private volatile CountDownLatch entered;
+        private volatile CountDownLatch release;
+
+        TargetAppender(final String name) {
+            super(name, null, null, false);
+        }
+
+        @Override
+        public void append(final LogEvent event) {
+            if (fail) {
+                throw new LoggingException("Target is down");
+            }
+            events.add(event);
+            if (release != null) {
+                entered.countDown();
+                awaitRelease();
+            }
+        }
+
+        private void awaitRelease() {
+            boolean interrupted = false;
+            for (;;) {
+                try {
+                    release.await();
+                    break;
+                } catch (final InterruptedException ex) {
+                    // like a blocking network call that ignores interrupts
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
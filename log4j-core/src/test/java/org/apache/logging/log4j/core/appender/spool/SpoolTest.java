@@ -0,0 +1,229 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache license, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the license for the specific language governing permissions and
+ * limitations under the license.
+ */
+package org.apache.logging.log4j.core.appender.spool;
+
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the Spool.
+ */
+public class SpoolTest {
+
+    private static final int SEGMENT_SIZE = 4096;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Spool spool;
+
+    @After
+    public void tearDown() {
+        if (spool != null) {
+            spool.close();
+        }
+    }
+
+    private Spool open(final int maxSegments) throws IOException {
+        if (spool != null) {
+            spool.close();
+        }
+        spool = Spool.open(folder.getRoot(), SEGMENT_SIZE, maxSegments, false);
+        return spool;
+    }
+
+    private static void append(final Spool spool, final String record) throws IOException {
+        final byte[] bytes = record.getBytes(StandardCharsets.UTF_8);
+        spool.append(bytes, 0, bytes.length);
+    }
+
+    private static String next(final Spool spool) throws InterruptedException {
+        final byte[] record = spool.next(0, TimeUnit.MILLISECONDS);
+        return record == null ? null : new String(record, StandardCharsets.UTF_8);
+    }
+
+    private File[] segmentFiles() {
+        return folder.getRoot().listFiles(new FilenameFilter() {
+            @Override
+            public boolean accept(final File dir, final String name) {
+                return name.endsWith(".segment");
+            }
+        });
+    }
+
+    @Test
+    public void testReadAndAcknowledge() throws Exception {
+        final Spool spool = open(0);
+        assertTrue(spool.isEmpty());
+        append(spool, "one");
+        append(spool, "two");
+        assertEquals("one", next(spool));
+        assertTrue(spool.hasNext());
+        assertEquals("two", next(spool));
+        assertFalse(spool.hasNext());
+        assertNull(next(spool));
+        assertFalse(spool.isEmpty());
+        spool.acknowledge();
+        assertTrue(spool.isEmpty());
+    }
+
+    @Test
+    public void testClosedSpoolKeepsItsState() throws Exception {
+        final Spool spool = open(0);
+        final String payload = String.format("%01000d", 0);
+        for (int i = 0; i < 20; i++) {
+            append(spool, i + payload);
+        }
+        assertEquals("0" + payload, next(spool));
+        spool.close();
+        // the buffers are unmapped, nothing may touch them
+        assertFalse(spool.isEmpty());
+        assertFalse(spool.hasNext());
+        assertNull(next(spool));
+        spool.acknowledge();
+        spool.rewind();
+        assertEquals("0" + payload, next(open(0)));
+    }
+
+    @Test
+    public void testRewindReadsUnacknowledgedRecords() throws Exception {
+        final Spool spool = open(0);
+        append(spool, "one");
+        append(spool, "two");
+        assertEquals("one", next(spool));
+        spool.acknowledge();
+        assertEquals("two", next(spool));
+        spool.rewind();
+        assertEquals("two", next(spool));
+    }
+
+    @Test
+    public void testRollsAndReusesSegments() throws Exception {
+        final Spool spool = open(0);
+        final String payload = String.format("%0100d", 0);
+        for (int i = 0; i < 100; i++) {
+            append(spool, i + payload);
+        }
+        assertTrue(spool.getSegmentCount() > 2);
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i + payload, next(spool));
+            spool.acknowledge();
+        }
+        assertTrue(spool.isEmpty());
+        assertEquals(1, spool.getSegmentCount());
+        // the current segment and one spare
+        assertEquals(2, segmentFiles().length);
+        for (int i = 0; i < 40; i++) {
+            append(spool, i + payload);
+        }
+        assertEquals(2, spool.getSegmentCount());
+        assertEquals("Spare segment was not reused", 2, segmentFiles().length);
+        assertEquals(0 + payload, next(spool));
+    }
+
+    @Test
+    public void testRecoversUnacknowledgedRecords() throws Exception {
+        Spool spool = open(0);
+        final String payload = String.format("%0500d", 0);
+        for (int i = 0; i < 20; i++) {
+            append(spool, i + payload);
+        }
+        for (int i = 0; i < 9; i++) {
+            next(spool);
+        }
+        spool.acknowledge();
+        next(spool);
+        spool = open(0);
+        for (int i = 9; i < 20; i++) {
+            assertEquals(i + payload, next(spool));
+        }
+        assertNull(next(spool));
+        append(spool, "after recovery");
+        assertEquals("after recovery", next(spool));
+    }
+
+    @Test
+    public void testDiscardsIncompleteRecord() throws Exception {
+        Spool spool = open(0);
+        append(spool, "complete");
+        append(spool, "incomplete");
+        spool.close();
+        final File segment = segmentFiles()[0];
+        try (final RandomAccessFile file = new RandomAccessFile(segment, "rw")) {
+            // damage the payload of the second record
+            file.seek(8 + "complete".length() + 8);
+            file.write('X');
+        }
+        spool = open(0);
+        assertEquals("complete", next(spool));
+        assertNull(next(spool));
+        append(spool, "next");
+        assertEquals("next", next(spool));
+        spool = open(0);
+        assertEquals("complete", next(spool));
+        assertEquals("next", next(spool));
+        assertNull(next(spool));
+    }
+
+    @Test
+    public void testFullSpoolRejectsRecords() throws Exception {
+        final Spool spool = open(1);
+        final byte[] record = new byte[1000];
+        for (int i = 0; i < 4; i++) {
+            spool.append(record, 0, record.length);
+        }
+        try {
+            spool.append(record, 0, record.length);
+            fail("Expected the spool to be full");
+        } catch (final IOException expected) {
+            // expected
+        }
+        assertNotNull(spool.next(0, TimeUnit.MILLISECONDS));
+        spool.acknowledge();
+    }
+
+    @Test
+    public void testNextWaitsForRecord() throws Exception {
+        final Spool spool = open(0);
+        final Thread writer = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    Thread.sleep(100);
+                    append(spool, "late");
+                } catch (final Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        };
+        writer.start();
+        final byte[] record = spool.next(5, TimeUnit.SECONDS);
+        writer.join();
+        assertEquals("late", new String(record, StandardCharsets.UTF_8));
+    }
+}
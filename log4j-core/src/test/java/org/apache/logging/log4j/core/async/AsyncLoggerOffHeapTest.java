@@ -0,0 +1,100 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache license, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the license for the specific language governing permissions and
+ * limitations under the license.
+ */
+package org.apache.logging.log4j.core.async;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.ThreadContext;
+import org.apache.logging.log4j.core.CoreLoggerContexts;
+import org.apache.logging.log4j.core.config.ConfigurationFactory;
+import org.apache.logging.log4j.core.util.Constants;
+import org.apache.logging.log4j.util.Strings;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class AsyncLoggerOffHeapTest {
+
+    @BeforeClass
+    public static void beforeClass() {
+        System.setProperty("AsyncLogger.OffHeapRingBuffer", "true");
+        System.setProperty("AsyncLogger.RingBufferSize", "128");
+        System.setProperty(Constants.LOG4J_CONTEXT_SELECTOR,
+                AsyncLoggerContextSelector.class.getName());
+        System.setProperty(ConfigurationFactory.CONFIGURATION_FILE_PROPERTY,
+                "AsyncLoggerThreadContextTest.xml");
+    }
+
+    @AfterClass
+    public static void afterClass() {
+        System.clearProperty("AsyncLogger.OffHeapRingBuffer");
+        System.clearProperty("AsyncLogger.RingBufferSize");
+        System.setProperty(Constants.LOG4J_CONTEXT_SELECTOR, Strings.EMPTY);
+    }
+
+    @Test
+    public void testAsyncLogWritesToLog() throws Exception {
+        final File file = new File("target", "AsyncLoggerTest.log");
+        file.delete();
+
+        ThreadContext.push("stackvalue");
+        ThreadContext.put("KEY", "mapvalue");
+        try {
+            final Logger log = LogManager.getLogger("com.foo.Bar");
+            for (int i = 0; i < 300; i++) {
+                log.info("Off-heap msg {}", i);
+            }
+            log.warn("Spilled msg", new InternalError("this is not a real error"));
+        } finally {
+            ThreadContext.clearAll();
+        }
+        CoreLoggerContexts.stopLoggerContext(false, file); // stop async thread
+
+        final BufferedReader reader = new BufferedReader(new FileReader(file));
+        try {
+            for (int i = 0; i < 300; i++) {
+                final String line = reader.readLine();
+                assertNotNull("line " + i, line);
+                assertTrue(line, line.contains("Off-heap msg " + i + " "));
+                assertTrue(line, line.contains("mapvalue [stackvalue]"));
+            }
+            final String spilled = reader.readLine();
+            assertTrue(spilled, spilled.contains("Spilled msg"));
+            assertTrue(spilled, spilled.contains("mapvalue [stackvalue]"));
+            assertTrue(spilled, spilled.contains("this is not a real error"));
+        } finally {
+            reader.close();
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testStopFreesOffHeapRingBuffer() {
+        final AsyncLoggerDisruptor disruptor = new AsyncLoggerDisruptor("testStopFreesOffHeapRingBuffer");
+        disruptor.start();
+        assertTrue(disruptor.isOffHeap());
+        disruptor.stop();
+        assertFalse(disruptor.isOffHeap());
+    }
+
+}
@@ -0,0 +1,129 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache license, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the license for the specific language governing permissions and
+ * limitations under the license.
+ */
+package org.apache.logging.log4j.core.async;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.MarkerManager;
+import org.apache.logging.log4j.ThreadContext;
+import org.apache.logging.log4j.ThreadContext.ContextStack;
+import org.apache.logging.log4j.core.LoggerContext;
+import org.apache.logging.log4j.message.ObjectMessage;
+import org.apache.logging.log4j.message.ParameterizedMessage;
+import org.apache.logging.log4j.message.SimpleMessage;
+import org.apache.logging.log4j.spi.MutableThreadContextStack;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class OffHeapRingBufferTest {
+
+    private final AsyncLogger logger = new AsyncLogger(new LoggerContext("OffHeapRingBufferTest"), "com.foo.Bar",
+            null, new AsyncLoggerDisruptor("OffHeapRingBufferTest"));
+
+    @Test
+    public void testReadReturnsWrittenEvent() {
+        final OffHeapRingBuffer ring = new OffHeapRingBuffer(4, OffHeapRingBuffer.MIN_SLOT_SIZE * 4);
+        final Map<String, String> contextMap = new HashMap<>();
+        contextMap.put("key", "value é€");
+        final MutableThreadContextStack contextStack = new MutableThreadContextStack();
+        contextStack.push("first");
+        contextStack.push("second");
+        final ParameterizedMessage message = new ParameterizedMessage("{} über {}", "😀", 42);
+
+        for (long sequence = 0; sequence < 6; sequence++) {
+            assertTrue(ring.write(sequence, logger, MarkerManager.getMarker("TEST"), "fqcn", Level.WARN, message, null,
+                    contextMap, contextStack, "main", null, null, 1234567L + sequence, 890, 42L));
+            final RingBufferLogEvent event = ring.read(sequence);
+            assertEquals("com.foo.Bar", event.getLoggerName());
+            assertSame(MarkerManager.getMarker("TEST"), event.getMarker());
+            assertEquals("fqcn", event.getLoggerFqcn());
+            assertSame(Level.WARN, event.getLevel());
+            assertEquals(message.getFormattedMessage(), event.getMessage().getFormattedMessage());
+            assertEquals(contextMap, event.getContextMap());
+            assertEquals(contextStack.asList(), event.getContextStack().asList());
+            assertEquals("main", event.getThreadName());
+            assertEquals(1234567L + sequence, event.getTimeMillis());
+            assertEquals((567 + (int) sequence) * 1000000 + 890, event.getNanoOfSecond());
+            assertEquals(42L, event.getNanoTime());
+            assertNull(event.getThrown());
+            event.clear();
+        }
+    }
+
+    @Test
+    public void testEmptyContext() {
+        final OffHeapRingBuffer ring = new OffHeapRingBuffer(2, OffHeapRingBuffer.MIN_SLOT_SIZE);
+        assertTrue(ring.write(0, logger, null, "fqcn", Level.INFO, new SimpleMessage("msg"), null,
+                ThreadContext.EMPTY_MAP, ThreadContext.EMPTY_STACK, null, null, null, 0, 0, 0));
+        final RingBufferLogEvent event = ring.read(0);
+        assertNull(event.getMarker());
+        assertNull(event.getThreadName());
+        assertTrue(event.getContextMap().isEmpty());
+        assertEquals(0, event.getContextStack().getDepth());
+    }
+
+    @Test
+    public void testEventsThatDoNotFitAreSpilled() {
+        final OffHeapRingBuffer ring = new OffHeapRingBuffer(2, OffHeapRingBuffer.MIN_SLOT_SIZE);
+        final ContextStack stack = ThreadContext.EMPTY_STACK;
+        final Map<String, String> map = ThreadContext.EMPTY_MAP;
+        assertFalse("too long", ring.write(0, logger, null, "fqcn", Level.INFO,
+                new SimpleMessage(new String(new char[OffHeapRingBuffer.MIN_SLOT_SIZE])), null, map, stack, "main",
+                null, null, 0, 0, 0));
+        assertFalse("thrown", ring.write(0, logger, null, "fqcn", Level.INFO, new SimpleMessage("msg"),
+                new IllegalStateException(), map, stack, "main", null, null, 0, 0, 0));
+        assertFalse("message type", ring.write(0, logger, null, "fqcn", Level.INFO, new ObjectMessage("msg"), null,
+                map, stack, "main", null, null, 0, 0, 0));
+
+        final RingBufferLogEvent spilled = new RingBufferLogEvent();
+        ring.spill(0, spilled);
+        assertSame(spilled, ring.read(0));
+    }
+
+    @Test
+    public void testInvalidatedSlotIsSkipped() {
+        final OffHeapRingBuffer ring = new OffHeapRingBuffer(2, OffHeapRingBuffer.MIN_SLOT_SIZE);
+        assertTrue(ring.write(0, logger, null, "fqcn", Level.INFO, new SimpleMessage("msg"), null,
+                ThreadContext.EMPTY_MAP, ThreadContext.EMPTY_STACK, null, null, null, 0, 0, 0));
+        // the producer of the next lap fails after invalidating the slot
+        ring.invalidate(2);
+        assertNull(ring.read(2));
+        // a message that does not fit is partially written before it is spilled
+        ring.invalidate(4);
+        assertFalse(ring.write(4, logger, null, "fqcn", Level.INFO,
+                new SimpleMessage(new String(new char[OffHeapRingBuffer.MIN_SLOT_SIZE])), null,
+                ThreadContext.EMPTY_MAP, ThreadContext.EMPTY_STACK, "main", null, null, 0, 0, 0));
+        assertNull(ring.read(4));
+    }
+
+    @Test
+    public void testFreedRingBufferRejectsWrites() {
+        final OffHeapRingBuffer ring = new OffHeapRingBuffer(2, OffHeapRingBuffer.MIN_SLOT_SIZE);
+        ring.free();
+        assertTrue(ring.isFreed());
+        ring.free(); // no effect
+        try {
+            ring.invalidate(0);
+            fail("Expected NullPointerException");
+        } catch (final NullPointerException expected) {
+            // the disruptor ignores log events after it was shut down
+        }
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache license, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the license for the specific language governing permissions and
+ * limitations under the license.
+ */
+package org.apache.logging.log4j.core.impl;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the LocationResolver class.
+ */
+public class LocationResolverTest {
+
+    /**
+     * Stands in for a logger: the location is the frame that calls into this class.
+     */
+    static class FakeLogger {
+        static StackTraceElement location() {
+            return LocationResolver.calcLocation(FakeLogger.class.getName());
+        }
+
+        static Throwable capture() {
+            return LocationResolver.capture();
+        }
+
+        static StackTraceElement locationThroughRelay() {
+            return Relay.location();
+        }
+    }
+
+    /**
+     * Calls back into the logger, like a JDK stream between two methods of a logging stream.
+     */
+    static class Relay {
+        static StackTraceElement location() {
+            return FakeLogger.location();
+        }
+    }
+
+    @Test
+    public void testCalcLocation() {
+        final StackTraceElement location = FakeLogger.location();
+        assertNotNull(location);
+        assertEquals(LocationResolverTest.class.getName(), location.getClassName());
+        assertEquals("testCalcLocation", location.getMethodName());
+    }
+
+    @Test
+    public void testCalcLocationUsesOutermostLoggerFrame() {
+        final StackTraceElement location = FakeLogger.locationThroughRelay();
+        assertNotNull(location);
+        assertEquals(LocationResolverTest.class.getName(), location.getClassName());
+        assertEquals("testCalcLocationUsesOutermostLoggerFrame", location.getMethodName());
+    }
+
+    @Test
+    public void testResolveOnAnotherThread() throws Exception {
+        final Throwable token = FakeLogger.capture();
+        final AtomicReference<StackTraceElement> result = new AtomicReference<>();
+        final Thread thread = new Thread() {
+            @Override
+            public void run() {
+                result.set(LocationResolver.resolve(FakeLogger.class.getName(), token));
+            }
+        };
+        thread.start();
+        thread.join();
+        assertNotNull(result.get());
+        assertEquals(LocationResolverTest.class.getName(), result.get().getClassName());
+        assertEquals("testResolveOnAnotherThread", result.get().getMethodName());
+    }
+
+    @Test
+    public void testUnknownLogger() {
+        assertNull(LocationResolver.calcLocation("does.not.Exist"));
+        assertNull(LocationResolver.calcLocation(null));
+        assertNull(LocationResolver.resolve(FakeLogger.class.getName(), null));
+    }
+
+}
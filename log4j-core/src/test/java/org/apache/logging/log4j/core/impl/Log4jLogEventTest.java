@@ -81,12 +81,14 @@ public class Log4jLogEventTest {
                 .setLoggerFqcn(Strings.EMPTY) //
                 .setLevel(Level.INFO) //
                 .setMessage(new SimpleMessage("abc")) //
+                .setNanoOfMillisecond(123456) //
                 .build();
 
         final byte[] binary = serialize(evt);
         final Log4jLogEvent evt2 = deserialize(binary);
 
         assertEquals(evt.getTimeMillis(), evt2.getTimeMillis());
+        assertEquals(evt.getNanoOfSecond(), evt2.getNanoOfSecond());
         assertEquals(evt.getLoggerFqcn(), evt2.getLoggerFqcn());
         assertEquals(evt.getLevel(), evt2.getLevel());
         assertEquals(evt.getLoggerName(), evt2.getLoggerName());
@@ -258,7 +260,8 @@ public class Log4jLogEventTest {
                 .setSource(stackTraceElement) //
                 .setThreadName(threadName) //
                 .setThrown(exception) //
-                .setTimeMillis(987654321L)
+                .setTimeMillis(987654321L) //
+                .setNanoOfMillisecond(123456) //
                 .build();
         
         assertSame(contextMap, event.getContextMap());
@@ -275,6 +278,8 @@ public class Log4jLogEventTest {
         assertSame(threadName, event.getThreadName());
         assertSame(exception, event.getThrown());
         assertEquals(987654321L, event.getTimeMillis());
+        assertEquals(987654L, event.getEpochSecond());
+        assertEquals(321123456, event.getNanoOfSecond());
         
         LogEvent event2 = new Log4jLogEvent.Builder(event).build();
         assertEquals("copy constructor builder", event2, event);
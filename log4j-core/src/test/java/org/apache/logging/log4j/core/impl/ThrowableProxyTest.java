@@ -19,6 +19,8 @@ package org.apache.logging.log4j.core.impl;
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
@@ -287,4 +289,59 @@ public class ThrowableProxyTest {
         e1.initCause(e2);
         LogManager.getLogger().error("Error", e1);
     }
+
+    @Test
+    public void testLazyExtendedStackTrace() throws Exception {
+        final Throwable throwable = new IllegalStateException("outer", new IllegalArgumentException("inner"));
+        final ThrowableProxy eager = new ThrowableProxy(throwable, false);
+        final ThrowableProxy lazy = new ThrowableProxy(throwable, true);
+
+        assertEquals(eager.getCauseProxy().getCommonElementCount(), lazy.getCauseProxy().getCommonElementCount());
+        assertExtendedStackTraceEquals(eager.getExtendedStackTrace(), lazy.getExtendedStackTrace());
+        assertExtendedStackTraceEquals(eager.getCauseProxy().getExtendedStackTrace(),
+                lazy.getCauseProxy().getExtendedStackTrace());
+
+        final ThrowableProxy deserialized = deserialize(serialize(new ThrowableProxy(throwable, true)));
+        assertArrayEquals(lazy.getExtendedStackTrace(), deserialized.getExtendedStackTrace());
+        assertArrayEquals(lazy.getCauseProxy().getExtendedStackTrace(),
+                deserialized.getCauseProxy().getExtendedStackTrace());
+    }
+
+    private static void assertExtendedStackTraceEquals(final ExtendedStackTraceElement[] expected,
+            final ExtendedStackTraceElement[] actual) {
+        assertEquals(expected.length, actual.length);
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i].getStackTraceElement(), actual[i].getStackTraceElement());
+            assertEquals(expected[i].getExtraClassInfo().getLocation(), actual[i].getExtraClassInfo().getLocation());
+            assertEquals(expected[i].getExtraClassInfo().getVersion(), actual[i].getExtraClassInfo().getVersion());
+        }
+    }
+
+    @Test
+    public void testClassInfoCacheIsBounded() {
+        final ClassInfoCache cache = new ClassInfoCache(4);
+        final ClassLoader loader = getClass().getClassLoader();
+        final ThrowableProxy.CacheEntry entry = new ThrowableProxy.CacheEntry(new ExtendedClassInfo(false, "?", "?"),
+                loader);
+        for (int i = 0; i < 20; i++) {
+            cache.put(loader, "class" + i, entry);
+            assertSame("Latest entry evicted", entry, cache.get(loader, "class" + i));
+        }
+        cache.put(null, "a", entry);
+
+        assertTrue("Cache not bounded: " + cache.size(), cache.size() <= 4 + 1);
+        assertSame(entry, cache.get(null, "a"));
+        assertNull(new ClassInfoCache(0).get(loader, "a"));
+    }
+
+    @Test
+    public void testClassInfoIsShared() {
+        final Throwable throwable = new IllegalStateException("This is a test");
+        final ExtendedStackTraceElement[] first = new ThrowableProxy(throwable, true).getExtendedStackTrace();
+        final ExtendedStackTraceElement[] second = new ThrowableProxy(throwable, true).getExtendedStackTrace();
+        assertTrue(ThrowableProxy.CLASS_INFO_CACHE.size() > 0);
+        for (int i = 0; i < first.length; i++) {
+            assertSame(first[i].getExtraClassInfo(), second[i].getExtraClassInfo());
+        }
+    }
 }
@@ -17,11 +17,23 @@
 package org.apache.logging.log4j.core.layout;
 
 import static net.javacrumbs.jsonunit.JsonAssert.assertJsonEquals;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.InflaterInputStream;
 
@@ -34,10 +46,13 @@ import org.apache.logging.log4j.core.LogEvent;
 import org.apache.logging.log4j.core.Logger;
 import org.apache.logging.log4j.core.LoggerContext;
 import org.apache.logging.log4j.core.config.ConfigurationFactory;
+import org.apache.logging.log4j.core.impl.Log4jLogEvent;
 import org.apache.logging.log4j.core.layout.GelfLayout.CompressionType;
 import org.apache.logging.log4j.core.util.KeyValuePair;
+import org.apache.logging.log4j.message.SimpleMessage;
 import org.apache.logging.log4j.test.appender.ListAppender;
 import org.junit.AfterClass;
+import org.junit.Assert;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
@@ -200,4 +215,113 @@ public class GelfLayoutTest {
     public void testLayoutZlibCompression() throws Exception {
         testCompressedLayout(CompressionType.ZLIB);
     }
+
+    private static LogEvent createLargeEvent() {
+        final StringBuilder message = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            message.append("Line ").append(i).append(" of a message that is large enough to be compressed. ");
+        }
+        return Log4jLogEvent.newBuilder().setLoggerName("a.B").setLevel(Level.INFO)
+                .setMessage(new SimpleMessage(message.toString())).setTimeMillis(1).build();
+    }
+
+    private static byte[] compressWithStream(final CompressionType compressionType, final byte[] bytes)
+            throws IOException {
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (final OutputStream stream = compressionType.createDeflaterOutputStream(baos)) {
+            stream.write(bytes);
+        }
+        return baos.toByteArray();
+    }
+
+    @Test
+    public void testReusedCompressorMatchesDeflaterOutputStream() throws IOException {
+        final LogEvent event = createLargeEvent();
+        final GelfLayout uncompressedLayout = GelfLayout.createLayout(HOSTNAME, new KeyValuePair[0],
+                CompressionType.OFF, 1024);
+        final byte[] json = uncompressedLayout.toByteArray(event);
+        assertArrayEquals(uncompressedLayout.toSerializable(event).getBytes(StandardCharsets.UTF_8), json);
+        for (final CompressionType compressionType : new CompressionType[] { CompressionType.GZIP,
+                CompressionType.ZLIB }) {
+            final GelfLayout layout = GelfLayout.createLayout(HOSTNAME, new KeyValuePair[0], compressionType, 1024);
+            final byte[] expected = compressWithStream(compressionType, json);
+            assertArrayEquals(compressionType.name(), expected, layout.toByteArray(event));
+            assertArrayEquals(compressionType.name(), expected, layout.toByteArray(event));
+        }
+    }
+
+    @Test
+    public void testConcurrentCompression() throws Exception {
+        final LogEvent event = createLargeEvent();
+        final byte[] json = GelfLayout.createLayout(HOSTNAME, new KeyValuePair[0], CompressionType.OFF, 1024)
+                .toByteArray(event);
+        final byte[] expected = compressWithStream(CompressionType.GZIP, json);
+        final GelfLayout layout = GelfLayout.createLayout(HOSTNAME, new KeyValuePair[0], CompressionType.GZIP, 1024);
+        // more threads than the layout pools Deflaters for
+        final int threads = Runtime.getRuntime().availableProcessors() * 2 + 1;
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            final List<Future<Void>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() {
+                        for (int j = 0; j < 100; j++) {
+                            assertArrayEquals(expected, layout.toByteArray(event));
+                        }
+                        return null;
+                    }
+                }));
+            }
+            for (final Future<Void> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testChunks() throws IOException {
+        final LogEvent event = createLargeEvent();
+        final GelfLayout layout = new GelfLayout(HOSTNAME, new KeyValuePair[0], CompressionType.OFF, 1024, 1000);
+        final byte[] message = layout.toByteArray(event);
+        assertTrue(layout.isChunked(message.length));
+        final List<byte[]> datagrams = new ArrayList<>();
+        final ByteArrayOutputStream out = new ByteArrayOutputStream() {
+            @Override
+            public void flush() {
+                datagrams.add(toByteArray());
+                reset();
+            }
+        };
+        layout.writeChunks(message, 0, message.length, out);
+        final int count = (message.length + 987) / 988;
+        assertEquals(count, datagrams.size());
+        final ByteArrayOutputStream reassembled = new ByteArrayOutputStream();
+        for (int i = 0; i < count; i++) {
+            final byte[] datagram = datagrams.get(i);
+            assertTrue(datagram.length <= 1000);
+            assertEquals(0x1e, datagram[0]);
+            assertEquals(0x0f, datagram[1]);
+            assertArrayEquals(Arrays.copyOfRange(datagrams.get(0), 2, 10), Arrays.copyOfRange(datagram, 2, 10));
+            assertEquals(i, datagram[10]);
+            assertEquals(count, datagram[11]);
+            reassembled.write(datagram, GelfLayout.CHUNK_HEADER_LENGTH, datagram.length
+                    - GelfLayout.CHUNK_HEADER_LENGTH);
+        }
+        assertArrayEquals(message, reassembled.toByteArray());
+    }
+
+    @Test
+    public void testTooManyChunks() {
+        final GelfLayout layout = new GelfLayout(HOSTNAME, new KeyValuePair[0], CompressionType.OFF, 1024, 13);
+        final byte[] message = new byte[GelfLayout.MAX_CHUNKS + 1];
+        try {
+            layout.writeChunks(message, 0, message.length, new ByteArrayOutputStream());
+            Assert.fail("Expected an IOException");
+        } catch (final IOException e) {
+            // expected
+        }
+    }
 }
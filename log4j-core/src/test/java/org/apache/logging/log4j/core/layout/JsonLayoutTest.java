@@ -16,18 +16,22 @@
  */
 package org.apache.logging.log4j.core.layout;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.MarkerManager;
 import org.apache.logging.log4j.ThreadContext;
 import org.apache.logging.log4j.core.Appender;
 import org.apache.logging.log4j.core.BasicConfigurationFactory;
+import org.apache.logging.log4j.core.LogEvent;
 import org.apache.logging.log4j.core.Logger;
 import org.apache.logging.log4j.core.LoggerContext;
 import org.apache.logging.log4j.core.config.Configuration;
@@ -286,6 +290,45 @@ public class JsonLayoutTest {
         this.testAllFeatures(true, true, true, true);
     }
 
+    @Test
+    public void testStreamingSerializationMatchesObjectWriter() throws Exception {
+        final Map<String, String> contextMap = new HashMap<>();
+        contextMap.put("empty", Strings.EMPTY);
+        contextMap.put("null", null);
+        contextMap.put("quote\"", "line\nbreak \u00e9\u20ac");
+        final LogEvent[] events = {
+                LogEventFixtures.createLogEvent(),
+                Log4jLogEvent.newBuilder().setMessage(new SimpleMessage(Strings.EMPTY)).setLevel(Level.INFO)
+                        .setLoggerName(Strings.EMPTY).setThreadName(Strings.EMPTY).setTimeMillis(2).build(),
+                Log4jLogEvent.newBuilder().setLoggerName("a.B").setMarker(MarkerManager.getMarker("Lonely"))
+                        .setMessage(new SimpleMessage("\t\"\\\u0001")).setContextMap(contextMap)
+                        .setSource(new StackTraceElement("C", "m", null, -2)).setTimeMillis(3).build() };
+        for (final boolean compact : new boolean[] { true, false }) {
+            for (final boolean location : new boolean[] { true, false }) {
+                for (final boolean properties : new boolean[] { true, false }) {
+                    final AbstractJacksonLayout layout = JsonLayout.createLayout(null, location, properties, false,
+                            compact, false, null, null, StandardCharsets.UTF_8);
+                    for (final LogEvent event : events) {
+                        final String expected = layout.objectWriter.writeValueAsString(event) + layout.eol;
+                        assertEquals(expected, layout.toSerializable(event));
+                        assertArrayEquals(expected.getBytes(StandardCharsets.UTF_8), layout.toByteArray(event));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testCompleteSeparatesEvents() throws Exception {
+        final AbstractJacksonLayout layout = JsonLayout.createLayout(null, false, false, true, true, false, null,
+                null, StandardCharsets.UTF_8);
+        final LogEvent event = Log4jLogEvent.newBuilder().setLoggerName("a.B").setLevel(Level.INFO)
+                .setMessage(new SimpleMessage("M")).setTimeMillis(1).build();
+        final String first = layout.toSerializable(event);
+        assertEquals(", " + first, new String(layout.toByteArray(event), StandardCharsets.UTF_8));
+        assertEquals(", " + first, layout.toSerializable(event));
+    }
+
     private String toPropertySeparator(final boolean compact) {
         return compact ? ":" : " : ";
     }
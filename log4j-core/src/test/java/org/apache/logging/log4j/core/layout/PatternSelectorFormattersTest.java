@@ -0,0 +1,60 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache license, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the license for the specific language governing permissions and
+ * limitations under the license.
+ */
+package org.apache.logging.log4j.core.layout;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.List;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.LoggerContext;
+import org.apache.logging.log4j.core.impl.Log4jLogEvent;
+import org.apache.logging.log4j.core.pattern.PatternFormatter;
+import org.apache.logging.log4j.message.SimpleMessage;
+import org.junit.Test;
+
+/**
+ * Tests a PatternLayout whose PatternSelector returns new formatter arrays for every event.
+ */
+public class PatternSelectorFormattersTest {
+
+    LoggerContext ctx = LoggerContext.getContext();
+
+    @Test
+    public void testSelectorReturningNewFormatters() throws Exception {
+        final PatternSelector selector = new PatternSelector() {
+            @Override
+            public PatternFormatter[] getFormatters(final LogEvent event) {
+                final List<PatternFormatter> list = PatternLayout.createPatternParser(ctx.getConfiguration())
+                        .parse("[%-6p] %m", false, true);
+                return list.toArray(new PatternFormatter[list.size()]);
+            }
+        };
+        final PatternLayout layout = PatternLayout.newBuilder().withPatternSelector(selector)
+                .withConfiguration(ctx.getConfiguration()).build();
+        final LogEvent event = Log4jLogEvent.newBuilder() //
+                .setLoggerName(this.getClass().getName()) //
+                .setLevel(Level.INFO) //
+                .setMessage(new SimpleMessage("Hello")).build();
+        // more arrays than the layout compiles, so later events are formatted without compiling
+        for (int i = 0; i < 100; i++) {
+            assertEquals("[INFO  ] Hello", layout.toSerializable(event));
+        }
+    }
+
+}
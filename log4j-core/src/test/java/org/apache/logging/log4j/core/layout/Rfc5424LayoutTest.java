@@ -16,6 +16,7 @@
  */
 package org.apache.logging.log4j.core.layout;
 
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Locale;
@@ -25,11 +26,14 @@ import org.apache.logging.log4j.MarkerManager;
 import org.apache.logging.log4j.ThreadContext;
 import org.apache.logging.log4j.core.Appender;
 import org.apache.logging.log4j.core.BasicConfigurationFactory;
+import org.apache.logging.log4j.core.LogEvent;
 import org.apache.logging.log4j.core.Logger;
 import org.apache.logging.log4j.core.LoggerContext;
 import org.apache.logging.log4j.core.config.ConfigurationFactory;
+import org.apache.logging.log4j.core.impl.Log4jLogEvent;
 import org.apache.logging.log4j.core.net.Facility;
 import org.apache.logging.log4j.core.util.KeyValuePair;
+import org.apache.logging.log4j.message.SimpleMessage;
 import org.apache.logging.log4j.message.StructuredDataMessage;
 import org.apache.logging.log4j.status.StatusLogger;
 import org.apache.logging.log4j.test.appender.ListAppender;
@@ -453,4 +457,52 @@ public class Rfc5424LayoutTest {
             appender.stop();
         }
     }
+
+    @Test
+    public void testToByteArrayMatchesToSerializable() {
+        final StructuredDataMessage msg = new StructuredDataMessage("Transfer@18060", "Transfer\nComplete", "Audit");
+        msg.put("ToAccount", "123456");
+        msg.put("Amount", "\"200.00\"\r\n]\\");
+        final LogEvent structured = Log4jLogEvent.newBuilder().setLoggerName("Audit").setLevel(Level.WARN)
+                .setMessage(msg).setTimeMillis(1234567890L).build();
+        final LogEvent thrown = Log4jLogEvent.newBuilder().setLoggerName("Audit").setLevel(Level.ERROR)
+                .setMessage(new SimpleMessage("Failed\r\nagain \u00e9")).setThrown(new IllegalStateException("test"))
+                .setTimeMillis(1234567890L).build();
+        for (final boolean tls : new boolean[] {false, true}) {
+            for (final String escape : new String[] {null, "#012"}) {
+                final Rfc5424Layout layout = Rfc5424Layout.createLayout(Facility.LOCAL0, "Event", 3692, false,
+                        "RequestContext", null, null, true, escape, "ATM", null, null, null, null, "%xEx{short}", tls,
+                        null, null);
+                for (final LogEvent event : new LogEvent[] {structured, thrown, structured}) {
+                    final String expected = layout.toSerializable(event);
+                    assertEquals(expected, new String(layout.toByteArray(event), StandardCharsets.UTF_8));
+                }
+                if (tls) {
+                    final String text = new String(layout.toByteArray(thrown), StandardCharsets.UTF_8);
+                    final int space = text.indexOf(' ');
+                    assertEquals(text.substring(space + 1).getBytes(StandardCharsets.UTF_8).length,
+                            Integer.parseInt(text.substring(0, space)));
+                }
+            }
+        }
+        final Rfc5424Layout layout = Rfc5424Layout.createLayout(Facility.LOCAL0, "Event", 3692, false,
+                "RequestContext", null, null, false, "#012", "ATM", null, null, null, null, null, false, null, null);
+        assertTrue(layout.toSerializable(structured), layout.toSerializable(structured).endsWith(
+                " ATM - Audit [Transfer@18060 Amount=\"\\\"200.00\\\"#012\\]\\\\\" ToAccount=\"123456\"]"
+                + " Transfer#012Complete"));
+    }
+
+    @Test
+    public void testMdcExcludesApplyToStructuredDataWithMdcId() {
+        final StructuredDataMessage msg = new StructuredDataMessage("RequestContext@3692", "Login", "Audit");
+        msg.put("secret", "s3cr3t");
+        msg.put("user", "bob");
+        final LogEvent event = Log4jLogEvent.newBuilder().setLoggerName("Audit").setLevel(Level.INFO)
+                .setMessage(msg).setTimeMillis(1234567890L).build();
+        final Rfc5424Layout layout = Rfc5424Layout.createLayout(Facility.LOCAL0, "Event", 3692, false,
+                "RequestContext", null, null, false, null, "ATM", null, "secret", null, null, null, false, null, null);
+        final String text = layout.toSerializable(event);
+        assertTrue(text, text.contains("[RequestContext@3692 user=\"bob\"]"));
+        assertFalse(text, text.contains("s3cr3t"));
+    }
 }
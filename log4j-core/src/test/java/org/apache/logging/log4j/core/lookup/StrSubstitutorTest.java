@@ -19,7 +19,11 @@ package org.apache.logging.log4j.core.lookup;
 import java.util.HashMap;
 import java.util.Map;
 
+import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.ThreadContext;
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.impl.Log4jLogEvent;
+import org.apache.logging.log4j.message.SimpleMessage;
 import org.junit.AfterClass;
 import org.junit.BeforeClass;
 import org.junit.Test;
@@ -65,4 +69,66 @@ public class StrSubstitutorTest {
         value = subst.replace("${BadKey:-Unknown}-${ctx:BadKey:-}-${sys:BadKey:-Unknown}");
         assertEquals("Unknown--Unknown", value);
     }
+
+    @Test
+    public void testCompiledMatchesReplace() {
+        final Map<String, String> map = new HashMap<>();
+        map.put(TESTKEY, TESTVAL);
+        map.put("recursive", "${TestKey}!");
+        map.put("nested", "Test");
+        final StrSubstitutor subst = new StrSubstitutor(new Interpolator(new MapLookup(map)));
+        ThreadContext.put(TESTKEY, TESTVAL);
+        final LogEvent event = Log4jLogEvent.newBuilder().setLoggerName("compiled").setLevel(Level.INFO)
+                .setMessage(new SimpleMessage("Hello")).build();
+        final String[] sources = {"", "plain text", "${TestKey}", "a${TestKey}b${ctx:TestKey}c${sys:TestKey}d",
+                "${BadKey}", "${ctx:BadKey:-Unknown}", "${BadKey:-${TestKey}}", "${recursive}", "$${TestKey}",
+                "$$${TestKey}", "${TestKey", "x}${TestKey}}", "${${nested}Key}", "${unknown:TestKey}", "${:-}"};
+        for (final String source : sources) {
+            final StrExpression expression = subst.compile(source);
+            assertEquals(source, subst.replace(event, source), expression.evaluate(event));
+            assertEquals(source, subst.replace(source), expression.evaluate(null));
+            assertSame(expression, subst.compile(source));
+        }
+        assertFalse(subst.compile("${${nested}Key}").isCompiled());
+        assertTrue(subst.compile("${TestKey}").isCompiled());
+        assertEquals("${TestKey}", subst.compile("$${TestKey}").evaluate(event));
+        ThreadContext.remove(TESTKEY);
+    }
+
+    @Test
+    public void testCompiledCacheIsClearedBySetters() {
+        final Map<String, String> map = new HashMap<>();
+        map.put(TESTKEY, TESTVAL);
+        final StrSubstitutor subst = new StrSubstitutor(new Interpolator(new MapLookup(map)));
+        final StrExpression expression = subst.compile("${TestKey}");
+        assertEquals(TESTVAL, expression.evaluate(null));
+        map.put(TESTKEY, "Other");
+        subst.setVariableResolver(new Interpolator(new MapLookup(map)));
+        assertNotSame(expression, subst.compile("${TestKey}"));
+        assertEquals("Other", subst.compile("${TestKey}").evaluate(null));
+        subst.setVariablePrefix("%{");
+        assertFalse(subst.compile("%{TestKey}").isCompiled());
+        assertEquals("Other", subst.compile("%{TestKey}").evaluate(null));
+    }
+
+    @Test
+    public void testCompiledUsesInterpolatorSubclassLookup() {
+        final Map<String, String> map = new HashMap<>();
+        map.put(TESTKEY, TESTVAL);
+        final StrSubstitutor subst = new StrSubstitutor(new Interpolator(new MapLookup(map)) {
+            @Override
+            public String lookup(final LogEvent event, final String var) {
+                return "Overridden";
+            }
+        });
+        assertEquals("Overridden", subst.compile("${TestKey}").evaluate(null));
+        assertEquals("Overridden", subst.compile("${sys:TestKey}").evaluate(null));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testCompiledCyclicSubstitution() {
+        final Map<String, String> map = new HashMap<>();
+        map.put("cycle", "${cycle}");
+        new StrSubstitutor(new Interpolator(new MapLookup(map))).compile("${cycle}").evaluate(null);
+    }
 }
@@ -0,0 +1,235 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache license, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the license for the specific language governing permissions and
+ * limitations under the license.
+ */
+package org.apache.logging.log4j.core.net;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.core.appender.AppenderLoggingException;
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the BufferedSocketManager against a loopback server.
+ */
+public class BufferedSocketManagerTest {
+
+    private LineServer server;
+    private BufferedSocketManager manager;
+
+    @After
+    public void tearDown() throws Exception {
+        if (manager != null) {
+            manager.release();
+        }
+        if (server != null) {
+            server.close();
+        }
+    }
+
+    private static int findFreePort() throws IOException {
+        try (final ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private BufferedSocketManager createManager(final int port, final boolean immediateFail, final int bufferSize) {
+        return BufferedSocketManager.getSocketManager(null, false, "localhost", port, 1000, 100, immediateFail,
+                bufferSize, null);
+    }
+
+    private static void write(final BufferedSocketManager manager, final String line) {
+        final byte[] bytes = (line + '\n').getBytes(StandardCharsets.UTF_8);
+        manager.write(bytes, 0, bytes.length, true);
+    }
+
+    @Test
+    public void testSendsEvents() throws Exception {
+        server = new LineServer(0);
+        manager = createManager(server.getPort(), true, 4096);
+        for (int i = 0; i < 100; i++) {
+            write(manager, "event " + i);
+        }
+        for (int i = 0; i < 100; i++) {
+            assertEquals("event " + i, server.takeLine());
+        }
+    }
+
+    @Test
+    public void testBuffersUntilConnected() throws Exception {
+        final int port = findFreePort();
+        manager = createManager(port, true, 1024);
+        write(manager, "first");
+        write(manager, "second");
+        assertFalse(manager.isConnected());
+        assertTrue(manager.getBufferedBytes() > 0);
+        server = new LineServer(port);
+        assertEquals("first", server.takeLine());
+        assertEquals("second", server.takeLine());
+        write(manager, "third");
+        assertEquals("third", server.takeLine());
+        assertTrue(manager.isConnected());
+    }
+
+    @Test
+    public void testSendsBufferedEventsOnRelease() throws Exception {
+        server = new LineServer(0);
+        manager = createManager(server.getPort(), false, 64);
+        for (int i = 0; i < 50; i++) {
+            write(manager, "event " + i);
+        }
+        manager.release();
+        manager = null;
+        for (int i = 0; i < 50; i++) {
+            assertEquals("event " + i, server.takeLine());
+        }
+    }
+
+    @Test
+    public void testImmediateFailWhenFull() throws Exception {
+        manager = createManager(findFreePort(), true, 64);
+        try {
+            for (int i = 0; i < 10; i++) {
+                write(manager, "event " + i);
+            }
+            fail("Buffer did not fill up");
+        } catch (final AppenderLoggingException expected) {
+            assertTrue(expected.getMessage(), expected.getMessage().contains("buffer is full"));
+        }
+    }
+
+    @Test
+    public void testReplaysBatchAfterConnectionIsDropped() throws Exception {
+        server = new LineServer(0, true);
+        manager = createManager(server.getPort(), true, 4096);
+        assertTrue("No connection", server.awaitDropped());
+        // let the reset arrive, so that writing the next batch fails
+        Thread.sleep(500);
+        for (int i = 0; i < 10; i++) {
+            write(manager, "event " + i);
+        }
+        for (int i = 0; i < 10; i++) {
+            assertEquals("event " + i, server.takeLine());
+        }
+        assertEquals(2, server.getConnections());
+    }
+
+    @Test
+    public void testManagersWithDifferentSettingsAreNotShared() throws Exception {
+        final int port = findFreePort();
+        manager = createManager(port, true, 1024);
+        final BufferedSocketManager same = createManager(port, true, 1024);
+        final BufferedSocketManager waiting = createManager(port, false, 1024);
+        final BufferedSocketManager larger = createManager(port, true, 2048);
+        try {
+            assertSame(manager, same);
+            assertNotSame(manager, waiting);
+            assertNotSame(manager, larger);
+            assertNotEquals(manager.getName(), waiting.getName());
+            assertNotEquals(manager.getName(), larger.getName());
+        } finally {
+            same.release();
+            waiting.release();
+            larger.release();
+        }
+    }
+
+    @Test(expected = AppenderLoggingException.class)
+    public void testEventLargerThanBuffer() throws Exception {
+        manager = createManager(findFreePort(), true, 16);
+        write(manager, "an event that is larger than the buffer");
+    }
+
+    /**
+     * Accepts connections one after the other and collects the lines received. Optionally resets the first connection
+     * as soon as it is accepted.
+     */
+    private static class LineServer extends Thread {
+
+        private final ServerSocket serverSocket;
+        private final BlockingQueue<String> lines = new LinkedBlockingQueue<>();
+        private final boolean dropFirstConnection;
+        private final CountDownLatch dropped = new CountDownLatch(1);
+        private volatile int connections;
+
+        LineServer(final int port) throws IOException {
+            this(port, false);
+        }
+
+        LineServer(final int port, final boolean dropFirstConnection) throws IOException {
+            serverSocket = new ServerSocket(port, 50, InetAddress.getByName("localhost"));
+            this.dropFirstConnection = dropFirstConnection;
+            setDaemon(true);
+            start();
+        }
+
+        boolean awaitDropped() throws InterruptedException {
+            return dropped.await(10, TimeUnit.SECONDS);
+        }
+
+        int getConnections() {
+            return connections;
+        }
+
+        int getPort() {
+            return serverSocket.getLocalPort();
+        }
+
+        String takeLine() throws InterruptedException {
+            final String line = lines.poll(10, TimeUnit.SECONDS);
+            assertNotNull("No line received", line);
+            return line;
+        }
+
+        @Override
+        public void run() {
+            while (!serverSocket.isClosed()) {
+                try (final Socket socket = serverSocket.accept();
+                        final BufferedReader reader = new BufferedReader(
+                                new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8))) {
+                    if (++connections == 1 && dropFirstConnection) {
+                        socket.setSoLinger(true, 0); // closing sends a reset
+                        socket.close();
+                        dropped.countDown();
+                        continue;
+                    }
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        lines.add(line);
+                    }
+                } catch (final IOException ex) {
+                    // closed
+                }
+            }
+        }
+
+        void close() throws IOException {
+            serverSocket.close();
+        }
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache license, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the license for the specific language governing permissions and
+ * limitations under the license.
+ */
+package org.apache.logging.log4j.core.net;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the DatagramChannelOutputStream.
+ */
+public class DatagramChannelOutputStreamTest {
+
+    private DatagramSocket receiver;
+
+    @Before
+    public void setUp() throws Exception {
+        receiver = new DatagramSocket(0, InetAddress.getByName("localhost"));
+        receiver.setReceiveBufferSize(1024 * 1024);
+        receiver.setSoTimeout(5000);
+    }
+
+    @After
+    public void tearDown() {
+        receiver.close();
+    }
+
+    private DatagramChannelOutputStream createStream(final int queueSize, final boolean blocking) {
+        return new DatagramChannelOutputStream("localhost", receiver.getLocalPort(), bytes("<h>"), bytes("<f>"),
+                queueSize, blocking);
+    }
+
+    private static byte[] bytes(final String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private String receive() throws IOException {
+        final byte[] buffer = new byte[DatagramChannelOutputStream.MAX_DATAGRAM_SIZE];
+        final DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
+        receiver.receive(packet);
+        return new String(packet.getData(), 0, packet.getLength(), StandardCharsets.UTF_8);
+    }
+
+    private void sendMessages(final DatagramChannelOutputStream stream, final int count) throws IOException {
+        for (int i = 0; i < count; i++) {
+            stream.write(bytes("message "));
+            stream.write(bytes(Integer.toString(i)));
+            stream.flush();
+        }
+    }
+
+    @Test
+    public void testSynchronousDatagrams() throws Exception {
+        final DatagramChannelOutputStream stream = createStream(0, true);
+        try {
+            sendMessages(stream, 3);
+            // the first header is written by the manager
+            assertEquals("message 0<f>", receive());
+            assertEquals("<h>message 1<f>", receive());
+            assertEquals("<h>message 2<f>", receive());
+        } finally {
+            stream.close();
+        }
+    }
+
+    @Test
+    public void testLargeDatagram() throws Exception {
+        final DatagramChannelOutputStream stream = createStream(0, true);
+        try {
+            final StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < 5000; i++) {
+                sb.append(i % 10);
+            }
+            stream.write(bytes(sb.toString()));
+            stream.flush();
+            assertEquals(sb + "<f>", receive());
+        } finally {
+            stream.close();
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testOversizedDatagram() throws Exception {
+        final DatagramChannelOutputStream stream = createStream(0, true);
+        try {
+            stream.write(new byte[DatagramChannelOutputStream.MAX_DATAGRAM_SIZE + 1]);
+        } finally {
+            stream.close();
+        }
+    }
+
+    @Test
+    public void testQueuedDatagrams() throws Exception {
+        final DatagramChannelOutputStream stream = createStream(4, true);
+        try {
+            sendMessages(stream, 100);
+            for (int i = 0; i < 100; i++) {
+                assertEquals((i == 0 ? "" : "<h>") + "message " + i + "<f>", receive());
+            }
+        } finally {
+            stream.close();
+        }
+        assertEquals(0, stream.getDroppedCount());
+    }
+
+    @Test
+    public void testDropsWhenQueueIsFull() throws Exception {
+        final DatagramChannelOutputStream stream = createStream(1, false);
+        final int count = 500;
+        try {
+            sendMessages(stream, count);
+        } finally {
+            stream.close();
+        }
+        final List<String> received = new ArrayList<>();
+        receiver.setSoTimeout(500);
+        try {
+            while (true) {
+                received.add(receive());
+            }
+        } catch (final SocketTimeoutException expected) {
+            // no more datagrams
+        }
+        assertEquals(count, received.size() + stream.getDroppedCount());
+        assertTrue(received.get(received.size() - 1).endsWith("<f>"));
+    }
+}
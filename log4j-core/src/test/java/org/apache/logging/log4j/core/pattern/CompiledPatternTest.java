@@ -0,0 +1,80 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache license, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the license for the specific language governing permissions and
+ * limitations under the license.
+ */
+package org.apache.logging.log4j.core.pattern;
+
+import java.util.List;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.impl.Log4jLogEvent;
+import org.apache.logging.log4j.core.util.Constants;
+import org.apache.logging.log4j.message.SimpleMessage;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the CompiledPattern.
+ */
+public class CompiledPatternTest {
+
+    private static final String KEY = "Converter";
+
+    private final LogEvent event = Log4jLogEvent.newBuilder() //
+            .setLoggerName("org.apache.logging.log4j.CompiledPatternTest") //
+            .setLevel(Level.INFO) //
+            .setMessage(new SimpleMessage("Hello, world!")) //
+            .setThreadName("main") //
+            .setTimeMillis(12345678) //
+            .build();
+
+    private static String format(final List<PatternFormatter> formatters, final LogEvent event) {
+        final StringBuilder buf = new StringBuilder();
+        for (final PatternFormatter formatter : formatters) {
+            formatter.format(event, buf);
+        }
+        return buf.toString();
+    }
+
+    private void assertSameOutput(final String pattern, final int expectedConverters) {
+        final List<PatternFormatter> formatters = new PatternParser(KEY).parse(pattern);
+        final CompiledPattern compiled = CompiledPattern.compile(formatters);
+        final StringBuilder buf = new StringBuilder();
+        compiled.format(event, buf);
+        assertEquals(format(formatters, event), buf.toString());
+        assertEquals(compiled.toString(), expectedConverters, compiled.getConverters().length);
+    }
+
+    @Test
+    public void testMergesLiteralsAndLineSeparator() {
+        assertSameOutput("[%t] %-5p %c{1} - %m%n%%end%n", 9);
+        final CompiledPattern compiled = CompiledPattern.compile(new PatternParser(KEY).parse("%m%%%n"));
+        final LogEventPatternConverter[] converters = compiled.getConverters();
+        assertEquals(2, converters.length);
+        assertEquals("%" + Constants.LINE_SEPARATOR, ((LiteralPatternConverter) converters[1]).getLiteral());
+    }
+
+    @Test
+    public void testPaddedFields() {
+        assertSameOutput("%-10t|%10p|%.3c|%-20.-5m|%5n", 8);
+    }
+
+    @Test
+    public void testOnlyLiterals() {
+        assertSameOutput("constant text%n", 1);
+    }
+}
@@ -23,6 +23,8 @@ import java.util.TimeZone;
 
 import org.apache.logging.log4j.core.AbstractLogEvent;
 import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.impl.Log4jLogEvent;
+import org.apache.logging.log4j.core.util.PreciseTime;
 import org.apache.logging.log4j.core.util.datetime.FixedDateFormat;
 import org.junit.Test;
 
@@ -239,4 +241,69 @@ public class DatePatternConverterTest {
         assertNull(DatePatternConverter.newInstance(options).getPattern());
     }
 
+    @Test
+    public void testMillisIndex() {
+        assertEquals(DatePatternConverter.NO_MILLIS, DatePatternConverter.millisIndex("yyyy-MM-dd HH:mm:ss"));
+        assertEquals(DatePatternConverter.NO_MILLIS, DatePatternConverter.millisIndex("HH:mm:ss 'SSS'"));
+        assertEquals(9, DatePatternConverter.millisIndex("HH:mm:ss.SSS"));
+        assertEquals(-1, DatePatternConverter.millisIndex("HH:mm:ss.SS"));
+        assertEquals(-1, DatePatternConverter.millisIndex("HH:mm:ss.SSS Z"));
+        assertEquals(-1, DatePatternConverter.millisIndex("SSS HH:mm:ss.SSS"));
+        assertEquals(9, DatePatternConverter.millisIndex("HH:mm:ss.SSSSSS"));
+        assertEquals(9, DatePatternConverter.millisIndex("HH:mm:ss.SSSSSSSSS"));
+        assertEquals(-1, DatePatternConverter.millisIndex("HH:mm:ss.SSSSSSSSSS"));
+    }
+
+    @Test
+    public void testFractionOfSecond() {
+        final Calendar cal = Calendar.getInstance();
+        cal.set(2011, 11, 30, 10, 56, 35);
+        cal.set(Calendar.MILLISECOND, 987);
+        final LogEvent event = Log4jLogEvent.newBuilder().setTimeMillis(cal.getTimeInMillis())
+                .setNanoOfMillisecond(654321).build();
+        assertEquals(987654321, PreciseTime.nanoOfSecond(event));
+        final String[] patterns = {"HH:mm:ss.SSS", "HH:mm:ss.SSSS", "HH:mm:ss.SSSSSS", "HH:mm:ss.SSSSSSSSS"};
+        final String[] expected = {"10:56:35.987", "10:56:35.9876", "10:56:35.987654", "10:56:35.987654321"};
+        for (int i = 0; i < patterns.length; i++) {
+            final StringBuilder sb = new StringBuilder();
+            DatePatternConverter.newInstance(new String[] {patterns[i]}).format(event, sb);
+            assertEquals(expected[i], sb.toString());
+        }
+        final StringBuilder sb = new StringBuilder();
+        DatePatternConverter.newInstance(new String[] {"HH:mm:ss.SSSSSS"}).format(cal.getTime(), sb);
+        assertEquals("10:56:35.987000", sb.toString());
+        // events that do not implement PreciseTimestamp have millisecond resolution
+        final LogEvent myEvent = new MyLogEvent();
+        assertEquals(987000000, PreciseTime.nanoOfSecond(myEvent));
+        sb.setLength(0);
+        DatePatternConverter.newInstance(new String[] {"HH:mm:ss.SSSSSS"}).format(myEvent, sb);
+        assertEquals("10:56:35.987000", sb.toString());
+    }
+
+    @Test
+    public void testCustomPatternsMatchSimpleDateFormat() {
+        final String[] patterns = {"yyyy/MM/dd HH:mm:ss.SSS", "HH:mm:ss", "dd MMM yyyy HH:mm:ss'.'SSS",
+                "SSS HH:mm:ss", "HH:mm:ss.SS"};
+        final long start = System.currentTimeMillis();
+        for (final String pattern : patterns) {
+            final DatePatternConverter converter = DatePatternConverter.newInstance(new String[] {pattern});
+            final SimpleDateFormat sdf = new SimpleDateFormat(pattern);
+            final StringBuilder sb = new StringBuilder();
+            for (long time = start - 5000; time < start + 5000; time += 7) {
+                sb.setLength(0);
+                converter.format(time, sb);
+                assertEquals(pattern + "/" + time, sdf.format(new Date(time)), sb.toString());
+            }
+        }
+    }
+
+    @Test
+    public void testUnixFormats() {
+        final StringBuilder sb = new StringBuilder();
+        DatePatternConverter.newInstance(new String[] {"UNIX"}).format(1234567890123L, sb);
+        sb.append(' ');
+        DatePatternConverter.newInstance(new String[] {"UNIX_MILLIS"}).format(1234567890123L, sb);
+        assertEquals("1234567890 1234567890123", sb.toString());
+    }
+
 }
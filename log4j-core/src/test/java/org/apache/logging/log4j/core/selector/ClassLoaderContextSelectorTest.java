@@ -16,9 +16,12 @@
  */
 package org.apache.logging.log4j.core.selector;
 
+import java.lang.ref.WeakReference;
 import java.lang.reflect.Field;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.apache.logging.log4j.core.Logger;
+import org.apache.logging.log4j.core.LoggerContext;
 import org.apache.logging.log4j.core.util.ReflectionUtil;
 import org.junit.Before;
 import org.junit.Test;
@@ -59,4 +62,32 @@ public class ClassLoaderContextSelectorTest {
         assertNotSame(logger1.getContext(), logger3.getContext());
         assertNotSame(logger2.getContext(), logger3.getContext());
     }
+
+    @Test
+    public void testCallerContextAfterRemoval() throws Exception {
+        final ClassLoaderContextSelector selector = new ClassLoaderContextSelector();
+        final String key = selector.toContextMapKey(getClass().getClassLoader());
+        final AtomicReference<WeakReference<LoggerContext>> saved = ClassLoaderContextSelector.CONTEXT_MAP.get(key);
+        try {
+            final LoggerContext context = Caller.getContext(selector);
+            assertSame(context, Caller.getContext(selector));
+            assertSame(context, selector.getContext(null, getClass().getClassLoader(), false));
+            selector.removeContext(context);
+            final LoggerContext newContext = Caller.getContext(selector);
+            assertNotSame(context, newContext);
+            assertSame(newContext, selector.getContext(null, getClass().getClassLoader(), false));
+        } finally {
+            if (saved == null) {
+                ClassLoaderContextSelector.CONTEXT_MAP.remove(key);
+            } else {
+                ClassLoaderContextSelector.CONTEXT_MAP.put(key, saved);
+            }
+        }
+    }
+
+    private static class Caller {
+        static LoggerContext getContext(final ClassLoaderContextSelector selector) {
+            return selector.getContext(Caller.class.getName(), null, false);
+        }
+    }
 }
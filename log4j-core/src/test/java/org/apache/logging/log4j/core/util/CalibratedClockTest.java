@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache license, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the license for the specific language governing permissions and
+ * limitations under the license.
+ */
+package org.apache.logging.log4j.core.util;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class CalibratedClockTest {
+
+    private static final long MILLI = PreciseTime.NANOS_PER_MILLISECOND;
+
+    private static class ManualClock implements Clock, NanoClock {
+        long millis;
+        long nanos;
+
+        @Override
+        public long currentTimeMillis() {
+            return millis;
+        }
+
+        @Override
+        public long nanoTime() {
+            return nanos;
+        }
+    }
+
+    @Test
+    public void testMatchesSystemClock() {
+        final CalibratedClock clock = new CalibratedClock();
+        final long before = System.currentTimeMillis();
+        final long nanos = clock.currentTimeNanos();
+        final long after = System.currentTimeMillis();
+        final long millis = PreciseTime.toMillis(nanos);
+        assertTrue("too early: " + millis + " < " + before, millis >= before - 1);
+        assertTrue("too late: " + millis + " > " + after, millis <= after + 1);
+        assertTrue(clock.currentTimeMillis() >= millis);
+    }
+
+    @Test
+    public void testAdvancesWithNanoTime() {
+        final ManualClock source = new ManualClock();
+        source.millis = 1000;
+        source.nanos = 5;
+        final CalibratedClock clock = new CalibratedClock(source, source, 100 * MILLI);
+        assertEquals(1000 * MILLI, clock.currentTimeNanos());
+        source.nanos += 1234;
+        assertEquals(1000 * MILLI + 1234, clock.currentTimeNanos());
+        assertEquals(1000, clock.currentTimeMillis());
+        // the system time is not read before the interval elapsed
+        source.millis = 2000;
+        source.nanos += 50 * MILLI;
+        assertEquals(1050 * MILLI + 1234, clock.currentTimeNanos());
+    }
+
+    @Test
+    public void testCalibrationKeepsTimeWithinSystemMillisecond() {
+        final ManualClock source = new ManualClock();
+        source.millis = 1000;
+        final CalibratedClock clock = new CalibratedClock(source, source, 100 * MILLI);
+        final long offset = clock.getOffset();
+
+        // the system time ticked later than the first reading suggested: move forward
+        source.nanos = 200 * MILLI + 600000;
+        source.millis = 1201;
+        assertEquals(1201 * MILLI, clock.currentTimeNanos());
+        assertEquals(offset + 400000, clock.getOffset());
+
+        // within the reported millisecond: unchanged
+        source.nanos += 200 * MILLI + 300000;
+        source.millis = 1401;
+        assertEquals(1401 * MILLI + 300000, clock.currentTimeNanos());
+        assertEquals(offset + 400000, clock.getOffset());
+
+        // the system time was set back: follow it
+        source.nanos += 200 * MILLI;
+        source.millis = 1100;
+        assertEquals(1100, clock.currentTimeMillis());
+    }
+}
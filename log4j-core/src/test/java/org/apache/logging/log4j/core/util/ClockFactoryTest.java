@@ -87,6 +87,18 @@ public class ClockFactoryTest {
         assertSame(CoarseCachedClock.class, ClockFactory.getClock().getClass());
     }
 
+    @Test
+    public void testSpecifyCalibratedClockShort() {
+        System.setProperty(ClockFactory.PROPERTY_NAME, "CalibratedClock");
+        assertSame(CalibratedClock.class, ClockFactory.getClock().getClass());
+    }
+
+    @Test
+    public void testSpecifyCalibratedClockLong() {
+        System.setProperty(ClockFactory.PROPERTY_NAME, CalibratedClock.class.getName());
+        assertSame(CalibratedClock.class, ClockFactory.getClock().getClass());
+    }
+
     public static class MyClock implements Clock {
         @Override
         public long currentTimeMillis() {
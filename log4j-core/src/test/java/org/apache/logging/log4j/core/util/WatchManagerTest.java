@@ -16,7 +16,9 @@
  */
 package org.apache.logging.log4j.core.util;
 
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 
 import java.io.File;
 import java.io.FileOutputStream;
@@ -24,6 +26,7 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.util.Collections;
 import java.util.Queue;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
@@ -77,6 +80,102 @@ public class WatchManagerTest {
         }
     }
 
+    @Test
+    public void testWatchManagerWithWatchService() throws Exception {
+        Assume.assumeFalse(IS_WINDOWS);
+        ConfigurationScheduler scheduler = new ConfigurationScheduler();
+        scheduler.incrementScheduledItems();
+        WatchManager watchManager = new WatchManager(scheduler);
+        watchManager.setIntervalSeconds(60);
+        watchManager.setWatchServiceEnabled(true);
+        watchManager.setDebounceMillis(100);
+        scheduler.start();
+        watchManager.start();
+        try {
+            File sourceFile = new File(originalFile);
+            File targetFile = new File(testFile + "2");
+            Files.copy(Paths.get(sourceFile.toURI()), Paths.get(targetFile.toURI()),
+                    StandardCopyOption.REPLACE_EXISTING);
+            BlockingQueue<File> queue = new LinkedBlockingQueue<>();
+            watchManager.watchFile(targetFile, new TestWatcher(queue));
+            Thread.sleep(1000);
+            Path source = Paths.get(new File(newFile).toURI());
+            Files.copy(source, Paths.get(targetFile.toURI()), StandardCopyOption.REPLACE_EXISTING);
+            // polling would not detect the change within the 60 second interval
+            File f = queue.poll(20, TimeUnit.SECONDS);
+            assertNotNull("File change not detected", f);
+            Thread.sleep(500);
+            assertNull("Change reported more than once", queue.poll());
+        } finally {
+            watchManager.stop();
+            scheduler.stop();
+        }
+    }
+
+    @Test
+    public void testWatchServiceFallsBackToPolling() throws Exception {
+        Assume.assumeFalse(IS_WINDOWS);
+        ConfigurationScheduler scheduler = new ConfigurationScheduler();
+        scheduler.incrementScheduledItems();
+        WatchManager watchManager = new WatchManager(scheduler);
+        watchManager.setIntervalSeconds(1);
+        watchManager.setWatchServiceEnabled(true);
+        watchManager.setDebounceMillis(100);
+        scheduler.start();
+        watchManager.start();
+        try {
+            File dir = new File("target/watchDir");
+            dir.mkdirs();
+            File targetFile = new File(dir, "watched.xml");
+            Files.copy(Paths.get(new File(originalFile).toURI()), Paths.get(targetFile.toURI()),
+                    StandardCopyOption.REPLACE_EXISTING);
+            BlockingQueue<File> queue = new LinkedBlockingQueue<>();
+            watchManager.watchFile(targetFile, new TestWatcher(queue));
+            // deleting the directory cancels the watch
+            Files.delete(targetFile.toPath());
+            Files.delete(dir.toPath());
+            Thread.sleep(1000);
+            dir.mkdirs();
+            Files.copy(Paths.get(new File(newFile).toURI()), Paths.get(targetFile.toURI()));
+            targetFile.setLastModified(System.currentTimeMillis() + 10000);
+            File f = queue.poll(10, TimeUnit.SECONDS);
+            assertNotNull("File change not detected after the directory was recreated", f);
+        } finally {
+            watchManager.stop();
+            scheduler.stop();
+        }
+    }
+
+    @Test
+    public void testWatchServicePollsFilesOnPolledFileStores() throws Exception {
+        Assume.assumeFalse(IS_WINDOWS);
+        File targetFile = new File(testFile + "3");
+        Files.copy(Paths.get(new File(originalFile).toURI()), Paths.get(targetFile.toURI()),
+                StandardCopyOption.REPLACE_EXISTING);
+        ConfigurationScheduler scheduler = new ConfigurationScheduler();
+        scheduler.incrementScheduledItems();
+        WatchManager watchManager = new WatchManager(scheduler);
+        watchManager.setIntervalSeconds(1);
+        watchManager.setWatchServiceEnabled(true);
+        // treat the local file store like a network file system
+        watchManager.setPolledFileStoreTypes(Collections.singleton(
+                Files.getFileStore(targetFile.getAbsoluteFile().getParentFile().toPath()).type()));
+        scheduler.start();
+        watchManager.start();
+        try {
+            BlockingQueue<File> queue = new LinkedBlockingQueue<>();
+            watchManager.watchFile(targetFile, new TestWatcher(queue));
+            assertFalse("File on a polled file store is watched by the WatchService",
+                    watchManager.isEventDriven(targetFile));
+            targetFile.setLastModified(System.currentTimeMillis() + 10000);
+            File f = queue.poll(10, TimeUnit.SECONDS);
+            assertNotNull("File change not detected by polling", f);
+        } finally {
+            watchManager.stop();
+            scheduler.stop();
+        }
+    }
+
     private class TestWatcher implements FileWatcher {
 
         private final Queue<File> queue;
@@ -201,4 +201,23 @@ public class FixedDateFormatTest {
         }
     }
 
+    @Test
+    public void testFormatLongStringBuilder() {
+        final long now = System.currentTimeMillis();
+        final long start = now - TimeUnit.HOURS.toMillis(25);
+        final long end = now + TimeUnit.HOURS.toMillis(25);
+        final StringBuilder buffer = new StringBuilder();
+        for (final FixedFormat format : FixedFormat.values()) {
+            final SimpleDateFormat simpleDF = new SimpleDateFormat(format.getPattern(), Locale.getDefault());
+            final FixedDateFormat customTF = new FixedDateFormat(format);
+            for (long time = end; time > start; time -= 12345) {
+                buffer.setLength(0);
+                buffer.append("prefix");
+                customTF.format(time, buffer);
+                final String expected = "prefix" + simpleDF.format(new Date(time));
+                assertEquals(format + "(" + format.getPattern() + ")" + "/" + time, expected, buffer.toString());
+            }
+        }
+    }
+
 }
@@ -32,6 +32,8 @@ import org.apache.logging.log4j.ThreadContext;
 import org.apache.logging.log4j.core.LogEvent;
 import org.apache.logging.log4j.core.impl.ThrowableProxy;
 import org.apache.logging.log4j.core.util.Patterns;
+import org.apache.logging.log4j.core.util.PreciseTime;
+import org.apache.logging.log4j.core.util.PreciseTimestamp;
 import org.apache.logging.log4j.core.util.UuidUtil;
 import org.apache.logging.log4j.message.MapMessage;
 import org.apache.logging.log4j.message.Message;
@@ -42,7 +44,7 @@ import org.apache.logging.log4j.util.Strings;
 /**
  * Class that is both a Flume and Log4j Event.
  */
-public class FlumeEvent extends SimpleEvent implements LogEvent {
+public class FlumeEvent extends SimpleEvent implements LogEvent, PreciseTimestamp {
 
     static final String GUID = "guId";
     /**
@@ -265,6 +267,24 @@ public class FlumeEvent extends SimpleEvent implements LogEvent {
         return event.getTimeMillis();
     }
 
+    /**
+     * Returns the seconds of the event time.
+     * @return the event timestamp in seconds.
+     */
+    @Override
+    public long getEpochSecond() {
+        return PreciseTime.epochSecond(event);
+    }
+
+    /**
+     * Returns the nanoseconds within the second of the event time.
+     * @return the nanoseconds within the second.
+     */
+    @Override
+    public int getNanoOfSecond() {
+        return PreciseTime.nanoOfSecond(event);
+    }
+
     /**
      * Returns the value of the running Java Virtual Machine's high-resolution time source when this event was created,
      * or a dummy value if it is known that this value will not be used downstream.
@@ -23,21 +23,22 @@ import java.io.DataOutputStream;
 import java.io.File;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
-import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
 import javax.crypto.Cipher;
 import javax.crypto.SecretKey;
 
 import org.apache.flume.Event;
+import org.apache.flume.api.RpcClient;
 import org.apache.flume.event.SimpleEvent;
 import org.apache.logging.log4j.LoggingException;
 import org.apache.logging.log4j.core.appender.ManagerFactory;
@@ -45,6 +46,7 @@ import org.apache.logging.log4j.core.config.Property;
 import org.apache.logging.log4j.core.config.plugins.util.PluginManager;
 import org.apache.logging.log4j.core.config.plugins.util.PluginType;
 import org.apache.logging.log4j.core.util.FileUtils;
+import org.apache.logging.log4j.core.util.Integers;
 import org.apache.logging.log4j.core.util.Log4jThread;
 import org.apache.logging.log4j.core.util.SecretKeyProvider;
 import org.apache.logging.log4j.util.Strings;
@@ -57,19 +59,26 @@ import com.sleepycat.je.DatabaseEntry;
 import com.sleepycat.je.Environment;
 import com.sleepycat.je.EnvironmentConfig;
 import com.sleepycat.je.LockConflictException;
-import com.sleepycat.je.LockMode;
 import com.sleepycat.je.OperationStatus;
 import com.sleepycat.je.StatsConfig;
 import com.sleepycat.je.Transaction;
 
 /**
  * Manager that persists data to Berkeley DB before passing it on to Flume.
+ * <p>
+ * Events are written by a single thread that commits all events waiting to be written in one transaction. They are
+ * spread over one database per sender thread. Each sender thread reads its own databases and sends their events over
+ * its own connection, preferring a different agent than the other sender threads.
+ * </p>
  */
 public class FlumePersistentManager extends FlumeAvroManager {
 
     /** Attribute name for the key provider. */
     public static final String KEY_PROVIDER = "keyProvider";
 
+    /** Attribute name for the number of threads sending events to the agents. */
+    public static final String SENDER_THREADS = "senderThreads";
+
     private static final Charset UTF8 = StandardCharsets.UTF_8;
 
     private static final String DEFAULT_DATA_DIR = ".log4j/flumeData";
@@ -80,23 +89,29 @@ public class FlumePersistentManager extends FlumeAvroManager {
 
     private static final int LOCK_TIMEOUT_SLEEP_MILLIS = 500;
 
-    private static BDBManagerFactory factory = new BDBManagerFactory();
+    /** The maximum number of events written in one transaction. */
+    private static final int MAX_COMMIT_BATCH = 1000;
 
-    private final Database database;
+    /** How long the BDB writer waits for events before checking whether it has to stop. */
+    private static final int POLL_MILLIS = 100;
 
-    private final Environment environment;
+    /** How long a logging thread waits for its event to be written. */
+    private static final long WRITE_TIMEOUT_MILLIS = SHUTDOWN_WAIT * MILLIS_PER_SECOND;
 
-    private final WriterThread worker;
+    /** Separates the name of the manager from the index of the database of a sender thread. */
+    private static final String PARTITION_SEPARATOR = "-";
 
-    private final Gate gate = new Gate();
+    private static BDBManagerFactory factory = new BDBManagerFactory();
 
-    private final SecretKey secretKey;
+    private final Environment environment;
+
+    private final Partition[] partitions;
 
-    private final int lockTimeoutRetryCount;
+    private final BDBWriter writer;
 
-    private final ExecutorService threadPool;
+    private final WriterThread[] workers;
 
-    private final AtomicLong dbCount = new AtomicLong();
+    private final SecretKey secretKey;
 
     /**
      * Constructor
@@ -112,25 +127,68 @@ public class FlumePersistentManager extends FlumeAvroManager {
      * @param environment The database environment.
      * @param secretKey The SecretKey to use for encryption.
      * @param lockTimeoutRetryCount The number of times to retry a lock timeout.
+     * @deprecated Use {@link #FlumePersistentManager(String, String, Agent[], int, int, int, int, int, Database[],
+     *             Environment, SecretKey, int, int)}.
      */
+    @Deprecated
     protected FlumePersistentManager(final String name, final String shortName, final Agent[] agents,
                                      final int batchSize, final int retries, final int connectionTimeout,
                                      final int requestTimeout, final int delay, final Database database,
                                      final Environment environment, final SecretKey secretKey,
                                      final int lockTimeoutRetryCount) {
+        this(name, shortName, agents, batchSize, retries, connectionTimeout, requestTimeout, delay,
+            new Database[] {database}, environment, secretKey, lockTimeoutRetryCount, 1);
+    }
+
+    /**
+     * Constructor
+     * @param name The unique name of this manager.
+     * @param shortName Original name for the Manager.
+     * @param agents An array of Agents.
+     * @param batchSize The number of events to include in a batch.
+     * @param retries The number of times to retry connecting before giving up.
+     * @param connectionTimeout The amount of time to wait for a connection to be established.
+     * @param requestTimeout The amount of time to wair for a response to a request.
+     * @param delay The amount of time to wait between retries.
+     * @param databases The databases to write to, one for each sender thread, followed by databases left by a
+     *                  previous run with more sender threads.
+     * @param environment The database environment.
+     * @param secretKey The SecretKey to use for encryption.
+     * @param lockTimeoutRetryCount The number of times to retry a lock timeout.
+     * @param senderThreads The number of threads sending events to the agents.
+     */
+    protected FlumePersistentManager(final String name, final String shortName, final Agent[] agents,
+                                     final int batchSize, final int retries, final int connectionTimeout,
+                                     final int requestTimeout, final int delay, final Database[] databases,
+                                     final Environment environment, final SecretKey secretKey,
+                                     final int lockTimeoutRetryCount, final int senderThreads) {
         super(name, shortName, agents, batchSize, delay, retries, connectionTimeout, requestTimeout);
-        this.database = database;
         this.environment = environment;
-        dbCount.set(database.count());
-        this.worker = new WriterThread(database, environment, this, gate, batchSize, secretKey, dbCount,
-            lockTimeoutRetryCount);
-        this.worker.start();
         this.secretKey = secretKey;
-        this.threadPool = Executors.newCachedThreadPool(new DaemonThreadFactory());
-        this.lockTimeoutRetryCount = lockTimeoutRetryCount;
+        final int threads = Math.max(1, Math.min(senderThreads, databases.length));
+        final Gate[] gates = new Gate[threads];
+        for (int i = 0; i < threads; ++i) {
+            gates[i] = new Gate();
+        }
+        this.partitions = new Partition[databases.length];
+        for (int i = 0; i < databases.length; ++i) {
+            partitions[i] = new Partition(databases[i], gates[i % threads]);
+        }
+        final int retryCount = Math.max(1, lockTimeoutRetryCount);
+        this.writer = new BDBWriter(environment, Arrays.copyOf(partitions, threads), batchSize, retryCount);
+        this.writer.start();
+        this.workers = new WriterThread[threads];
+        for (int i = 0; i < threads; ++i) {
+            final List<Partition> owned = new ArrayList<>();
+            for (int j = i; j < partitions.length; j += threads) {
+                owned.add(partitions[j]);
+            }
+            workers[i] = new WriterThread(environment, this, owned, gates[i], rotate(agents, i), batchSize,
+                secretKey, retryCount, i);
+            workers[i].start();
+        }
     }
 
-
     /**
      * Returns a FlumeAvroManager.
      * @param name The name of the manager.
@@ -176,7 +234,7 @@ public class FlumePersistentManager extends FlumeAvroManager {
 
     @Override
     public void send(final Event event)  {
-        if (worker.isShutdown()) {
+        if (isShutdown()) {
             throw new LoggingException("Unable to record event");
         }
 
@@ -198,49 +256,59 @@ public class FlumePersistentManager extends FlumeAvroManager {
                 cipher.init(Cipher.ENCRYPT_MODE, secretKey);
                 eventData = cipher.doFinal(eventData);
             }
-            final Future<Integer> future = threadPool.submit(new BDBWriter(keyData, eventData, environment, database,
-                gate, dbCount, getBatchSize(), lockTimeoutRetryCount));
-            boolean interrupted = false;
-            int ieCount = 0;
-            do {
-                try {
-                    future.get();
-                } catch (final InterruptedException ie) {
-                    interrupted = true;
-                    ++ieCount;
-                }
-            } while (interrupted && ieCount <= 1);
-
+            writer.write(keyData, eventData);
         } catch (final Exception ex) {
             throw new LoggingException("Exception occurred writing log event", ex);
         }
     }
 
+    private boolean isShutdown() {
+        if (writer.isShutdown()) {
+            return true;
+        }
+        for (final WriterThread worker : workers) {
+            if (worker.isShutdown()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the number of threads sending events to the agents.
+     * @return The number of sender threads.
+     */
+    public int getSenderThreads() {
+        return workers.length;
+    }
+
     @Override
     protected void releaseSub() {
         LOGGER.debug("Shutting down FlumePersistentManager");
-        worker.shutdown();
+        writer.shutdown();
         try {
-            worker.join(SHUTDOWN_WAIT * MILLIS_PER_SECOND);
+            writer.join(SHUTDOWN_WAIT * MILLIS_PER_SECOND);
         } catch (final InterruptedException ie) {
             // Ignore the exception and shutdown.
         }
-        threadPool.shutdown();
-        try {
-            threadPool.awaitTermination(SHUTDOWN_WAIT, TimeUnit.SECONDS);
-        } catch (final InterruptedException e) {
-            logWarn("PersistentManager Thread pool failed to shut down", e);
+        for (final WriterThread worker : workers) {
+            worker.shutdown();
         }
-        try {
-            worker.join();
-        } catch (final InterruptedException ex) {
-            logDebug("interrupted while waiting for worker to complete", ex);
+        for (final WriterThread worker : workers) {
+            try {
+                worker.join(SHUTDOWN_WAIT * MILLIS_PER_SECOND);
+            } catch (final InterruptedException ex) {
+                logDebug("interrupted while waiting for worker to complete", ex);
+            }
         }
-        try {
-            LOGGER.debug("FlumePersistenceManager dataset status: {}", database.getStats(new StatsConfig()));
-            database.close();
-        } catch (final Exception ex) {
-            logWarn("failed to close database", ex);
+        for (final Partition partition : partitions) {
+            try {
+                LOGGER.debug("FlumePersistenceManager dataset status: {}",
+                    partition.database.getStats(new StatsConfig()));
+                partition.database.close();
+            } catch (final Exception ex) {
+                logWarn("failed to close database", ex);
+            }
         }
         try {
             environment.cleanLog();
@@ -251,80 +319,206 @@ public class FlumePersistentManager extends FlumeAvroManager {
         super.releaseSub();
     }
 
-    private void doSend(final SimpleEvent event) {
-        LOGGER.debug("Sending event to Flume");
-        super.send(event);
+    private static Agent[] rotate(final Agent[] agents, final int distance) {
+        final Agent[] result = new Agent[agents.length];
+        for (int i = 0; i < agents.length; ++i) {
+            result[i] = agents[(i + distance) % agents.length];
+        }
+        return result;
     }
 
     /**
-     * Thread for writing to Berkeley DB to avoid having interrupts close the database.
+     * A database written by the BDB writer and read by one sender thread.
      */
-    private static class BDBWriter implements Callable<Integer> {
-        private final byte[] eventData;
-        private final byte[] keyData;
-        private final Environment environment;
+    private static class Partition {
         private final Database database;
         private final Gate gate;
-        private final AtomicLong dbCount;
-        private final long batchSize;
-        private final int lockTimeoutRetryCount;
+        private final AtomicLong count;
 
-        public BDBWriter(final byte[] keyData, final byte[] eventData, final Environment environment,
-                         final Database database, final Gate gate, final AtomicLong dbCount, final long batchSize,
-                         final int lockTimeoutRetryCount) {
+        public Partition(final Database database, final Gate gate) {
+            this.database = database;
+            this.gate = gate;
+            this.count = new AtomicLong(database.count());
+        }
+
+        public void added(final int batchSize) {
+            if (count.incrementAndGet() >= batchSize) {
+                gate.open();
+            }
+        }
+    }
+
+    /**
+     * An event waiting to be written to Berkeley DB.
+     */
+    private static class PendingWrite {
+        private final byte[] keyData;
+        private final byte[] eventData;
+        private final CountDownLatch done = new CountDownLatch(1);
+        private Partition partition;
+        private volatile Exception exception;
+
+        public PendingWrite(final byte[] keyData, final byte[] eventData) {
             this.keyData = keyData;
             this.eventData = eventData;
+        }
+
+        public void complete(final Exception ex) {
+            exception = ex;
+            done.countDown();
+        }
+
+        /**
+         * Waits until the event has been written. Like waiting for the writer task before, the caller stops waiting
+         * when it is interrupted a second time and the event is still written.
+         * @param timeoutMillis How long to wait.
+         * @throws Exception if the event could not be written or the timeout elapsed.
+         */
+        public void await(final long timeoutMillis) throws Exception {
+            final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+            int ieCount = 0;
+            for (;;) {
+                try {
+                    if (!done.await(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                        throw new LoggingException("Timed out waiting for the event to be written");
+                    }
+                    break;
+                } catch (final InterruptedException ie) {
+                    if (++ieCount > 1) {
+                        break;
+                    }
+                }
+            }
+            if (ieCount > 0) {
+                Thread.currentThread().interrupt();
+            }
+            if (exception != null) {
+                throw exception;
+            }
+        }
+    }
+
+    /**
+     * Thread for writing to Berkeley DB to avoid having interrupts close the database. All events waiting to be
+     * written are committed in one transaction.
+     */
+    private static class BDBWriter extends Log4jThread {
+        private final BlockingQueue<PendingWrite> queue = new LinkedBlockingQueue<>();
+        private final List<PendingWrite> batch = new ArrayList<>();
+        private final Environment environment;
+        private final Partition[] partitions;
+        private final int batchSize;
+        private final int lockTimeoutRetryCount;
+        private volatile boolean shutdown = false;
+        private int nextPartition;
+
+        public BDBWriter(final Environment environment, final Partition[] partitions, final int batchSize,
+                         final int lockTimeoutRetryCount) {
+            super("FlumePersistentManager-BDBWriter");
             this.environment = environment;
-            this.database = database;
-            this.gate = gate;
-            this.dbCount = dbCount;
+            this.partitions = partitions;
             this.batchSize = batchSize;
             this.lockTimeoutRetryCount = lockTimeoutRetryCount;
+            this.setDaemon(true);
+        }
+
+        public void write(final byte[] keyData, final byte[] eventData) throws Exception {
+            final PendingWrite write = new PendingWrite(keyData, eventData);
+            synchronized (this) {
+                if (shutdown) {
+                    throw new LoggingException("Unable to record event");
+                }
+                queue.add(write);
+            }
+            write.await(WRITE_TIMEOUT_MILLIS);
+        }
+
+        public synchronized void shutdown() {
+            LOGGER.debug("BDB writer shutting down");
+            shutdown = true;
+        }
+
+        public boolean isShutdown() {
+            return shutdown;
         }
 
         @Override
-        public Integer call() throws Exception {
-            final DatabaseEntry key = new DatabaseEntry(keyData);
-            final DatabaseEntry data = new DatabaseEntry(eventData);
+        public void run() {
+            try {
+                // no event is added to the queue after shutdown
+                while (!shutdown || !queue.isEmpty()) {
+                    final PendingWrite first;
+                    try {
+                        first = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                    } catch (final InterruptedException ie) {
+                        continue;
+                    }
+                    if (first != null) {
+                        batch.add(first);
+                        queue.drainTo(batch, MAX_COMMIT_BATCH - 1);
+                        commit();
+                        batch.clear();
+                    }
+                }
+            } finally {
+                failRemaining();
+            }
+            LOGGER.trace("BDB writer exiting");
+        }
+
+        /**
+         * Fails the events that were not written when the thread exits, also if it dies, and makes later writes fail
+         * instead of waiting for a thread that is gone.
+         */
+        private void failRemaining() {
+            synchronized (this) {
+                shutdown = true;
+            }
+            queue.drainTo(batch);
+            if (!batch.isEmpty()) {
+                LOGGER.error("BDB writer stopped with {} events that were not written", batch.size());
+                final Exception exception = new LoggingException("BDB writer stopped");
+                for (final PendingWrite write : batch) {
+                    write.complete(exception);
+                }
+                batch.clear();
+            }
+        }
+
+        private void commit() {
             Exception exception = null;
             for (int retryIndex = 0; retryIndex < lockTimeoutRetryCount; ++retryIndex) {
                 Transaction txn = null;
                 try {
                     txn = environment.beginTransaction(null, null);
-                    try {
-                        database.put(txn, key, data);
-                        txn.commit();
-                        txn = null;
-                        if (dbCount.incrementAndGet() >= batchSize) {
-                            gate.open();
-                        }
-                        exception = null;
-                        break;
-                    } catch (final LockConflictException lce) {
-                        exception = lce;
-                        // Fall through and retry.
-                    } catch (final Exception ex) {
-                        if (txn != null) {
-                            txn.abort();
-                        }
-                        throw ex;
-                    } finally {
-                        if (txn != null) {
-                            txn.abort();
-                            txn = null;
-                        }
+                    for (int i = 0; i < batch.size(); ++i) {
+                        final PendingWrite write = batch.get(i);
+                        write.partition = partitions[(nextPartition + i) % partitions.length];
+                        write.partition.database.put(txn, new DatabaseEntry(write.keyData),
+                            new DatabaseEntry(write.eventData));
                     }
+                    txn.commit();
+                    txn = null;
+                    nextPartition = (nextPartition + batch.size()) % partitions.length;
+                    for (final PendingWrite write : batch) {
+                        write.partition.added(batchSize);
+                        write.complete(null);
+                    }
+                    return;
                 } catch (final LockConflictException lce) {
                     exception = lce;
+                    // Fall through and retry.
+                } catch (final Exception ex) {
+                    exception = ex;
+                    break;
+                } finally {
                     if (txn != null) {
                         try {
                             txn.abort();
-                            txn = null;
                         } catch (final Exception ex) {
-                            LOGGER.trace("Ignoring exception while aborting transaction during lock conflict.");
+                            LOGGER.trace("Ignoring exception while aborting transaction.");
                         }
                     }
-
                 }
                 try {
                     Thread.sleep(LOCK_TIMEOUT_SLEEP_MILLIS);
@@ -332,10 +526,9 @@ public class FlumePersistentManager extends FlumeAvroManager {
                     // Ignore the error
                 }
             }
-            if (exception != null) {
-                throw exception;
+            for (final PendingWrite write : batch) {
+                write.complete(exception);
             }
-            return eventData.length;
         }
     }
 
@@ -391,7 +584,7 @@ public class FlumePersistentManager extends FlumeAvroManager {
         @Override
         public FlumePersistentManager createManager(final String name, final FactoryData data) {
             SecretKey secretKey = null;
-            Database database = null;
+            final List<Database> databases = new ArrayList<>();
             Environment environment = null;
 
             final Map<String, String> properties = new HashMap<>();
@@ -400,6 +593,13 @@ public class FlumePersistentManager extends FlumeAvroManager {
                     properties.put(property.getName(), property.getValue());
                 }
             }
+            int senderThreads = 1;
+            for (final Map.Entry<String, String> entry : properties.entrySet()) {
+                if (entry.getKey().equalsIgnoreCase(SENDER_THREADS)) {
+                    senderThreads = Math.max(1, Integers.parseInt(entry.getValue(), 1));
+                    break;
+                }
+            }
 
             try {
                 final File dir = new File(data.dataDir);
@@ -412,15 +612,18 @@ public class FlumePersistentManager extends FlumeAvroManager {
                 final DatabaseConfig dbConfig = new DatabaseConfig();
                 dbConfig.setTransactional(true);
                 dbConfig.setAllowCreate(true);
-                database = environment.openDatabase(null, name, dbConfig);
+                databases.add(environment.openDatabase(null, name, dbConfig));
+                for (int i = 1; i < senderThreads; ++i) {
+                    databases.add(environment.openDatabase(null, name + PARTITION_SEPARATOR + i, dbConfig));
+                }
+                openRemainingDatabases(environment, dbConfig, name, senderThreads, databases);
             } catch (final Exception ex) {
                 LOGGER.error("Could not create FlumePersistentManager", ex);
-                // For consistency, close database as well as environment even though it should never happen since the
-                // database is that last thing in the block above, but this does guard against a future line being
-                // inserted at the end that would bomb (like some debug logging).
-                if (database != null) {
+                // For consistency, close databases as well as environment even though it should never happen since
+                // the databases are that last thing in the block above, but this does guard against a future line
+                // being inserted at the end that would bomb (like some debug logging).
+                for (final Database database : databases) {
                     database.close();
-                    database = null;
                 }
                 if (environment != null) {
                     environment.close();
@@ -469,36 +672,72 @@ public class FlumePersistentManager extends FlumeAvroManager {
                 LOGGER.warn("Error setting up encryption - encryption will be disabled", ex);
             }
             return new FlumePersistentManager(name, data.name, data.agents, data.batchSize, data.retries,
-                data.connectionTimeout, data.requestTimeout, data.delayMillis, database, environment, secretKey,
-                data.lockTimeoutRetryCount);
+                data.connectionTimeout, data.requestTimeout, data.delayMillis,
+                databases.toArray(new Database[databases.size()]), environment, secretKey,
+                data.lockTimeoutRetryCount, senderThreads);
+        }
+
+        /**
+         * Opens the databases of sender threads a previous run had in addition to the current ones, so that their
+         * events are still sent, and removes the empty ones.
+         */
+        private void openRemainingDatabases(final Environment environment, final DatabaseConfig dbConfig,
+                                            final String name, final int senderThreads,
+                                            final List<Database> databases) {
+            final String prefix = name + PARTITION_SEPARATOR;
+            for (final String dbName : environment.getDatabaseNames()) {
+                if (!dbName.startsWith(prefix)) {
+                    continue;
+                }
+                final int index;
+                try {
+                    index = Integer.parseInt(dbName.substring(prefix.length()));
+                } catch (final NumberFormatException ex) {
+                    continue;
+                }
+                if (index < senderThreads) {
+                    continue;
+                }
+                final Database database = environment.openDatabase(null, dbName, dbConfig);
+                if (database.count() > 0) {
+                    databases.add(database);
+                } else {
+                    database.close();
+                    environment.removeDatabase(null, dbName);
+                }
+            }
         }
     }
 
     /**
-     * Thread that sends data to Flume and pulls it from Berkeley DB.
+     * Thread that sends data to Flume and pulls it from Berkeley DB. Each thread reads its own databases and sends
+     * their events over its own connection.
      */
-    private static class WriterThread extends Thread  {
+    private static class WriterThread extends Log4jThread {
         private volatile boolean shutdown = false;
-        private final Database database;
         private final Environment environment;
         private final FlumePersistentManager manager;
+        private final List<Partition> partitions;
         private final Gate gate;
+        private final Agent[] agents;
         private final SecretKey secretKey;
         private final int batchSize;
-        private final AtomicLong dbCounter;
         private final int lockTimeoutRetryCount;
+        private RpcClient rpcClient;
 
-        public WriterThread(final Database database, final Environment environment,
-                            final FlumePersistentManager manager, final Gate gate, final int batchsize,
-                            final SecretKey secretKey, final AtomicLong dbCount, final int lockTimeoutRetryCount) {
-            this.database = database;
+        public WriterThread(final Environment environment, final FlumePersistentManager manager,
+                            final List<Partition> partitions, final Gate gate, final Agent[] agents,
+                            final int batchsize, final SecretKey secretKey, final int lockTimeoutRetryCount,
+                            final int index) {
+            super("FlumePersistentManager-Writer-" + index);
             this.environment = environment;
             this.manager = manager;
+            this.partitions = partitions;
             this.gate = gate;
+            this.agents = agents;
             this.batchSize = batchsize;
             this.secretKey = secretKey;
             this.setDaemon(true);
-            this.dbCounter = dbCount;
             this.lockTimeoutRetryCount = lockTimeoutRetryCount;
         }
 
@@ -518,279 +757,173 @@ public class FlumePersistentManager extends FlumeAvroManager {
             long nextBatchMillis = System.currentTimeMillis() + manager.getDelayMillis();
             while (!shutdown) {
                 final long nowMillis = System.currentTimeMillis();
-                final long dbCount = database.count();
-                dbCounter.set(dbCount);
-                if (dbCount >= batchSize || dbCount > 0 && nextBatchMillis <= nowMillis) {
-                    nextBatchMillis = nowMillis + manager.getDelayMillis();
-                    try {
-                        boolean errors = false;
-                        final DatabaseEntry key = new DatabaseEntry();
-                        final DatabaseEntry data = new DatabaseEntry();
-
-                        gate.close();
-                        OperationStatus status;
-                        if (batchSize > 1) {
-                            try {
-                                errors = sendBatch(key, data);
-                            } catch (final Exception ex) {
-                                break;
-                            }
-                        } else {
-                            Exception exception = null;
-                            for (int retryIndex = 0; retryIndex < lockTimeoutRetryCount; ++retryIndex) {
-                                exception = null;
-                                Transaction txn = null;
-                                Cursor cursor = null;
-                                try {
-                                    txn = environment.beginTransaction(null, null);
-                                    cursor = database.openCursor(txn, null);
-                                    try {
-                                        status = cursor.getFirst(key, data, LockMode.RMW);
-                                        while (status == OperationStatus.SUCCESS) {
-                                            final SimpleEvent event = createEvent(data);
-                                            if (event != null) {
-                                                try {
-                                                    manager.doSend(event);
-                                                } catch (final Exception ioe) {
-                                                    errors = true;
-                                                    LOGGER.error("Error sending event", ioe);
-                                                    break;
-                                                }
-                                                try {
-                                                    cursor.delete();
-                                                } catch (final Exception ex) {
-                                                    LOGGER.error("Unable to delete event", ex);
-                                                }
-                                            }
-                                            status = cursor.getNext(key, data, LockMode.RMW);
-                                        }
-                                        if (cursor != null) {
-                                            cursor.close();
-                                            cursor = null;
-                                        }
-                                        txn.commit();
-                                        txn = null;
-                                        dbCounter.decrementAndGet();
-                                        exception = null;
-                                        break;
-                                    } catch (final LockConflictException lce) {
-                                        exception = lce;
-                                        // Fall through and retry.
-                                    } catch (final Exception ex) {
-                                        LOGGER.error("Error reading or writing to database", ex);
-                                        shutdown = true;
-                                        break;
-                                    } finally {
-                                        if (cursor != null) {
-                                            cursor.close();
-                                            cursor = null;
-                                        }
-                                        if (txn != null) {
-                                            txn.abort();
-                                            txn = null;
-                                        }
-                                    }
-                                } catch (final LockConflictException lce) {
-                                    exception = lce;
-                                    if (cursor != null) {
-                                        try {
-                                            cursor.close();
-                                            cursor = null;
-                                        } catch (final Exception ex) {
-                                            LOGGER.trace("Ignored exception closing cursor during lock conflict.");
-                                        }
-                                    }
-                                    if (txn != null) {
-                                        try {
-                                            txn.abort();
-                                            txn = null;
-                                        } catch (final Exception ex) {
-                                            LOGGER.trace("Ignored exception aborting tx during lock conflict.");
-                                        }
-                                    }
-                                }
-                                try {
-                                    Thread.sleep(LOCK_TIMEOUT_SLEEP_MILLIS);
-                                } catch (final InterruptedException ie) {
-                                    // Ignore the error
-                                }
-                            }
-                            if (exception != null) {
-                                LOGGER.error("Unable to read or update data base", exception);
-                            }
-                        }
-                        if (errors) {
-                            Thread.sleep(manager.getDelayMillis());
-                            continue;
+                final boolean due = nextBatchMillis <= nowMillis;
+                boolean sent = false;
+                boolean errors = false;
+                gate.close();
+                try {
+                    for (final Partition partition : partitions) {
+                        final long dbCount = partition.count.get();
+                        if (dbCount >= batchSize || dbCount > 0 && due) {
+                            sent = true;
+                            errors |= sendBatch(partition);
                         }
-                    } catch (final Exception ex) {
-                        LOGGER.warn("WriterThread encountered an exception. Continuing.", ex);
                     }
-                } else {
-                    if (nextBatchMillis <= nowMillis) {
-                        nextBatchMillis = nowMillis + manager.getDelayMillis();
-                    }
-                    try {
-                        final long interval = nextBatchMillis - nowMillis;
-                        gate.waitForOpen(interval);
-                    } catch (final InterruptedException ie) {
-                        LOGGER.warn("WriterThread interrupted, continuing");
-                    } catch (final Exception ex) {
-                        LOGGER.error("WriterThread encountered an exception waiting for work", ex);
-                        break;
+                } catch (final Exception ex) {
+                    break;
+                }
+                if (sent || due) {
+                    nextBatchMillis = nowMillis + manager.getDelayMillis();
+                }
+                try {
+                    if (errors) {
+                        Thread.sleep(manager.getDelayMillis());
+                    } else if (!sent) {
+                        gate.waitForOpen(nextBatchMillis - nowMillis);
                     }
+                } catch (final InterruptedException ie) {
+                    LOGGER.warn("WriterThread interrupted, continuing");
+                } catch (final Exception ex) {
+                    LOGGER.error("WriterThread encountered an exception waiting for work", ex);
+                    break;
                 }
             }
 
-            if (batchSize > 1 && database.count() > 0) {
-                final DatabaseEntry key = new DatabaseEntry();
-                final DatabaseEntry data = new DatabaseEntry();
-                try {
-                    sendBatch(key, data);
-                } catch (final Exception ex) {
-                    LOGGER.warn("Unable to write final batch");
+            try {
+                for (final Partition partition : partitions) {
+                    while (partition.count.get() > 0 && !sendBatch(partition)) {
+                        // send the remaining events, stopping at the first batch that fails to be sent or deleted
+                    }
                 }
+            } catch (final Exception ex) {
+                LOGGER.warn("Unable to write final batch");
+            }
+            if (rpcClient != null) {
+                rpcClient.close();
+                rpcClient = null;
             }
             LOGGER.trace("WriterThread exiting");
         }
 
-        private boolean sendBatch(DatabaseEntry key, final DatabaseEntry data) throws Exception {
-            boolean errors = false;
-            OperationStatus status;
-            Cursor cursor = null;
+        /**
+         * Sends a batch of events from the database and deletes them.
+         * @return true if the events could not be sent.
+         */
+        private boolean sendBatch(final Partition partition) throws Exception {
+            final long dbCount = partition.count.get();
+            final BatchEvent batch = new BatchEvent();
+            final List<byte[]> keys = new ArrayList<>(batchSize);
             try {
-            	final BatchEvent batch = new BatchEvent();
-            	for (int retryIndex = 0; retryIndex < lockTimeoutRetryCount; ++retryIndex) {
-            		try {
-            			cursor = database.openCursor(null, CursorConfig.DEFAULT);
-            			status = cursor.getFirst(key, data, null);
-
-            			for (int i = 0; status == OperationStatus.SUCCESS && i < batchSize; ++i) {
-            				final SimpleEvent event = createEvent(data);
-            				if (event != null) {
-            					batch.addEvent(event);
-            				}
-            				status = cursor.getNext(key, data, null);
-            			}
-            			break;
-            		} catch (final LockConflictException lce) {
-            			if (cursor != null) {
-            				try {
-                                cursor.close();
-                                cursor = null;
-                            } catch (final Exception ex) {
-                                LOGGER.trace("Ignored exception closing cursor during lock conflict.");
-                            }
+                readBatch(partition, batch, keys);
+                if (keys.isEmpty()) {
+                    // the count was too high
+                    partition.count.compareAndSet(dbCount, 0);
+                    return false;
+                }
+                if (!batch.getEvents().isEmpty() && !send(batch)) {
+                    return true;
+                }
+                // if the events cannot be deleted, they are sent again later
+                return !deleteBatch(partition, keys);
+            } catch (final Exception ex) {
+                LOGGER.error("Error reading database", ex);
+                shutdown = true;
+                throw ex;
+            }
+        }
+
+        private void readBatch(final Partition partition, final BatchEvent batch, final List<byte[]> keys) {
+            for (int retryIndex = 0; retryIndex < lockTimeoutRetryCount; ++retryIndex) {
+                Cursor cursor = null;
+                try {
+                    cursor = partition.database.openCursor(null, CursorConfig.DEFAULT);
+                    final DatabaseEntry key = new DatabaseEntry();
+                    final DatabaseEntry data = new DatabaseEntry();
+                    OperationStatus status = cursor.getFirst(key, data, null);
+                    for (int i = 0; status == OperationStatus.SUCCESS && i < batchSize; ++i) {
+                        keys.add(Arrays.copyOfRange(key.getData(), key.getOffset(), key.getOffset() + key.getSize()));
+                        // events that cannot be read are deleted with the batch
+                        final SimpleEvent event = createEvent(data);
+                        if (event != null) {
+                            batch.addEvent(event);
                         }
+                        status = cursor.getNext(key, data, null);
                     }
-            	}
+                    return;
+                } catch (final LockConflictException lce) {
+                    keys.clear();
+                    batch.getEvents().clear();
+                } finally {
+                    if (cursor != null) {
+                        cursor.close();
+                    }
+                }
+            }
+        }
+
+        private boolean send(final BatchEvent batch) {
+            if (rpcClient == null) {
+                rpcClient = manager.connect(agents, manager.getRetries(), manager.getConnectTimeoutMillis(),
+                    manager.getRequestTimeoutMillis());
+            }
+            if (rpcClient == null) {
+                LOGGER.warn("Unable to write to {} at {}:{}", manager.getName(), agents[0].getHost(),
+                    agents[0].getPort());
+                return false;
+            }
+            try {
+                LOGGER.trace("Sending batch of {} events", batch.getEvents().size());
+                rpcClient.appendBatch(batch.getEvents());
+                return true;
+            } catch (final Exception ex) {
+                rpcClient.close();
+                rpcClient = null;
+                LOGGER.error("Error sending events", ex);
+                return false;
+            }
+        }
 
+        /**
+         * Deletes the events of a batch that was sent.
+         * @return true if the events were deleted.
+         */
+        private boolean deleteBatch(final Partition partition, final List<byte[]> keys) {
+            Exception exception = null;
+            for (int retryIndex = 0; retryIndex < lockTimeoutRetryCount; ++retryIndex) {
+                Transaction txn = null;
                 try {
-                    manager.send(batch);
-                } catch (final Exception ioe) {
-                    LOGGER.error("Error sending events", ioe);
-                    errors = true;
-                }
-                if (!errors) {
-                	if (cursor != null) {
-	                    cursor.close();
-	                    cursor = null;
-                	}
-                    Transaction txn = null;
-                    Exception exception = null;
-                    for (int retryIndex = 0; retryIndex < lockTimeoutRetryCount; ++retryIndex) {
-                        try {
-                            txn = environment.beginTransaction(null, null);
-                            try {
-                                for (final Event event : batch.getEvents()) {
-                                    try {
-                                        final Map<String, String> headers = event.getHeaders();
-                                        key = new DatabaseEntry(headers.get(FlumeEvent.GUID).getBytes(UTF8));
-                                        database.delete(txn, key);
-                                    } catch (final Exception ex) {
-                                        LOGGER.error("Error deleting key from database", ex);
-                                    }
-                                }
-                                txn.commit();
-                                long count = dbCounter.get();
-                                while (!dbCounter.compareAndSet(count, count - batch.getEvents().size())) {
-                                    count = dbCounter.get();
-                                }
-                                exception = null;
-                                break;
-                            } catch (final LockConflictException lce) {
-                                exception = lce;
-                                if (cursor != null) {
-                                    try {
-                                        cursor.close();
-                                        cursor = null;
-                                    } catch (final Exception ex) {
-                                        LOGGER.trace("Ignored exception closing cursor during lock conflict.");
-                                    }
-                                }
-                                if (txn != null) {
-                                    try {
-                                        txn.abort();
-                                        txn = null;
-                                    } catch (final Exception ex) {
-                                        LOGGER.trace("Ignored exception aborting transaction during lock conflict.");
-                                    }
-                                }
-                            } catch (final Exception ex) {
-                                LOGGER.error("Unable to commit transaction", ex);
-                                if (txn != null) {
-                                    txn.abort();
-                                }
-                            }
-                        } catch (final LockConflictException lce) {
-                            exception = lce;
-                            if (cursor != null) {
-                                try {
-                                    cursor.close();
-                                    cursor = null;
-                                } catch (final Exception ex) {
-                                    LOGGER.trace("Ignored exception closing cursor during lock conflict.");
-                                }
-                            }
-                            if (txn != null) {
-                                try {
-                                    txn.abort();
-                                    txn = null;
-                                } catch (final Exception ex) {
-                                    LOGGER.trace("Ignored exception aborting transaction during lock conflict.");
-                                }
-                            }
-                        } finally {
-                            if (cursor != null) {
-                                cursor.close();
-                                cursor = null;
-                            }
-                            if (txn != null) {
-                                txn.abort();
-                                txn = null;
-                            }
-                        }
+                    txn = environment.beginTransaction(null, null);
+                    for (final byte[] key : keys) {
+                        partition.database.delete(txn, new DatabaseEntry(key));
+                    }
+                    txn.commit();
+                    txn = null;
+                    partition.count.addAndGet(-keys.size());
+                    return true;
+                } catch (final LockConflictException lce) {
+                    exception = lce;
+                    // Fall through and retry.
+                } catch (final Exception ex) {
+                    LOGGER.error("Unable to commit transaction", ex);
+                    exception = ex;
+                    break;
+                } finally {
+                    if (txn != null) {
                         try {
-                            Thread.sleep(LOCK_TIMEOUT_SLEEP_MILLIS);
-                        } catch (final InterruptedException ie) {
-                            // Ignore the error
+                            txn.abort();
+                        } catch (final Exception ex) {
+                            LOGGER.trace("Ignored exception aborting transaction.");
                         }
                     }
-                    if (exception != null) {
-                        LOGGER.error("Unable to delete events from data base", exception);
-                    }
                 }
-            } catch (final Exception ex) {
-                LOGGER.error("Error reading database", ex);
-                shutdown = true;
-                throw ex;
-            } finally {
-                if (cursor != null) {
-                    cursor.close();
+                try {
+                    Thread.sleep(LOCK_TIMEOUT_SLEEP_MILLIS);
+                } catch (final InterruptedException ie) {
+                    // Ignore the error
                 }
             }
-
-            return errors;
+            LOGGER.error("Unable to delete events from data base", exception);
+            return false;
         }
 
         private SimpleEvent createEvent(final DatabaseEntry data) {
@@ -825,33 +958,6 @@ public class FlumePersistentManager extends FlumeAvroManager {
 
     }
 
-    /**
-     * Factory that creates Daemon threads that can be properly shut down.
-     */
-    private static class DaemonThreadFactory implements ThreadFactory {
-        private static final AtomicInteger POOL_NUMBER = new AtomicInteger(1);
-        private final ThreadGroup group;
-        private final AtomicInteger threadNumber = new AtomicInteger(1);
-        private final String namePrefix;
-
-        public DaemonThreadFactory() {
-            final SecurityManager securityManager = System.getSecurityManager();
-            group = securityManager != null ? securityManager.getThreadGroup() :
-                Thread.currentThread().getThreadGroup();
-            namePrefix = "DaemonPool-" + POOL_NUMBER.getAndIncrement() + "-thread-";
-        }
-
-        @Override
-        public Thread newThread(final Runnable r) {
-            final Thread thread = new Log4jThread(group, r, namePrefix + threadNumber.getAndIncrement(), 0);
-            thread.setDaemon(true);
-            if (thread.getPriority() != Thread.NORM_PRIORITY) {
-                thread.setPriority(Thread.NORM_PRIORITY);
-            }
-            return thread;
-        }
-    }
-
     /**
      * An internal class.
      */
@@ -873,7 +979,9 @@ public class FlumePersistentManager extends FlumeAvroManager {
         }
 
         public synchronized void waitForOpen(final long timeout) throws InterruptedException {
-            wait(timeout);
+            if (!isOpen) {
+                wait(timeout);
+            }
         }
     }
 }
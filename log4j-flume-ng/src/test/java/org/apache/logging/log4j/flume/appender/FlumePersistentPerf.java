@@ -61,7 +61,7 @@ import com.google.common.base.Preconditions;
  *
  */
 public class FlumePersistentPerf {
-    private static final String CONFIG = "persistent.xml";
+    private static final String CONFIG = "persistent-parallel.xml";
     private static final String HOSTNAME = "localhost";
     private static LoggerContext ctx;
 
@@ -85,7 +85,7 @@ public class FlumePersistentPerf {
     @Before
     public void setUp() throws Exception {
 
-        final File file = new File("target/persistent");
+        final File file = new File("target/persistent-parallel");
         final boolean result = deleteFiles(file);
 
         /*
@@ -124,15 +124,42 @@ public class FlumePersistentPerf {
 
     @Test
     public void testPerformance() throws Exception {
-        final long start = System.currentTimeMillis();
+        final int threadCount = 16;
         final int count = 10000;
-        for (int i = 0; i < count; ++i) {
-            final StructuredDataMessage msg = new StructuredDataMessage("Test", "Test Primary " + i, "Test");
-            msg.put("counter", Integer.toString(i));
-            EventLogger.logEvent(msg);
+        final int eventsPerThread = count / threadCount;
+        final Thread[] threads = new Thread[threadCount];
+        for (int t = 0; t < threadCount; ++t) {
+            final int first = t * eventsPerThread;
+            threads[t] = new Thread() {
+                @Override
+                public void run() {
+                    for (int i = first; i < first + eventsPerThread; ++i) {
+                        final StructuredDataMessage msg = new StructuredDataMessage("Test", "Test Primary " + i, "Test");
+                        msg.put("counter", Integer.toString(i));
+                        EventLogger.logEvent(msg);
+                    }
+                }
+            };
+        }
+        final long start = System.currentTimeMillis();
+        for (final Thread thread : threads) {
+            thread.start();
+        }
+        for (final Thread thread : threads) {
+            thread.join();
         }
         final long elapsed = System.currentTimeMillis() - start;
-        System.out.println("Time to log " + count + " events " + elapsed + "ms");
+        System.out.println("Time to log " + count + " events from " + threadCount + " threads " + elapsed + "ms ("
+                + count * 1000L / Math.max(1, elapsed) + " events/s)");
+        final long deadline = start + 60000;
+        int received = 0;
+        while (received < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+            received = primary.eventQueue.size() + alternate.eventQueue.size();
+        }
+        final long delivered = System.currentTimeMillis() - start;
+        System.out.println("Time to deliver " + received + " events " + delivered + "ms ("
+                + received * 1000L / Math.max(1, delivered) + " events/s)");
     }
 
 
@@ -0,0 +1,188 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache license, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the license for the specific language governing permissions and
+ * limitations under the license.
+ */
+package org.apache.logging.log4j.flume.appender;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.apache.avro.AvroRemoteException;
+import org.apache.avro.ipc.NettyServer;
+import org.apache.avro.ipc.Responder;
+import org.apache.avro.ipc.specific.SpecificResponder;
+import org.apache.flume.source.avro.AvroFlumeEvent;
+import org.apache.flume.source.avro.AvroSourceProtocol;
+import org.apache.flume.source.avro.Status;
+import org.apache.logging.log4j.EventLogger;
+import org.apache.logging.log4j.core.LoggerContext;
+import org.apache.logging.log4j.core.config.ConfigurationFactory;
+import org.apache.logging.log4j.message.StructuredDataMessage;
+import org.apache.logging.log4j.status.StatusLogger;
+import org.apache.logging.log4j.test.AvailablePortFinder;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the Persistent FlumeAppender with several sender threads.
+ */
+public class FlumePersistentSenderThreadsTest {
+    private static final String CONFIG = "persistent-parallel.xml";
+    private static final String HOSTNAME = "localhost";
+    private static final String TEXT = "Test Parallel ";
+    private static LoggerContext ctx;
+
+    private EventCollector primary;
+    private EventCollector alternate;
+
+    @AfterClass
+    public static void cleanupClass() {
+        StatusLogger.getLogger().reset();
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        deleteFiles(new File("target/persistent-parallel"));
+        final int primaryPort = AvailablePortFinder.getNextAvailable();
+        final int altPort = AvailablePortFinder.getNextAvailable();
+        System.setProperty("primaryPort", Integer.toString(primaryPort));
+        System.setProperty("alternatePort", Integer.toString(altPort));
+        primary = new EventCollector(primaryPort);
+        alternate = new EventCollector(altPort);
+        System.setProperty(ConfigurationFactory.CONFIGURATION_FILE_PROPERTY, CONFIG);
+        ctx = LoggerContext.getContext(false);
+        ctx.reconfigure();
+    }
+
+    @After
+    public void teardown() throws Exception {
+        System.clearProperty(ConfigurationFactory.CONFIGURATION_FILE_PROPERTY);
+        ctx.reconfigure();
+        primary.stop();
+        alternate.stop();
+        final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        final Set<ObjectName> names = server.queryNames(new ObjectName("org.apache.flume.*:*"), null);
+        for (final ObjectName name : names) {
+            try {
+                server.unregisterMBean(name);
+            } catch (final Exception ex) {
+                System.out.println("Unable to unregister " + name.toString());
+            }
+        }
+    }
+
+    @Test
+    public void testSenderThreadsSendToTheirOwnAgents() throws Exception {
+        final int threadCount = 4;
+        final int eventsPerThread = 50;
+        final Thread[] threads = new Thread[threadCount];
+        for (int i = 0; i < threadCount; ++i) {
+            final int first = i * eventsPerThread;
+            threads[i] = new Thread() {
+                @Override
+                public void run() {
+                    for (int n = first; n < first + eventsPerThread; ++n) {
+                        EventLogger.logEvent(new StructuredDataMessage("Test", TEXT + n, "Test"));
+                    }
+                }
+            };
+            threads[i].start();
+        }
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+        final int count = threadCount * eventsPerThread;
+        final Set<String> received = new HashSet<>();
+        final long deadline = System.currentTimeMillis() + 30000;
+        while (primary.events.size() + alternate.events.size() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        for (final AvroFlumeEvent event : primary.events) {
+            received.add(getText(event));
+        }
+        for (final AvroFlumeEvent event : alternate.events) {
+            received.add(getText(event));
+        }
+        assertEquals(count, received.size());
+        assertEquals("Events were sent more than once", count, primary.events.size() + alternate.events.size());
+        assertFalse("No events were sent to the primary agent", primary.events.isEmpty());
+        assertFalse("No events were sent to the alternate agent", alternate.events.isEmpty());
+    }
+
+    private static String getText(final AvroFlumeEvent event) {
+        final String body = new String(event.getBody().array(), StandardCharsets.UTF_8);
+        final int index = body.indexOf(TEXT);
+        assertTrue("Unexpected event " + body, index >= 0);
+        return body.substring(index).trim();
+    }
+
+    private static boolean deleteFiles(final File file) {
+        boolean result = true;
+        if (file.isDirectory()) {
+            final File[] files = file.listFiles();
+            if (files != null) {
+                for (final File child : files) {
+                    result &= deleteFiles(child);
+                }
+            }
+        } else if (!file.exists()) {
+            return true;
+        }
+        return result && file.delete();
+    }
+
+    private static class EventCollector implements AvroSourceProtocol {
+        private final LinkedBlockingQueue<AvroFlumeEvent> events = new LinkedBlockingQueue<>();
+
+        private final NettyServer nettyServer;
+
+        public EventCollector(final int port) {
+            final Responder responder = new SpecificResponder(AvroSourceProtocol.class, this);
+            nettyServer = new NettyServer(responder, new InetSocketAddress(HOSTNAME, port));
+            nettyServer.start();
+        }
+
+        public void stop() {
+            nettyServer.close();
+        }
+
+        @Override
+        public Status append(final AvroFlumeEvent event) throws AvroRemoteException {
+            events.add(event);
+            return Status.OK;
+        }
+
+        @Override
+        public Status appendBatch(final List<AvroFlumeEvent> list) throws AvroRemoteException {
+            events.addAll(list);
+            return Status.OK;
+        }
+    }
+}
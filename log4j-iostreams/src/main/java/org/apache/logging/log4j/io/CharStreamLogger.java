@@ -17,8 +17,6 @@
 
 package org.apache.logging.log4j.io;
 
-import java.nio.CharBuffer;
-
 import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.Marker;
 import org.apache.logging.log4j.spi.ExtendedLogger;
@@ -28,87 +26,37 @@ import org.apache.logging.log4j.spi.ExtendedLogger;
  * @since 2.1
  */
 public class CharStreamLogger {
-    private final ExtendedLogger logger;
-    private final Level level;
-    private final Marker marker;
-    private final StringBuilder msg = new StringBuilder();
-    private boolean closed = false;
+    private final LineBuffers lines;
 
     public CharStreamLogger(final ExtendedLogger logger, final Level level, final Marker marker) {
-        this.logger = logger;
-        this.level = level == null ? logger.getLevel() : level;
-        this.marker = marker;
+        this.lines = new LineBuffers(logger, level, marker, null);
     }
 
     public void close(final String fqcn) {
-        synchronized (this.msg) {
-            this.closed = true;
-            logEnd(fqcn);
-        }
-    }
-
-    private void log(final String fqcn) {
-        // convert to string now so async loggers work
-        this.logger.logIfEnabled(fqcn, this.level, this.marker, this.msg.toString());
-        this.msg.setLength(0);
-    }
-
-    private void logEnd(final String fqcn) {
-        if (this.msg.length() > 0) {
-            log(fqcn);
-        }
+        this.lines.close(fqcn);
     }
 
     public void put(final String fqcn, final char[] cbuf, final int off, final int len) {
-        put(fqcn, CharBuffer.wrap(cbuf), off, len);
+        if (len >= 0) {
+            this.lines.putChars(fqcn, cbuf, off, len);
+        } else {
+            this.lines.end(fqcn);
+        }
     }
 
     public void put(final String fqcn, final CharSequence str, final int off, final int len) {
         if (len >= 0) {
-            synchronized (this.msg) {
-                if (this.closed) {
-                    return;
-                }
-                int start = off;
-                final int end = off + len;
-                for (int pos = off; pos < end; pos++) {
-                    final char c = str.charAt(pos);
-                    switch (c) {
-                    case '\r':
-                    case '\n':
-                        this.msg.append(str, start, pos);
-                        start = pos + 1;
-                        if (c == '\n') {
-                            log(fqcn);
-                        }
-                        break;
-                    }
-                }
-                this.msg.append(str, start, end);
-            }
+            this.lines.putChars(fqcn, str, off, len);
         } else {
-            logEnd(fqcn);
+            this.lines.end(fqcn);
         }
     }
 
     public void put(final String fqcn, final int c) {
         if (c >= 0) {
-            synchronized (this.msg) {
-                if (this.closed) {
-                    return;
-                }
-                switch (c) {
-                case '\n':
-                    log(fqcn);
-                    break;
-                case '\r':
-                    break;
-                default:
-                    this.msg.append((char) c);
-                }
-            }
+            this.lines.putChar(fqcn, c);
         } else {
-            logEnd(fqcn);
+            this.lines.end(fqcn);
         }
     }
 }
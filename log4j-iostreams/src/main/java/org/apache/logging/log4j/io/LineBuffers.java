@@ -0,0 +1,284 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.logging.log4j.io;
+
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.Marker;
+import org.apache.logging.log4j.message.Message;
+import org.apache.logging.log4j.spi.ExtendedLogger;
+
+/**
+ * Splits the text written to a stream into lines and logs each line.
+ * <p>
+ * Each writing thread has its own line buffer and, for byte streams, its own decoder, so concurrent writers neither
+ * wait for each other nor mix their partial lines. A line is only converted to a String if the logger is enabled for
+ * it. Closing logs the partial lines of all threads.
+ * </p>
+ */
+final class LineBuffers {
+
+    private static final int BUFFER_SIZE = 1024;
+
+    private final ExtendedLogger logger;
+    private final Level level;
+    private final Marker marker;
+    private final Charset charset;
+    private final ThreadLocal<Line> threadLines = new ThreadLocal<>();
+    /** The lines of all threads, used to log the partial lines on close. */
+    private final Queue<Line> lines = new ConcurrentLinkedQueue<>();
+    private volatile boolean closed;
+
+    /**
+     * @param logger The logger to log the lines to.
+     * @param level The level to log at, or null to use the level of the logger.
+     * @param marker The marker, may be null.
+     * @param charset The character set to decode bytes with, or null to use the default character set.
+     */
+    LineBuffers(final ExtendedLogger logger, final Level level, final Marker marker, final Charset charset) {
+        this.logger = logger;
+        this.level = level == null ? logger.getLevel() : level;
+        this.marker = marker;
+        this.charset = charset == null ? Charset.defaultCharset() : charset;
+    }
+
+    void close(final String fqcn) {
+        this.closed = true;
+        for (final Line line : this.lines) {
+            synchronized (line) {
+                end(fqcn, line);
+            }
+        }
+        this.lines.clear();
+    }
+
+    /**
+     * Logs the partial line of the current thread.
+     */
+    void end(final String fqcn) {
+        final Line line = getLine(fqcn);
+        synchronized (line) {
+            end(fqcn, line);
+        }
+    }
+
+    void putChar(final String fqcn, final int c) {
+        final Line line = getLine(fqcn);
+        synchronized (line) {
+            if (this.closed) {
+                return;
+            }
+            putChar(fqcn, line, (char) c);
+        }
+    }
+
+    void putChars(final String fqcn, final char[] cbuf, final int off, final int len) {
+        final Line line = getLine(fqcn);
+        synchronized (line) {
+            if (this.closed) {
+                return;
+            }
+            putChars(fqcn, line, cbuf, off, len);
+        }
+    }
+
+    void putChars(final String fqcn, final CharSequence str, final int off, final int len) {
+        final Line line = getLine(fqcn);
+        synchronized (line) {
+            if (this.closed) {
+                return;
+            }
+            int start = off;
+            final int end = off + len;
+            for (int pos = off; pos < end; pos++) {
+                final char c = str.charAt(pos);
+                if (c == '\r' || c == '\n') {
+                    line.msg.append(str, start, pos);
+                    start = pos + 1;
+                    if (c == '\n') {
+                        log(fqcn, line);
+                    }
+                }
+            }
+            line.msg.append(str, start, end);
+        }
+    }
+
+    void putByte(final String fqcn, final int b) {
+        final Line line = getLine(fqcn);
+        synchronized (line) {
+            if (this.closed) {
+                return;
+            }
+            line.initDecoder(this.charset);
+            line.bytes.put((byte) b);
+            decode(fqcn, line, false);
+        }
+    }
+
+    void putBytes(final String fqcn, final byte[] b, final int off, final int len) {
+        final Line line = getLine(fqcn);
+        synchronized (line) {
+            if (this.closed) {
+                return;
+            }
+            line.initDecoder(this.charset);
+            int curOff = off;
+            int curLen = len;
+            while (curLen > 0) {
+                final int count = Math.min(curLen, line.bytes.remaining());
+                line.bytes.put(b, curOff, count);
+                curOff += count;
+                curLen -= count;
+                decode(fqcn, line, false);
+            }
+        }
+    }
+
+    private Line getLine(final String fqcn) {
+        Line line = this.threadLines.get();
+        if (line == null) {
+            line = new Line();
+            removeTerminated(fqcn);
+            this.lines.add(line);
+            this.threadLines.set(line);
+        }
+        return line;
+    }
+
+    /**
+     * Logs the partial lines of terminated threads and removes them, so that short-lived writers do not accumulate
+     * and their last output is not held back until the stream is closed, which may never happen.
+     */
+    private void removeTerminated(final String fqcn) {
+        for (final Iterator<Line> iter = this.lines.iterator(); iter.hasNext();) {
+            final Line line = iter.next();
+            if (line.isTerminated()) {
+                synchronized (line) {
+                    if (!this.closed) {
+                        end(fqcn, line);
+                    }
+                }
+                iter.remove();
+            }
+        }
+    }
+
+    private void putChar(final String fqcn, final Line line, final char c) {
+        switch (c) {
+        case '\n':
+            log(fqcn, line);
+            break;
+        case '\r':
+            break;
+        default:
+            line.msg.append(c);
+        }
+    }
+
+    private void putChars(final String fqcn, final Line line, final char[] cbuf, final int off, final int len) {
+        int start = off;
+        final int end = off + len;
+        for (int pos = off; pos < end; pos++) {
+            final char c = cbuf[pos];
+            if (c == '\r' || c == '\n') {
+                line.msg.append(cbuf, start, pos - start);
+                start = pos + 1;
+                if (c == '\n') {
+                    log(fqcn, line);
+                }
+            }
+        }
+        line.msg.append(cbuf, start, end - start);
+    }
+
+    private void decode(final String fqcn, final Line line, final boolean endOfInput) {
+        line.bytes.flip();
+        CoderResult result;
+        do {
+            result = line.decoder.decode(line.bytes, line.chars, endOfInput);
+            putDecoded(fqcn, line);
+        } while (result.isOverflow());
+        if (endOfInput) {
+            while (line.decoder.flush(line.chars).isOverflow()) {
+                putDecoded(fqcn, line);
+            }
+            putDecoded(fqcn, line);
+            line.decoder.reset();
+        }
+        // keeps an incomplete character for the next write
+        line.bytes.compact();
+    }
+
+    private void putDecoded(final String fqcn, final Line line) {
+        putChars(fqcn, line, line.chars.array(), 0, line.chars.position());
+        line.chars.clear();
+    }
+
+    private void end(final String fqcn, final Line line) {
+        if (line.bytes != null && line.bytes.position() > 0) {
+            decode(fqcn, line, true);
+        }
+        if (line.msg.length() > 0) {
+            log(fqcn, line);
+        }
+    }
+
+    private void log(final String fqcn, final Line line) {
+        // the filters see the buffer, the String is only created for enabled lines
+        if (this.logger.isEnabled(this.level, this.marker, line.msg, null)) {
+            // convert to string now so async loggers work
+            final Message message = this.logger.getMessageFactory().newMessage(line.msg.toString());
+            this.logger.logMessage(fqcn, this.level, this.marker, message, message.getThrowable());
+        }
+        line.msg.setLength(0);
+    }
+
+    private static final class Line {
+        /** Weak, so that the buffer of a stream that is never closed does not keep terminated threads. */
+        private final WeakReference<Thread> owner = new WeakReference<>(Thread.currentThread());
+        private final StringBuilder msg = new StringBuilder();
+        private CharsetDecoder decoder;
+        private ByteBuffer bytes;
+        private CharBuffer chars;
+
+        void initDecoder(final Charset charset) {
+            if (this.decoder == null) {
+                // the same replacement as an InputStreamReader
+                this.decoder = charset.newDecoder().onMalformedInput(CodingErrorAction.REPLACE)
+                        .onUnmappableCharacter(CodingErrorAction.REPLACE);
+                this.bytes = ByteBuffer.allocate(BUFFER_SIZE);
+                this.chars = CharBuffer.allocate(BUFFER_SIZE);
+            }
+        }
+
+        boolean isTerminated() {
+            final Thread thread = this.owner.get();
+            return thread == null || !thread.isAlive();
+        }
+    }
+}
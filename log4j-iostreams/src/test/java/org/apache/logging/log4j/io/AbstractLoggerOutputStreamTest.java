@@ -52,6 +52,26 @@ public abstract class AbstractLoggerOutputStreamTest extends AbstractStreamTest
         }
     }
 
+    @Test
+    public void testClose_HasRemainingDataOfOtherThread() throws Exception {
+        this.out.write(FIRST.getBytes());
+        write(LAST);
+        assertMessages();
+        this.out.close();
+        assertMessages(FIRST, LAST);
+    }
+
+    @Test
+    public void testWrite_LogsRemainingDataOfTerminatedThread() throws Exception {
+        write(LAST);
+        assertMessages();
+        // logged when the next thread starts writing
+        this.out.write(FIRST.getBytes());
+        assertMessages(LAST);
+        this.out.close();
+        assertMessages(LAST, FIRST);
+    }
+
     @Test
     public void testClose_NoRemainingData() throws IOException {
         this.out.close();
@@ -138,4 +158,28 @@ public abstract class AbstractLoggerOutputStreamTest extends AbstractStreamTest
             assertEquals(FIRST + '\n' + LAST + '\n', this.wrapped.toString());
         }
     }
+
+    @Test
+    public void testWrite_SeparatesLinesOfThreads() throws Exception {
+        this.out.write(FIRST.getBytes());
+        write(LAST + '\n');
+        assertMessages(LAST);
+        this.out.write('\n');
+        assertMessages(LAST, FIRST);
+    }
+
+    private void write(final String text) throws InterruptedException {
+        final Thread thread = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    AbstractLoggerOutputStreamTest.this.out.write(text.getBytes());
+                } catch (final IOException e) {
+                    throw new AssertionError(e);
+                }
+            }
+        };
+        thread.start();
+        thread.join();
+    }
 }
@@ -54,6 +54,26 @@ public abstract class AbstractLoggerWriterTest extends AbstractStreamTest {
         }
     }
 
+    @Test
+    public void testClose_HasRemainingDataOfOtherThread() throws Exception {
+        this.writer.write(FIRST);
+        write(LAST);
+        assertMessages();
+        this.writer.close();
+        assertMessages(FIRST, LAST);
+    }
+
+    @Test
+    public void testWrite_LogsRemainingDataOfTerminatedThread() throws Exception {
+        write(LAST);
+        assertMessages();
+        // logged when the next thread starts writing
+        this.writer.write(FIRST);
+        assertMessages(LAST);
+        this.writer.close();
+        assertMessages(LAST, FIRST);
+    }
+
     @Test
     public void testClose_NoRemainingData() throws IOException {
         this.writer.close();
@@ -139,4 +159,28 @@ public abstract class AbstractLoggerWriterTest extends AbstractStreamTest {
             assertEquals(FIRST + '\n' + LAST + '\n', this.wrapped.toString());
         }
     }
+
+    @Test
+    public void testWrite_SeparatesLinesOfThreads() throws Exception {
+        this.writer.write(FIRST);
+        write(LAST + '\n');
+        assertMessages(LAST);
+        this.writer.write('\n');
+        assertMessages(LAST, FIRST);
+    }
+
+    private void write(final String text) throws InterruptedException {
+        final Thread thread = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    AbstractLoggerWriterTest.this.writer.write(text);
+                } catch (final IOException e) {
+                    throw new AssertionError(e);
+                }
+            }
+        };
+        thread.start();
+        thread.join();
+    }
 }
@@ -107,24 +107,38 @@ public class ApiLogger extends Logger {
         throw new UnsupportedOperationException("Cannot set parent logger");
     }
 
+    /**
+     * Synchronizes the JUL level of this Logger with the level of the underlying Log4j Logger.
+     */
+    void updateLevel() {
+        super.setLevel(LevelTranslator.toJavaLevel(logger.getLevel()));
+    }
+
+    // The JUL convenience methods pass their arguments to Log4j without creating a LogRecord, so that calls below
+    // the Log4j level only cost the level check.
+
     @Override
     public void log(final Level level, final String msg) {
-        logger.log(LevelTranslator.toLevel(level), msg);
+        logger.logIfEnabled(FQCN, LevelTranslator.toLevel(level), null, msg);
     }
 
     @Override
     public void log(final Level level, final String msg, final Object param1) {
-        logger.log(LevelTranslator.toLevel(level), msg, param1);
+        final org.apache.logging.log4j.Level log4jLevel = LevelTranslator.toLevel(level);
+        // the parameter is passed to the filters, the message is only created if enabled
+        if (logger.isEnabled(log4jLevel, null, msg, param1)) {
+            logger.logMessage(FQCN, log4jLevel, null, logger.getMessageFactory().newMessage(msg, param1), null);
+        }
     }
 
     @Override
     public void log(final Level level, final String msg, final Object[] params) {
-        logger.log(LevelTranslator.toLevel(level), msg, params);
+        logger.logIfEnabled(FQCN, LevelTranslator.toLevel(level), null, msg, params);
     }
 
     @Override
     public void log(final Level level, final String msg, final Throwable thrown) {
-        logger.log(LevelTranslator.toLevel(level), msg, thrown);
+        logger.logIfEnabled(FQCN, LevelTranslator.toLevel(level), null, msg, thrown);
     }
 
     @Override
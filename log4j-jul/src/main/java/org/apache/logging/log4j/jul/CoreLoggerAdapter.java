@@ -17,6 +17,13 @@
 
 package org.apache.logging.log4j.jul;
 
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.logging.Logger;
 
 import org.apache.logging.log4j.message.MessageFactory;
@@ -32,9 +39,56 @@ public class CoreLoggerAdapter extends AbstractLoggerAdapter {
 
     private static final MessageFactory MESSAGE_FACTORY = new MessageFormatMessageFactory();
 
+    /** The contexts whose configuration changes update the levels of the JUL Loggers. */
+    private final Set<LoggerContext> synchronizedContexts = Collections.newSetFromMap(
+            new WeakHashMap<LoggerContext, Boolean>());
+
     @Override
     protected Logger newLogger(final String name, final LoggerContext context) {
+        synchronizeLevels(context);
         return new CoreLogger((org.apache.logging.log4j.core.Logger) context.getLogger(name, MESSAGE_FACTORY));
     }
 
+    /**
+     * Registers a listener that updates the JUL levels of the Loggers of the context when its configuration changes
+     * or its Loggers are updated (for example by {@code Configurator.setLevel}), so that JUL's cached levels do not
+     * go stale.
+     */
+    private void synchronizeLevels(final LoggerContext context) {
+        if (!(context instanceof org.apache.logging.log4j.core.LoggerContext)) {
+            return;
+        }
+        synchronized (synchronizedContexts) {
+            if (!synchronizedContexts.add(context)) {
+                return;
+            }
+        }
+        ((org.apache.logging.log4j.core.LoggerContext) context).addPropertyChangeListener(
+                new LevelSynchronizer(getLoggersInContext(context)));
+    }
+
+    /**
+     * Updates the JUL levels of the Loggers of a context after its configuration has changed or its Loggers have been
+     * updated.
+     */
+    private static final class LevelSynchronizer implements PropertyChangeListener {
+
+        private final Map<String, Logger> loggers;
+
+        LevelSynchronizer(final ConcurrentMap<String, Logger> loggers) {
+            this.loggers = loggers;
+        }
+
+        @Override
+        public void propertyChange(final PropertyChangeEvent event) {
+            final String property = event.getPropertyName();
+            if (org.apache.logging.log4j.core.LoggerContext.PROPERTY_CONFIG.equals(property)
+                    || org.apache.logging.log4j.core.LoggerContext.PROPERTY_LOGGERS.equals(property)) {
+                for (final Logger logger : loggers.values()) {
+                    ((ApiLogger) logger).updateLevel();
+                }
+            }
+        }
+    }
+
 }
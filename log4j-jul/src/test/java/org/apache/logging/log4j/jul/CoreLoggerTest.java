@@ -25,6 +25,9 @@ import static org.junit.Assert.assertThat;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import org.apache.logging.log4j.core.LoggerContext;
+import org.apache.logging.log4j.core.config.Configurator;
+import org.apache.logging.log4j.core.config.DefaultConfiguration;
 import org.apache.logging.log4j.test.appender.ListAppender;
 import org.apache.logging.log4j.util.Strings;
 import org.junit.After;
@@ -118,4 +121,34 @@ public class CoreLoggerTest extends AbstractLoggerTest {
         assertThat(childLogger.isLoggable(Level.FINE), is(false));
     }
 
+    @Test
+    public void testLevelFollowsReconfiguration() throws Exception {
+        final Logger childLogger = Logger.getLogger(LOGGER_NAME + ".ReconfiguredChild");
+        assertThat(childLogger.getLevel(), equalTo(Level.FINE));
+        final LoggerContext context = (LoggerContext) org.apache.logging.log4j.LogManager.getContext(false);
+        context.start(new DefaultConfiguration());
+        try {
+            assertThat(childLogger.getLevel(), equalTo(Level.SEVERE));
+            assertThat(childLogger.isLoggable(Level.FINE), is(false));
+        } finally {
+            context.reconfigure();
+        }
+        assertThat(childLogger.getLevel(), equalTo(Level.FINE));
+    }
+
+    @Test
+    public void testLevelFollowsConfiguratorSetLevel() throws Exception {
+        final String name = LOGGER_NAME + ".SetLevelChild";
+        final Logger childLogger = Logger.getLogger(name);
+        assertThat(childLogger.getLevel(), equalTo(Level.FINE));
+        try {
+            Configurator.setLevel(name, org.apache.logging.log4j.Level.ERROR);
+            assertThat(childLogger.getLevel(), equalTo(Level.SEVERE));
+            assertThat(childLogger.isLoggable(Level.FINE), is(false));
+        } finally {
+            ((LoggerContext) org.apache.logging.log4j.LogManager.getContext(false)).reconfigure();
+        }
+        assertThat(childLogger.getLevel(), equalTo(Level.FINE));
+    }
+
 }
\ No newline at end of file
@@ -21,8 +21,10 @@ import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.LockSupport;
 
 import org.apache.logging.log4j.core.util.CachedClock;
+import org.apache.logging.log4j.core.util.CalibratedClock;
 import org.apache.logging.log4j.core.util.Clock;
 import org.apache.logging.log4j.core.util.CoarseCachedClock;
+import org.apache.logging.log4j.core.util.PreciseClock;
 import org.apache.logging.log4j.core.util.SystemClock;
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.BenchmarkMode;
@@ -56,6 +58,7 @@ public class ClocksBenchmark {
     Clock coarseCachedClock;
     Clock fixedClock;
     Clock fixedFinalClock;
+    PreciseClock calibratedClock;
 
     @Setup(Level.Trial)
     public void up() {
@@ -64,6 +67,7 @@ public class ClocksBenchmark {
         coarseCachedClock = CoarseCachedClock.instance();
         fixedClock = new FixedTimeClock(System.nanoTime());
         fixedFinalClock = new FixedFinalTimeClock(System.nanoTime());
+        calibratedClock = new CalibratedClock();
     }
 
     @Benchmark
@@ -107,6 +111,27 @@ public class ClocksBenchmark {
         return coarseCachedClock.currentTimeMillis();
     }
 
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public long systemNanoTime() {
+        return System.nanoTime();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public long calibratedClock() {
+        return calibratedClock.currentTimeMillis();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public long calibratedClockNanos() {
+        return calibratedClock.currentTimeNanos();
+    }
+
     @Benchmark
     @BenchmarkMode(Mode.SampleTime)
     @OutputTimeUnit(TimeUnit.NANOSECONDS)
@@ -0,0 +1,66 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache license, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the license for the specific language governing permissions and
+ * limitations under the license.
+ */
+package org.apache.logging.log4j.perf.jmh;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.core.LoggerContext;
+import org.apache.logging.log4j.core.selector.BasicContextSelector;
+import org.apache.logging.log4j.core.selector.ClassLoaderContextSelector;
+import org.apache.logging.log4j.core.selector.ContextSelector;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+/**
+ * Benchmarks concurrent LoggerContext resolution without a ClassLoader, as done by {@code LogManager.getLogger(String)},
+ * with the BasicContextSelector and with the ClassLoaderContextSelector, which walks the stack to find the caller class.
+ */
+// HOW TO RUN THIS TEST
+// java -jar log4j-perf/target/benchmarks.jar ".*ContextSelectorBenchmark.*" -f 1 -i 5 -wi 5
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Threads(4)
+public class ContextSelectorBenchmark {
+
+    private static final String FQCN = ContextSelectorBenchmark.class.getName();
+
+    private ContextSelector basicSelector;
+    private ContextSelector classLoaderSelector;
+
+    @Setup
+    public void setUp() {
+        basicSelector = new BasicContextSelector();
+        classLoaderSelector = new ClassLoaderContextSelector();
+    }
+
+    @Benchmark
+    public LoggerContext basicContextSelector() {
+        return basicSelector.getContext(FQCN, null, false);
+    }
+
+    @Benchmark
+    public LoggerContext classLoaderContextSelector() {
+        return classLoaderSelector.getContext(FQCN, null, false);
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache license, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the license for the specific language governing permissions and
+ * limitations under the license.
+ */
+package org.apache.logging.log4j.perf.jmh;
+
+import java.io.IOException;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.core.net.DatagramChannelOutputStream;
+import org.apache.logging.log4j.core.net.DatagramOutputStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Benchmarks sending a syslog-sized datagram per event with the DatagramOutputStream and with the
+ * DatagramChannelOutputStream, sending from the calling thread and from a background thread.
+ */
+// HOW TO RUN THIS TEST
+// java -jar log4j-perf/target/benchmarks.jar ".*DatagramBenchmark.*" -f 1 -i 5 -wi 5
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DatagramBenchmark {
+
+    private static final byte[] MESSAGE = ("<134>1 2016-03-01T12:00:00.000Z host app - - - "
+            + "Test message with some text to make it look like a typical log message").getBytes(StandardCharsets.UTF_8);
+
+    private DatagramSocket receiver;
+    private DatagramOutputStream socketStream;
+    private DatagramChannelOutputStream channelStream;
+    private DatagramChannelOutputStream queuedChannelStream;
+
+    @Setup
+    public void setUp() throws IOException {
+        // bound but never read, the kernel discards what does not fit in its buffer
+        receiver = new DatagramSocket(0, InetAddress.getByName("localhost"));
+        final int port = receiver.getLocalPort();
+        socketStream = new DatagramOutputStream("localhost", port, null, null);
+        channelStream = new DatagramChannelOutputStream("localhost", port, null, null);
+        queuedChannelStream = new DatagramChannelOutputStream("localhost", port, null, null, 1024, false);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        socketStream.close();
+        channelStream.close();
+        queuedChannelStream.close();
+        receiver.close();
+    }
+
+    @Benchmark
+    public void datagramSocket() throws IOException {
+        socketStream.write(MESSAGE, 0, MESSAGE.length);
+        socketStream.flush();
+    }
+
+    @Benchmark
+    public void datagramChannel() throws IOException {
+        channelStream.write(MESSAGE, 0, MESSAGE.length);
+        channelStream.flush();
+    }
+
+    @Benchmark
+    public long queuedDatagramChannel() throws IOException {
+        queuedChannelStream.write(MESSAGE, 0, MESSAGE.length);
+        queuedChannelStream.flush();
+        return queuedChannelStream.getDroppedCount();
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache license, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the license for the specific language governing permissions and
+ * limitations under the license.
+ */
+
+package org.apache.logging.log4j.perf.jmh;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.core.LifeCycle;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+
+/**
+ * Multi-threaded variant of {@link FileAppenderBenchmark}: compares the synchronized RandomAccessFileAppender with
+ * the RandomAccessFileAppender using {@code concurrentWrites="true"} for 1 to 32 threads logging to the same file.
+ */
+// HOW TO RUN THIS TEST
+// java -jar target/benchmarks.jar ".*FileAppenderThreadsBenchmark.*" -f 1 -i 5 -wi 5
+@State(Scope.Benchmark)
+public class FileAppenderThreadsBenchmark {
+    Logger rafLogger;
+    Logger concurrentLogger;
+
+    @Setup
+    public void setUp() {
+        System.setProperty("log4j.configurationFile", "log4j2-perf-threads.xml");
+        deleteLogFiles();
+        rafLogger = LogManager.getLogger("TestRandom");
+        concurrentLogger = LogManager.getLogger("TestConcurrentRandom");
+    }
+
+    @TearDown
+    public void tearDown() {
+        ((LifeCycle) LogManager.getContext(false)).stop();
+        System.clearProperty("log4j.configurationFile");
+        deleteLogFiles();
+    }
+
+    private void deleteLogFiles() {
+        new File("target/testRandomlog4j2.log").delete();
+        new File("target/testConcurrentRandomlog4j2.log").delete();
+    }
+
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Threads(1)
+    @Benchmark
+    public void raf1Threads() {
+        rafLogger.debug("This is a debug [{}] message", 42);
+    }
+
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Threads(1)
+    @Benchmark
+    public void rafConcurrent1Threads() {
+        concurrentLogger.debug("This is a debug [{}] message", 42);
+    }
+
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Threads(2)
+    @Benchmark
+    public void raf2Threads() {
+        rafLogger.debug("This is a debug [{}] message", 42);
+    }
+
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Threads(2)
+    @Benchmark
+    public void rafConcurrent2Threads() {
+        concurrentLogger.debug("This is a debug [{}] message", 42);
+    }
+
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Threads(4)
+    @Benchmark
+    public void raf4Threads() {
+        rafLogger.debug("This is a debug [{}] message", 42);
+    }
+
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Threads(4)
+    @Benchmark
+    public void rafConcurrent4Threads() {
+        concurrentLogger.debug("This is a debug [{}] message", 42);
+    }
+
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Threads(8)
+    @Benchmark
+    public void raf8Threads() {
+        rafLogger.debug("This is a debug [{}] message", 42);
+    }
+
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Threads(8)
+    @Benchmark
+    public void rafConcurrent8Threads() {
+        concurrentLogger.debug("This is a debug [{}] message", 42);
+    }
+
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Threads(16)
+    @Benchmark
+    public void raf16Threads() {
+        rafLogger.debug("This is a debug [{}] message", 42);
+    }
+
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Threads(16)
+    @Benchmark
+    public void rafConcurrent16Threads() {
+        concurrentLogger.debug("This is a debug [{}] message", 42);
+    }
+
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Threads(32)
+    @Benchmark
+    public void raf32Threads() {
+        rafLogger.debug("This is a debug [{}] message", 42);
+    }
+
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Threads(32)
+    @Benchmark
+    public void rafConcurrent32Threads() {
+        concurrentLogger.debug("This is a debug [{}] message", 42);
+    }
+}
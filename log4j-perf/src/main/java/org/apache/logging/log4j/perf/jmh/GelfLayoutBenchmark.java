@@ -0,0 +1,102 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache license, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the license for the specific language governing permissions and
+ * limitations under the license.
+ */
+
+package org.apache.logging.log4j.perf.jmh;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.impl.Log4jLogEvent;
+import org.apache.logging.log4j.core.layout.GelfLayout;
+import org.apache.logging.log4j.core.layout.GelfLayout.CompressionType;
+import org.apache.logging.log4j.core.util.KeyValuePair;
+import org.apache.logging.log4j.message.SimpleMessage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Tests GelfLayout performance with compressed and uncompressed output.
+ */
+// ============================== HOW TO RUN THIS TEST: ====================================
+//
+// single thread:
+// java -jar log4j-perf/target/benchmarks.jar ".*GelfLayoutBenchmark.*" -f 1 -wi 5 -i 10
+//
+// multiple threads (for example, 4 threads):
+// java -jar log4j-perf/target/benchmarks.jar ".*GelfLayoutBenchmark.*" -f 1 -wi 5 -i 10 -t 4 -si true
+//
+// Usage help:
+// java -jar log4j-perf/target/benchmarks.jar -help
+//
+@State(Scope.Benchmark)
+public class GelfLayoutBenchmark {
+
+    private static final KeyValuePair[] ADDITIONAL_FIELDS = { new KeyValuePair("environment", "production"),
+            new KeyValuePair("application", "benchmark") };
+    private static final LogEvent SMALL_EVENT = createLogEvent(1);
+    private static final LogEvent LARGE_EVENT = createLogEvent(64);
+
+    private final GelfLayout uncompressed = GelfLayout.createLayout("benchmark-host", ADDITIONAL_FIELDS,
+            CompressionType.OFF, 1024);
+    private final GelfLayout gzip = GelfLayout.createLayout("benchmark-host", ADDITIONAL_FIELDS,
+            CompressionType.GZIP, 1024);
+    private final GelfLayout zlib = GelfLayout.createLayout("benchmark-host", ADDITIONAL_FIELDS,
+            CompressionType.ZLIB, 1024);
+
+    private static LogEvent createLogEvent(final int lines) {
+        final StringBuilder message = new StringBuilder();
+        for (int i = 0; i < lines; i++) {
+            message.append("This is line ").append(i).append(" of a benchmark message with \"quotes\".\n");
+        }
+        return Log4jLogEvent.newBuilder().setLoggerName("com.mycom.myproject.mypackage.MyClass")
+                .setLevel(Level.INFO).setMessage(new SimpleMessage(message.toString())).setThreadName("main")
+                .setTimeMillis(System.currentTimeMillis()).build();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public byte[] smallUncompressed() {
+        return uncompressed.toByteArray(SMALL_EVENT);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public byte[] largeUncompressed() {
+        return uncompressed.toByteArray(LARGE_EVENT);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public byte[] largeGzip() {
+        return gzip.toByteArray(LARGE_EVENT);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public byte[] largeZlib() {
+        return zlib.toByteArray(LARGE_EVENT);
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache license, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the license for the specific language governing permissions and
+ * limitations under the license.
+ */
+package org.apache.logging.log4j.perf.jmh;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.jcl.LogAdapter;
+import org.apache.logging.log4j.jul.CoreLoggerAdapter;
+import org.apache.logging.log4j.spi.AbstractLoggerAdapter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+
+/**
+ * Benchmarks concurrent getLogger calls on the Commons Logging and java.util.logging bridge registries, with and
+ * without the LoggerContext cache of {@link AbstractLoggerAdapter}.
+ * <p>
+ * The SLF4J binding is not benchmarked because this module binds SLF4J to Logback; its Log4jLoggerFactory uses the
+ * same registry.
+ * </p>
+ */
+// HOW TO RUN THIS TEST
+// java -jar log4j-perf/target/benchmarks.jar ".*LoggerAdapterBenchmark.*" -f 1 -i 5 -wi 5
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Threads(4)
+public class LoggerAdapterBenchmark {
+
+    private static final int NAME_COUNT = 1024;
+
+    @Param({"false", "true"})
+    public boolean cacheContexts;
+
+    private String[] names;
+    private LogAdapter jclAdapter;
+    private CoreLoggerAdapter julAdapter;
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int index;
+
+        String next(final String[] names) {
+            return names[index++ & (NAME_COUNT - 1)];
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        System.setProperty(AbstractLoggerAdapter.CACHE_CONTEXTS_PROPERTY, Boolean.toString(cacheContexts));
+        names = new String[NAME_COUNT];
+        for (int i = 0; i < NAME_COUNT; i++) {
+            names[i] = "org.example.p" + i % 16 + ".Class" + i;
+        }
+        jclAdapter = new LogAdapter();
+        julAdapter = new CoreLoggerAdapter();
+    }
+
+    @TearDown
+    public void tearDown() {
+        jclAdapter.close();
+        julAdapter.close();
+        System.clearProperty(AbstractLoggerAdapter.CACHE_CONTEXTS_PROPERTY);
+    }
+
+    @Benchmark
+    public Object jclGetLogger(final Cursor cursor) {
+        return jclAdapter.getLogger(cursor.next(names));
+    }
+
+    @Benchmark
+    public Object julGetLogger(final Cursor cursor) {
+        return julAdapter.getLogger(cursor.next(names));
+    }
+}
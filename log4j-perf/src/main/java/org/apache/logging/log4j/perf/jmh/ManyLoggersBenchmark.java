@@ -0,0 +1,119 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache license, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the license for the specific language governing permissions and
+ * limitations under the license.
+ */
+package org.apache.logging.log4j.perf.jmh;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.core.Filter;
+import org.apache.logging.log4j.core.Logger;
+import org.apache.logging.log4j.core.LoggerContext;
+import org.apache.logging.log4j.core.config.Configuration;
+import org.apache.logging.log4j.core.config.DefaultConfiguration;
+import org.apache.logging.log4j.core.filter.ThresholdFilter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Benchmarks level checks and reconfiguration of a context with 100,000 loggers and a configuration-wide filter that
+ * cannot accept events, so that disabled levels are rejected without consulting the filter.
+ */
+// HOW TO RUN THIS TEST
+// java -jar log4j-perf/target/benchmarks.jar ".*ManyLoggersBenchmark.*" -f 1 -i 5 -wi 5
+@State(Scope.Benchmark)
+public class ManyLoggersBenchmark {
+
+    private static final int LOGGER_COUNT = 100 * 1000;
+    private static final int PACKAGE_COUNT = 1000;
+
+    private LoggerContext context;
+    private Logger[] loggers;
+    private Configuration[] configurations;
+    private int configurationIndex;
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int index;
+    }
+
+    @Setup
+    public void setUp() {
+        configurations = new Configuration[] {createConfiguration(), createConfiguration()};
+        context = new LoggerContext("ManyLoggersBenchmark");
+        context.start(configurations[0]);
+        loggers = new Logger[LOGGER_COUNT];
+        for (int i = 0; i < LOGGER_COUNT; i++) {
+            loggers[i] = context.getLogger("org.example.p" + i % PACKAGE_COUNT + ".Class" + i);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.stop();
+    }
+
+    private static Configuration createConfiguration() {
+        final DefaultConfiguration config = new DefaultConfiguration();
+        config.addFilter(ThresholdFilter.createFilter(Level.WARN, Filter.Result.NEUTRAL, Filter.Result.DENY));
+        return config;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public boolean isDebugEnabled(final Cursor cursor) {
+        final int index = cursor.index;
+        cursor.index = index + 1 == LOGGER_COUNT ? 0 : index + 1;
+        return loggers[index].isDebugEnabled();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public boolean isErrorEnabled(final Cursor cursor) {
+        final int index = cursor.index;
+        cursor.index = index + 1 == LOGGER_COUNT ? 0 : index + 1;
+        return loggers[index].isErrorEnabled();
+    }
+
+    /**
+     * Updates the loggers against the current configuration, which leaves them unchanged.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public void updateLoggersUnchanged() {
+        context.updateLoggers();
+    }
+
+    /**
+     * Updates the loggers against another configuration, which rebuilds the settings of every logger.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public void updateLoggersNewConfiguration() {
+        configurationIndex ^= 1;
+        context.updateLoggers(configurations[configurationIndex]);
+    }
+}
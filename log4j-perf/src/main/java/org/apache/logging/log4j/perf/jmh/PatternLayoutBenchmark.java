@@ -26,7 +26,9 @@ import org.apache.logging.log4j.Marker;
 import org.apache.logging.log4j.ThreadContext.ContextStack;
 import org.apache.logging.log4j.core.LogEvent;
 import org.apache.logging.log4j.core.impl.Log4jLogEvent;
+import org.apache.logging.log4j.core.layout.MarkerPatternSelector;
 import org.apache.logging.log4j.core.layout.PatternLayout;
+import org.apache.logging.log4j.core.layout.PatternMatch;
 import org.apache.logging.log4j.message.Message;
 import org.apache.logging.log4j.message.SimpleMessage;
 import org.openjdk.jmh.annotations.Benchmark;
@@ -72,6 +74,10 @@ public class PatternLayoutBenchmark {
     private final PatternLayout PATTERN_M_EX = PatternLayout.createLayout("%m %ex%n", null, null, null, CHARSET_DEFAULT, false, true, null, null);
     private final PatternLayout PATTERN_M_D_EX = PatternLayout.createLayout("%d %m%ex%n", null, null, null, CHARSET_DEFAULT, false, true, null, null);
     private final PatternLayout PATTERN_M_C_D_EX = PatternLayout.createLayout("%d %c %m%ex%n", null, null, null, CHARSET_DEFAULT, false, true, null, null);
+    private final PatternLayout PATTERN_PADDED = PatternLayout.createLayout("%d %-5p [%t] %c{1} - %m%n", null, null, null, CHARSET_DEFAULT, false, true, null, null);
+    private final PatternLayout SELECTOR_PADDED = PatternLayout.newBuilder().withPatternSelector(
+            MarkerPatternSelector.createSelector(new PatternMatch[] { new PatternMatch("FLOW", "%d %-5p [%t] %c{1} - %m%n") },
+                    "%d %-5p [%t] %c{1} - %m%n", false, true, null)).withCharset(CHARSET_DEFAULT).build();
 
     private static LogEvent createLogEvent() {
         final Marker marker = null;
@@ -276,4 +282,18 @@ public class PatternLayoutBenchmark {
         return PATTERN_M_C_NOSPACE.toSerializable(EVENT);
     }
 
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public String serializablePadded() {
+        return PATTERN_PADDED.toSerializable(EVENT);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public String serializablePaddedSelector() {
+        return SELECTOR_PADDED.toSerializable(EVENT);
+    }
+
 }
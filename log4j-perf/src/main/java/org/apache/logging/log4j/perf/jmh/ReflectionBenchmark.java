@@ -20,6 +20,7 @@ import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.util.Random;
 
+import org.apache.logging.log4j.core.impl.LocationResolver;
 import org.apache.logging.log4j.message.Message;
 import org.apache.logging.log4j.message.StringFormattedMessage;
 import org.apache.logging.log4j.util.ReflectionUtil;
@@ -32,7 +33,7 @@ import sun.reflect.Reflection;
 
 /**
  * <p>
- * Benchmarks the different ways the caller class can be obtained. To run this in sampling mode (latency test):
+ * Benchmarks the different ways the caller class and caller location can be obtained. To run this in sampling mode (latency test):
  * </p>
  *
  * <pre>
@@ -142,4 +143,24 @@ public class ReflectionBenchmark {
         return classContextManager.getClassContext();
     }
 
+    @Benchmark
+    public StackTraceElement test13_getLocationFromFullStackTrace() {
+        final String fqcn = ReflectionBenchmark.class.getName();
+        final StackTraceElement[] stackTrace = new Throwable().getStackTrace();
+        StackTraceElement last = null;
+        for (int i = stackTrace.length - 1; i > 0; i--) {
+            if (fqcn.equals(stackTrace[i].getClassName())) {
+                return last;
+            }
+            last = stackTrace[i];
+        }
+        return null;
+    }
+
+    @Benchmark
+    public Throwable test14_captureLocationToken() {
+        // the part of the location lookup that remains on the logging thread when resolving in the background
+        return LocationResolver.capture();
+    }
+
 }
@@ -23,6 +23,7 @@ import java.util.Calendar;
 import java.util.Date;
 import java.util.concurrent.TimeUnit;
 
+import org.apache.logging.log4j.core.pattern.DatePatternConverter;
 import org.apache.logging.log4j.core.util.datetime.FixedDateFormat;
 import org.apache.logging.log4j.core.util.datetime.FastDateFormat;
 import org.openjdk.jmh.annotations.Benchmark;
@@ -31,6 +32,7 @@ import org.openjdk.jmh.annotations.Mode;
 import org.openjdk.jmh.annotations.OutputTimeUnit;
 import org.openjdk.jmh.annotations.Scope;
 import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
 
 /**
  * Tests performance of various time format implementation.
@@ -43,6 +45,9 @@ import org.openjdk.jmh.annotations.State;
 // multiple threads (for example, 4 threads):
 // java -jar log4j-perf/target/benchmarks.jar ".*TimeFormat.*" -f 1 -wi 5 -i 5 -t 4 -si true
 //
+// the datePatternConverter*Threads benchmarks always run with the number of threads in their name:
+// java -jar log4j-perf/target/benchmarks.jar ".*TimeFormat.*datePatternConverter.*" -f 1 -wi 5 -i 5
+//
 // Usage help:
 // java -jar log4j-perf/target/benchmarks.jar -help
 //
@@ -57,6 +62,8 @@ public class TimeFormatBenchmark {
     };
     FastDateFormat fastDateFormat = FastDateFormat.getInstance("HH:mm:ss.SSS");
     FixedDateFormat fixedDateFormat = FixedDateFormat.createIfSupported(new String[]{"ABSOLUTE"});
+    DatePatternConverter fixedPatternConverter = DatePatternConverter.newInstance(new String[]{"ABSOLUTE"});
+    DatePatternConverter customPatternConverter = DatePatternConverter.newInstance(new String[]{"HH:mm:ss.SSS"});
     volatile long midnightToday = 0;
     volatile long midnightTomorrow = 0;
 
@@ -146,6 +153,64 @@ public class TimeFormatBenchmark {
         return new String(state.stringBuilder);
     }
 
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public int datePatternConverterFixed(final BufferState state) {
+        return formatFixed(state);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @Threads(4)
+    public int datePatternConverterFixed4Threads(final BufferState state) {
+        return formatFixed(state);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @Threads(16)
+    public int datePatternConverterFixed16Threads(final BufferState state) {
+        return formatFixed(state);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public int datePatternConverterCustom(final BufferState state) {
+        return formatCustom(state);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @Threads(4)
+    public int datePatternConverterCustom4Threads(final BufferState state) {
+        return formatCustom(state);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @Threads(16)
+    public int datePatternConverterCustom16Threads(final BufferState state) {
+        return formatCustom(state);
+    }
+
+    private int formatFixed(final BufferState state) {
+        state.stringBuilder.setLength(0);
+        fixedPatternConverter.format(System.currentTimeMillis(), state.stringBuilder);
+        return state.stringBuilder.length();
+    }
+
+    private int formatCustom(final BufferState state) {
+        state.stringBuilder.setLength(0);
+        customPatternConverter.format(System.currentTimeMillis(), state.stringBuilder);
+        return state.stringBuilder.length();
+    }
+
     int formatCharArrayBitFiddling(final long time, final char[] buffer, int pos) {
         // Calculate values by getting the ms values first and do then
         // shave off the hour minute and second values with multiplications